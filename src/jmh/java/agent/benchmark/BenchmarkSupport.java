@@ -0,0 +1,196 @@
+package agent.benchmark;
+
+import agent.browser.locator.core.ElementCandidate;
+import agent.feature.FeatureReader;
+import agent.planner.ActionPlan;
+import agent.planner.SmartStepParser;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shared helpers for the benchmark mains: the bundled feature steps as input,
+ * benchmark data files from the classpath (src/jmh/resources), synthetic DOM
+ * candidates, per-thread allocation counters and quiet logging while timing.
+ */
+final class BenchmarkSupport {
+
+    private static final String[] FILLER = {
+        "Home", "Menu", "Close", "Next", "Previous", "More info", "Settings", "Profile", "Help", "Cancel"
+    };
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Every step of every feature in the directory, in file order; null for
+     * the features bundled on the classpath (src/main/resources/features)
+     */
+    static List<String> loadSteps(String featuresDir) throws Exception {
+        File dir = featuresDir != null ? new File(featuresDir) : bundledFeatures();
+        File[] featureFiles = dir.listFiles((parent, name) -> name.endsWith(".feature"));
+        if (featureFiles == null) {
+            throw new IllegalArgumentException("No feature files found in: " + featuresDir);
+        }
+        Arrays.sort(featureFiles);
+        List<String> steps = new ArrayList<>();
+        for (File featureFile : featureFiles) {
+            steps.addAll(new FeatureReader().readFeature(featureFile.getPath()).getFlattenedSteps());
+        }
+        return steps;
+    }
+
+    private static File bundledFeatures() throws Exception {
+        URL url = BenchmarkSupport.class.getClassLoader().getResource("features");
+        if (url == null || !"file".equals(url.getProtocol())) {
+            throw new IllegalArgumentException("Bundled features are not a directory on the classpath; pass a features directory");
+        }
+        return new File(url.toURI());
+    }
+
+    /**
+     * Content of a classpath resource
+     */
+    static String resource(String name) throws Exception {
+        try (InputStream input = BenchmarkSupport.class.getClassLoader().getResourceAsStream(name)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing resource: " + name);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Lines of a classpath resource
+     */
+    static List<String> resourceLines(String name) throws Exception {
+        return resource(name).lines().collect(java.util.stream.Collectors.toList());
+    }
+
+    /**
+     * Bytes allocated so far by the calling thread
+     */
+    static long allocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Raise the "agent" loggers to WARN (parsers log every step at DEBUG/INFO)
+     * and return the previous level for restoreLogging
+     */
+    static Level quietLogging() {
+        Logger agent = (Logger) LoggerFactory.getLogger("agent");
+        Level previous = agent.getLevel();
+        agent.setLevel(Level.WARN);
+        return previous;
+    }
+
+    static void restoreLogging(Level previous) {
+        ((Logger) LoggerFactory.getLogger("agent")).setLevel(previous);
+    }
+
+    /**
+     * Element name and SmartLocator type ("input", "click", "check", ...) of
+     * every parsed step that targets an element, as {name, type} pairs
+     */
+    static List<String[]> targets(List<String> steps) {
+        SmartStepParser parser = new SmartStepParser();
+        List<String[]> targets = new ArrayList<>();
+        for (String step : steps) {
+            ActionPlan plan = parser.parseStep(step);
+            String name = plan.getElementName();
+            if (name != null && !name.trim().isEmpty()) {
+                targets.add(new String[] {name, locatorType(plan.getActionType())});
+            }
+        }
+        return targets;
+    }
+
+    private static String locatorType(String actionType) {
+        switch (actionType) {
+            case "fill":
+            case "clear":
+                return "input";
+            case "check":
+            case "uncheck":
+            case "radio":
+                return "check";
+            case "select":
+            case "slider":
+                return actionType;
+            default:
+                return "click";
+        }
+    }
+
+    /**
+     * A page-like mix of buttons, links, inputs, checkboxes, labels and
+     * containers; about one in ten is named after a corpus target
+     */
+    static List<ElementCandidate> candidates(int count, List<String[]> targets, long seed) {
+        Random random = new Random(seed);
+        List<ElementCandidate> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = random.nextInt(10) == 0
+                ? targets.get(random.nextInt(targets.size()))[0]
+                : FILLER[random.nextInt(FILLER.length)] + " " + i;
+            ElementCandidate el = new ElementCandidate();
+            el.visible = random.nextInt(4) != 0;
+            switch (random.nextInt(6)) {
+                case 0:
+                    el.tag = "button";
+                    el.text = name;
+                    el.className = "btn btn-primary";
+                    break;
+                case 1:
+                    el.tag = "a";
+                    el.text = name;
+                    el.title = name;
+                    break;
+                case 2:
+                    el.tag = "input";
+                    el.type = "text";
+                    el.id = name.toLowerCase().replace(' ', '-');
+                    el.name = el.id;
+                    el.placeholder = "Enter " + name;
+                    break;
+                case 3:
+                    el.tag = "input";
+                    el.type = random.nextBoolean() ? "checkbox" : "radio";
+                    el.id = name.toLowerCase().replace(' ', '_');
+                    el.label = name;
+                    break;
+                case 4:
+                    el.tag = "label";
+                    el.text = name;
+                    el.forAttr = name.toLowerCase().replace(' ', '-');
+                    break;
+                default:
+                    // Containers carry the text of their children
+                    el.tag = "div";
+                    el.className = "card";
+                    StringBuilder text = new StringBuilder(name);
+                    for (int words = random.nextInt(40); words > 0; words--) {
+                        text.append(' ').append(FILLER[random.nextInt(FILLER.length)]);
+                    }
+                    el.text = text.toString();
+                    break;
+            }
+            candidates.add(el);
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,268 @@
+package agent.benchmark;
+
+import agent.browser.locator.core.CandidateIndex;
+import agent.browser.locator.core.CandidateScorer;
+import agent.browser.locator.core.ElementCandidate;
+import agent.browser.locator.core.ScoringQuery;
+import agent.utils.LoggerUtil;
+import ch.qos.logback.classic.Level;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks and times CandidateIndex shortlists against scoring every candidate.
+ *
+ * Synthetic pages (BenchmarkSupport.candidates) are seeded with near misses
+ * for the corpus targets: names with a few edits, case and Unicode case
+ * variants, titles and labels that are pieces of the name, texts that differ
+ * only in whitespace, giant containers, and sliders, progress bars and search
+ * fields that carry no name at all. For every target (with its own type and
+ * with others), and for visible-only and all candidates, the best candidate
+ * of the shortlist must be the very element a full scoring pass picks, with
+ * the same score. Then a full pass is timed against an index lookup, and the
+ * index's own cost is reported: building it for a document and adding the
+ * records of an epoch in which 1% of them changed.
+ *
+ * Usage: CandidateIndexBenchmark [featuresDir] [pageSize]
+ *   featuresDir defaults to the bundled features, "-" keeps that default
+ */
+public class CandidateIndexBenchmark {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(CandidateIndexBenchmark.class);
+
+    private static final String[] TYPES = {"click", "input", "check", "select", "slider", "progressbar", "link", null};
+    private static final String ODD_CHARS = "Kſıİé  \t\n";
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        int pageSize = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        logger.header("CANDIDATE INDEX BENCHMARK");
+        Level previous = BenchmarkSupport.quietLogging();
+        List<String[]> targets;
+        try {
+            targets = BenchmarkSupport.targets(new ArrayList<>(new LinkedHashSet<>(BenchmarkSupport.loadSteps(featuresDir))));
+        } finally {
+            BenchmarkSupport.restoreLogging(previous);
+        }
+        Random random = new Random(11L);
+        List<ElementCandidate> page = page(pageSize, targets, random);
+        List<ElementCandidate> visible = new ArrayList<>();
+        for (ElementCandidate el : page) {
+            if (el.visible) visible.add(el);
+        }
+        CandidateScorer scorer = new CandidateScorer();
+        int[] order = order(page.size());
+        CandidateIndex index = index(page);
+        if (index == null) {
+            logger.failure("No index in this locale ({})", java.util.Locale.getDefault());
+            System.exit(1);
+        }
+
+        logger.info("   Candidates      : {} ({} visible)", page.size(), visible.size());
+        logger.info("   Targets         : {}", targets.size());
+
+        long lookups = 0;
+        long narrowed = 0;
+        long shortlisted = 0;
+        int mismatches = 0;
+        for (String[] target : targets) {
+            for (String type : new String[] {target[1], TYPES[random.nextInt(TYPES.length)]}) {
+                ScoringQuery query = ScoringQuery.of(target[0], type);
+                for (boolean includeHidden : new boolean[] {false, true}) {
+                    List<ElementCandidate> all = includeHidden ? page : visible;
+                    List<ElementCandidate> shortlist = index.shortlist(order, includeHidden, query, scorer);
+                    lookups++;
+                    if (shortlist == null) continue;
+                    narrowed++;
+                    shortlisted += shortlist.size();
+                    ElementCandidate expected = best(all, query, scorer);
+                    ElementCandidate actual = best(shortlist, query, scorer);
+                    if (expected != actual) {
+                        mismatches++;
+                        if (mismatches <= 20) {
+                            logger.failure("'{}' ({}{}): full scan picks {} ({}), shortlist picks {} ({})", target[0], type,
+                                includeHidden ? ", hidden" : "", describe(expected), score(expected, query, scorer),
+                                describe(actual), score(actual, query, scorer));
+                        }
+                    }
+                }
+            }
+        }
+        logger.info("   Lookups         : {} ({} narrowed, {} candidates scored on average)",
+            lookups, narrowed, narrowed == 0 ? 0 : shortlisted / narrowed);
+        logger.info("   Mismatches      : {}", mismatches);
+
+        // Fresh copies, so each pass pays for normalizing its candidates as a new snapshot would
+        long fullNanos = 0;
+        long buildNanos = 0;
+        long lookupNanos = 0;
+        long updateNanos = 0;
+        int timedRounds = 0;
+        for (int round = 0; round < 6; round++) {
+            List<ElementCandidate> fresh = page(pageSize, targets, new Random(11L));
+            long start = System.nanoTime();
+            for (String[] target : targets) {
+                best(fresh, ScoringQuery.of(target[0], target[1]), scorer);
+            }
+            long full = System.nanoTime() - start;
+
+            fresh = page(pageSize, targets, new Random(11L));
+            start = System.nanoTime();
+            CandidateIndex freshIndex = index(fresh);
+            long build = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (String[] target : targets) {
+                ScoringQuery query = ScoringQuery.of(target[0], target[1]);
+                List<ElementCandidate> shortlist = freshIndex.shortlist(order, true, query, scorer);
+                best(shortlist != null ? shortlist : fresh, query, scorer);
+            }
+            long lookup = System.nanoTime() - start;
+
+            // An epoch in which 1% of the records changed
+            List<ElementCandidate> changed = page(pageSize / 100, targets, new Random(round));
+            start = System.nanoTime();
+            for (int i = 0; i < changed.size(); i++) {
+                freshIndex.add(1 + random.nextInt(order.length), changed.get(i));
+            }
+            long update = System.nanoTime() - start;
+            // The first rounds warm up
+            if (round >= 2) {
+                fullNanos += full;
+                buildNanos += build;
+                lookupNanos += lookup;
+                updateNanos += update;
+                timedRounds++;
+            }
+        }
+        long timedLookups = (long) timedRounds * targets.size();
+        logger.info("   Full scoring    : {} us per lookup", String.format("%.1f", fullNanos / 1000.0 / timedLookups));
+        logger.info("   Index lookup    : {} us per lookup", String.format("%.1f", lookupNanos / 1000.0 / timedLookups));
+        logger.info("   Index build     : {} ms per document", String.format("%.2f", buildNanos / 1e6 / timedRounds));
+        logger.info("   Index update    : {} ms per 1% changed", String.format("%.2f", updateNanos / 1e6 / timedRounds));
+        logger.info("==================================================");
+
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    /**
+     * An index over the page with store ids 1..n in list order
+     */
+    private static CandidateIndex index(List<ElementCandidate> page) {
+        CandidateIndex index = CandidateIndex.create();
+        if (index != null) {
+            for (int i = 0; i < page.size(); i++) {
+                index.add(i + 1, page.get(i));
+            }
+        }
+        return index;
+    }
+
+    private static int[] order(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i + 1;
+        }
+        return order;
+    }
+
+    /**
+     * Synthetic candidates with near misses for some of the targets mixed in
+     */
+    private static List<ElementCandidate> page(int size, List<String[]> targets, Random random) {
+        List<ElementCandidate> page = BenchmarkSupport.candidates(size, targets, random.nextLong());
+        for (int i = 0; i < size / 10; i++) {
+            String name = targets.get(random.nextInt(targets.size()))[0].trim();
+            page.add(random.nextInt(page.size() + 1), nearMiss(name, random));
+        }
+        return page;
+    }
+
+    private static ElementCandidate nearMiss(String name, Random random) {
+        ElementCandidate el = new ElementCandidate();
+        el.visible = random.nextInt(3) != 0;
+        el.tag = new String[] {"button", "a", "input", "span", "div", "label"}[random.nextInt(6)];
+        String variant = switch (random.nextInt(8)) {
+            case 0 -> edit(name, 1 + random.nextInt(3), random);
+            case 1 -> name.toUpperCase();
+            case 2 -> name.replace('k', 'K').replace('s', 'ſ').replace('i', random.nextBoolean() ? 'ı' : 'İ');
+            case 3 -> name.replace(" ", random.nextBoolean() ? "  " : "\n ");
+            case 4 -> piece(name, random);
+            case 5 -> "Lorem ipsum " + name + " dolor sit amet ".repeat(1 + random.nextInt(20));
+            case 6 -> name + " " + edit(name, 1, random);
+            default -> "";
+        };
+        switch (random.nextInt(6)) {
+            case 0 -> el.text = variant;
+            case 1 -> el.id = variant;
+            case 2 -> el.title = variant;
+            case 3 -> el.label = variant;
+            case 4 -> el.placeholder = variant;
+            default -> el.name = variant;
+        }
+        switch (random.nextInt(6)) {
+            case 0 -> el.role = "slider";
+            case 1 -> el.type = "range";
+            case 2 -> el.role = "progressbar";
+            case 3 -> el.placeholder = "Search...";
+            case 4 -> el.className = "btn slider-progress";
+            default -> el.type = random.nextBoolean() ? "checkbox" : "text";
+        }
+        return el;
+    }
+
+    private static String edit(String s, int edits, Random random) {
+        StringBuilder text = new StringBuilder(s);
+        for (int i = 0; i < edits; i++) {
+            int at = random.nextInt(text.length() + 1);
+            char c = random.nextInt(4) == 0
+                ? ODD_CHARS.charAt(random.nextInt(ODD_CHARS.length()))
+                : (char) ('a' + random.nextInt(26));
+            switch (random.nextInt(3)) {
+                case 0 -> text.insert(at, c);
+                case 1 -> {
+                    if (at < text.length()) text.deleteCharAt(at);
+                }
+                default -> {
+                    if (at < text.length()) text.setCharAt(at, c);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static String piece(String s, Random random) {
+        int from = random.nextInt(s.length());
+        int to = from + 1 + random.nextInt(s.length() - from);
+        return s.substring(from, to);
+    }
+
+    /**
+     * As SmartLocator.findInContext picks: the first strictly best score above zero
+     */
+    private static ElementCandidate best(List<ElementCandidate> candidates, ScoringQuery query, CandidateScorer scorer) {
+        double bestScore = 0.0;
+        ElementCandidate best = null;
+        for (ElementCandidate el : candidates) {
+            double score = scorer.score(el, query);
+            if (score > bestScore) {
+                bestScore = score;
+                best = el;
+            }
+        }
+        return best;
+    }
+
+    private static double score(ElementCandidate el, ScoringQuery query, CandidateScorer scorer) {
+        return el == null ? 0.0 : scorer.score(el, query);
+    }
+
+    private static String describe(ElementCandidate el) {
+        if (el == null) return "nothing";
+        return el.tag + " text='" + el.text.substring(0, Math.min(30, el.text.length())) + "' id='" + el.id
+            + "' title='" + el.title + "' label='" + el.label + "'";
+    }
+}
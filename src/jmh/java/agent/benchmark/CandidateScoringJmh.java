@@ -0,0 +1,106 @@
+package agent.benchmark;
+
+import agent.browser.locator.core.CandidateScorer;
+import agent.browser.locator.core.ElementCandidate;
+import agent.browser.locator.core.ScoringQuery;
+import agent.utils.FuzzyMatch;
+import ch.qos.logback.classic.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Element resolution without a browser: one operation scores a whole
+ * synthetic candidate list against one corpus target and keeps the best, as
+ * SmartLocator does for every scan. The targets cycle through the element
+ * names the parser extracts from the bundled features. The list is reused
+ * across operations, as snapshot candidates are across attempts, so each
+ * candidate is normalized once and the query once per operation.
+ *
+ * fuzzyRatio measures a single FuzzyMatch.ratio call on target/candidate text
+ * pairs from the same lists, and fuzzyRatioAbove the thresholded check the
+ * scorer actually asks (ratio above 85) on the same pairs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandidateScoringJmh {
+
+    @Param({"100", "1000", "10000"})
+    public int candidates;
+
+    private String[][] targets;
+    private ElementCandidate[] elements;
+    private int nextTarget;
+    private int nextElement;
+    private CandidateScorer scorer;
+    private Level previousLevel;
+
+    @Setup
+    public void setUp() throws Exception {
+        previousLevel = BenchmarkSupport.quietLogging();
+        List<String[]> corpusTargets = BenchmarkSupport.targets(JmhCorpus.supportedSteps());
+        targets = corpusTargets.toArray(new String[0][]);
+        elements = BenchmarkSupport.candidates(candidates, corpusTargets, 42L).toArray(new ElementCandidate[0]);
+        scorer = new CandidateScorer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkSupport.restoreLogging(previousLevel);
+    }
+
+    private String[] nextTarget() {
+        String[] target = targets[nextTarget];
+        nextTarget = nextTarget + 1 == targets.length ? 0 : nextTarget + 1;
+        return target;
+    }
+
+    @Benchmark
+    public ElementCandidate scoreAll() {
+        String[] target = nextTarget();
+        double bestScore = 0.0;
+        ElementCandidate best = null;
+        ScoringQuery query = ScoringQuery.of(target[0], target[1]);
+        for (ElementCandidate el : elements) {
+            double score = scorer.score(el, query);
+            if (score > bestScore) {
+                bestScore = score;
+                best = el;
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public void fuzzyRatio(Blackhole blackhole) {
+        String target = nextTarget()[0];
+        ElementCandidate el = elements[nextElement];
+        nextElement = nextElement + 1 == elements.length ? 0 : nextElement + 1;
+        blackhole.consume(FuzzyMatch.ratio(target, el.text));
+    }
+
+    @Benchmark
+    public void fuzzyRatioAbove(Blackhole blackhole) {
+        String target = nextTarget()[0];
+        ElementCandidate el = elements[nextElement];
+        nextElement = nextElement + 1 == elements.length ? 0 : nextElement + 1;
+        blackhole.consume(FuzzyMatch.ratioAbove(target, el.text, 85));
+    }
+}
@@ -0,0 +1,167 @@
+package agent.benchmark;
+
+import agent.browser.locator.core.ElementCandidate;
+import agent.utils.FuzzyMatch;
+import agent.utils.LoggerUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks and times FuzzyMatch.ratioAbove against the full ratio it replaces
+ * in the scorer.
+ *
+ * ratioAbove(a, b, t) must equal ratio(a, b) > t for every pair: element
+ * names from the bundled features against the text, id and title of a
+ * synthetic candidate list, plus random strings around the 64-char word size
+ * of the bit-parallel path, long container texts for the banded path,
+ * non-ASCII text, padding whitespace and empty strings, each at several
+ * thresholds. Then both forms of the scorer's check (above 85) are timed on
+ * the corpus pairs.
+ *
+ * Usage: FuzzyMatchBenchmark [featuresDir] [rounds]
+ *   featuresDir defaults to the bundled features, "-" keeps that default
+ */
+public class FuzzyMatchBenchmark {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(FuzzyMatchBenchmark.class);
+
+    private static final double[] THRESHOLDS = {0, 50, 70, 85, 90, 99.5, 100};
+
+    private static final String ALPHABET = "abcde fghéü中";
+
+    // Keeps the timed loops from being optimized away
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        List<String[]> targets = BenchmarkSupport.targets(BenchmarkSupport.loadSteps(featuresDir));
+        List<ElementCandidate> elements = BenchmarkSupport.candidates(1000, targets, 42L);
+        List<String[]> pairs = new ArrayList<>();
+        for (String[] target : targets) {
+            for (ElementCandidate el : elements) {
+                pairs.add(new String[] {target[0], el.text});
+                pairs.add(new String[] {target[0], el.id});
+                pairs.add(new String[] {target[0], el.title});
+            }
+        }
+        List<String[]> edges = edgePairs(new Random(7L));
+
+        logger.header("FUZZY MATCH BENCHMARK");
+        logger.info("   Corpus pairs    : {}", pairs.size());
+        logger.info("   Edge pairs      : {}", edges.size());
+        logger.info("   Rounds          : {}", rounds);
+
+        long checked = 0;
+        int mismatches = 0;
+        for (List<String[]> set : List.of(pairs, edges)) {
+            for (String[] pair : set) {
+                double ratio = FuzzyMatch.ratio(pair[0], pair[1]);
+                for (double threshold : THRESHOLDS) {
+                    checked++;
+                    if (FuzzyMatch.ratioAbove(pair[0], pair[1], threshold) != ratio > threshold) {
+                        mismatches++;
+                        if (mismatches <= 20) {
+                            logger.failure("ratio {} > {} differs for '{}' / '{}'", ratio, threshold, pair[0], pair[1]);
+                        }
+                    }
+                }
+            }
+        }
+        logger.info("   Comparisons     : {}", checked);
+        logger.info("   Mismatches      : {}", mismatches);
+
+        measure(pairs, Math.max(1, rounds / 5), false);
+        measure(pairs, Math.max(1, rounds / 5), true);
+        long[] full = measure(pairs, rounds, false);
+        long[] bounded = measure(pairs, rounds, true);
+        logger.info("   ratio > 85      : {} ns/pair, {} bytes/pair", full[0], full[1]);
+        logger.info("   ratioAbove 85   : {} ns/pair, {} bytes/pair", bounded[0], bounded[1]);
+        logger.info("==================================================");
+
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    /**
+     * Random pairs of related strings at the lengths where the algorithm
+     * changes, and the degenerate inputs ratio special-cases
+     */
+    private static List<String[]> edgePairs(Random random) {
+        List<String[]> pairs = new ArrayList<>();
+        int[] lengths = {0, 1, 2, 7, 20, 63, 64, 65, 66, 100, 200, 500};
+        for (int a : lengths) {
+            for (int b : lengths) {
+                for (int k = 0; k < 20; k++) {
+                    String s = randomText(random, a);
+                    pairs.add(new String[] {s, mutate(random, s, b)});
+                    pairs.add(new String[] {s, randomText(random, b)});
+                }
+            }
+        }
+        pairs.add(new String[] {"", ""});
+        pairs.add(new String[] {"  ", ""});
+        pairs.add(new String[] {"   ", "  "});
+        pairs.add(new String[] {" Submit ", "submit"});
+        pairs.add(new String[] {"SUBMIT", "submit"});
+        pairs.add(new String[] {null, "submit"});
+        pairs.add(new String[] {"submit", null});
+        return pairs;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * s edited towards the given length with a few random edits, so the
+     * distance lands near typical thresholds
+     */
+    private static String mutate(Random random, String s, int length) {
+        StringBuilder text = new StringBuilder(s);
+        while (text.length() < length) {
+            text.insert(random.nextInt(text.length() + 1), ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        while (text.length() > length) {
+            text.deleteCharAt(random.nextInt(text.length()));
+        }
+        for (int edits = random.nextInt(Math.max(1, length / 5) + 1); edits > 0 && text.length() > 0; edits--) {
+            text.setCharAt(random.nextInt(text.length()), ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        if (random.nextInt(4) == 0) {
+            text.insert(0, "  ").append(' ');
+        }
+        if (random.nextInt(4) == 0) {
+            return text.toString().toUpperCase();
+        }
+        return text.toString();
+    }
+
+    /**
+     * Average ns and bytes allocated per pair
+     */
+    private static long[] measure(List<String[]> pairs, int rounds, boolean bounded) {
+        long calls = (long) rounds * Math.max(1, pairs.size());
+        long bytesBefore = BenchmarkSupport.allocatedBytes();
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String[] pair : pairs) {
+                boolean similar = bounded
+                    ? FuzzyMatch.ratioAbove(pair[0], pair[1], 85)
+                    : FuzzyMatch.ratio(pair[0], pair[1]) > 85;
+                if (similar) {
+                    sink++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = BenchmarkSupport.allocatedBytes() - bytesBefore;
+        return new long[] {elapsed / calls, bytes / calls};
+    }
+}
@@ -0,0 +1,333 @@
+package agent.benchmark;
+
+import agent.browser.locator.core.CandidateScorer;
+import agent.browser.locator.core.DomScanner;
+import agent.browser.locator.core.ElementCandidate;
+import agent.browser.locator.core.ScoringQuery;
+import agent.utils.LoggerUtil;
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Equivalence check and benchmark for in-page candidate scoring.
+ *
+ * The vectors (benchmark/scorer-vectors.jsonl) pair a target name and type
+ * with a candidate and the score CandidateScorer gave it. A run re-scores every
+ * vector in Java, then in a headless Chromium with js/candidate-scorer.js, and
+ * fails on any difference. It then builds synthetic pages of 1k, 10k and 20k
+ * candidates and times a full scan scored in Java against in-page scoring that
+ * returns the top 5.
+ *
+ * Usage: InPageScoringBenchmark [featuresDir] [--write-vectors]
+ *   featuresDir defaults to the bundled features
+ *   --write-vectors regenerates the vectors (src/jmh/resources, run from the
+ *   repository root) from the current CandidateScorer
+ */
+public class InPageScoringBenchmark {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(InPageScoringBenchmark.class);
+
+    private static final String VECTORS = "benchmark/scorer-vectors.jsonl";
+    private static final Path VECTORS_SOURCE = Paths.get("src/jmh/resources", VECTORS);
+    private static final String[] TYPES = {"click", "input", "check", "select", "slider", "progressbar", "link", "element", null};
+    private static final int MAX_TARGETS = 100;
+    private static final int[] PAGE_SIZES = {1_000, 10_000, 20_000};
+    private static final int TOP_K = 5;
+    private static final int ROUNDS = 5;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 && !args[0].startsWith("--") ? args[0] : null;
+        boolean writeVectors = args.length > 0 && args[args.length - 1].equals("--write-vectors");
+
+        logger.header("IN-PAGE SCORING BENCHMARK");
+        Level previous = BenchmarkSupport.quietLogging();
+        List<String[]> targets;
+        try {
+            targets = BenchmarkSupport.targets(new ArrayList<>(new LinkedHashSet<>(BenchmarkSupport.loadSteps(featuresDir))));
+        } finally {
+            BenchmarkSupport.restoreLogging(previous);
+        }
+        CandidateScorer scorer = new CandidateScorer();
+
+        if (writeVectors) {
+            List<String> lines = new ArrayList<>();
+            for (Map<String, Object> vector : vectors(targets)) {
+                vector.put("score", scorer.score(toCandidate(record(vector)), (String) vector.get("name"), (String) vector.get("type")));
+                lines.add(MAPPER.writeValueAsString(vector));
+            }
+            Files.createDirectories(VECTORS_SOURCE.getParent());
+            Files.write(VECTORS_SOURCE, lines, StandardCharsets.UTF_8);
+            logger.success("Wrote {} scorer vectors to {}", lines.size(), VECTORS_SOURCE);
+            return;
+        }
+
+        List<Map<String, Object>> vectors = new ArrayList<>();
+        for (String line : BenchmarkSupport.resourceLines(VECTORS)) {
+            if (!line.isEmpty()) {
+                vectors.add(MAPPER.readValue(line, new TypeReference<Map<String, Object>>() {}));
+            }
+        }
+
+        // Java still scores as recorded
+        int javaMismatches = 0;
+        for (Map<String, Object> vector : vectors) {
+            double expected = ((Number) vector.get("score")).doubleValue();
+            double actual = scorer.score(toCandidate(record(vector)), (String) vector.get("name"), (String) vector.get("type"));
+            if (actual != expected) {
+                javaMismatches++;
+                logger.failure("Java score differs for '{}' ({}): expected {}, got {} on {}",
+                    vector.get("name"), vector.get("type"), expected, actual, vector.get("candidate"));
+            }
+        }
+
+        int pageMismatches = 0;
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+            Page page = browser.newPage();
+
+            // The in-page port scores the same
+            String scorerJs = BenchmarkSupport.resource("js/candidate-scorer.js");
+            @SuppressWarnings("unchecked")
+            List<Object> pageScores = (List<Object>) page.evaluate(
+                "(vectors) => { const scorer = " + scorerJs.trim() + ";\n"
+                    + "  return vectors.map(v => scorer.score(v.candidate, scorer.prepare(v.name, v.type))); }",
+                vectors);
+            for (int i = 0; i < vectors.size(); i++) {
+                double expected = ((Number) vectors.get(i).get("score")).doubleValue();
+                double actual = ((Number) pageScores.get(i)).doubleValue();
+                if (actual != expected) {
+                    pageMismatches++;
+                    logger.failure("In-page score differs for '{}' ({}): expected {}, got {} on {}",
+                        vectors.get(i).get("name"), vectors.get(i).get("type"), expected, actual, vectors.get(i).get("candidate"));
+                }
+            }
+
+            logger.info("   Vectors         : {}", vectors.size());
+            logger.info("   Java mismatches : {}", javaMismatches);
+            logger.info("   Page mismatches : {}", pageMismatches);
+
+            previous = BenchmarkSupport.quietLogging();
+            try {
+                for (int size : PAGE_SIZES) {
+                    timePage(page, scorer, targets, size);
+                }
+            } finally {
+                BenchmarkSupport.restoreLogging(previous);
+            }
+            browser.close();
+        }
+        logger.info("==================================================");
+        System.exit(javaMismatches == 0 && pageMismatches == 0 ? 0 : 1);
+    }
+
+    /**
+     * Time picking the best candidate for each target on a synthetic page:
+     * full scan scored in Java, against top-k scored in the page and re-scored
+     * in Java. Both must pick the same element.
+     */
+    private static void timePage(Page page, CandidateScorer scorer, List<String[]> targets, int size) {
+        page.setContent(html(BenchmarkSupport.candidates(size, targets, size)));
+        List<String[]> sample = targets.subList(0, Math.min(20, targets.size()));
+
+        long fullNanos = 0;
+        long topNanos = 0;
+        int differentPicks = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (String[] target : sample) {
+                // A fresh scanner holds no snapshot, so every record crosses the bridge
+                long start = System.nanoTime();
+                ElementCandidate full = best(new DomScanner().scan(page, false), scorer, target);
+                long middle = System.nanoTime();
+                ElementCandidate top = best(new DomScanner().findTopCandidates(page, target[0], target[1], TOP_K, false), scorer, target);
+                long end = System.nanoTime();
+                fullNanos += middle - start;
+                topNanos += end - middle;
+                if (!same(full, top)) {
+                    differentPicks++;
+                }
+            }
+        }
+        long lookups = (long) ROUNDS * sample.size();
+        logger.info("   Page {}: full scan {} ms, in-page top-{} {} ms per lookup, {} different pick(s)",
+            String.format("%,6d", size), fullNanos / lookups / 1_000_000, TOP_K, topNanos / lookups / 1_000_000, differentPicks);
+    }
+
+    private static ElementCandidate best(List<ElementCandidate> candidates, CandidateScorer scorer, String[] target) {
+        double bestScore = 0.0;
+        ElementCandidate best = null;
+        ScoringQuery query = ScoringQuery.of(target[0], target[1]);
+        for (ElementCandidate candidate : candidates) {
+            double score = scorer.score(candidate, query);
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static boolean same(ElementCandidate a, ElementCandidate b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.tag.equals(b.tag) && a.id.equals(b.id) && a.text.equals(b.text) && a.label.equals(b.label);
+    }
+
+    /**
+     * Every corpus target against candidates built to hit each scoring tier,
+     * plus random ones, each under the target's type or another one
+     */
+    private static List<Map<String, Object>> vectors(List<String[]> corpusTargets) {
+        Set<String> seen = new LinkedHashSet<>();
+        List<String[]> targets = new ArrayList<>();
+        for (String[] target : corpusTargets) {
+            if (seen.add(target[0] + "|" + target[1]) && targets.size() < MAX_TARGETS) {
+                targets.add(target);
+            }
+        }
+        targets.add(new String[] {"  Submit button ", "click"});
+        targets.add(new String[] {"Search", "input"});
+        targets.add(new String[] {"Volume slider", "slider"});
+        targets.add(new String[] {"ÉCOLE", "click"});
+
+        Random random = new Random(7);
+        List<ElementCandidate> pool = BenchmarkSupport.candidates(200, targets, 7);
+        List<Map<String, Object>> vectors = new ArrayList<>();
+        for (String[] target : targets) {
+            String name = target[0].trim();
+            List<ElementCandidate> candidates = new ArrayList<>();
+            candidates.add(candidate("button", name, "", "", "", "", "", "", "btn", true));
+            candidates.add(candidate("span", "  " + name.replace(' ', '\n') + " \t", "", "", "", "", "", "", "", true));
+            candidates.add(candidate("a", name + "\u00a0", "", "", "", "", "submit", "", "", true));
+            candidates.add(candidate("input", "", "", "", "", name.toUpperCase(), "text", "", "form-control", true));
+            candidates.add(candidate("input", "", name.toLowerCase().replace(' ', '-'), "", name, "", "text", "", "", false));
+            candidates.add(candidate("a", "", "", "", "", "", "", "", "", true));
+            candidates.get(4).title = name + " icon";
+            candidates.add(candidate("input", "", typo(name), "q", "Search...", "", "checkbox", "", "", true));
+            candidates.add(candidate("div", name + " " + "x".repeat(120), "", "", "", "", "", "progressbar", "progress-bar", true));
+            candidates.add(candidate("input", "", "", "", "", name, "range", "slider", "range-slider", true));
+            for (int i = 0; i < 3; i++) {
+                candidates.add(pool.get(random.nextInt(pool.size())));
+            }
+            for (ElementCandidate candidate : candidates) {
+                String type = random.nextBoolean() ? target[1] : TYPES[random.nextInt(TYPES.length)];
+                Map<String, Object> vector = new LinkedHashMap<>();
+                vector.put("name", target[0]);
+                vector.put("type", type);
+                vector.put("candidate", toRecord(candidate));
+                vectors.add(vector);
+            }
+        }
+        return vectors;
+    }
+
+    private static ElementCandidate candidate(String tag, String text, String id, String name, String placeholder,
+                                              String label, String type, String role, String className, boolean visible) {
+        ElementCandidate candidate = new ElementCandidate();
+        candidate.tag = tag;
+        candidate.text = text;
+        candidate.id = id;
+        candidate.name = name;
+        candidate.placeholder = placeholder;
+        candidate.label = label;
+        candidate.type = type;
+        candidate.role = role;
+        candidate.className = className;
+        candidate.visible = visible;
+        return candidate;
+    }
+
+    private static String typo(String name) {
+        return name.length() < 4 ? name : name.substring(0, name.length() / 2) + name.substring(name.length() / 2 + 1);
+    }
+
+    /**
+     * A candidate as the in-page store records it
+     */
+    private static Map<String, Object> toRecord(ElementCandidate c) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("tag", c.tag);
+        record.put("id", c.id);
+        record.put("forAttr", c.forAttr);
+        record.put("name", c.name);
+        record.put("text", c.text);
+        record.put("placeholder", c.placeholder);
+        record.put("label", c.label);
+        record.put("title", c.title);
+        record.put("type", c.type);
+        record.put("role", c.role);
+        record.put("class", c.className);
+        record.put("visible", c.visible);
+        return record;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> record(Map<String, Object> vector) {
+        return (Map<String, Object>) vector.get("candidate");
+    }
+
+    private static ElementCandidate toCandidate(Map<String, Object> record) {
+        ElementCandidate c = candidate((String) record.get("tag"), (String) record.get("text"), (String) record.get("id"),
+            (String) record.get("name"), (String) record.get("placeholder"), (String) record.get("label"),
+            (String) record.get("type"), (String) record.get("role"), (String) record.get("class"), (Boolean) record.get("visible"));
+        c.title = (String) record.get("title");
+        c.forAttr = (String) record.get("forAttr");
+        return c;
+    }
+
+    /**
+     * A page holding the candidates as real elements (hidden ones with display: none)
+     */
+    private static String html(List<ElementCandidate> candidates) {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (ElementCandidate c : candidates) {
+            html.append('<').append(c.tag);
+            attribute(html, "id", c.id);
+            attribute(html, "name", c.name);
+            attribute(html, "placeholder", c.placeholder);
+            attribute(html, "aria-label", c.label);
+            attribute(html, "title", c.title);
+            attribute(html, "type", c.type);
+            attribute(html, "role", c.role);
+            attribute(html, "class", c.className);
+            attribute(html, "for", c.forAttr);
+            if (!c.visible) {
+                attribute(html, "style", "display: none");
+            }
+            html.append('>');
+            if (!"input".equals(c.tag)) {
+                html.append(escape(c.text)).append("</").append(c.tag).append('>');
+            }
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private static void attribute(StringBuilder html, String name, String value) {
+        if (value != null && !value.isEmpty()) {
+            html.append(' ').append(name).append("=\"").append(escape(value)).append('"');
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,164 @@
+package agent.benchmark;
+
+import agent.intelligence.IntentAnalyzer;
+import agent.intelligence.StepIntent;
+import agent.utils.LoggerUtil;
+import ch.qos.logback.classic.Level;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Regression corpus and throughput benchmark for IntentAnalyzer.
+ *
+ * The corpus holds one line per distinct step of the bundled features with the
+ * intent the analyzer produced for it (action, negation, element type, target,
+ * values, modifiers). A run first re-analyzes every corpus step and fails on any
+ * difference, or on bundled steps the corpus does not cover yet, then measures
+ * analyzeStep throughput and allocation over the corpus.
+ *
+ * Usage: IntentAnalyzerBenchmark [featuresDir] [rounds] [--write-corpus]
+ *   featuresDir defaults to the bundled features, "-" keeps that default
+ *   --write-corpus regenerates the corpus (src/jmh/resources, run from the
+ *   repository root) from the current analyzer instead
+ */
+public class IntentAnalyzerBenchmark {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(IntentAnalyzerBenchmark.class);
+
+    private static final String CORPUS = "benchmark/intent-corpus.tsv";
+    private static final Path CORPUS_SOURCE = Paths.get("src/jmh/resources", CORPUS);
+    private static final String HEADER = "# step\taction\tnegated\telementType\ttarget\tvalues\tmodifiers";
+
+    // Keeps the timed loops from being optimized away
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        boolean writeCorpus = args.length > 2 && args[2].equals("--write-corpus");
+
+        Set<String> steps = new LinkedHashSet<>(BenchmarkSupport.loadSteps(featuresDir));
+        IntentAnalyzer analyzer = new IntentAnalyzer();
+
+        logger.header("INTENT ANALYZER BENCHMARK");
+        logger.info("   Distinct steps  : {}", steps.size());
+
+        Level previous = BenchmarkSupport.quietLogging();
+        try {
+            if (writeCorpus) {
+                List<String> lines = new ArrayList<>();
+                lines.add(HEADER);
+                for (String step : steps) {
+                    lines.add(describe(step, analyzer.analyzeStep(step)));
+                }
+                Files.createDirectories(CORPUS_SOURCE.getParent());
+                Files.write(CORPUS_SOURCE, lines, StandardCharsets.UTF_8);
+                BenchmarkSupport.restoreLogging(previous);
+                logger.success("Wrote {} corpus entries to {}", lines.size() - 1, CORPUS_SOURCE);
+                return;
+            }
+
+            // Same intent as recorded for every corpus step
+            List<String> corpusSteps = new ArrayList<>();
+            int mismatches = 0;
+            for (String line : BenchmarkSupport.resourceLines(CORPUS)) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String step = unescape(line.substring(0, line.indexOf('\t')));
+                corpusSteps.add(step);
+                String actual = describe(step, analyzer.analyzeStep(step));
+                if (!actual.equals(line)) {
+                    mismatches++;
+                    logger.failure("Intent differs for: {}\n      expected: {}\n      actual  : {}", step, line, actual);
+                }
+            }
+            int uncovered = 0;
+            for (String step : steps) {
+                if (!corpusSteps.contains(step)) {
+                    uncovered++;
+                    logger.warn("Step missing from corpus (rerun with --write-corpus): {}", step);
+                }
+            }
+
+            analyze(analyzer, corpusSteps, Math.max(1, rounds / 4));
+            long bytesBefore = BenchmarkSupport.allocatedBytes();
+            long start = System.nanoTime();
+            analyze(analyzer, corpusSteps, rounds);
+            long elapsed = System.nanoTime() - start;
+            long bytes = BenchmarkSupport.allocatedBytes() - bytesBefore;
+            BenchmarkSupport.restoreLogging(previous);
+
+            long calls = (long) rounds * Math.max(1, corpusSteps.size());
+            logger.info("   Corpus entries  : {}", corpusSteps.size());
+            logger.info("   Mismatches      : {}", mismatches);
+            logger.info("   Uncovered steps : {}", uncovered);
+            logger.info("   analyzeStep     : {} ns/step, {} bytes/step", elapsed / calls, bytes / calls);
+            logger.info("   Throughput      : {} steps/s", String.format("%,d", calls * 1_000_000_000L / Math.max(1, elapsed)));
+            logger.info("==================================================");
+
+            System.exit(mismatches == 0 && uncovered == 0 ? 0 : 1);
+        } finally {
+            BenchmarkSupport.restoreLogging(previous);
+        }
+    }
+
+    private static void analyze(IntentAnalyzer analyzer, List<String> steps, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (String step : steps) {
+                sink += analyzer.analyzeStep(step).getActionType().ordinal();
+            }
+        }
+    }
+
+    /**
+     * One corpus line: the step and every field of its intent, tab separated
+     */
+    private static String describe(String step, StepIntent intent) {
+        Map<String, String> modifiers = intent.getModifiers() == null ? Map.of() : new TreeMap<>(intent.getModifiers());
+        List<String> fields = new ArrayList<>();
+        fields.add(step);
+        fields.add(String.valueOf(intent.getActionType()));
+        fields.add(String.valueOf(intent.isNegated()));
+        fields.add(String.valueOf(intent.getElementType()));
+        fields.add(String.valueOf(intent.getTargetDescription()));
+        fields.add(String.join(" | ", intent.getValues()));
+        fields.add(modifiers.toString());
+
+        StringBuilder line = new StringBuilder();
+        for (String field : fields) {
+            if (line.length() > 0) {
+                line.append('\t');
+            }
+            line.append(escape(field));
+        }
+        return line.toString();
+    }
+
+    private static String escape(String field) {
+        return field.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String field) {
+        StringBuilder text = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                char next = field.charAt(++i);
+                text.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,35 @@
+package agent.benchmark;
+
+import agent.planner.SmartStepParser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Step inputs for the JMH benchmarks: the distinct supported steps of the
+ * bundled feature corpus (targets and candidates come from BenchmarkSupport).
+ */
+final class JmhCorpus {
+
+    // -Djmh.features, else the features bundled on the classpath
+    static final String FEATURES_DIR = System.getProperty("jmh.features");
+
+    private JmhCorpus() {
+    }
+
+    /**
+     * Distinct steps of the bundled features that the parser supports and
+     * plans without a page (unplanned steps log an error on every parse)
+     */
+    static List<String> supportedSteps() throws Exception {
+        SmartStepParser parser = new SmartStepParser();
+        List<String> steps = new ArrayList<>();
+        for (String step : new LinkedHashSet<>(BenchmarkSupport.loadSteps(FEATURES_DIR))) {
+            if (parser.isStepSupported(step) && !"unknown".equals(parser.parseStep(step).getActionType())) {
+                steps.add(step);
+            }
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,145 @@
+package agent.benchmark;
+
+import agent.browser.SmartLocator;
+import agent.browser.locator.core.LearnedSelectorStore;
+import agent.utils.LoggerUtil;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Frame;
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.Route;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Browser smoke run of element stamping, the stamped locator's semantic
+ * fallback, learned selectors and learned frames, on one routed page
+ * (http://smoke.test/form, so entries have a host to be learned under).
+ * Stamping and learned selectors are off by default; this run turns both on
+ * (-DpinElements, -DlearnedSelectors) before anything reads them.
+ *
+ * It checks that a scan stamps the winner and the locator acts on that very
+ * node even with a look-alike earlier in the document; that the same locator
+ * still acts after the form is re-rendered without stamps; that the learned
+ * selector holds no stamp and resolves after a reload; that the iframe an
+ * element was found in is learned by its signature; and that an element
+ * added later is waited for.
+ *
+ * Needs Playwright's Chromium. Usage: LocatorSmoke
+ */
+public class LocatorSmoke {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(LocatorSmoke.class);
+
+    private static final String ORIGIN = "http://smoke.test";
+    private static final String PIN = "data-nca-id";
+
+    private static final String FORM =
+        "<label for='email'>Email</label><input id='email' name='email'>" +
+        "<button type='button' onclick=\"this.dataset.clicked = 'yes'\">Subscribe</button>";
+    private static final String PAGE = "<html><body>" +
+        "<div id='form'>" + FORM + "</div>" +
+        "<iframe id='search-frame' src='/frame'></iframe>" +
+        "<div id='late'></div>" +
+        "</body></html>";
+    private static final String FRAME = "<html><body><input id='q' placeholder='Search'></body></html>";
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("pinElements", "true");
+        System.setProperty("learnedSelectors", "true");
+        Path storeFile = Files.createTempFile("learned-selectors", ".properties");
+        Files.delete(storeFile);
+        // Removed after the store's own exit hook has written it
+        storeFile.toFile().deleteOnExit();
+        System.setProperty("learnedSelectorsFile", storeFile.toString());
+        LearnedSelectorStore store = LearnedSelectorStore.getInstance();
+
+        logger.header("LOCATOR SMOKE RUN");
+        int failures = 0;
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+            Page page = browser.newPage();
+            page.route(ORIGIN + "/**", route -> route.fulfill(new Route.FulfillOptions()
+                .setContentType("text/html")
+                .setBody(route.request().url().endsWith("/frame") ? FRAME : PAGE)));
+            page.navigate(ORIGIN + "/form");
+            page.frameLocator("#search-frame").locator("#q").waitFor();
+            SmartLocator smartLocator = new SmartLocator(page);
+
+            // Stamped winner, and a look-alike inserted before it is left alone
+            Locator subscribe = smartLocator.findSmartElement("Subscribe", "click");
+            String stamp = subscribe != null ? subscribe.getAttribute(PIN) : null;
+            failures += check(stamp != null && !stamp.isEmpty(), "scan stamps the winner (" + stamp + ")");
+            page.evaluate("() => document.body.insertAdjacentHTML('afterbegin', " +
+                "\"<button id='decoy' type='button' onclick=\\\"this.dataset.clicked = 'yes'\\\">Subscribe</button>\")");
+            if (subscribe != null) {
+                subscribe.click();
+            }
+            failures += check("yes".equals(page.locator("#form button").getAttribute("data-clicked"))
+                    && page.locator("#decoy").getAttribute("data-clicked") == null,
+                "stamped locator clicks the stamped node, not an earlier look-alike");
+            page.evaluate("() => document.getElementById('decoy').remove()");
+
+            // Re-render: new nodes without stamps, the same locator falls back to its semantic part
+            page.evaluate("form => { document.getElementById('form').innerHTML = form; }", FORM);
+            failures += check(page.locator("[" + PIN + "]").count() == 0, "re-render leaves no stamp");
+            if (subscribe != null) {
+                subscribe.click();
+            }
+            failures += check("yes".equals(page.locator("#form button").getAttribute("data-clicked")),
+                "same locator clicks the re-rendered button");
+
+            // Learned selector: no stamp in it, and it resolves in a fresh document
+            page.reload();
+            Locator learned = store.resolve(page, "Subscribe", "click", false);
+            failures += check(learned != null && "BUTTON".equals(learned.evaluate("el => el.tagName")),
+                "learned selector resolves after a reload");
+            store.save();
+            String saved = Files.exists(storeFile) ? Files.readString(storeFile, StandardCharsets.UTF_8) : "";
+            logger.info("   Learned: {}", saved.lines().filter(line -> line.contains(".selector=")).findFirst().orElse("none"));
+            failures += check(saved.contains("subscribe|click.selector=") && !saved.contains(PIN),
+                "learned selector is stored without the stamp");
+
+            // Element inside the iframe: found by frame traversal, frame learned by signature
+            page.frameLocator("#search-frame").locator("#q").waitFor();
+            Locator search = smartLocator.findSmartElement("Search", "input");
+            if (search != null) {
+                search.fill("smoke");
+            }
+            Frame searchFrame = page.frames().stream().filter(frame -> frame.url().endsWith("/frame")).findFirst().orElse(null);
+            failures += check(searchFrame != null && "smoke".equals(searchFrame.locator("#q").inputValue()),
+                "element in the iframe is found and filled");
+            failures += check("id:search-frame".equals(store.frameFor(page, "Search", "input")),
+                "iframe learned by its signature (" + store.frameFor(page, "Search", "input") + ")");
+
+            // An element added later is waited for
+            page.evaluate("() => setTimeout(() => { document.getElementById('late').innerHTML = '<button>Continue</button>'; }, 1500)");
+            long start = System.currentTimeMillis();
+            Locator late = smartLocator.waitForSmartElement("Continue", "click");
+            failures += check(late != null, "late element found after " + (System.currentTimeMillis() - start) + " ms");
+
+            browser.close();
+        }
+
+        logger.info("==================================================");
+        if (failures == 0) {
+            logger.success("All checks passed");
+        } else {
+            logger.failure("{} check(s) failed", failures);
+        }
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static int check(boolean passed, String what) {
+        if (passed) {
+            logger.success("   {}", what);
+            return 0;
+        }
+        logger.failure("   {}", what);
+        return 1;
+    }
+}
@@ -0,0 +1,107 @@
+package agent.benchmark;
+
+import agent.planner.PatternDispatchIndex;
+import agent.planner.PatternRegistry;
+import agent.utils.LoggerUtil;
+import agent.utils.StepText;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the linear pattern scan with PatternDispatchIndex on the steps of
+ * the bundled features.
+ *
+ * First checks that both pick the same pattern for every step (find() on the
+ * keyword-stripped step, as StepPlanner does, and matches() on the raw step, as
+ * isStepSupported does), then times both scans.
+ *
+ * Usage: PatternDispatchBenchmark [featuresDir] [rounds]
+ *   featuresDir defaults to the bundled features, "-" keeps that default
+ */
+public class PatternDispatchBenchmark {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(PatternDispatchBenchmark.class);
+
+    // Keeps the timed loops from being optimized away
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        List<String> steps = BenchmarkSupport.loadSteps(featuresDir);
+        List<String> cleanSteps = new ArrayList<>();
+        for (String step : steps) {
+            cleanSteps.add(StepText.stripKeyword(step.trim()));
+        }
+
+        List<Pattern> patterns = new ArrayList<>();
+        PatternRegistry.registerAllPatterns((actionType, regex, elementGroup, valueGroup, rowAnchorGroup) ->
+            patterns.add(Pattern.compile(regex, Pattern.CASE_INSENSITIVE)));
+        PatternRegistry.registerTablePatterns((actionType, regex, groupMap) ->
+            patterns.add(Pattern.compile(regex, Pattern.CASE_INSENSITIVE)));
+        PatternDispatchIndex<Pattern> index = new PatternDispatchIndex<>(patterns, Pattern::pattern);
+
+        logger.header("PATTERN DISPATCH BENCHMARK");
+        logger.info("   Steps           : {}", steps.size());
+        logger.info("   Patterns        : {} ({} indexed by verb)", index.size(), index.getIndexedCount());
+
+        // Same decision as the linear scan for every step, both matching modes
+        int mismatches = 0;
+        long candidates = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            String clean = cleanSteps.get(i);
+            String raw = steps.get(i).trim();
+            if (firstMatch(patterns, clean, false) != firstMatch(index.candidates(clean), clean, false)
+                    || firstMatch(patterns, raw, true) != firstMatch(index.candidates(raw), raw, true)) {
+                mismatches++;
+                logger.failure("Index disagrees with linear scan: {}", steps.get(i));
+            }
+            candidates += index.candidates(clean).size();
+        }
+        logger.info("   Candidates/step : {} (of {})",
+            String.format("%.1f", candidates / (double) Math.max(1, steps.size())), index.size());
+        logger.info("   Mismatches      : {}", mismatches);
+
+        // Warm up both paths before timing
+        time(patterns, null, cleanSteps, Math.max(1, rounds / 4));
+        time(null, index, cleanSteps, Math.max(1, rounds / 4));
+        long linearNanos = time(patterns, null, cleanSteps, rounds);
+        long indexedNanos = time(null, index, cleanSteps, rounds);
+
+        long lookups = (long) rounds * Math.max(1, steps.size());
+        logger.info("   Linear scan     : {} ns/step", linearNanos / lookups);
+        logger.info("   Dispatch index  : {} ns/step", indexedNanos / lookups);
+        logger.info("   Speedup         : {}x", String.format("%.1f", linearNanos / (double) Math.max(1, indexedNanos)));
+        logger.info("==================================================");
+
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    private static Pattern firstMatch(List<Pattern> patterns, String text, boolean fullMatch) {
+        for (Pattern pattern : patterns) {
+            if (fullMatch ? pattern.matcher(text).matches() : pattern.matcher(text).find()) {
+                return pattern;
+            }
+        }
+        return null;
+    }
+
+    private static long time(List<Pattern> linear, PatternDispatchIndex<Pattern> index, List<String> steps, int rounds) {
+        int matched = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String step : steps) {
+                List<Pattern> candidates = index != null ? index.candidates(step) : linear;
+                if (firstMatch(candidates, step, false) != null) {
+                    matched++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += matched;
+        return elapsed;
+    }
+}
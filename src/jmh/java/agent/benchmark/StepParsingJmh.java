@@ -0,0 +1,86 @@
+package agent.benchmark;
+
+import agent.intelligence.IntentAnalyzer;
+import agent.intelligence.StepIntent;
+import agent.planner.ActionPlan;
+import agent.planner.SmartStepParser;
+import agent.planner.StepPlanner;
+import ch.qos.logback.classic.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Step text to plan, one distinct supported step of the bundled features per
+ * operation, cycling through the corpus.
+ *
+ * parseStep runs without a page, so it is measured twice: as the runner sees
+ * it (plan cache warm) and with a one-entry plan cache, which makes every
+ * lookup a miss and measures the full strategy chain.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StepParsingJmh {
+
+    private String[] steps;
+    private int next;
+    private SmartStepParser parser;
+    private StepPlanner planner;
+    private IntentAnalyzer analyzer;
+    private Level previousLevel;
+
+    @Setup
+    public void setUp() throws Exception {
+        previousLevel = BenchmarkSupport.quietLogging();
+        steps = JmhCorpus.supportedSteps().toArray(new String[0]);
+        parser = new SmartStepParser();
+        planner = new StepPlanner();
+        analyzer = new IntentAnalyzer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkSupport.restoreLogging(previousLevel);
+    }
+
+    private String nextStep() {
+        String step = steps[next];
+        next = next + 1 == steps.length ? 0 : next + 1;
+        return step;
+    }
+
+    @Benchmark
+    public ActionPlan parseStepCached() {
+        return parser.parseStep(nextStep());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-DplanCacheSize=1")
+    public ActionPlan parseStepUncached() {
+        return parser.parseStep(nextStep());
+    }
+
+    @Benchmark
+    public ActionPlan plan() {
+        return planner.plan(nextStep());
+    }
+
+    @Benchmark
+    public StepIntent analyzeStep() {
+        return analyzer.analyzeStep(nextStep());
+    }
+}
@@ -0,0 +1,113 @@
+package agent.benchmark;
+
+import agent.intelligence.StepSuggestionIndex;
+import agent.planner.PatternRegistry;
+import agent.utils.LoggerUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures "did you mean" lookups in StepSuggestionIndex as the catalog grows.
+ *
+ * The catalog starts with the PatternRegistry examples and the distinct steps of
+ * the bundled features, then is padded with variants of those steps up to each
+ * target size. The queries are the bundled steps with one character dropped
+ * (a typo); for each size the benchmark reports how often the original step
+ * (or one with the same key, differing only in quoted values) is among the
+ * top 5 results and the mean and p99 lookup latency.
+ *
+ * Usage: StepSuggestionBenchmark [featuresDir] [rounds]
+ *   featuresDir defaults to the bundled features, "-" keeps that default
+ */
+public class StepSuggestionBenchmark {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(StepSuggestionBenchmark.class);
+
+    private static final int[] CATALOG_SIZES = {1_000, 5_000, 10_000, 20_000};
+    private static final int TOP_K = 5;
+    private static final double MIN_SCORE = 0.3;
+
+    // Keeps the timed loops from being optimized away
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        List<String> steps = new ArrayList<>(new LinkedHashSet<>(BenchmarkSupport.loadSteps(featuresDir)));
+        List<String> queries = new ArrayList<>();
+        for (String step : steps) {
+            queries.add(typo(step.trim()));
+        }
+
+        logger.header("STEP SUGGESTION BENCHMARK");
+        logger.info("   Distinct steps  : {}", steps.size());
+        logger.info("   Rounds          : {}", rounds);
+
+        for (int size : CATALOG_SIZES) {
+            StepSuggestionIndex index = new StepSuggestionIndex(size);
+            for (Map.Entry<String, List<String>> examples : PatternRegistry.getExampleSteps().entrySet()) {
+                for (String example : examples.getValue()) {
+                    index.add(example, examples.getKey());
+                }
+            }
+            for (String step : steps) {
+                index.add(step, "supported step");
+            }
+            // Variants with distinct keys until the catalog is full
+            for (int n = 1; index.size() < size; n++) {
+                for (String step : steps) {
+                    index.add(step.trim() + " in section " + n, "supported step");
+                }
+            }
+
+            int found = 0;
+            for (int i = 0; i < steps.size(); i++) {
+                for (StepSuggestionIndex.Match match : index.query(queries.get(i), TOP_K, MIN_SCORE)) {
+                    if (StepSuggestionIndex.key(match.getPhrasing()).equals(StepSuggestionIndex.key(steps.get(i)))) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+
+            // Warm-up, then one timed lookup at a time for the latency distribution
+            for (int r = 0; r < Math.max(1, rounds / 4); r++) {
+                for (String query : queries) {
+                    sink += index.query(query, TOP_K, MIN_SCORE).size();
+                }
+            }
+            long[] latencies = new long[rounds * queries.size()];
+            int at = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (String query : queries) {
+                    long start = System.nanoTime();
+                    sink += index.query(query, TOP_K, MIN_SCORE).size();
+                    latencies[at++] = System.nanoTime() - start;
+                }
+            }
+            Arrays.sort(latencies);
+            long total = 0;
+            for (long latency : latencies) {
+                total += latency;
+            }
+
+            logger.info("   Catalog {}: top-{} recall {}%, mean {} us, p99 {} us",
+                String.format("%,6d", index.size()), TOP_K, found * 100 / Math.max(1, steps.size()),
+                total / latencies.length / 1000, latencies[(int) (latencies.length * 0.99)] / 1000);
+        }
+        logger.info("==================================================");
+    }
+
+    /**
+     * The step with the middle character of its text dropped
+     */
+    private static String typo(String step) {
+        int at = step.length() / 2;
+        return step.substring(0, at) + step.substring(at + 1);
+    }
+}
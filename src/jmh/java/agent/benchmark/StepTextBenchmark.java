@@ -0,0 +1,218 @@
+package agent.benchmark;
+
+import agent.intelligence.IntentAnalyzer;
+import agent.planner.SmartStepParser;
+import agent.planner.StepPlanner;
+import agent.utils.LoggerUtil;
+import agent.utils.StepText;
+import ch.qos.logback.classic.Level;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures what the step-text chores cost with per-call regexes versus
+ * StepText, on the steps of the bundled features.
+ *
+ * For every operation the regex one-liner the parsers used to run is compared
+ * with its StepText replacement: results must be identical for every step, then
+ * both are timed and their allocation per call is read from the thread's
+ * allocation counter. Finally the whole page-independent parse path (intent
+ * analysis, legacy planner, support check) is measured per step, and a JFR
+ * allocation recording of it is searched for objects that only Pattern.compile
+ * allocates (Pattern and its node classes) on behalf of parser code: there
+ * must be none.
+ *
+ * Usage: StepTextBenchmark [featuresDir] [rounds]
+ *   featuresDir defaults to the bundled features, "-" keeps that default
+ */
+public class StepTextBenchmark {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(StepTextBenchmark.class);
+
+    // Keeps the timed loops from being optimized away
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        List<String> steps = BenchmarkSupport.loadSteps(featuresDir);
+        List<Operation> operations = operations();
+
+        logger.header("STEP TEXT BENCHMARK");
+        logger.info("   Steps           : {}", steps.size());
+        logger.info("   Rounds          : {}", rounds);
+
+        int mismatches = 0;
+        for (Operation op : operations) {
+            for (String step : steps) {
+                if (!Objects.equals(op.regex.apply(step), op.toolkit.apply(step))) {
+                    mismatches++;
+                    logger.failure("{} differs for: {}", op.name, step);
+                }
+            }
+        }
+        logger.info("   Mismatches      : {}", mismatches);
+        logger.info("");
+        logger.info("   {}  {}  {}", String.format("%-20s", "Operation"),
+            String.format("%22s", "regex (ns / bytes)"), String.format("%22s", "StepText (ns / bytes)"));
+
+        for (Operation op : operations) {
+            measure(op.regex, steps, Math.max(1, rounds / 5));
+            measure(op.toolkit, steps, Math.max(1, rounds / 5));
+            long[] regex = measure(op.regex, steps, rounds);
+            long[] toolkit = measure(op.toolkit, steps, rounds);
+            logger.info("   {}  {}  {}", String.format("%-20s", op.name),
+                String.format("%22s", regex[0] + " / " + regex[1]), String.format("%22s", toolkit[0] + " / " + toolkit[1]));
+        }
+
+        // Reference point: one compile of the Gherkin keyword regex
+        long before = BenchmarkSupport.allocatedBytes();
+        for (int i = 0; i < 1000; i++) {
+            sink += Pattern.compile("^(?i)(Given|When|Then|And|But)\\s+").pattern().length();
+        }
+        logger.info("   One Pattern.compile of the keyword regex allocates {} bytes",
+            (BenchmarkSupport.allocatedBytes() - before) / 1000);
+
+        // Whole page-independent parse path, logging silenced while it runs
+        IntentAnalyzer analyzer = new IntentAnalyzer();
+        StepPlanner planner = new StepPlanner();
+        SmartStepParser parser = new SmartStepParser();
+        Function<String, Object> parsePath = step -> {
+            analyzer.analyzeStep(step);
+            planner.plan(step);
+            return parser.isStepSupported(step);
+        };
+        Level previous = BenchmarkSupport.quietLogging();
+        long[] path;
+        int patternAllocations;
+        try {
+            measure(parsePath, steps, Math.max(1, rounds / 5));
+            path = measure(parsePath, steps, Math.max(1, rounds / 5));
+            patternAllocations = countPatternAllocations(parsePath, steps, rounds);
+        } finally {
+            BenchmarkSupport.restoreLogging(previous);
+        }
+        logger.info("   Parse path      : {} ns/step, {} bytes/step", path[0], path[1]);
+        logger.info("   Pattern compiles on the parse path (JFR samples): {}", patternAllocations);
+        logger.info("==================================================");
+
+        System.exit(mismatches == 0 && patternAllocations == 0 ? 0 : 1);
+    }
+
+    /**
+     * Each regex one-liner the parsers used to run, next to its replacement
+     */
+    private static List<Operation> operations() {
+        List<Operation> ops = new ArrayList<>();
+        ops.add(new Operation("strip keyword",
+            step -> step.replaceAll("^(?i)(Given|When|Then|And|But)\\s+", ""),
+            StepText::stripKeyword));
+        ops.add(new Operation("keyword",
+            step -> {
+                for (String k : new String[] {"Given", "When", "Then", "And", "But"}) {
+                    if (step.trim().matches("(?i)^" + k + " .*")) return k;
+                }
+                return null;
+            },
+            StepText::keyword));
+        ops.add(new Operation("quoted values",
+            step -> {
+                List<String> values = new ArrayList<>();
+                Matcher m = Pattern.compile("[\"']([^\"']+)[\"']").matcher(step);
+                while (m.find()) values.add(m.group(1));
+                return values;
+            },
+            StepText::allQuoted));
+        ops.add(new Operation("unquote",
+            step -> step.replaceAll("[\"']([^\"']+)[\"']", "$1"),
+            StepText::unquote));
+        ops.add(new Operation("whitespace",
+            step -> step.replaceAll("\\s+", " ").trim(),
+            StepText::normalizeWhitespace));
+        ops.add(new Operation("whole word",
+            step -> step.matches(".*\\bclick\\b.*"),
+            step -> StepText.containsWord(step, "click")));
+        return ops;
+    }
+
+    /**
+     * Average ns and bytes allocated per call
+     */
+    private static long[] measure(Function<String, Object> op, List<String> steps, int rounds) {
+        long calls = (long) rounds * Math.max(1, steps.size());
+        long bytesBefore = BenchmarkSupport.allocatedBytes();
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String step : steps) {
+                if (op.apply(step) != null) {
+                    sink++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = BenchmarkSupport.allocatedBytes() - bytesBefore;
+        return new long[] {elapsed / calls, bytes / calls};
+    }
+
+    /**
+     * Sampled allocations of Pattern and its node classes made from agent code
+     * while running op over the steps. Matchers are expected and not counted.
+     */
+    private static int countPatternAllocations(Function<String, Object> op, List<String> steps, int rounds) throws Exception {
+        Path file = Files.createTempFile("step-text", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.ObjectAllocationSample").with("throttle", "100/ms").withStackTrace();
+            recording.start();
+            measure(op, steps, rounds);
+            recording.stop();
+            recording.dump(file);
+
+            int count = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getClass("objectClass").getName().startsWith(Pattern.class.getName()) && fromAgentCode(event)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static boolean fromAgentCode(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("agent.") && !type.startsWith("agent.benchmark.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Operation {
+        final String name;
+        final Function<String, Object> regex;
+        final Function<String, Object> toolkit;
+
+        Operation(String name, Function<String, Object> regex, Function<String, Object> toolkit) {
+            this.name = name;
+            this.regex = regex;
+            this.toolkit = toolkit;
+        }
+    }
+}
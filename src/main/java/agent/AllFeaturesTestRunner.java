@@ -1,14 +1,27 @@
 package agent;
 
-import agent.browser.BrowserService;
+import agent.context.TestContext;
+import agent.feature.FeatureModel;
 import agent.feature.FeatureReader;
-import agent.planner.ActionPlan;
+import agent.feature.ScenarioModel;
+import agent.planner.CompiledPlans;
 import agent.planner.SmartStepParser;
+import agent.planner.StepPlanCache;
+import agent.runner.ExecutionUnit;
+import agent.runner.FeatureDurationHistory;
+import agent.runner.FeatureExecutor;
+import agent.runner.FeatureResult;
+import agent.runner.FeatureScheduler;
+import agent.runner.LoginSnapshotCache;
+import agent.runner.OutlineTemplateChecker;
+import agent.runner.ParallelFeatureRunner;
 import agent.utils.LoggerUtil;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AllFeaturesTestRunner {
     
@@ -40,6 +53,58 @@ public class AllFeaturesTestRunner {
         
         logger.info("Found {} feature files\n", featureFiles.length);
         
+        // Parallel mode - can be enabled via -DparallelWorkers=N (1 = serial, default)
+        int parallelWorkers = Integer.getInteger("parallelWorkers", 1);
+        // Scenario-level units - can be enabled via -DparallelScenarios=true
+        boolean parallelScenarios = Boolean.getBoolean("parallelScenarios");
+        boolean parallelMode = parallelWorkers > 1 || parallelScenarios;
+        // Log in once per app and credential set - can be disabled via -DreuseLogin=false
+        LoginSnapshotCache loginCache = Boolean.parseBoolean(System.getProperty("reuseLogin", "true"))
+            ? new LoginSnapshotCache() : null;
+        // Plans from PlanCompiler, if present - path can be set via -DcompiledPlans
+        CompiledPlans compiledPlans = CompiledPlans.load(System.getProperty("compiledPlans", CompiledPlans.DEFAULT_FILE));
+        
+        // Historical durations drive longest-first scheduling across workers
+        FeatureDurationHistory durationHistory = new FeatureDurationHistory();
+        FeatureScheduler scheduler = new FeatureScheduler(durationHistory);
+        
+        Map<String, FeatureResult> parseFailures = new LinkedHashMap<>();
+        Map<ExecutionUnit, FeatureResult> rejectedUnits = new LinkedHashMap<>();
+        List<ExecutionUnit> schedule = planUnits(featureFiles, parallelScenarios, parallelMode,
+            parseFailures, rejectedUnits);
+        if (parallelMode) {
+            schedule = scheduler.longestFirst(schedule);
+        }
+        long predictedMakespan = scheduler.predictMakespan(schedule, parallelWorkers);
+        
+        long suiteStart = System.currentTimeMillis();
+        List<FeatureResult> unitResults;
+        List<FeatureResult> results;
+        if (parallelMode) {
+            logger.info("Parallel mode: {} workers, {} unit(s) (longest-first schedule)\n",
+                parallelWorkers, schedule.size());
+            unitResults = new ArrayList<>(new ParallelFeatureRunner(parallelWorkers, loginCache, compiledPlans)
+                .run(schedule));
+            
+            List<ExecutionUnit> allUnits = new ArrayList<>(schedule);
+            allUnits.addAll(rejectedUnits.keySet());
+            unitResults.addAll(rejectedUnits.values());
+            results = aggregateByFeature(featureFiles, allUnits, unitResults, parseFailures);
+        } else {
+            unitResults = runSerial(featureFiles, loginCache, compiledPlans);
+            results = unitResults;
+        }
+        long actualMakespan = System.currentTimeMillis() - suiteStart;
+        
+        // Only completed units are recorded: a failing unit stops early and
+        // would make it look shorter than it really is
+        for (FeatureResult result : unitResults) {
+            if (result.isSuccess()) {
+                durationHistory.record(result.getFeatureName(), result.getDurationMs());
+            }
+        }
+        durationHistory.save();
+        
         // Overall statistics
         int totalFeatures = featureFiles.length;
         int passedFeatures = 0;
@@ -47,25 +112,12 @@ public class AllFeaturesTestRunner {
         
         List<String> failedFeaturesList = new ArrayList<>();
         
-        // Execute each feature file
-        for (File featureFile : featureFiles) {
-            String featurePath = featureFile.getPath();
-            String featureName = featureFile.getName();
-            
-            logger.header("EXECUTING: " + featureName);
-            
-            boolean featureSuccess = runFeature(featurePath);
-            
-            // Small delay between features for system cleanup
-            Thread.sleep(1000);
-            
-            if (featureSuccess) {
+        for (FeatureResult result : results) {
+            if (result.isSuccess()) {
                 passedFeatures++;
-                logger.success("FEATURE PASSED: {}", featureName);
             } else {
                 failedFeatures++;
-                failedFeaturesList.add(featureName);
-                logger.failure("FEATURE FAILED: {}", featureName);
+                failedFeaturesList.add(result.getFeatureName());
             }
         }
         
@@ -78,6 +130,16 @@ public class AllFeaturesTestRunner {
         logger.info("   Failed Features : {}", failedFeatures);
         logger.info("   Success Rate    : {}%", (passedFeatures * 100 / totalFeatures));
         logger.info("");
+        logger.info("SCHEDULE ({} worker{}):", parallelWorkers, parallelWorkers > 1 ? "s" : "");
+        logger.info("   Predicted Makespan : {}s", predictedMakespan / 1000);
+        logger.info("   Actual Makespan    : {}s", actualMakespan / 1000);
+        logger.info("");
+        StepPlanCache planCache = SmartStepParser.getPlanCache();
+        logger.info("PLAN CACHE:");
+        logger.info("   Hits / Misses : {} / {} ({}%)", planCache.getHits(), planCache.getMisses(),
+            Math.round(planCache.getHitRate()));
+        logger.info("   Cached Plans  : {}", planCache.size());
+        logger.info("");
         
         if (!failedFeaturesList.isEmpty()) {
             logger.error("FAILED FEATURES:");
@@ -94,14 +156,136 @@ public class AllFeaturesTestRunner {
         System.exit(failedFeatures > 0 ? 1 : 0);
     }
     
-    private static boolean runFeature(String featurePath) {
+    /**
+     * Parse every feature into execution units: one per feature, or one per
+     * scenario (with its background) when scenario-level parallelism is on.
+     *
+     * With splitOutlines, Scenario Outline Examples rows always become units of
+     * their own so a data-driven outline runs as a parallel batch; the rest of
+     * the feature stays together. Rows whose step template cannot be parsed go
+     * to rejectedUnits instead of the schedule, and features that fail to parse
+     * are reported through parseFailures.
+     */
+    private static List<ExecutionUnit> planUnits(File[] featureFiles, boolean perScenario, boolean splitOutlines,
+                                                 Map<String, FeatureResult> parseFailures,
+                                                 Map<ExecutionUnit, FeatureResult> rejectedUnits) {
+        FeatureReader reader = new FeatureReader();
+        OutlineTemplateChecker templateChecker = null;
+        List<ExecutionUnit> units = new ArrayList<>();
+        int outlineRows = 0;
+        
+        for (File featureFile : featureFiles) {
+            String featurePath = featureFile.getPath();
+            String featureName = featureFile.getName();
+            try {
+                FeatureModel feature = reader.readFeature(featurePath);
+                boolean batchOutlines = splitOutlines && feature.hasOutlineInstances();
+                if (!perScenario && !batchOutlines) {
+                    units.add(ExecutionUnit.forFeature(featureName, featurePath, feature.getFlattenedSteps()));
+                    continue;
+                }
+                if (!perScenario && feature.getScenarios().stream().anyMatch(s -> !s.isOutlineInstance())) {
+                    units.add(ExecutionUnit.forFeature(featureName, featurePath, feature.getFlattenedStepsWithoutOutlines()));
+                }
+                
+                for (ScenarioModel scenario : feature.getScenarios()) {
+                    if (!perScenario && !scenario.isOutlineInstance()) {
+                        continue;
+                    }
+                    ExecutionUnit unit = ExecutionUnit.forScenario(featureName, featurePath, scenario.getName(),
+                        scenario.getLine(), scenario.getBackgroundSteps(), scenario.getSteps());
+                    
+                    if (scenario.isOutlineInstance()) {
+                        outlineRows++;
+                        if (templateChecker == null) {
+                            templateChecker = new OutlineTemplateChecker();
+                        }
+                        String unsupportedStep = templateChecker.findUnsupportedStep(scenario);
+                        if (unsupportedStep != null) {
+                            rejectedUnits.put(unit, FeatureResult.error(unit.getId(),
+                                "Could not parse outline step: " + unsupportedStep));
+                            continue;
+                        }
+                    }
+                    units.add(unit);
+                }
+            } catch (Exception e) {
+                logger.error("Could not read feature {}: {}", featureName, e.getMessage());
+                parseFailures.put(featureName, FeatureResult.error(featureName, e.getMessage()));
+            }
+        }
+        
+        if (templateChecker != null) {
+            logger.info("Scenario Outlines: {} example row(s) from {} step template(s), {} rejected",
+                outlineRows, templateChecker.getTemplateCount(), rejectedUnits.size());
+        }
+        return units;
+    }
+    
+    /**
+     * Fold unit results back into one result per feature file, in file order.
+     * A feature passes only if every one of its units passed.
+     */
+    private static List<FeatureResult> aggregateByFeature(File[] featureFiles, List<ExecutionUnit> units,
+                                                          List<FeatureResult> unitResults,
+                                                          Map<String, FeatureResult> parseFailures) {
+        Map<String, List<FeatureResult>> byFeature = new LinkedHashMap<>();
+        for (int i = 0; i < units.size(); i++) {
+            byFeature.computeIfAbsent(units.get(i).getFeatureName(), k -> new ArrayList<>()).add(unitResults.get(i));
+        }
+        
+        List<FeatureResult> results = new ArrayList<>();
+        for (File featureFile : featureFiles) {
+            String featureName = featureFile.getName();
+            if (parseFailures.containsKey(featureName)) {
+                results.add(parseFailures.get(featureName));
+            } else {
+                results.add(FeatureResult.combine(featureName, byFeature.getOrDefault(featureName, List.of())));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Execute features one after another, each in its own browser
+     */
+    private static List<FeatureResult> runSerial(File[] featureFiles, LoginSnapshotCache loginCache,
+                                                 CompiledPlans compiledPlans) throws InterruptedException {
+        List<FeatureResult> results = new ArrayList<>();
+        
+        for (File featureFile : featureFiles) {
+            String featurePath = featureFile.getPath();
+            String featureName = featureFile.getName();
+            
+            logger.header("EXECUTING: " + featureName);
+            
+            long startTime = System.currentTimeMillis();
+            FeatureResult result = runFeature(featurePath, featureName, loginCache, compiledPlans);
+            result.setDurationMs(System.currentTimeMillis() - startTime);
+            results.add(result);
+            
+            // Small delay between features for system cleanup
+            Thread.sleep(1000);
+            
+            if (result.isSuccess()) {
+                logger.success("FEATURE PASSED: {}", featureName);
+            } else {
+                logger.failure("FEATURE FAILED: {}", featureName);
+            }
+        }
+        
+        return results;
+    }
+    
+    private static FeatureResult runFeature(String featurePath, String featureName, LoginSnapshotCache loginCache,
+                                            CompiledPlans compiledPlans) {
         FeatureReader reader = new FeatureReader();
-        SmartStepParser planner = new SmartStepParser();
         
         // Playwright resources
         com.microsoft.playwright.Playwright playwright = null;
         com.microsoft.playwright.Browser browser = null;
         com.microsoft.playwright.Page page = null;
+        LoginSnapshotCache.LoginSession loginSession = null;
         
         try {
             List<String> steps = reader.readSteps(featurePath);
@@ -109,84 +293,33 @@ public class AllFeaturesTestRunner {
             // Initialize browser
             playwright = com.microsoft.playwright.Playwright.create();
             browser = playwright.chromium().launch(new com.microsoft.playwright.BrowserType.LaunchOptions().setHeadless(false));
-            page = browser.newPage();
-            page.setDefaultTimeout(120000);
-            page.setDefaultNavigationTimeout(120000);
-            
-            // Create services with Page instance
-            agent.browser.SmartLocator smartLocator = new agent.browser.SmartLocator(page);
-            BrowserService browserService = new BrowserService(page, smartLocator);
-            
-        int totalSteps = steps.size();
-        int passed = 0;
-        int failed = 0;
-        int skipped = 0;
-        boolean shouldContinue = true;
-        
-        for (String step : steps) {
-            if (!shouldContinue) {
-                skipped++;
-                logger.warn("SKIPPED: {}", step);
-                continue;
-            }
-            
-            ActionPlan plan = planner.parseStep(step, page, smartLocator);
-            logger.debug(plan.toString());
             
-            // Check if this is a composite action plan
-            if (plan instanceof agent.planner.CompositeActionPlan) {
-                agent.planner.CompositeActionPlan compositePlan = (agent.planner.CompositeActionPlan) plan;
-                boolean allSubActionsSucceeded = true;
-                
-                logger.info("  Executing {} sub-actions...", compositePlan.getSubActionCount());
-                
-                int subIndex = 1;
-                for (ActionPlan subAction : compositePlan.getSubActions()) {
-                    logger.step("Sub-action {}/{}: {}", subIndex, compositePlan.getSubActionCount(), subAction.getActionType());
-                    
-                    agent.reporting.StepExecutionReport subReport = browserService.executeAction(subAction);
-                    
-                    if ("PASSED".equals(subReport.getStatus())) {
-                        logger.success("Sub-action {} succeeded", subIndex);
-                    } else {
-                        logger.failure("Sub-action {} failed", subIndex);
-                        allSubActionsSucceeded = false;
-                        break;
-                    }
-                    subIndex++;
-                }
-                
-                if (allSubActionsSucceeded) {
-                    passed++;
-                } else {
-                    failed++;
-                    shouldContinue = false;
-                }
-            } else {
-                agent.reporting.StepExecutionReport report = browserService.executeAction(plan);
-                
-                if ("PASSED".equals(report.getStatus())) {
-                    passed++;
-                } else {
-                    failed++;
-                    shouldContinue = false;
+            // Start from a saved login when the feature opens with an app login we already performed
+            com.microsoft.playwright.Browser.NewContextOptions contextOptions = new com.microsoft.playwright.Browser.NewContextOptions();
+            if (loginCache != null) {
+                loginSession = loginCache.open(steps);
+                if (loginSession.getSnapshot() != null) {
+                    contextOptions.setStorageState(loginSession.getSnapshot());
                 }
             }
-        }
-        
-        logger.section("FEATURE SUMMARY");
-        logger.info("  Total Steps : {}", totalSteps);
-        logger.info("  Passed      : {}", passed);
-        logger.info("  Failed      : {}", failed);
-        logger.info("  Skipped     : {}", skipped);
-        logger.info("--------------------------------------------------\n");
-        
-        return failed == 0;
+            com.microsoft.playwright.BrowserContext context = browser.newContext(contextOptions);
+            if (loginSession != null) {
+                loginSession.attach(context);
+            }
+            page = context.newPage();
+            page.setDefaultTimeout(120000);
+            page.setDefaultNavigationTimeout(120000);
+            
+            return new FeatureExecutor(new SmartStepParser(), compiledPlans).execute(featureName, steps, page,
+                loginSession != null ? List.of(loginSession) : List.of());
             
         } catch (Exception e) {
             logger.error("Exception in feature execution: {}", e.getMessage(), e);
-            return false;
+            return FeatureResult.error(featureName, e.getMessage());
         } finally {
+            if (loginSession != null) {
+                loginSession.close();
+            }
             // Close browser resources
             if (browser != null) {
                 try {
@@ -202,6 +335,8 @@ public class AllFeaturesTestRunner {
                     logger.error("Error closing playwright: {}", e.getMessage());
                 }
             }
+            // Stored references belong to this feature only, as on the parallel workers
+            TestContext.reset();
         }
     }
 }
@@ -0,0 +1,122 @@
+package agent;
+
+import agent.feature.FeatureModel;
+import agent.feature.FeatureReader;
+import agent.planner.ActionPlan;
+import agent.planner.CompiledPlans;
+import agent.planner.SmartStepParser;
+import agent.utils.LoggerUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ahead-of-time "compile" of feature files into serialized step plans.
+ *
+ * Parses every step of every feature in parallel without starting Playwright and
+ * writes the result to target/compiled-plans.dat. AllFeaturesTestRunner loads
+ * the file and only parses live the steps whose plan depends on the page.
+ *
+ * Usage: PlanCompiler [featuresDir] [outputFile]
+ * Threads can be set via -DcompileThreads (default: available processors).
+ */
+public class PlanCompiler {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(PlanCompiler.class);
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 ? args[0] : "src/main/resources/features";
+        String outputFile = args.length > 1 ? args[1] : System.getProperty("compiledPlans", CompiledPlans.DEFAULT_FILE);
+        int threads = Integer.getInteger("compileThreads", Runtime.getRuntime().availableProcessors());
+
+        logger.header("COMPILING FEATURES");
+
+        File[] featureFiles = new File(featuresDir).listFiles((dir, name) -> name.endsWith(".feature"));
+        if (featureFiles == null || featureFiles.length == 0) {
+            logger.failure("No feature files found in: {}", new File(featuresDir).getAbsolutePath());
+            System.exit(1);
+            return;
+        }
+        java.util.Arrays.sort(featureFiles, (a, b) -> a.getName().compareTo(b.getName()));
+
+        long startTime = System.currentTimeMillis();
+        Map<String, ActionPlan> plans = new ConcurrentHashMap<>();
+        Set<String> liveSteps = ConcurrentHashMap.newKeySet();
+        Set<String> seenSteps = ConcurrentHashMap.newKeySet();
+        List<String> failedFeatures = new ArrayList<>();
+        int totalSteps = 0;
+
+        // Each thread gets its own parser; parsers are not thread-safe, the plan cache is
+        ThreadLocal<SmartStepParser> parsers = ThreadLocal.withInitial(SmartStepParser::new);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (File featureFile : featureFiles) {
+                futures.add(executor.submit(() -> {
+                    FeatureModel feature = new FeatureReader().readFeature(featureFile.getPath());
+                    SmartStepParser parser = parsers.get();
+                    for (String step : feature.getFlattenedSteps()) {
+                        // Identical steps across features are parsed once
+                        if (!seenSteps.add(step)) {
+                            continue;
+                        }
+                        ActionPlan plan = parser.precompileStep(step);
+                        if (plan != null) {
+                            plans.put(step, plan);
+                        } else {
+                            liveSteps.add(step);
+                        }
+                    }
+                    return feature.getFlattenedSteps().size();
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    totalSteps += futures.get(i).get();
+                } catch (Exception e) {
+                    String cause = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                    logger.error("Could not compile {}: {}", featureFiles[i].getName(), cause);
+                    failedFeatures.add(featureFiles[i].getName());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CompiledPlans compiled = new CompiledPlans(plans, liveSteps);
+        compiled.save(outputFile);
+        long duration = System.currentTimeMillis() - startTime;
+
+        logger.info("\n");
+        logger.header("COMPILATION SUMMARY");
+        logger.info("   Features        : {} ({} failed)", featureFiles.length, failedFeatures.size());
+        logger.info("   Steps           : {} ({} distinct)", totalSteps, seenSteps.size());
+        logger.info("   Precompiled     : {}", compiled.getPlanCount());
+        logger.info("   Parsed live     : {}", compiled.getLiveStepCount());
+        logger.info("   Threads         : {}", threads);
+        logger.info("   Duration        : {} ms", duration);
+        logger.info("   Output          : {}", outputFile);
+
+        List<String> unknownSteps = compiled.getUnknownSteps();
+        if (!unknownSteps.isEmpty()) {
+            logger.warning("UNRECOGNIZED STEPS:");
+            for (String step : unknownSteps) {
+                logger.warning("   - {}", step);
+            }
+        }
+        for (String failed : failedFeatures) {
+            logger.error("   - {}", failed);
+        }
+        logger.info("==================================================");
+
+        System.exit(failedFeatures.isEmpty() ? 0 : 1);
+    }
+}
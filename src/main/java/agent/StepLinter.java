@@ -0,0 +1,204 @@
+package agent;
+
+import agent.feature.FeatureModel;
+import agent.feature.FeatureReader;
+import agent.intelligence.StepSuggestionEngine;
+import agent.intelligence.StepSuggestionEngine.StepSuggestion;
+import agent.planner.SmartStepParser;
+import agent.utils.LoggerUtil;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Preflight "lint" of feature files: checks every step against the parser
+ * without starting Playwright, so a typo fails CI in seconds instead of
+ * partway through a browser run.
+ *
+ * Features are read and checked in parallel with SmartStepParser.isStepSupported;
+ * identical steps are checked once. Supported steps are recorded with
+ * StepSuggestionEngine, then unsupported steps get the rewrites it proposes.
+ * The result is written as JSON to target/lint-report.json, each issue with
+ * the step's line in its feature file, and the exit code is 1 when any step
+ * is unsupported or any feature cannot be read.
+ *
+ * Usage: StepLinter [featuresDir] [reportFile]
+ * Threads can be set via -DlintThreads (default: available processors).
+ */
+public class StepLinter {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(StepLinter.class);
+
+    public static final String DEFAULT_REPORT = "target/lint-report.json";
+
+    public static void main(String[] args) throws Exception {
+        String featuresDir = args.length > 0 ? args[0] : "src/main/resources/features";
+        String reportFile = args.length > 1 ? args[1] : System.getProperty("lintReport", DEFAULT_REPORT);
+        int threads = Integer.getInteger("lintThreads", Runtime.getRuntime().availableProcessors());
+
+        logger.header("LINTING FEATURES");
+
+        File[] featureFiles = new File(featuresDir).listFiles((dir, name) -> name.endsWith(".feature"));
+        if (featureFiles == null || featureFiles.length == 0) {
+            logger.failure("No feature files found in: {}", new File(featuresDir).getAbsolutePath());
+            System.exit(1);
+            return;
+        }
+        Arrays.sort(featureFiles, (a, b) -> a.getName().compareTo(b.getName()));
+
+        long startTime = System.currentTimeMillis();
+        // Identical steps across features are checked once
+        Map<String, Boolean> verdicts = new ConcurrentHashMap<>();
+        Map<String, List<StepSuggestion>> suggestions = new HashMap<>();
+        List<Map<String, Object>> issues = new ArrayList<>();
+        List<Map<String, Object>> failedFeatures = new ArrayList<>();
+        int totalSteps = 0;
+
+        // Parsers are not thread-safe, so each thread gets its own
+        ThreadLocal<SmartStepParser> parsers = ThreadLocal.withInitial(SmartStepParser::new);
+        StepSuggestionEngine suggestionEngine = new StepSuggestionEngine();
+
+        // The parser logs every step at DEBUG, which would cost more than the checks
+        Logger agentLogger = (Logger) LoggerFactory.getLogger("agent");
+        Level previousLevel = agentLogger.getLevel();
+        agentLogger.setLevel(Level.WARN);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<FeatureModel>> futures = new ArrayList<>();
+            for (File featureFile : featureFiles) {
+                futures.add(executor.submit(() -> {
+                    FeatureModel feature = new FeatureReader().readFeature(featureFile.getPath());
+                    List<String> steps = feature.getFlattenedSteps();
+                    SmartStepParser parser = parsers.get();
+                    for (String step : steps) {
+                        // Two threads may check the same step at once; both reach the same verdict
+                        if (!verdicts.containsKey(step)) {
+                            boolean supported = parser.isStepSupported(step);
+                            if (supported) {
+                                StepSuggestionEngine.recordSupportedStep(step);
+                            }
+                            verdicts.putIfAbsent(step, supported);
+                        }
+                    }
+                    return feature;
+                }));
+            }
+
+            List<FeatureModel> features = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    features.add(futures.get(i).get());
+                } catch (Exception e) {
+                    features.add(null);
+                    String cause = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                    logger.error("Could not lint {}: {}", featureFiles[i].getName(), cause);
+                    Map<String, Object> failure = new LinkedHashMap<>();
+                    failure.put("feature", featureFiles[i].getName());
+                    failure.put("error", cause);
+                    failedFeatures.add(failure);
+                }
+            }
+
+            // Suggestions last, so they can point at every supported step seen in the run
+            for (int i = 0; i < features.size(); i++) {
+                if (features.get(i) == null) {
+                    continue;
+                }
+                List<String> steps = features.get(i).getFlattenedSteps();
+                List<Integer> lines = features.get(i).getFlattenedStepLines();
+                totalSteps += steps.size();
+                for (int s = 0; s < steps.size(); s++) {
+                    String step = steps.get(s);
+                    if (!verdicts.get(step)) {
+                        List<StepSuggestion> rewrites = suggestions.computeIfAbsent(step, suggestionEngine::generateSuggestions);
+                        issues.add(issue(featureFiles[i].getName(), lines.get(s), step, rewrites));
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+            agentLogger.setLevel(previousLevel);
+        }
+        long duration = System.currentTimeMillis() - startTime;
+
+        long unsupportedDistinct = issues.stream().map(issue -> issue.get("step")).distinct().count();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("featuresDir", featuresDir);
+        report.put("features", featureFiles.length);
+        report.put("steps", totalSteps);
+        report.put("distinctSteps", verdicts.size());
+        report.put("unsupportedSteps", issues.size());
+        report.put("unsupportedDistinctSteps", unsupportedDistinct);
+        report.put("durationMs", duration);
+        report.put("passed", issues.isEmpty() && failedFeatures.isEmpty());
+        report.put("failedFeatures", failedFeatures);
+        report.put("issues", issues);
+
+        File output = new File(reportFile);
+        if (output.getParentFile() != null) {
+            output.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+
+        logger.info("\n");
+        logger.header("LINT SUMMARY");
+        logger.info("   Features        : {} ({} failed)", featureFiles.length, failedFeatures.size());
+        logger.info("   Steps           : {} ({} distinct)", totalSteps, verdicts.size());
+        logger.info("   Unsupported     : {} ({} distinct)", issues.size(), unsupportedDistinct);
+        logger.info("   Threads         : {}", threads);
+        logger.info("   Duration        : {} ms", duration);
+        logger.info("   Report          : {}", reportFile);
+
+        if (!issues.isEmpty()) {
+            logger.warning("UNSUPPORTED STEPS:");
+            for (Map<String, Object> issue : issues) {
+                logger.warning("   - {}:{}: {}", issue.get("feature"), issue.get("line"), issue.get("step"));
+                for (Object suggestion : (List<?>) issue.get("suggestions")) {
+                    logger.info("        Did you mean: {}", ((Map<?, ?>) suggestion).get("step"));
+                }
+            }
+        }
+        for (Map<String, Object> failed : failedFeatures) {
+            logger.error("   - {}", failed.get("feature"));
+        }
+        logger.info("==================================================");
+
+        System.exit(issues.isEmpty() && failedFeatures.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Report entry for an unsupported step at the given line of its feature file
+     */
+    private static Map<String, Object> issue(String featureName, int line, String step, List<StepSuggestion> suggestions) {
+        Map<String, Object> issue = new LinkedHashMap<>();
+        issue.put("feature", featureName);
+        issue.put("line", line);
+        issue.put("step", step);
+        List<Map<String, Object>> rewrites = new ArrayList<>();
+        for (StepSuggestion suggestion : suggestions) {
+            Map<String, Object> rewrite = new LinkedHashMap<>();
+            rewrite.put("step", suggestion.getSuggestedStep());
+            rewrite.put("reason", suggestion.getReason());
+            rewrite.put("confidence", suggestion.getConfidence());
+            rewrites.add(rewrite);
+        }
+        issue.put("suggestions", rewrites);
+        return issue;
+    }
+}
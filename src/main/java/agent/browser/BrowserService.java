@@ -73,6 +73,7 @@ public class BrowserService {
                 Page activePage = getActivePage();
                 // Ensure SmartLocator is using the active page
                 smartLocator.setPage(activePage);
+                double scanMillisBefore = smartLocator.getDomScanMillis();
                 
                 logger.debug("Executing action: {} for step: {}", actionType, stepText);
                 
@@ -83,6 +84,12 @@ public class BrowserService {
                 long duration = System.currentTimeMillis() - startTime;
                 report.status(success ? "PASSED" : "FAILED")
                     .duration(duration);
+
+                // JS time of the DOM scans this step ran (element lookup cost)
+                double scanMillis = smartLocator.getDomScanMillis() - scanMillisBefore;
+                if (scanMillis > 0) {
+                    report.addMetadata("domScanMs", Math.round(scanMillis * 10) / 10.0);
+                }
                 
                 // Extract locator details from plan metadata if available
                 if (plan.hasMetadata("intelligent_locator")) {
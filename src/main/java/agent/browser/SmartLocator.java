@@ -2,7 +2,10 @@ package agent.browser;
 
 import agent.browser.locator.core.DomScanner;
 import agent.browser.locator.core.ElementCandidate;
+import agent.browser.locator.core.FrameRegistry;
+import agent.browser.locator.core.LearnedSelectorStore;
 import agent.browser.locator.core.LocatorFactory;
+import agent.browser.locator.core.ScoringQuery;
 import agent.browser.locator.core.CandidateScorer;
 import agent.utils.LoggerUtil;
 import com.microsoft.playwright.Frame;
@@ -13,17 +16,37 @@ import java.util.List;
 public class SmartLocator {
     
     private static final LoggerUtil logger = LoggerUtil.getLogger(SmartLocator.class);
+
+    // Score candidates in the page and bring back only the best few (-DinPageScoring=false scores everything here)
+    private static final boolean IN_PAGE_SCORING = Boolean.parseBoolean(System.getProperty("inPageScoring", "true"));
+    private static final int IN_PAGE_TOP_K = Integer.getInteger("inPageTopK", 5);
+    // Wait for elements in the page between attempts (-DeventDrivenWait=false sleeps 500 ms)
+    private static final boolean EVENT_DRIVEN_WAIT = Boolean.parseBoolean(System.getProperty("eventDrivenWait", "true"));
+    // Try selectors learned in earlier runs before scanning, and search the frame an element
+    // was last found in first. Off by default (-DlearnedSelectors=true): the page is scanned,
+    // then each frame, and nothing is written to config/learned_selectors.properties
+    private static final boolean LEARNED_SELECTORS = Boolean.parseBoolean(System.getProperty("learnedSelectors", "false"));
+    // A candidate must score above this to be picked
+    private static final double MIN_SCORE = 30;
+    // Least time between two attempts of a wait, however soon the page reports a change
+    private static final long MIN_ATTEMPT_MS = 250;
     
     private Page page;
     private final DomScanner docScanner;
     private final CandidateScorer scorer;
     private LocatorFactory locatorFactory;
+    private final LearnedSelectorStore learnedSelectors;
+    private final FrameRegistry frames;
+    // Candidate behind the locator findSmartElement returned last, null if not from a scan
+    private ElementCandidate lastPick;
 
     public SmartLocator(Page page) {
         this.page = page;
+        this.frames = new FrameRegistry(page);
         this.docScanner = new DomScanner();
         this.scorer = new CandidateScorer();
         this.locatorFactory = new LocatorFactory(page);
+        this.learnedSelectors = LEARNED_SELECTORS ? LearnedSelectorStore.getInstance() : null;
     }
 
     public Locator waitForSmartElement(String name, String type) {
@@ -39,19 +62,27 @@ public class SmartLocator {
     }
 
     /**
-     * Wait for an element to appear, with optional scope and frame anchor
+     * Wait for an element to appear, with optional scope and frame anchor.
+     * Between attempts the page itself watches for the target (DOM mutations,
+     * finished transitions), so a rescan follows the app instead of a fixed
+     * 500 ms sleep; -DeventDrivenWait=false restores the sleep. An element
+     * found but turned down (hidden) is not reported back by the page, and
+     * attempts are at least MIN_ATTEMPT_MS apart either way.
      */
     public Locator waitForSmartElement(String name, String type, Locator scope, String frameAnchor, boolean includeHidden) {
         long deadline = System.currentTimeMillis() + 30000; 
-        int maxRetries = 60; 
+        int maxRetries = (int) (30000 / MIN_ATTEMPT_MS); 
         int retryCount = 0;
         long lastLogTime = 0;
         
         while (System.currentTimeMillis() < deadline && retryCount < maxRetries) {
+            long attemptStart = System.currentTimeMillis();
+            lastPick = null;
             Locator loc = findSmartElement(name, type, scope, frameAnchor, includeHidden);
             if (loc != null && (includeHidden || loc.isVisible())) {
                 return loc;
             }
+            String rejected = loc != null && lastPick != null ? lastPick.storeKey : null;
             
             retryCount++;
             
@@ -62,8 +93,15 @@ public class SmartLocator {
                 lastLogTime = currentTime;
             }
             
+            Boolean appeared = EVENT_DRIVEN_WAIT
+                ? waitForChange(name, type, scope, frameAnchor, includeHidden, rejected, deadline - currentTime)
+                : null;
+            long pause = appeared != null ? attemptStart + MIN_ATTEMPT_MS - System.currentTimeMillis() : 500;
+            if (pause <= 0) {
+                continue;
+            }
             try {
-                Thread.sleep(500); 
+                Thread.sleep(pause); 
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 return null;
@@ -82,6 +120,35 @@ public class SmartLocator {
         return null;
     }
 
+    /**
+     * Wait in the page until the target may be there, for at most one slice
+     * of the remaining time so progress is still logged every 5 s. Child
+     * frames are not watched from the main page, so with iframes present (and
+     * no frame anchor) the slice is shorter.
+     *
+     * @param rejected storeKey of the element the last attempt found but turned down, or null
+     * @return as DomScanner.waitForCandidate: null means fall back to sleeping
+     */
+    private Boolean waitForChange(String name, String type, Locator scope, String frameAnchor, boolean includeHidden,
+                                  String rejected, long remaining) {
+        if (name == null) return null;
+        String[] target = splitTypeHint(name, type);
+        Frame frame = frameAnchor != null ? findFrame(frameAnchor) : null;
+        long slice;
+        if (frame != null || scope != null || page.frames().size() <= 1) {
+            slice = Math.min(remaining, 5000);
+        } else {
+            slice = Math.min(remaining, 1000);
+        }
+        if (frame != null) {
+            return docScanner.waitForCandidate(frame, target[0], target[1], MIN_SCORE, includeHidden, rejected, slice);
+        }
+        if (scope != null) {
+            return docScanner.waitForCandidate(scope, target[0], target[1], MIN_SCORE, includeHidden, rejected, slice);
+        }
+        return docScanner.waitForCandidate(page, target[0], target[1], MIN_SCORE, includeHidden, rejected, slice);
+    }
+
     public Locator findSmartElement(String name, String parsedType) {
         return findSmartElement(name, parsedType, null, null);
     }
@@ -97,6 +164,75 @@ public class SmartLocator {
     public Locator findSmartElement(String name, String parsedType, Locator scope, String frameAnchor, boolean includeHidden) {
         if (name == null) return null;
 
+        String[] target = splitTypeHint(name, parsedType);
+        
+        // Use the clean name and detected type for searching
+        final String searchName = target[0];
+        final String searchType = target[1];
+        
+        // 0. A selector learned for this element on this page, if it still resolves to it
+        boolean learnable = learnedSelectors != null && scope == null && frameAnchor == null;
+        if (learnable) {
+            Locator learned = learnedSelectors.resolve(page, searchName, searchType, includeHidden);
+            if (learned != null) return learned;
+        }
+        
+        // 1. If frame anchor is provided, narrow search to that frame
+        if (frameAnchor != null) {
+            Frame frame = findFrame(frameAnchor);
+            if (frame != null) {
+                logger.debug("Scoping search to iframe: '{}'", frameAnchor);
+                return findInContext(searchName, searchType, frame, null, includeHidden);
+            } else {
+                logger.warning("Target iframe '{}' not found. Searching globally...", frameAnchor);
+            }
+        }
+
+        // 2. The frame this element was found in last time on this page
+        Frame learnedFrame = learnable ? frames.bySignature(learnedSelectors.frameFor(page, searchName, searchType)) : null;
+        if (learnedFrame != null) {
+            logger.debug("Searching iframe '{}' first, where '{}' was found before", frames.signature(learnedFrame), searchName);
+            Locator loc = findInContext(searchName, searchType, learnedFrame, null, includeHidden);
+            if (loc != null) return loc;
+        }
+
+        // 3. Normal search (Scoped or Page)
+        Locator loc = findInContext(searchName, searchType, null, scope, includeHidden);
+        if (loc != null) {
+            if (learnable) {
+                learnedSelectors.learn(page, searchName, searchType, loc, locatorFactory.selectorOf(loc));
+                learnedSelectors.learnFrame(page, searchName, searchType, null);
+            }
+            return loc;
+        }
+
+        // 4. Automatic Frame Traversal: If not found in main page, search all frames
+        if (scope == null) {
+            logger.debug("Element '{}' not found in main page. Searching across all iframes...", searchName);
+            for (Frame frame : page.frames()) {
+                if (frame == page.mainFrame() || frame == learnedFrame) continue; // Already searched
+                if (frame.isDetached()) continue;
+                
+                loc = findInContext(searchName, searchType, frame, null, includeHidden);
+                if (loc != null) {
+                    logger.success("Found element '{}' inside iframe: '{}'", searchName, frame.name().isEmpty() ? frame.url() : frame.name());
+                    if (learnable) {
+                        learnedSelectors.learnFrame(page, searchName, searchType, frames.signature(frame));
+                    }
+                    return loc;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Split a trailing type descriptor off the element name
+     *
+     * @return the clean name and the type to search for
+     */
+    private String[] splitTypeHint(String name, String parsedType) {
         // INTELLIGENT TYPE EXTRACTION
         // Extract element type descriptor from user's natural language
         // E.g., "Home link" -> name="Home", type="link"
@@ -144,71 +280,31 @@ public class SmartLocator {
             cleanName = cleanName.replaceAll("(?i)\\s+(link|button|icon|checkbox|radio|element|field|input|dropdown|select|textarea|slider|range|progress bar|progressbar)$", "").trim();
         }
         
-        // Use the clean name and detected type for searching
-        final String searchName = cleanName;
-        final String searchType = detectedType;
-        
-        // 1. If frame anchor is provided, narrow search to that frame
-        if (frameAnchor != null) {
-            Frame frame = findFrame(frameAnchor);
-            if (frame != null) {
-                logger.debug("Scoping search to iframe: '{}'", frameAnchor);
-                return findInContext(searchName, searchType, frame, null, includeHidden);
-            } else {
-                logger.warning("Target iframe '{}' not found. Searching globally...", frameAnchor);
-            }
-        }
-
-        // 2. Normal search (Scoped or Page)
-        Locator loc = findInContext(searchName, searchType, null, scope, includeHidden);
-        if (loc != null) return loc;
-
-        // 3. Automatic Frame Traversal: If not found in main page, search all frames
-        if (scope == null) {
-            logger.debug("Element '{}' not found in main page. Searching across all iframes...", searchName);
-            for (Frame frame : page.frames()) {
-                if (frame == page.mainFrame()) continue; // Already searched
-                if (frame.isDetached()) continue;
-                
-                loc = findInContext(searchName, searchType, frame, null, includeHidden);
-                if (loc != null) {
-                    logger.success("Found element '{}' inside iframe: '{}'", searchName, frame.name().isEmpty() ? frame.url() : frame.name());
-                    return loc;
-                }
-            }
-        }
-
-        return null;
+        return new String[] { cleanName, detectedType };
     }
 
     /**
-     * Searches for a frame by name, ID, or title
+     * Searches for a frame by name, ID, or title (read once per frame document, see FrameRegistry)
      */
     public Frame findFrame(String frameAnchor) {
-        for (Frame frame : page.frames()) {
-            if (frame.name().equalsIgnoreCase(frameAnchor)) return frame;
-            
-            // Check ID or other attributes via evaluation if name doesn't match
-            try {
-                if (frame.isDetached()) continue;
-                String frameId = String.valueOf(frame.evaluate("() => window.frameElement ? window.frameElement.id : ''"));
-                if (frameAnchor.equalsIgnoreCase(frameId)) return frame;
-                
-                if (frame.isDetached()) continue;
-                String frameTitle = String.valueOf(frame.evaluate("() => window.frameElement ? window.frameElement.title : ''"));
-                if (frameAnchor.equalsIgnoreCase(frameTitle)) return frame;
-            } catch (Exception e) {
-                // Ignore errors in detached or cross-origin frames
-            }
-        }
-        return null;
+        return frames.find(frameAnchor);
     }
 
     private Locator findInContext(String name, String parsedType, Frame frame, Locator scope, boolean includeHidden) {
         logger.analysis("Analyzing DOM context for target: '{}' (Type: {}){}{}", name, parsedType, (frame != null ? " [Frame]" : (scope != null ? " [Scoped]" : " [Page]")), (includeHidden ? " [Include Hidden]" : ""));
 
+        // In-page scoring returns the top candidates in document order; scoring them again
+        // here keeps the final pick (and its tie-break) exactly as for a full scan
         List<ElementCandidate> elements;
-        if (scope != null) {
+        if (IN_PAGE_SCORING) {
+            if (scope != null) {
+                elements = docScanner.findTopCandidates(scope, name, parsedType, IN_PAGE_TOP_K, includeHidden);
+            } else if (frame != null) {
+                elements = docScanner.findTopCandidates(frame, name, parsedType, IN_PAGE_TOP_K, includeHidden);
+            } else {
+                elements = docScanner.findTopCandidates(page, name, parsedType, IN_PAGE_TOP_K, includeHidden);
+            }
+        } else if (scope != null) {
             elements = docScanner.scan(scope, includeHidden);
         } else if (frame != null) {
             elements = docScanner.scan(frame, includeHidden);
@@ -218,9 +314,12 @@ public class SmartLocator {
 
         double bestScore = 0.0;
         ElementCandidate bestElement = null;
+        ScoringQuery query = ScoringQuery.of(name, parsedType);
+        // On large pages a full scan is narrowed to the candidates that can win
+        List<ElementCandidate> scored = IN_PAGE_SCORING ? elements : docScanner.shortlist(elements, query, scorer);
 
-        for (ElementCandidate el : elements) {
-            double score = scorer.score(el, name, parsedType);
+        for (ElementCandidate el : scored) {
+            double score = scorer.score(el, query);
             if (score > bestScore) {
                 bestScore = score;
                 bestElement = el;
@@ -228,12 +327,12 @@ public class SmartLocator {
         }
 
         // Debug: Show top candidates if no strong match
-        if (bestScore <= 30 && (scope != null || frame != null)) { // Added frame context for debug logging
+        if (bestScore <= MIN_SCORE && (scope != null || frame != null)) { // Added frame context for debug logging
             logger.debug("Elements found in context:");
             elements.stream()
                 .limit(10)
                 .forEach(el -> {
-                    double s = scorer.score(el, name, parsedType);
+                    double s = scorer.score(el, query);
                     logger.debug("   - {} {} {} {} → score={}",
                         el.tag,
                         (el.text.isEmpty() ? "" : " text='" + el.text.substring(0, Math.min(20, el.text.length())) + "'"),
@@ -243,7 +342,8 @@ public class SmartLocator {
                 });
         }
 
-        if (bestScore > 30 && bestElement != null) {
+        if (bestScore > MIN_SCORE && bestElement != null) {
+            lastPick = bestElement;
             // Updated locator factory needed to support Frame
             return createLocator(bestElement, bestScore, parsedType, frame, scope);
         }
@@ -264,12 +364,19 @@ public class SmartLocator {
             
             // For now, let's use a trick: if it's a frame, we return a locator from the frame
             // But LocatorFactory handles the complex logic.
-            return locatorFactory.createLocator(element, score, parsedType, (scope != null ? scope : frame.locator(":root").first()));
+            return locatorFactory.createLocator(element, score, parsedType, (scope != null ? scope : frame.locator(":root").first()), frame);
             // This is a bit hacky. Better to update LocatorFactory.
         }
         
         return locatorFactory.createLocator(element, score, parsedType, scope);
     }
+    /**
+     * Total milliseconds DOM scans have spent in the page, for per-step timing
+     */
+    public double getDomScanMillis() {
+        return docScanner.getScanMillis();
+    }
+
     /**
      * Updates the page instance used by the locator.
      * This is essential when switching between windows/tabs.
@@ -278,6 +385,7 @@ public class SmartLocator {
         if (this.page != newPage) {
             logger.debug("SmartLocator switching to new page context");
             this.page = newPage;
+            frames.setPage(newPage);
             // Re-initialize factory with new page
             this.locatorFactory = new LocatorFactory(newPage);
         }
@@ -79,7 +79,7 @@ public class FillCredentialsAction implements BrowserAction {
     /**
      * Determine app context from URL
      */
-    private String determineAppContext(String url) {
+    public static String determineAppContext(String url) {
         if (url.contains("hotel") || url.contains("booker")) {
             return "hotel.booker";
         } else if (url.contains("sabre") && url.contains("admin")) {
@@ -0,0 +1,320 @@
+package agent.browser.locator.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index over one document's candidates, so a lookup on a large page
+ * fully scores only the candidates whose fields can relate to the target name
+ * (shortlist).
+ *
+ * Every name-dependent part of CandidateScorer is covered without loss:
+ * - containment, case-insensitive equality and fuzzy similarity (ratio above
+ *   85) all imply that a candidate shares enough character trigrams with the
+ *   name, counted by the q-gram lemma: a string within edit distance d of a
+ *   name of length n contains at least n - 2 - 3d of its trigrams;
+ * - the collapsed-text equality of tier 1 is an exact lookup by cleanText;
+ * - titles and labels contained in the name are exact lookups of the name's
+ *   substrings.
+ * A candidate the index does not return therefore scores exactly
+ * CandidateScorer.unrelatedScore, which only reads the target's type and
+ * length. The first of the best-scoring of those is added as their stand-in,
+ * so scoring the shortlist in document order picks the same element as
+ * scoring every candidate.
+ *
+ * Candidates are added by their in-page store id as records change; a changed
+ * record is simply added again. Entries of its old version stay behind, which
+ * can only add candidates to a shortlist, until the owner rebuilds the index
+ * (see records).
+ *
+ * Trigrams are taken over per-char case-folded classes (letters, digits,
+ * other ASCII, everything else), so text that is equal when lowercased yields
+ * equal trigrams. Lowercasing that changes string length (U+0130) or depends
+ * on the locale (Turkish, Azeri, Lithuanian) is not per-char: such candidates
+ * are always shortlisted and such locales are not indexed. Not thread-safe.
+ */
+public final class CandidateIndex {
+
+    // Documents with fewer candidates are scored in full (-DcandidateIndexMin)
+    public static final int MIN_CANDIDATES = Integer.getInteger("candidateIndexMin", 1000);
+
+    // Fuzzy matches are above this ratio, as in CandidateScorer.similar
+    private static final int FUZZY_THRESHOLD = 85;
+    private static final int CLASS_BITS = 6;
+    private static final int TRIGRAMS = 1 << (3 * CLASS_BITS);
+    // Bits of CandidateScorer.unrelatedProfile
+    private static final int PROFILE_BITS = 11;
+    private static final byte[] ASCII_CLASS = new byte[128];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            if (c >= 'a' && c <= 'z') {
+                ASCII_CLASS[c] = (byte) (1 + c - 'a');
+            } else if (c >= 'A' && c <= 'Z') {
+                ASCII_CLASS[c] = (byte) (1 + c - 'A');
+            } else if (c >= '0' && c <= '9') {
+                ASCII_CLASS[c] = (byte) (27 + c - '0');
+            } else {
+                ASCII_CLASS[c] = (byte) (37 + c % 27);
+            }
+        }
+    }
+
+    // Store id -> dense slot (0 when not added); slot -> latest record, and
+    // what its unrelated score depends on (CandidateScorer.unrelatedProfile)
+    private int[] slotOf = new int[1024];
+    private ElementCandidate[] bySlot = new ElementCandidate[1024];
+    private int[] profileOf = new int[1024];
+    private int[] textLengthOf = new int[1024];
+    private boolean[] visibleOf = new boolean[1024];
+    private int slots = 1;
+    private int records;
+
+    // Slots per trigram, per collapsed text, per lowercased title and label
+    private final IntList[] postings = new IntList[TRIGRAMS];
+    private final Map<String, IntList> byCleanText = new HashMap<>();
+    private final Map<String, IntList> byTitle = new HashMap<>();
+    private final Map<String, IntList> byLabel = new HashMap<>();
+    private int longestTitleOrLabel;
+    // Slots the trigrams cannot vouch for
+    private final IntList alwaysShortlisted = new IntList();
+
+    // Marks the trigrams already posted for the record being added
+    private final int[] postedFor = new int[TRIGRAMS];
+
+    private CandidateIndex() {
+    }
+
+    /**
+     * An empty index, or null where lowercasing is locale-dependent
+     */
+    public static CandidateIndex create() {
+        String language = Locale.getDefault().getLanguage();
+        if (language.equals("tr") || language.equals("az") || language.equals("lt")) return null;
+        return new CandidateIndex();
+    }
+
+    /**
+     * Records added so far, including the replaced versions of changed ones
+     */
+    public int records() {
+        return records;
+    }
+
+    /**
+     * Index a new or changed record of the element with the given store id
+     */
+    public void add(int nid, ElementCandidate el) {
+        if (nid >= slotOf.length) {
+            slotOf = Arrays.copyOf(slotOf, Math.max(nid + 1, slotOf.length * 2));
+        }
+        int slot = slotOf[nid];
+        if (slot == 0) {
+            slot = slots++;
+            slotOf[nid] = slot;
+            if (slot >= bySlot.length) {
+                bySlot = Arrays.copyOf(bySlot, bySlot.length * 2);
+                profileOf = Arrays.copyOf(profileOf, bySlot.length);
+                textLengthOf = Arrays.copyOf(textLengthOf, bySlot.length);
+                visibleOf = Arrays.copyOf(visibleOf, bySlot.length);
+            }
+        }
+        NormalizedCandidate normalized = el.normalized();
+        bySlot[slot] = el;
+        profileOf[slot] = CandidateScorer.unrelatedProfile(el);
+        textLengthOf[slot] = normalized.text.length();
+        visibleOf[slot] = el.visible;
+        records++;
+
+        boolean safe = true;
+        for (String field : new String[] {el.text, el.id, el.name, el.title, el.label, el.placeholder}) {
+            int length = field.length();
+            int a = 0;
+            int b = 0;
+            for (int j = 0; j < length; j++) {
+                char ch = field.charAt(j);
+                if (ch == 'İ') {
+                    safe = false;
+                }
+                int c = classOf(ch);
+                if (j >= 2) {
+                    int trigram = (a << (2 * CLASS_BITS)) | (b << CLASS_BITS) | c;
+                    if (postedFor[trigram] != records) {
+                        postedFor[trigram] = records;
+                        IntList posting = postings[trigram];
+                        if (posting == null) {
+                            posting = postings[trigram] = new IntList();
+                        }
+                        posting.add(slot);
+                    }
+                }
+                a = b;
+                b = c;
+            }
+        }
+        if (!safe) {
+            alwaysShortlisted.add(slot);
+        }
+
+        byCleanText.computeIfAbsent(normalized.cleanText, k -> new IntList()).add(slot);
+        if (!el.title.isEmpty()) {
+            byTitle.computeIfAbsent(normalized.lowerTitle, k -> new IntList()).add(slot);
+            longestTitleOrLabel = Math.max(longestTitleOrLabel, normalized.lowerTitle.length());
+        }
+        if (!el.label.isEmpty()) {
+            byLabel.computeIfAbsent(normalized.lowerLabel, k -> new IntList()).add(slot);
+            longestTitleOrLabel = Math.max(longestTitleOrLabel, normalized.lowerLabel.length());
+        }
+    }
+
+    /**
+     * The candidates that can score best for the query, in document order:
+     * every one related to the target name plus the best unrelated one.
+     *
+     * @param order store ids of the document's elements in document order,
+     *              all of them added
+     * @return visible candidates only unless includeHidden, or null when the
+     *         name is too short (or too fuzzy) for trigrams to rule anything
+     *         out; then score them all
+     */
+    public List<ElementCandidate> shortlist(int[] order, boolean includeHidden, ScoringQuery q, CandidateScorer scorer) {
+        if (q.name.length() != q.lowerName.length()) return null;
+        boolean[] picked = new boolean[slots];
+        if (!addTrigramMatches(q.lowerName, picked)) return null;
+        if (!q.cleanName.equals(q.lowerName) && !addTrigramMatches(q.cleanName, picked)) return null;
+
+        mark(byCleanText.get(q.cleanTarget), picked);
+        mark(byCleanText.get(q.cleanTargetCleaned), picked);
+        // Titles and labels contained in the name
+        String lowerName = q.lowerName;
+        for (int from = 0; from < lowerName.length(); from++) {
+            int to = Math.min(lowerName.length(), from + longestTitleOrLabel);
+            for (int end = from + 1; end <= to; end++) {
+                String part = lowerName.substring(from, end);
+                mark(byTitle.get(part), picked);
+                mark(byLabel.get(part), picked);
+            }
+        }
+        mark(alwaysShortlisted, picked);
+
+        // The rest score unrelatedScore, the same for equal profiles: keep the first best of them
+        IntList shortlisted = new IntList();
+        double[] unrelatedScores = new double[2 << PROFILE_BITS];
+        Arrays.fill(unrelatedScores, Double.NaN);
+        int unrelated = -1;
+        double unrelatedBest = Double.NEGATIVE_INFINITY;
+        for (int at = 0; at < order.length; at++) {
+            int slot = slotOf(order[at]);
+            if (slot == 0 || !(includeHidden || visibleOf[slot])) continue;
+            if (picked[slot]) {
+                shortlisted.add(at);
+                continue;
+            }
+            int key = (profileOf[slot] << 1) | (CandidateScorer.giantText(textLengthOf[slot], q) ? 1 : 0);
+            double score = unrelatedScores[key];
+            if (Double.isNaN(score)) {
+                score = unrelatedScores[key] = scorer.unrelatedScore(bySlot[slot], q);
+            }
+            if (score > unrelatedBest) {
+                unrelatedBest = score;
+                unrelated = at;
+            }
+        }
+
+        List<ElementCandidate> shortlist = new ArrayList<>(shortlisted.size + 1);
+        for (int p = 0; p <= shortlisted.size; p++) {
+            int at = p < shortlisted.size ? shortlisted.values[p] : order.length;
+            if (unrelated >= 0 && unrelated < at) {
+                shortlist.add(bySlot[slotOf(order[unrelated])]);
+                unrelated = -1;
+            }
+            if (at < order.length) {
+                shortlist.add(bySlot[slotOf(order[at])]);
+            }
+        }
+        return shortlist;
+    }
+
+    private int slotOf(int nid) {
+        return nid < slotOf.length ? slotOf[nid] : 0;
+    }
+
+    /**
+     * Mark the candidates that share enough trigrams with target to contain
+     * it, equal it or be within fuzzy distance of it
+     *
+     * @return false if that bound rules nothing out
+     */
+    private boolean addTrigramMatches(String target, boolean[] picked) {
+        int n = target.length();
+        if (n < 3) return false;
+        int[] trigrams = new int[n - 2];
+        int a = classOf(target.charAt(0));
+        int b = classOf(target.charAt(1));
+        for (int j = 2; j < n; j++) {
+            int c = classOf(target.charAt(j));
+            trigrams[j - 2] = (a << (2 * CLASS_BITS)) | (b << CLASS_BITS) | c;
+            a = b;
+            b = c;
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int j = 0; j < trigrams.length; j++) {
+            if (j == 0 || trigrams[j] != trigrams[j - 1]) {
+                trigrams[distinct++] = trigrams[j];
+            }
+        }
+        // A fuzzy match is within 15% of the longer length, which is at most n + d
+        int maxDistance = n * (100 - FUZZY_THRESHOLD) / FUZZY_THRESHOLD;
+        // Trigram positions an edit cannot reach, less those that may repeat a trigram
+        int needed = (n - 2 - 3 * maxDistance) - (trigrams.length - distinct);
+        if (needed <= 0) return false;
+
+        // Counts may include replaced records twice, which only adds candidates
+        int[] shared = new int[slots];
+        for (int t = 0; t < distinct; t++) {
+            IntList posting = postings[trigrams[t]];
+            if (posting == null) continue;
+            for (int p = 0; p < posting.size; p++) {
+                int slot = posting.values[p];
+                if (++shared[slot] == needed) {
+                    picked[slot] = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void mark(IntList slots, boolean[] picked) {
+        if (slots == null) return;
+        for (int p = 0; p < slots.size; p++) {
+            picked[slots.values[p]] = true;
+        }
+    }
+
+    /**
+     * Case-folded class of a char, as String.equalsIgnoreCase compares them:
+     * 1-26 letters, 27-36 digits, 37-63 other ASCII, 0 anything else
+     */
+    private static int classOf(char ch) {
+        if (ch < 128) return ASCII_CLASS[ch];
+        char folded = Character.toLowerCase(Character.toUpperCase(ch));
+        return folded < 128 ? ASCII_CLASS[folded] : 0;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
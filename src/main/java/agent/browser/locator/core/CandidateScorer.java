@@ -2,72 +2,59 @@ package agent.browser.locator.core;
 
 import agent.utils.FuzzyMatch;
 
+/**
+ * Scores how well a candidate matches a target. The target is prepared once
+ * per lookup (ScoringQuery) and each candidate's fields once per candidate
+ * (NormalizedCandidate), so scoring itself only compares prepared strings. The
+ * fuzzy tier only asks whether a ratio is above 85, which FuzzyMatch answers
+ * with a bounded edit distance. Not thread-safe: one scorer per SmartLocator.
+ */
 public class CandidateScorer {
 
+    // Work buffers for FuzzyMatch
+    private final FuzzyMatch.Scratch fuzzyScratch = new FuzzyMatch.Scratch();
+
     public double score(ElementCandidate el, String targetName, String parsedType) {
-        String name = targetName.trim();
-        String lowerName = name.toLowerCase();
-        // pre-calculate clean name? Or do it here. 
-        // Optimization: Clean name could be passed in, but doing it here keeps interface simple.
-        // Enhanced clean name - remove common suffixes like "icon", "button", etc.
-        String cleanName = lowerName;
-        boolean changed;
-        do {
-            changed = false;
-            String before = cleanName;
-            cleanName = cleanName.replaceAll("\\s+(button|btn|link|input|field|tab|icon|radio|checkbox|dropdown|select|box|menu|card|item|element|option|header|title|label|slider|range)$", "").trim();
-            if (!before.equals(cleanName)) changed = true;
-        } while (changed);
-
-        boolean isFill = "input".equals(parsedType);
-        boolean isCheck = "check".equals(parsedType) || "checkbox".equals(parsedType) || "radio".equals(parsedType);
-        boolean isClick = "button".equals(parsedType) || "click".equals(parsedType);
-        boolean isSlider = "slider".equals(parsedType);
-        
+        return score(el, ScoringQuery.of(targetName, parsedType));
+    }
+
+    public double score(ElementCandidate el, ScoringQuery q) {
+        NormalizedCandidate c = el.normalized();
+        String name = q.name;
+        String lowerName = q.lowerName;
+        String cleanName = q.cleanName;
+
         double score = 0.0;
-        String text = el.text.trim();
-        String lowerText = text.toLowerCase();
-        String lowerTitle = el.title.toLowerCase();
-        String lowerLabel = el.label.toLowerCase();
-        String lowerRole = el.role.toLowerCase();
-        String lowerType = el.type.toLowerCase();
-        
+
         // ========== TIER 1: EXACT MATCHES (140-150 points) ==========
         // Clean text for comparison (no newlines/tabs)
-        String cleanElText = text.replaceAll("\\s+", " ").trim().toLowerCase();
-        String cleanTarget = name.replaceAll("\\s+", " ").trim().toLowerCase();
-        String cleanTargetCleaned = cleanName.replaceAll("\\s+", " ").trim().toLowerCase();
-        
         boolean matchedExact = false;
-        if (cleanTarget.equals(cleanElText) || cleanTargetCleaned.equals(cleanElText)) {
+        if (q.cleanTarget.equals(c.cleanText) || q.cleanTargetCleaned.equals(c.cleanText)) {
             score += 150;
             matchedExact = true;
-        } else if (name.equalsIgnoreCase(el.label) || cleanName.equalsIgnoreCase(lowerLabel)) {
+        } else if (name.equalsIgnoreCase(el.label) || cleanName.equalsIgnoreCase(c.lowerLabel)) {
             score += 150;
             matchedExact = true;
         } else if (name.equalsIgnoreCase(el.placeholder) || cleanName.equalsIgnoreCase(el.placeholder)) {
             score += 140;
             matchedExact = true;
-        } else if (name.equalsIgnoreCase(el.title) || cleanName.equalsIgnoreCase(lowerTitle)) {
+        } else if (name.equalsIgnoreCase(el.title) || cleanName.equalsIgnoreCase(c.lowerTitle)) {
             score += 140;
             matchedExact = true;
         }
-        
+
         // Boost for specific indicator tags when looking for form elements
-        if (isFill || "select".equals(parsedType) || isSlider) {
-            String tag = el.tag.toLowerCase();
-            if (tag.equals("label") || tag.equals("b") || tag.equals("strong") || tag.equals("p") || tag.equals("span")) {
-                score += 30; // Boost label-like elements
-            }
+        if ((q.isFill || q.isSelect || q.isSlider) && c.labelLike) {
+            score += 30; // Boost label-like elements
         }
-        
+
         // ========== TIER 2: BIDIRECTIONAL CONTAINS (100-120 points) ==========
         if (!matchedExact) {
-            if (!el.title.isEmpty() && (lowerName.contains(lowerTitle) || lowerTitle.contains(lowerName))) {
+            if (!el.title.isEmpty() && (lowerName.contains(c.lowerTitle) || c.lowerTitle.contains(lowerName))) {
                 score += 120;
-            } else if (!el.label.isEmpty() && (lowerName.contains(lowerLabel) || lowerLabel.contains(lowerName))) {
+            } else if (!el.label.isEmpty() && (lowerName.contains(c.lowerLabel) || c.lowerLabel.contains(lowerName))) {
                 score += 120;
-            } else if (!text.isEmpty() && (lowerText.contains(lowerName) || lowerText.contains(cleanName))) {
+            } else if (!c.text.isEmpty() && (c.lowerText.contains(lowerName) || c.lowerText.contains(cleanName))) {
                 score += 110;
             } else if (name.equalsIgnoreCase(el.id) || cleanName.equalsIgnoreCase(el.id)) {
                 score += 100;
@@ -78,97 +65,140 @@ public class CandidateScorer {
 
         // Fuzzy matching only if no solid match yet
         if (score < 100) {
-             if (text.toLowerCase().contains(lowerName) || text.toLowerCase().contains(cleanName)) score += 45; 
-             if (el.id.toLowerCase().contains(lowerName) || el.id.toLowerCase().contains(cleanName)) score += 45; 
-             if (el.name.toLowerCase().contains(lowerName) || el.name.toLowerCase().contains(cleanName)) score += 45; 
-             if (el.title.toLowerCase().contains(lowerName) || el.title.toLowerCase().contains(cleanName)) score += 35; 
-             
-             try {
-                if (FuzzyMatch.ratio(name, text) > 85 || FuzzyMatch.ratio(cleanName, text) > 85) score += 30;
-                if (FuzzyMatch.ratio(name, el.id) > 85 || FuzzyMatch.ratio(cleanName, el.id) > 85) score += 30;
-                if (FuzzyMatch.ratio(name, el.title) > 85 || FuzzyMatch.ratio(cleanName, el.title) > 85) score += 30;
-             } catch (Throwable t) {
-             }
+             if (c.lowerText.contains(lowerName) || c.lowerText.contains(cleanName)) score += 45;
+             if (c.lowerId.contains(lowerName) || c.lowerId.contains(cleanName)) score += 45;
+             if (c.lowerName.contains(lowerName) || c.lowerName.contains(cleanName)) score += 45;
+             if (c.lowerTitle.contains(lowerName) || c.lowerTitle.contains(cleanName)) score += 35;
+
+             if (similar(q, c.text, c.fuzzyText)) score += 30;
+             if (similar(q, el.id, c.fuzzyId)) score += 30;
+             if (similar(q, el.title, c.fuzzyTitle)) score += 30;
         }
 
         // ========== PENALTY FOR SEARCH/FILTER FIELDS ==========
-        // Search fields often have generic names like 's', 'search', or placeholders with 'search'/'filter'/'type'
         // These should NOT be selected when looking for named form fields like "Name", "Email", etc.
-        String lowerPlaceholder = el.placeholder.toLowerCase();
-        String lowerElName = el.name.toLowerCase();
-        if (isFill && score < 100) { // Only penalize if not a strong match already
-            boolean isSearchField = false;
-            
-            // Common search field indicators
-            if ("s".equals(lowerElName) || "search".equals(lowerElName) || "q".equals(lowerElName) || "query".equals(lowerElName)) {
-                isSearchField = true;
-            }
-            
-            // Placeholder text indicates search/filter
-            if (lowerPlaceholder.contains("search") || lowerPlaceholder.contains("filter") || 
-                lowerPlaceholder.contains("type here") || lowerPlaceholder.contains("start typing")) {
-                isSearchField = true;
-            }
-            
+        if (q.isFill && score < 100) { // Only penalize if not a strong match already
             // Heavy penalty for search fields when looking for specific named fields
-            if (isSearchField && !lowerName.contains("search") && !lowerName.contains("filter")) {
+            if (c.searchField && !q.mentionsSearch) {
                 score -= 150; // This will make search fields score negative if they don't strongly match
             }
         }
 
+        return score + typeAndVisibility(el, c, q);
+    }
+
+    /**
+     * The score of a candidate none of whose fields relate to the target
+     * name, i.e. score(el, q) without any name points (see CandidateIndex)
+     */
+    double unrelatedScore(ElementCandidate el, ScoringQuery q) {
+        NormalizedCandidate c = el.normalized();
+        double score = 0.0;
+        if ((q.isFill || q.isSelect || q.isSlider) && c.labelLike) {
+            score += 30;
+        }
+        if (q.isFill && c.searchField && !q.mentionsSearch) {
+            score -= 150;
+        }
+        return score + typeAndVisibility(el, c, q);
+    }
+
+    /**
+     * Everything unrelatedScore reads from a candidate besides its text length,
+     * as bits: candidates with equal profiles and equally giant text score the
+     * same unrelated score for any target
+     */
+    static int unrelatedProfile(ElementCandidate el) {
+        NormalizedCandidate c = el.normalized();
+        int profile = 0;
+        for (boolean bit : new boolean[] {c.labelLike, c.searchField, c.fillable, c.checkable, c.interactive, c.classHasBtn,
+                                          c.slider, c.classSlider, c.progressBar, c.classProgress, el.visible}) {
+            profile = (profile << 1) | (bit ? 1 : 0);
+        }
+        return profile;
+    }
+
+    /**
+     * Whether text of this length makes a candidate a giant container for the target
+     */
+    static boolean giantText(int textLength, ScoringQuery q) {
+        return textLength > 100 && textLength > q.name.length() * 5;
+    }
+
+    /**
+     * Tiers 3 and 4, which depend on the target only through its type and length
+     */
+    private double typeAndVisibility(ElementCandidate el, NormalizedCandidate c, ScoringQuery q) {
+        double score = 0.0;
+
         // ========== TIER 3: TYPE-SPECIFIC BOOSTS AND PENALTIES ==========
-        if (isFill) {
-            String tag = el.tag.toLowerCase();
-            if (("input".equals(tag) || "textarea".equals(tag)) && !"checkbox".equals(el.type) && !"radio".equals(el.type) && !"range".equals(el.type)) {
+        if (q.isFill) {
+            if (c.fillable) {
                 score += 50;
             } else {
                 score -= 100; // Penalize non-inputs for FILL
             }
         }
-        if (isCheck) {
-            if ("input".equals(el.tag) && ("checkbox".equals(el.type) || "radio".equals(el.type))) {
+        if (q.isCheck) {
+            if (c.checkable) {
                 score += 100;
             } else {
                 score -= 100; // Penalize non-checkboxes for CHECK
             }
         }
-        if (isClick) {
-            if ("button".equals(el.tag) || "a".equals(el.tag) || "submit".equals(el.type) || el.className.contains("btn") || "button".equals(lowerRole)) {
+        if (q.isClick) {
+            if (c.interactive || c.classHasBtn) {
                 score += 50;
             }
             // No penalty for click as almost anything can be clicked
         } else {
             // General boost for interactive tags even if action type is unknown
-            if ("button".equals(el.tag) || "a".equals(el.tag) || "submit".equals(el.type) || "button".equals(lowerRole)) {
+            if (c.interactive) {
                 score += 10;
             }
         }
-        if (isSlider) {
-            if ("range".equals(lowerType) || "slider".equals(lowerRole)) {
+        if (q.isSlider) {
+            if (c.slider) {
                 score += 500; // Huge boost for ACTUAL sliders
-            } else if (el.className.toLowerCase().contains("slider") || el.className.toLowerCase().contains("range")) {
+            } else if (c.classSlider) {
                 score += 100; // Moderate boost for potential custom sliders
             } else {
                 score -= 200; // HEAVY penalty for non-slider elements when a slider is requested
             }
         }
-        if ("progressbar".equals(lowerType) || "progressbar".equals(lowerRole)) {
+        if (c.progressBar) {
             score += 500; // Found exact role
-        } else if (el.className.toLowerCase().contains("progress")) {
+        } else if (c.classProgress) {
             score += 100; // Likely a progress component
         }
-        
+
         // ========== TIER 4: VISIBILITY BOOST AND LENGTH PENALTY ==========
         // Substantial boost for visible elements to prefer them over hidden duplicates
         if (el.visible) {
             score += 100;
         }
-        
+
         // Penalty for giant containers (too much text compared to target)
-        if (text.length() > 100 && text.length() > name.length() * 5) {
+        if (giantText(c.text.length(), q)) {
             score -= 150; // Heavy penalty for "giant" containers like root div
         }
-        
+
         return score;
     }
+
+    /**
+     * FuzzyMatch.ratio(name, field) > 85 || FuzzyMatch.ratio(cleanName, field) > 85,
+     * from the prepared forms
+     */
+    private boolean similar(ScoringQuery q, String field, String fuzzyField) {
+        return similar(q.name, q.fuzzyName, field, fuzzyField) || similar(q.cleanName, q.fuzzyCleanName, field, fuzzyField);
+    }
+
+    private boolean similar(String target, String fuzzyTarget, String field, String fuzzyField) {
+        // ratio is 100 for two empty strings, checked before they are trimmed
+        if (target.isEmpty() && field.isEmpty()) {
+            return true;
+        }
+        return FuzzyMatch.ratioOfNormalizedAbove(fuzzyTarget, fuzzyField, 85, fuzzyScratch);
+    }
 }
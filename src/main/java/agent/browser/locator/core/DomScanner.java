@@ -1,14 +1,70 @@
 package agent.browser.locator.core;
 
+import agent.utils.LoggerUtil;
 import com.microsoft.playwright.Frame;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Collects element candidates from a page, frame or scope.
+ *
+ * By default scans go through an in-page candidate store (js/dom-snapshot.js)
+ * kept current by a MutationObserver: only records of changed subtrees are
+ * recomputed and sent over, and a page that did not change answers with its
+ * unchanged epoch. Each document's store is mirrored here by a DomSnapshot.
+ * The same store can score candidates in the page and return only the best
+ * (findTopCandidates), or wait there until one scores well enough
+ * (waitForCandidate). -DdomSnapshot=false falls back to a full scan on every
+ * call. Snapshot results cross the bridge as one columnar JSON string
+ * (ScanPayload), not as a map per element.
+ */
 public class DomScanner {
 
+    private static final LoggerUtil logger = LoggerUtil.getLogger(DomScanner.class);
+
+    private static final boolean SNAPSHOTS_ENABLED = Boolean.parseBoolean(System.getProperty("domSnapshot", "true"));
+    private static final String SNAPSHOT_JS = withScorer(loadScript("js/dom-snapshot.js"), loadScript("js/candidate-scorer.js"));
+    private static final String WAIT_JS = withSnapshot(loadScript("js/element-wait.js"), SNAPSHOT_JS);
+    // Documents (main page, iframes, past navigations) whose snapshots are kept
+    private static final int MAX_SNAPSHOTS = 16;
+    // Longer element text is cut in the page (containers), keeping records and scoring small
+    private static final int TEXT_CAP = Integer.getInteger("scanTextCap", 2000);
+    // In-page waits: coalesce a burst of mutations, and re-check for changes no event reports
+    private static final int WAIT_SETTLE_MS = Integer.getInteger("waitSettleMs", 16);
+    private static final int WAIT_RECHECK_MS = Integer.getInteger("waitRecheckMs", 1000);
+    // Stamp candidates in the page so LocatorFactory can point at the winner itself. Off by
+    // default (-DpinElements=true): it writes an attribute onto every candidate of the app
+    static final boolean PIN_ELEMENTS = Boolean.parseBoolean(System.getProperty("pinElements", "false"));
+    static final String PIN_ATTRIBUTE = "data-nca-id";
+
+    private final Map<String, DomSnapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DomSnapshot> eldest) {
+            return size() > MAX_SNAPSHOTS;
+        }
+    };
+
+    // Store epoch as of the last scan of each document, scored here or in the page
+    private final Map<String, Integer> seenEpochs = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_SNAPSHOTS;
+        }
+    };
+
+    // Time spent in the page by snapshot scans, as they report it
+    private double scanMillis;
+    private int scanCount;
+
     public List<ElementCandidate> scan(Page page, boolean includeHidden) {
         return scanInternal(page, null, null, includeHidden);
     }
@@ -33,8 +89,208 @@ public class DomScanner {
         return scanInternal(null, frame, null, false);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * The k candidates that score best for the target, scored in the page
+     * (js/candidate-scorer.js) so only those k cross the bridge. They come
+     * back in document order; callers re-score them with CandidateScorer for
+     * the final pick. Without DOM snapshots this is a plain scan.
+     */
+    public List<ElementCandidate> findTopCandidates(Page page, String name, String parsedType, int k, boolean includeHidden) {
+        return topCandidatesInternal(page, null, null, name, parsedType, k, includeHidden);
+    }
+
+    public List<ElementCandidate> findTopCandidates(Locator scope, String name, String parsedType, int k, boolean includeHidden) {
+        return topCandidatesInternal(null, null, scope, name, parsedType, k, includeHidden);
+    }
+
+    public List<ElementCandidate> findTopCandidates(Frame frame, String name, String parsedType, int k, boolean includeHidden) {
+        return topCandidatesInternal(null, frame, null, name, parsedType, k, includeHidden);
+    }
+
+    /**
+     * The part of a snapshot scan result that can hold the best candidate for
+     * the query: on large pages only candidates related to the target name
+     * (and the best unrelated one) are scored (CandidateIndex). Scoring the
+     * shortlist picks the same element as scoring the whole scan. Other scan
+     * results come back as they are.
+     */
+    public List<ElementCandidate> shortlist(List<ElementCandidate> scanned, ScoringQuery query, CandidateScorer scorer) {
+        for (DomSnapshot snapshot : snapshots.values()) {
+            List<ElementCandidate> shortlist = snapshot.shortlist(scanned, query, scorer);
+            if (shortlist != null) {
+                logger.debug("Candidate index: scoring {} of {} candidate(s)", shortlist.size(), scanned.size());
+                return shortlist;
+            }
+        }
+        return scanned;
+    }
+
+    /**
+     * Block until the page may hold the target where the last scan of it did
+     * not (js/element-wait.js): a candidate scoring above minScore after the
+     * page changed, or a different best candidate. The page checks again after
+     * DOM mutations instead of on a fixed interval. The candidate the caller
+     * rejected (its storeKey, or null) never counts, so a page that keeps changing
+     * does not hand the same element back at once.
+     *
+     * @return true if one appeared (or the page navigated), false after timeoutMs,
+     *         or null when the page cannot wait for it (snapshots disabled,
+     *         detached frame); the caller then falls back to polling
+     */
+    public Boolean waitForCandidate(Page page, String name, String parsedType, double minScore, boolean includeHidden,
+                                    String rejected, long timeoutMs) {
+        return waitInternal(page, null, null, name, parsedType, minScore, includeHidden, rejected, timeoutMs);
+    }
+
+    public Boolean waitForCandidate(Locator scope, String name, String parsedType, double minScore, boolean includeHidden,
+                                    String rejected, long timeoutMs) {
+        return waitInternal(null, null, scope, name, parsedType, minScore, includeHidden, rejected, timeoutMs);
+    }
+
+    public Boolean waitForCandidate(Frame frame, String name, String parsedType, double minScore, boolean includeHidden,
+                                    String rejected, long timeoutMs) {
+        return waitInternal(null, frame, null, name, parsedType, minScore, includeHidden, rejected, timeoutMs);
+    }
+
+    private Boolean waitInternal(Page page, Frame frame, Locator scope, String name, String parsedType, double minScore,
+                                 boolean includeHidden, String rejected, long timeoutMs) {
+        if (!SNAPSHOTS_ENABLED || WAIT_JS == null || timeoutMs <= 0) {
+            return null;
+        }
+        Map<String, Object> query = new HashMap<>();
+        query.put("name", name);
+        query.put("type", parsedType);
+        query.put("k", 1);
+        query.put("includeHidden", includeHidden);
+        Map<String, Object> arg = new HashMap<>();
+        arg.put("query", query);
+        arg.put("textCap", TEXT_CAP);
+        arg.put("minScore", minScore);
+        arg.put("seen", new HashMap<>(seenEpochs));
+        arg.put("timeoutMs", timeoutMs);
+        arg.put("settleMs", WAIT_SETTLE_MS);
+        arg.put("recheckMs", WAIT_RECHECK_MS);
+        if (PIN_ELEMENTS) {
+            arg.put("pin", PIN_ATTRIBUTE);
+        }
+        if (rejected != null && !rejected.isEmpty()) {
+            arg.put("rejected", rejected);
+        }
+        try {
+            Object result;
+            if (scope != null) {
+                // calls js(element, arg); the scope element itself must already exist
+                result = scope.evaluate(WAIT_JS, arg, new Locator.EvaluateOptions().setTimeout(timeoutMs));
+            } else if (frame != null) {
+                if (frame.isDetached()) {
+                    return null;
+                }
+                result = frame.evaluate(WAIT_JS, arg);
+            } else {
+                result = page.evaluate(WAIT_JS, arg);
+            }
+            return Boolean.TRUE.equals(result);
+        } catch (Exception e) {
+            String message = String.valueOf(e.getMessage());
+            // A navigation ends the wait; the new document has to be scanned anyway
+            if (message.contains("Execution context was destroyed")) {
+                return true;
+            }
+            logger.debug("In-page wait unavailable: {}", message);
+            return null;
+        }
+    }
+
     private List<ElementCandidate> scanInternal(Page page, Frame frame, Locator scope, boolean includeHidden) {
+        if (SNAPSHOTS_ENABLED && SNAPSHOT_JS != null) {
+            return scanSnapshot(page, frame, scope, includeHidden);
+        }
+        return scanFull(page, frame, scope, includeHidden);
+    }
+
+    private List<ElementCandidate> scanSnapshot(Page page, Frame frame, Locator scope, boolean includeHidden) {
+        ScanPayload sync = evaluateStore(page, frame, scope, storeArgument(null));
+        if (sync == null) return new ArrayList<>();
+
+        DomSnapshot snapshot = snapshots.computeIfAbsent(sync.token, DomSnapshot::new);
+        int changed = snapshot.apply(sync);
+        List<ElementCandidate> candidates = scope != null
+            ? snapshot.candidates(sync.scope, includeHidden)
+            : snapshot.candidates(includeHidden);
+        logger.debug("DOM snapshot epoch {}: {} record(s) changed, {} candidate(s), {} ms in page",
+            snapshot.getEpoch(), changed, candidates.size(), sync.scanMs);
+        return candidates;
+    }
+
+    private List<ElementCandidate> topCandidatesInternal(Page page, Frame frame, Locator scope, String name, String parsedType,
+                                                        int k, boolean includeHidden) {
+        if (!SNAPSHOTS_ENABLED || SNAPSHOT_JS == null) {
+            return scanFull(page, frame, scope, includeHidden);
+        }
+        Map<String, Object> query = new HashMap<>();
+        query.put("name", name);
+        query.put("type", parsedType);
+        query.put("k", k);
+        query.put("includeHidden", includeHidden);
+        ScanPayload result = evaluateStore(page, frame, scope, storeArgument(query));
+        if (result == null) return new ArrayList<>();
+
+        List<ElementCandidate> top = new ArrayList<>(Arrays.asList(result.candidates));
+        logger.debug("Scored {} candidate(s) in page, kept {}, {} ms in page", result.scored, top.size(), result.scanMs);
+        return top;
+    }
+
+    /**
+     * Argument for js/dom-snapshot.js: the epoch held for every known store
+     * (the page picks its own), plus an optional scoring query
+     */
+    private Map<String, Object> storeArgument(Map<String, Object> query) {
+        Map<String, Object> known = new HashMap<>();
+        for (DomSnapshot snapshot : snapshots.values()) {
+            known.put(snapshot.getToken(), snapshot.getEpoch());
+        }
+        Map<String, Object> arg = new HashMap<>();
+        arg.put("known", known);
+        arg.put("textCap", TEXT_CAP);
+        if (PIN_ELEMENTS) {
+            arg.put("pin", PIN_ATTRIBUTE);
+        }
+        if (query != null) {
+            arg.put("query", query);
+        }
+        return arg;
+    }
+
+    private ScanPayload evaluateStore(Page page, Frame frame, Locator scope, Map<String, Object> arg) {
+        try {
+            Object result;
+            if (scope != null) {
+                // calls js(element, arg)
+                result = scope.evaluate(SNAPSHOT_JS, arg);
+            } else if (frame != null) {
+                if (frame.isDetached()) {
+                    return null;
+                }
+                result = frame.evaluate(SNAPSHOT_JS, arg);
+            } else {
+                result = page.evaluate(SNAPSHOT_JS, arg);
+            }
+            if (result == null) {
+                return null;
+            }
+            ScanPayload sync = ScanPayload.parse((String) result);
+            seenEpochs.put(sync.token, sync.epoch);
+            scanMillis += sync.scanMs;
+            scanCount++;
+            return sync;
+        } catch (Exception e) {
+            // Detached frames or cross-origin issues
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ElementCandidate> scanFull(Page page, Frame frame, Locator scope, boolean includeHidden) {
         // Robust JS that handles both Page/Frame (root is null/document) and Locator (root is the element)
         String js = "(rootOrHidden, maybeHidden) => {" +
                 "  let base, includeHidden;" +
@@ -94,22 +350,73 @@ public class DomScanner {
         List<ElementCandidate> candidates = new ArrayList<>();
 
         for (Map<String, Object> map : rawList) {
-            ElementCandidate c = new ElementCandidate();
-            c.tag = String.valueOf(map.getOrDefault("tag", ""));
-            c.id = String.valueOf(map.getOrDefault("id", ""));
-            c.text = String.valueOf(map.getOrDefault("text", ""));
-            c.name = String.valueOf(map.getOrDefault("name", ""));
-            c.placeholder = String.valueOf(map.getOrDefault("placeholder", ""));
-            c.label = String.valueOf(map.getOrDefault("label", ""));
-            c.title = String.valueOf(map.getOrDefault("title", ""));
-            c.type = String.valueOf(map.getOrDefault("type", ""));
-            c.role = String.valueOf(map.getOrDefault("role", ""));
-            c.className = String.valueOf(map.getOrDefault("class", ""));
-            c.forAttr = String.valueOf(map.getOrDefault("forAttr", ""));
-            Object vis = map.get("visible");
-            c.visible = vis != null && Boolean.parseBoolean(String.valueOf(vis));
-            candidates.add(c);
+            candidates.add(toCandidate(map));
         }
         return candidates;
     }
+
+    /**
+     * Total milliseconds snapshot scans have spent in the page so far
+     */
+    public double getScanMillis() {
+        return scanMillis;
+    }
+
+    public int getScanCount() {
+        return scanCount;
+    }
+
+    private static ElementCandidate toCandidate(Map<String, Object> map) {
+        ElementCandidate c = new ElementCandidate();
+        c.tag = String.valueOf(map.getOrDefault("tag", ""));
+        c.id = String.valueOf(map.getOrDefault("id", ""));
+        c.text = String.valueOf(map.getOrDefault("text", ""));
+        c.name = String.valueOf(map.getOrDefault("name", ""));
+        c.placeholder = String.valueOf(map.getOrDefault("placeholder", ""));
+        c.label = String.valueOf(map.getOrDefault("label", ""));
+        c.title = String.valueOf(map.getOrDefault("title", ""));
+        c.type = String.valueOf(map.getOrDefault("type", ""));
+        c.role = String.valueOf(map.getOrDefault("role", ""));
+        c.className = String.valueOf(map.getOrDefault("class", ""));
+        c.forAttr = String.valueOf(map.getOrDefault("forAttr", ""));
+        Object vis = map.get("visible");
+        c.visible = vis != null && Boolean.parseBoolean(String.valueOf(vis));
+        return c;
+    }
+
+    /**
+     * The snapshot script with the in-page scorer inlined at its placeholder
+     */
+    private static String withScorer(String snapshotJs, String scorerJs) {
+        if (snapshotJs == null || scorerJs == null) {
+            return null;
+        }
+        return snapshotJs.replace("/*CANDIDATE_SCORER*/null", scorerJs.trim());
+    }
+
+    /**
+     * The wait script with the snapshot script inlined at its placeholder
+     */
+    private static String withSnapshot(String waitJs, String snapshotJs) {
+        if (waitJs == null || snapshotJs == null) {
+            return null;
+        }
+        return waitJs.replace("/*DOM_SNAPSHOT*/null", snapshotJs.trim());
+    }
+
+    /**
+     * In-page script from the classpath, or null (full scans only) if missing
+     */
+    private static String loadScript(String resource) {
+        try (InputStream input = DomScanner.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                logger.warning("{} not found, DOM snapshots disabled", resource);
+                return null;
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.error("Failed to load {}: {}", resource, e.getMessage());
+            return null;
+        }
+    }
 }
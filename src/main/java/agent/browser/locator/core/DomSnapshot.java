@@ -0,0 +1,140 @@
+package agent.browser.locator.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Java copy of one document's in-page candidate store (js/dom-snapshot.js):
+ * the candidates by in-page id, in document order, as of the store's epoch,
+ * and for large documents an index over them (CandidateIndex).
+ *
+ * A sync result only carries the records that changed since the epoch held
+ * here, and the order only when it changed, so an unchanged page costs one
+ * small round trip and no candidate objects.
+ */
+class DomSnapshot {
+
+    private final String token;
+    private int epoch = -1;
+    private final Map<Integer, ElementCandidate> byId = new HashMap<>();
+    private int[] order = new int[0];
+    // Rebuilt lazily after a change
+    private List<ElementCandidate> all;
+    private List<ElementCandidate> visible;
+    // Built on the second lookup (one-off lookups do not pay for it), then kept current by apply
+    private CandidateIndex index;
+    private int lookups;
+
+    DomSnapshot(String token) {
+        this.token = token;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Apply a sync result for this store
+     *
+     * @return number of records that changed
+     */
+    int apply(ScanPayload result) {
+        epoch = result.epoch;
+        if (result.unchanged) {
+            return 0;
+        }
+        if (result.order != null) {
+            order = result.order;
+            // Drop the records of elements that left the document
+            Map<Integer, ElementCandidate> kept = new HashMap<>();
+            for (int id : order) {
+                ElementCandidate candidate = byId.get(id);
+                if (candidate != null) {
+                    kept.put(id, candidate);
+                }
+            }
+            byId.clear();
+            byId.putAll(kept);
+        }
+        for (int i = 0; i < result.nids.length; i++) {
+            byId.put(result.nids[i], result.candidates[i]);
+            if (index != null) {
+                index.add(result.nids[i], result.candidates[i]);
+            }
+        }
+        // Replaced records linger in the index; start over once they outnumber current ones
+        if (index != null && index.records() > 2 * byId.size() + CandidateIndex.MIN_CANDIDATES) {
+            index = null;
+        }
+        all = null;
+        visible = null;
+        return result.nids.length;
+    }
+
+    /**
+     * Every candidate in document order (visible ones only unless includeHidden)
+     */
+    List<ElementCandidate> candidates(boolean includeHidden) {
+        if (all == null) {
+            List<ElementCandidate> everything = new ArrayList<>(order.length);
+            List<ElementCandidate> shown = new ArrayList<>();
+            for (int id : order) {
+                ElementCandidate candidate = byId.get(id);
+                if (candidate != null) {
+                    everything.add(candidate);
+                    if (candidate.visible) {
+                        shown.add(candidate);
+                    }
+                }
+            }
+            // Shared by every scan until the next change
+            all = Collections.unmodifiableList(everything);
+            visible = Collections.unmodifiableList(shown);
+        }
+        return includeHidden ? all : visible;
+    }
+
+    /**
+     * The candidates of list (as returned by candidates(includeHidden)) that
+     * can score best for the query (CandidateIndex), or null if list is not
+     * this snapshot's current list, the document is too small to index (or
+     * not looked up before) or the index cannot narrow it
+     */
+    List<ElementCandidate> shortlist(List<ElementCandidate> list, ScoringQuery query, CandidateScorer scorer) {
+        if (all == null || (list != all && list != visible) || order.length < CandidateIndex.MIN_CANDIDATES) {
+            return null;
+        }
+        if (index == null) {
+            if (++lookups < 2) {
+                return null;
+            }
+            index = CandidateIndex.create();
+            if (index == null) {
+                return null;
+            }
+            byId.forEach(index::add);
+        }
+        return index.shortlist(order, list == all, query, scorer);
+    }
+
+    /**
+     * The candidates with the given ids (a scope's subtree), in that order
+     */
+    List<ElementCandidate> candidates(int[] ids, boolean includeHidden) {
+        List<ElementCandidate> scoped = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            ElementCandidate candidate = byId.get(id);
+            if (candidate != null && (includeHidden || candidate.visible)) {
+                scoped.add(candidate);
+            }
+        }
+        return scoped;
+    }
+}
@@ -13,6 +13,20 @@ public class ElementCandidate {
     public String className = "";
     public String forAttr = "";
     public boolean visible = false;
+    // Snapshot store token and id ("token:nid"), empty if not from a snapshot scan
+    public String storeKey = "";
+    // Value of DomScanner.PIN_ATTRIBUTE on the element, empty if the scan did not stamp it
+    public String pin = "";
+
+    // Built on first score; the fields above must not change after that
+    private NormalizedCandidate normalized;
 
     public ElementCandidate() {}
+
+    NormalizedCandidate normalized() {
+        if (normalized == null) {
+            normalized = new NormalizedCandidate(this);
+        }
+        return normalized;
+    }
 }
@@ -0,0 +1,121 @@
+package agent.browser.locator.core;
+
+import com.microsoft.playwright.Frame;
+import com.microsoft.playwright.Page;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The id, name and title of a page's frames (those of the iframe element
+ * holding each frame), read once per frame document with one evaluate instead
+ * of two round trips per frame on every lookup. A frame's entry is dropped
+ * when it navigates or detaches; attribute changes on an iframe that does
+ * neither are not seen.
+ *
+ * Frames are also described by a signature that stays the same between
+ * runs (see LearnedSelectorStore.learnFrame).
+ *
+ * Not thread-safe: one registry per SmartLocator. Playwright delivers the
+ * page's frame events on the thread that drives it.
+ */
+public class FrameRegistry {
+
+    private static final String INFO_JS = "() => {" +
+            "  const f = window.frameElement;" +
+            "  return f ? [f.id || '', f.title || ''] : ['', ''];" +
+            "}";
+
+    private final Map<Frame, FrameInfo> infos = new HashMap<>();
+    private final Consumer<Frame> forget = infos::remove;
+    private Page page;
+
+    public FrameRegistry(Page page) {
+        setPage(page);
+    }
+
+    /**
+     * Follow another page (window or tab switch); entries of the old one are dropped
+     */
+    public void setPage(Page newPage) {
+        if (page == newPage) return;
+        if (page != null) {
+            page.offFrameNavigated(forget);
+            page.offFrameDetached(forget);
+        }
+        infos.clear();
+        page = newPage;
+        if (page != null) {
+            page.onFrameNavigated(forget);
+            page.onFrameDetached(forget);
+        }
+    }
+
+    /**
+     * The first frame whose name, id or title equals the anchor, ignoring case
+     */
+    public Frame find(String anchor) {
+        for (Frame frame : page.frames()) {
+            if (frame.name().equalsIgnoreCase(anchor)) return frame;
+            if (frame.isDetached()) continue;
+            FrameInfo info = info(frame);
+            if (anchor.equalsIgnoreCase(info.id) || anchor.equalsIgnoreCase(info.title)) return frame;
+        }
+        return null;
+    }
+
+    /**
+     * How to recognise the frame on a later run: its iframe's id, else its
+     * name, else its title, else its URL template (host|path template)
+     */
+    public String signature(Frame frame) {
+        FrameInfo info = info(frame);
+        if (!info.id.isEmpty()) return "id:" + info.id;
+        if (!info.name.isEmpty()) return "name:" + info.name;
+        if (!info.title.isEmpty()) return "title:" + info.title;
+        String url = LearnedSelectorStore.urlTemplate(frame.url());
+        return url != null ? "url:" + url : null;
+    }
+
+    /**
+     * The first child frame of the page with this signature, or null
+     */
+    public Frame bySignature(String signature) {
+        if (signature == null) return null;
+        for (Frame frame : page.frames()) {
+            if (frame == page.mainFrame() || frame.isDetached()) continue;
+            if (signature.equals(signature(frame))) return frame;
+        }
+        return null;
+    }
+
+    private FrameInfo info(Frame frame) {
+        FrameInfo info = infos.get(frame);
+        if (info != null) return info;
+        try {
+            Object result = frame.evaluate(INFO_JS);
+            if (result instanceof List<?> values && values.size() == 2) {
+                info = new FrameInfo(String.valueOf(values.get(0)), frame.name(), String.valueOf(values.get(1)));
+                infos.put(frame, info);
+                return info;
+            }
+        } catch (Exception e) {
+            // Detached or navigating mid-call: not cached, read again next time
+        }
+        return new FrameInfo("", frame.name(), "");
+    }
+
+    private static final class FrameInfo {
+        final String id;
+        final String name;
+        final String title;
+
+        FrameInfo(String id, String name, String title) {
+            this.id = id;
+            this.name = name;
+            this.title = title;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package agent.browser.locator.core;
+
+import agent.utils.LoggerUtil;
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Selectors that resolved an element before, persisted between runs.
+ *
+ * Entries are keyed by app host, URL path template (ids and other variable
+ * segments replaced by {id}), element name and type. Each holds the selector
+ * LocatorFactory built the element's locator from (LocatorFactory.selectorOf)
+ * and a fingerprint of the element it resolved to (tag, stable attributes,
+ * leading text). A lookup is one round trip: the selector's first match is
+ * fingerprinted in the page and accepted only if it is unchanged (and visible
+ * unless hidden elements are wanted); the locator returned is that first match.
+ * A miss drops the entry so the caller scans and learns it again. SmartLocator
+ * only uses the store with -DlearnedSelectors=true.
+ *
+ * Under the same key the store also remembers which iframe an element was
+ * found in (FrameRegistry.signature), so a later run searches that frame
+ * before the page and the other frames.
+ *
+ * The file is a plain properties file, so it can be inspected or deleted by
+ * hand. It is written every SAVE_EVERY changes and, for the shared store, once
+ * more when the JVM exits, whichever runner or agent drove it. Thread-safe: one
+ * store is shared by all workers.
+ */
+public class LearnedSelectorStore {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(LearnedSelectorStore.class);
+
+    public static final String DEFAULT_FILE = "config/learned_selectors.properties";
+
+    // Unsaved changes after which the store is written out
+    private static final int SAVE_EVERY = 10;
+    // Text beyond this is not part of the fingerprint
+    private static final int TEXT_PREFIX = 100;
+
+    private static final String SELECTOR_SUFFIX = ".selector";
+    private static final String FINGERPRINT_SUFFIX = ".fingerprint";
+    private static final String FRAME_SUFFIX = ".frame";
+
+    // Path segments that differ between records of the same page
+    private static final Pattern VARIABLE_SEGMENT = Pattern.compile(
+        "\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|(?=.*\\d)[0-9a-zA-Z_-]{16,}");
+
+    // Same result for the winner at learn time and for the stored selector later
+    private static final String FINGERPRINT_JS = "els => {" +
+            "  const el = els[0];" +
+            "  if (!el) return null;" +
+            "  const rect = el.getBoundingClientRect();" +
+            "  const style = window.getComputedStyle(el);" +
+            "  const visible = rect.width > 0 && rect.height > 0 && style.visibility !== 'hidden' && style.display !== 'none';" +
+            "  const attr = n => el.getAttribute(n) || '';" +
+            "  const text = (el.innerText || el.textContent || '').replace(/\\s+/g, ' ').trim().substring(0, " + TEXT_PREFIX + ");" +
+            "  return { visible: visible, fingerprint: [el.tagName.toLowerCase(), el.id, attr('name'), attr('type'), attr('role')," +
+            "    attr('aria-label'), attr('placeholder'), text].join('|') };" +
+            "}";
+
+    private static LearnedSelectorStore instance;
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> frames = new ConcurrentHashMap<>();
+    private final AtomicInteger unsaved = new AtomicInteger();
+
+    LearnedSelectorStore(String path) {
+        this.file = new File(path);
+        load();
+    }
+
+    /**
+     * Shared store, read from -DlearnedSelectorsFile (default config/learned_selectors.properties)
+     * and saved on JVM exit if it has unsaved changes
+     */
+    public static synchronized LearnedSelectorStore getInstance() {
+        if (instance == null) {
+            LearnedSelectorStore store = new LearnedSelectorStore(System.getProperty("learnedSelectorsFile", DEFAULT_FILE));
+            Runtime.getRuntime().addShutdownHook(new Thread(store::saveIfChanged, "learned-selectors-save"));
+            instance = store;
+        }
+        return instance;
+    }
+
+    /**
+     * The learned locator for an element on the current page if it still
+     * resolves to the same element, otherwise null
+     */
+    public Locator resolve(Page page, String name, String type, boolean includeHidden) {
+        String key = key(page.url(), name, type);
+        if (key == null) return null;
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+
+        Locator locator = page.locator(entry.selector).first();
+        Fingerprint found = fingerprint(locator);
+        if (found != null && found.fingerprint.equals(entry.fingerprint) && (includeHidden || found.visible)) {
+            logger.debug("Learned selector hit for '{}': {}", name, entry.selector);
+            return locator;
+        }
+        logger.debug("Learned selector for '{}' no longer matches, scanning again", name);
+        if (entries.remove(key) != null) {
+            changed();
+        }
+        return null;
+    }
+
+    /**
+     * Remember the selector a locator found for an element on the current page
+     * was built from, if its first match on the page is that same element
+     *
+     * @param selector as LocatorFactory.selectorOf(locator), or null to learn nothing
+     */
+    public void learn(Page page, String name, String type, Locator locator, String selector) {
+        String key = key(page.url(), name, type);
+        if (key == null || selector == null) return;
+        Fingerprint found = fingerprint(locator);
+        if (found == null) return;
+        Fingerprint stored = fingerprint(page.locator(selector));
+        if (stored == null || !stored.fingerprint.equals(found.fingerprint)) {
+            logger.debug("Not learning '{}' for '{}': it selects another element first", selector, name);
+            return;
+        }
+
+        Entry previous = entries.put(key, new Entry(selector, found.fingerprint));
+        if (previous == null || !previous.selector.equals(selector) || !previous.fingerprint.equals(found.fingerprint)) {
+            changed();
+        }
+    }
+
+    /**
+     * Signature of the frame the element was last found in on this page, or null
+     */
+    public String frameFor(Page page, String name, String type) {
+        String key = key(page.url(), name, type);
+        return key != null ? frames.get(key) : null;
+    }
+
+    /**
+     * Remember the frame an element was found in on the current page, or with
+     * a null signature that it was found outside any frame
+     */
+    public void learnFrame(Page page, String name, String type, String signature) {
+        String key = key(page.url(), name, type);
+        if (key == null) return;
+        String previous = signature != null ? frames.put(key, signature) : frames.remove(key);
+        if (previous == null ? signature != null : !previous.equals(signature)) {
+            changed();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized void save() {
+        Properties props = new Properties();
+        entries.forEach((key, entry) -> {
+            props.setProperty(key + SELECTOR_SUFFIX, entry.selector);
+            props.setProperty(key + FINGERPRINT_SUFFIX, entry.fingerprint);
+        });
+        frames.forEach((key, signature) -> props.setProperty(key + FRAME_SUFFIX, signature));
+
+        try {
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            try (OutputStream out = new FileOutputStream(file)) {
+                props.store(out, "Learned element selectors: host|path template|name|type -> selector and fingerprint, or frame");
+            }
+            unsaved.set(0);
+            logger.debug("Saved learned selectors ({} elements, {} frames)", entries.size(), frames.size());
+        } catch (Exception e) {
+            logger.warn("Could not save learned selectors: {}", e.getMessage());
+        }
+    }
+
+    private void saveIfChanged() {
+        if (unsaved.get() > 0) {
+            save();
+        }
+    }
+
+    private void changed() {
+        if (unsaved.incrementAndGet() >= SAVE_EVERY) {
+            save();
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            logger.debug("No learned selectors found at {}, starting fresh", file.getPath());
+            return;
+        }
+
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (Exception e) {
+            logger.warn("Could not load learned selectors: {}", e.getMessage());
+            return;
+        }
+
+        for (String name : props.stringPropertyNames()) {
+            if (name.endsWith(FRAME_SUFFIX)) {
+                frames.put(name.substring(0, name.length() - FRAME_SUFFIX.length()), props.getProperty(name));
+                continue;
+            }
+            if (!name.endsWith(SELECTOR_SUFFIX)) continue;
+            String key = name.substring(0, name.length() - SELECTOR_SUFFIX.length());
+            String fingerprint = props.getProperty(key + FINGERPRINT_SUFFIX);
+            if (fingerprint == null) {
+                logger.debug("Ignoring learned selector without fingerprint: {}", key);
+                continue;
+            }
+            entries.put(key, new Entry(props.getProperty(name), fingerprint));
+        }
+        logger.info("Loaded learned selectors ({} elements, {} frames)", entries.size(), frames.size());
+    }
+
+    /**
+     * host|path template|name|type, or null for pages without a host (about:blank, data:)
+     */
+    static String key(String url, String name, String type) {
+        if (name == null) return null;
+        String page = urlTemplate(url);
+        if (page == null) return null;
+        return page + "|" + name.trim().toLowerCase() + "|" + (type != null ? type : "");
+    }
+
+    /**
+     * host|path template, or null for URLs without a host
+     */
+    static String urlTemplate(String url) {
+        if (url == null) return null;
+        try {
+            URI uri = new URI(url);
+            if (uri.getHost() == null) return null;
+            return uri.getHost().toLowerCase() + "|" + pathTemplate(uri.getPath());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * The path with variable segments (numbers, UUIDs, long tokens) replaced by {id}
+     */
+    static String pathTemplate(String path) {
+        if (path == null || path.isEmpty()) return "/";
+        String[] segments = path.split("/", -1);
+        StringBuilder template = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) template.append('/');
+            template.append(VARIABLE_SEGMENT.matcher(segments[i]).matches() ? "{id}" : segments[i]);
+        }
+        return template.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Fingerprint fingerprint(Locator locator) {
+        try {
+            Object result = locator.evaluateAll(FINGERPRINT_JS);
+            if (!(result instanceof Map)) return null;
+            Map<String, Object> map = (Map<String, Object>) result;
+            return new Fingerprint(String.valueOf(map.get("fingerprint")), Boolean.TRUE.equals(map.get("visible")));
+        } catch (Exception e) {
+            // Invalid selector after an upgrade, navigation mid-check, detached frame
+            return null;
+        }
+    }
+
+    private static final class Entry {
+        final String selector;
+        final String fingerprint;
+
+        Entry(String selector, String fingerprint) {
+            this.selector = selector;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class Fingerprint {
+        final String fingerprint;
+        final boolean visible;
+
+        Fingerprint(String fingerprint, boolean visible) {
+            this.fingerprint = fingerprint;
+            this.visible = visible;
+        }
+    }
+}
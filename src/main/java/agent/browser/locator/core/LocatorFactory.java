@@ -1,6 +1,7 @@
 package agent.browser.locator.core;
 
 import agent.utils.LoggerUtil;
+import com.microsoft.playwright.Frame;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 
@@ -9,16 +10,54 @@ public class LocatorFactory {
     private static final LoggerUtil logger = LoggerUtil.getLogger(LocatorFactory.class);
     
     private final Page page;
+    // The last locator createLocator returned and the selector it was built from
+    private Locator lastLocator;
+    private String lastSelector;
 
     public LocatorFactory(Page page) {
         this.page = page;
     }
 
+    /**
+     * The selector a locator createLocator just returned was built from, in
+     * Playwright's selector syntax (CSS, text=, xpath=, >> chaining, nth=), or
+     * null if it is not the last one returned, was scoped or in a frame, or
+     * has no such form. A stamp (see below) is left out: only the semantic
+     * part holds in a later document.
+     */
+    public String selectorOf(Locator locator) {
+        return locator != null && locator == lastLocator ? lastSelector : null;
+    }
+
     public Locator createLocator(ElementCandidate element, double score, String parsedType) {
         return createLocator(element, score, parsedType, null);
     }
 
     public Locator createLocator(ElementCandidate element, double score, String parsedType, Locator scope) {
+        return createLocator(element, score, parsedType, scope, null);
+    }
+
+    /**
+     * Locator for the winning candidate, within scope (or the frame's root
+     * element) if given. When the scan stamped the winner (DomScanner.PIN_ATTRIBUTE)
+     * the locator is that stamp, so later actions find the very node that was
+     * scored with one attribute query instead of a text or label search. The
+     * semantic locator below stays as the fallback for when that node is gone
+     * (re-rendered, replaced): it is rooted under a guard that matches nothing
+     * while the stamp is still in the document, so it is only searched then.
+     *
+     * @param frame the frame scope belongs to, or null for the page's main frame
+     */
+    public Locator createLocator(ElementCandidate element, double score, String parsedType, Locator scope, Frame frame) {
+         lastSelector = null;
+         lastLocator = build(element, score, parsedType, scope, frame);
+         if (scope != null || frame != null) {
+             lastSelector = null;
+         }
+         return lastLocator;
+    }
+
+    private Locator build(ElementCandidate element, double score, String parsedType, Locator scope, Frame frame) {
          String foundId = element.id;
          String foundTag = element.tag;
          String foundText = element.text;
@@ -27,6 +66,18 @@ public class LocatorFactory {
          logger.debug("Found Winner: <{}> Text:'{}' ID:'{}' (Score: {})", foundTag, foundText, foundId, score);
          
          Locator finalLocator = null;
+         // What finalLocator's semantic part selects, null if it has no selector form
+         String selector = null;
+
+         // The node the scan stamped, and a root for the semantic fallback that is empty while it exists
+         Locator pinned = null;
+         Locator within = scope;
+         if (DomScanner.PIN_ELEMENTS && !element.pin.isEmpty()) {
+             String pinSelector = "[" + DomScanner.PIN_ATTRIBUTE + "='" + element.pin + "']";
+             pinned = frame != null ? frame.locator(pinSelector) : page.locator(pinSelector);
+             Locator root = scope != null ? scope : page.locator(":root");
+             within = root.filter(new Locator.FilterOptions().setHasNot(pinned));
+         }
          
          // Helper to create base locator (either from page or scope)
          // Note: We cannot use ID if scoped, unless we assume ID is unique globally (which is true by spec but not always in reality).
@@ -34,54 +85,70 @@ public class LocatorFactory {
          
          if (foundId != null && !foundId.isEmpty() && !isDynamicId(foundId)) {
              // Use tag + id and filter by text to disambiguate if IDs are reused (common in DemoQA)
-             Locator base = (scope != null) ? scope.locator(foundTag + "#" + foundId) : page.locator(foundTag + "#" + foundId);
+             Locator base = (within != null) ? within.locator(foundTag + "#" + foundId) : page.locator(foundTag + "#" + foundId);
              if (foundText != null && !foundText.isEmpty() && foundText.length() < 100 && !"progressbar".equals(parsedType)) {
                  finalLocator = base.filter(new Locator.FilterOptions().setHasText(foundText)).first();
+                 selector = first(hasText(foundTag + "#" + cssIdent(foundId), foundText));
              } else {
                  finalLocator = base.first();
+                 selector = first(foundTag + "#" + cssIdent(foundId));
              }
          } 
          else if ("button".equals(foundTag) || "a".equals(foundTag)) {
              // For buttons and links with dynamic IDs, prioritize Text-based exact matches
              if (foundText != null && !foundText.isEmpty()) {
-                 if (scope != null) {
-                    finalLocator = scope.getByText(foundText, new Locator.GetByTextOptions().setExact(true)).first();
+                 if (within != null) {
+                    finalLocator = within.getByText(foundText, new Locator.GetByTextOptions().setExact(true)).first();
                  } else {
                     finalLocator = page.getByText(foundText, new Page.GetByTextOptions().setExact(true)).first();
                  }
+                 selector = first(exactText(foundText));
                  logger.debug("Prioritizing stable text locator for dynamic-id {}: '{}'", foundTag, foundText);
              }
          }
          else if ("progressbar".equals(parsedType) || "progressbar".equals(element.role)) {
              // Priority for progress bars: Role or Tag, NOT text (which changes constantly)
-             finalLocator = (scope != null) ? scope.locator("[role='progressbar']").first() : page.locator("[role='progressbar']").first();
+             finalLocator = (within != null) ? within.locator("[role='progressbar']").first() : page.locator("[role='progressbar']").first();
+             selector = first("[role='progressbar']");
          }
          else if (foundText != null && !foundText.isEmpty() && foundText.length() < 100) {
              if (score >= 150) {
-                 if (scope != null) {
-                     finalLocator = scope.getByText(foundText, new Locator.GetByTextOptions().setExact(true)).first();
+                 if (within != null) {
+                     finalLocator = within.getByText(foundText, new Locator.GetByTextOptions().setExact(true)).first();
                  } else {
                      finalLocator = page.getByText(foundText, new Page.GetByTextOptions().setExact(true)).first();
                  }
+                 selector = first(exactText(foundText));
              } else {
-                 finalLocator = (scope != null) ? scope.getByText(foundText).first() : page.getByText(foundText).first();
+                 finalLocator = (within != null) ? within.getByText(foundText).first() : page.getByText(foundText).first();
+                 selector = first(text(foundText));
              }
          }
          else if (!element.label.isEmpty()) {
-             finalLocator = (scope != null) ? scope.getByLabel(element.label).first() : page.getByLabel(element.label).first();
+             finalLocator = (within != null) ? within.getByLabel(element.label).first() : page.getByLabel(element.label).first();
+             // The candidate's label is its own aria-label
+             selector = first(attribute("aria-label", element.label));
          }
          else if (!element.name.isEmpty()) {
-             finalLocator = (scope != null) ? scope.locator("[name='" + element.name + "']").first() : page.locator("[name='" + element.name + "']").first();
+             finalLocator = (within != null) ? within.locator("[name='" + element.name + "']").first() : page.locator("[name='" + element.name + "']").first();
+             selector = first(attribute("name", element.name));
          }
          else if (!element.placeholder.isEmpty()) {
-             finalLocator = (scope != null) ? scope.getByPlaceholder(element.placeholder).first() : page.getByPlaceholder(element.placeholder).first();
+             finalLocator = (within != null) ? within.getByPlaceholder(element.placeholder).first() : page.getByPlaceholder(element.placeholder).first();
+             selector = first(attribute("placeholder", element.placeholder));
          }
          else {
-             finalLocator = (scope != null) 
-                 ? scope.locator(foundTag).filter(new Locator.FilterOptions().setHasText(foundText)).first()
+             finalLocator = (within != null) 
+                 ? within.locator(foundTag).filter(new Locator.FilterOptions().setHasText(foundText)).first()
                  : page.locator(foundTag).filter(new Locator.FilterOptions().setHasText(foundText)).first();
+             selector = first(hasText(foundTag, foundText));
          }
 
+         if (pinned != null) {
+             finalLocator = finalLocator != null ? pinned.or(finalLocator).first() : pinned.first();
+         }
+         lastSelector = selector;
+
          boolean isFill = "input".equals(parsedType);
          boolean isSelect = "select".equals(parsedType);
          boolean isSlider = "slider".equals(parsedType);
@@ -91,13 +158,13 @@ public class LocatorFactory {
              // 1. If label with 'for', use that
              if ("label".equals(foundTag) && foundFor != null && !foundFor.isEmpty()) {
                  logger.debug("Refining label match to linked slider #{}", foundFor);
-                 return page.locator("#" + foundFor);
+                 return refined(page.locator("#" + foundFor), "#" + cssIdent(foundFor));
              }
              // 2. Look for nested slider
              Locator nested = finalLocator.locator("input[type='range'], [role='slider']").first();
              if (nested.count() > 0) {
                  logger.debug("Refining wrapper match to nested slider");
-                 return nested;
+                 return refined(nested, chain(selector, "input[type='range'], [role='slider']", "nth=0"));
              }
              
              // 3. Look for sibling slider (via parent)
@@ -105,7 +172,7 @@ public class LocatorFactory {
              Locator sibling = parent.locator("input[type='range'], [role='slider']").first();
              if (sibling.count() > 0) {
                  logger.debug("Refining match to sibling slider");
-                 return sibling;
+                 return refined(sibling, chain(selector, "xpath=..", "input[type='range'], [role='slider']", "nth=0"));
              }
 
              // 4. Look for parent's next sibling's nested slider (common in form layouts)
@@ -114,7 +181,8 @@ public class LocatorFactory {
                  Locator nestedInSibling = parentNextSibling.locator("input[type='range'], [role='slider']").first();
                  if (nestedInSibling.count() > 0) {
                      logger.debug("Found slider in next sibling of label container, refining to it");
-                     return nestedInSibling;
+                     return refined(nestedInSibling, chain(selector, "xpath=..", "xpath=following-sibling::*[1]", "nth=0",
+                         "input[type='range'], [role='slider']", "nth=0"));
                  }
              }
              
@@ -123,7 +191,7 @@ public class LocatorFactory {
              Locator cousin = grandParent.locator("input[type='range'], [role='slider']").first();
              if (cousin.count() > 0) {
                  logger.debug("Refining match to cousin slider");
-                 return cousin;
+                 return refined(cousin, chain(selector, "xpath=../..", "input[type='range'], [role='slider']", "nth=0"));
              }
          }
 
@@ -135,13 +203,13 @@ public class LocatorFactory {
                  Locator nested = finalLocator.locator("[role='progressbar']").first();
                  if (nested.count() > 0) {
                      logger.debug("Refining container match to nested progress bar");
-                     return nested;
+                     return refined(nested, chain(selector, "[role='progressbar']", "nth=0"));
                  }
                  // Look for sibling
                  Locator sibling = finalLocator.locator("xpath=..").locator("[role='progressbar']").first();
                  if (sibling.count() > 0) {
                      logger.debug("Refining match to sibling progress bar");
-                     return sibling;
+                     return refined(sibling, chain(selector, "xpath=..", "[role='progressbar']", "nth=0"));
                  }
              }
          }
@@ -151,13 +219,13 @@ public class LocatorFactory {
              // 1. If label with 'for', use that
              if ("label".equals(foundTag) && foundFor != null && !foundFor.isEmpty()) {
                  logger.debug("Refining label match to linked input #{}", foundFor);
-                 return page.locator("#" + foundFor);
+                 return refined(page.locator("#" + foundFor), "#" + cssIdent(foundFor));
              }
              // 2. Look for nested input/textarea
              Locator nested = finalLocator.locator("input, textarea").first();
              if (nested.count() > 0) {
                  logger.debug("Refining wrapper match to nested input");
-                 return nested;
+                 return refined(nested, chain(selector, "input, textarea", "nth=0"));
              }
              
              // 3. Look for sibling input (via parent)
@@ -165,7 +233,7 @@ public class LocatorFactory {
              Locator sibling = parent.locator("input, textarea").first();
              if (sibling.count() > 0) {
                  logger.debug("Refining match to sibling input");
-                 return sibling;
+                 return refined(sibling, chain(selector, "xpath=..", "input, textarea", "nth=0"));
              }
 
              // 4. Look for cousin input (via grandparent)
@@ -173,7 +241,7 @@ public class LocatorFactory {
              Locator cousin = grandParent.locator("input, textarea").first();
              if (cousin.count() > 0) {
                  logger.debug("Refining match to cousin input");
-                 return cousin;
+                 return refined(cousin, chain(selector, "xpath=../..", "input, textarea", "nth=0"));
              }
              
              logger.debug("Match found ({}) but not a valid input/textarea. Discarding", foundTag);
@@ -185,13 +253,13 @@ public class LocatorFactory {
              // 1. If label with 'for', use that
              if ("label".equals(foundTag) && foundFor != null && !foundFor.isEmpty()) {
                  logger.debug("Refining label match to linked select #{}", foundFor);
-                 return page.locator("#" + foundFor);
+                 return refined(page.locator("#" + foundFor), "#" + cssIdent(foundFor));
              }
              // 2. Look for nested select
              Locator nested = finalLocator.locator("select").first();
              if (nested.count() > 0) {
                  logger.debug("Refining wrapper match to nested select");
-                 return nested;
+                 return refined(nested, chain(selector, "select", "nth=0"));
              }
              
              // 3. Look for sibling select
@@ -199,7 +267,7 @@ public class LocatorFactory {
              Locator sibling = parent.locator("select").first();
              if (sibling.count() > 0) {
                  logger.debug("Refining match to sibling select");
-                 return sibling;
+                 return refined(sibling, chain(selector, "xpath=..", "select", "nth=0"));
              }
 
              // 4. Before checking cousins, check for custom dropdowns (framework-agnostic)
@@ -211,7 +279,7 @@ public class LocatorFactory {
              // - Contains 'container', 'select', 'dropdown'
              // - Has role='combobox' or role='listbox'
              // - Has data-* attributes for selects
-             Locator dropdownSibling = finalLocator.locator(
+             String dropdownSiblingXpath =
                  "xpath=following-sibling::*[1][" +
                  "contains(@class, 'container') or " +
                  "contains(@class, '-container') or " +
@@ -220,15 +288,15 @@ public class LocatorFactory {
                  "@role='combobox' or " +
                  "@role='listbox' or " +
                  "@data-select" +
-                 "]"
-             ).first();
+                 "]";
+             Locator dropdownSibling = finalLocator.locator(dropdownSiblingXpath).first();
              if (dropdownSibling.count() > 0) {
                  logger.debug("Found custom dropdown container as next sibling of label, refining to it");
-                 return dropdownSibling;
+                 return refined(dropdownSibling, chain(selector, dropdownSiblingXpath, "nth=0"));
              }
              
              // 4a-ii. Check parent's next sibling (handles nested labels like <p><b>Text</b></p>)
-             Locator parentSibling = finalLocator.locator(
+             String parentSiblingXpath =
                  "xpath=../following-sibling::*[1][" +
                  "contains(@class, 'container') or " +
                  "contains(@class, '-container') or " +
@@ -236,11 +304,11 @@ public class LocatorFactory {
                  "contains(@class, 'dropdown') or " +
                  "@role='combobox' or " +
                  "@role='listbox'" +
-                 "]"
-             ).first();
+                 "]";
+             Locator parentSibling = finalLocator.locator(parentSiblingXpath).first();
              if (parentSibling.count() > 0) {
                  logger.debug("Found custom dropdown container as next sibling of label's parent, refining to it");
-                 return parentSibling;
+                 return refined(parentSibling, chain(selector, parentSiblingXpath, "nth=0"));
              }
              
              // 4b. Check for custom dropdown or native select in parent's next sibling (nested layouts)
@@ -251,21 +319,23 @@ public class LocatorFactory {
                 Locator nestedSelect = parentNextSibling.locator("select").first();
                 if (nestedSelect.count() > 0) {
                     logger.debug("Found native select in parent's next sibling, refining to it");
-                    return nestedSelect;
+                    return refined(nestedSelect, chain(selector, "xpath=..", "xpath=following-sibling::*[1]", "nth=0",
+                        "select", "nth=0"));
                 }
                 
                 // Check for custom dropdowns (framework-agnostic)
-                Locator nestedDropdown = parentNextSibling.locator(
+                String dropdownCss =
                     "div[class*='container'], " +
                     "div[class*='-container'], " +
                     "div[class*='select'], " +
                     "div[class*='dropdown'], " +
                     "[role='combobox'], " +
-                    "[role='listbox']"
-                ).first();
+                    "[role='listbox']";
+                Locator nestedDropdown = parentNextSibling.locator(dropdownCss).first();
                 if (nestedDropdown.count() > 0) {
                     logger.debug("Found custom dropdown container in parent's next sibling, refining to it");
-                    return nestedDropdown;
+                    return refined(nestedDropdown, chain(selector, "xpath=..", "xpath=following-sibling::*[1]", "nth=0",
+                        dropdownCss, "nth=0"));
                 }
             }
              
@@ -274,7 +344,7 @@ public class LocatorFactory {
              Locator cousin = grandParent.locator("select").first();
              if (cousin.count() > 0) {
                  logger.debug("Refining match to cousin select (fallback)");
-                 return cousin;
+                 return refined(cousin, chain(selector, "xpath=../..", "select", "nth=0"));
              }
              
              // 5. Return the original wrapper and let SelectAction detect and handle it
@@ -283,6 +353,80 @@ public class LocatorFactory {
 
          return finalLocator;
     }
+    /**
+     * Record the selector of a refined locator and return the locator
+     */
+    private Locator refined(Locator locator, String selector) {
+        lastSelector = selector;
+        return locator;
+    }
+
+    private static String first(String selector) {
+        return chain(selector, "nth=0");
+    }
+
+    /**
+     * The selectors joined with >>, or null if the base has no selector form
+     */
+    private static String chain(String base, String... parts) {
+        if (base == null) return null;
+        return base + " >> " + String.join(" >> ", parts);
+    }
+
+    // Text and attribute values are only written where they quote safely
+    private static boolean quotable(String value) {
+        return value != null && !value.isEmpty() && value.chars().noneMatch(c -> c < 0x20);
+    }
+
+    private static String quoted(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * As getByText(text, exact): the whole, case-sensitive text
+     */
+    private static String exactText(String text) {
+        return quotable(text) ? "text=" + quoted(text) : null;
+    }
+
+    /**
+     * As getByText(text): a case-insensitive substring (unquoted text=, so only
+     * for text that can't be read as a quoted value, a regex or a >> chain)
+     */
+    private static String text(String text) {
+        String body = text == null ? "" : text.trim();
+        if (!quotable(body) || body.contains(">>") || "\"'`/".indexOf(body.charAt(0)) >= 0) return null;
+        return "text=" + body;
+    }
+
+    /**
+     * As filter(hasText(text)) on the selector
+     */
+    private static String hasText(String selector, String text) {
+        return quotable(text) ? selector + ":has-text(" + quoted(text) + ")" : null;
+    }
+
+    private static String attribute(String name, String value) {
+        return quotable(value) ? "[" + name + "=" + quoted(value) + "]" : null;
+    }
+
+    /**
+     * An id as a CSS identifier: every character but letters, digits, - and _ escaped
+     */
+    private static String cssIdent(String id) {
+        StringBuilder ident = new StringBuilder(id.length());
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            boolean plain = Character.isLetter(c) || c == '-' || c == '_' || (Character.isDigit(c) && i > 0);
+            if (plain) {
+                ident.append(c);
+            } else {
+                ident.append('\\').append(Integer.toHexString(c)).append(' ');
+            }
+        }
+        return ident.toString();
+    }
+
     private boolean isDynamicId(String id) {
         if (id == null || id.isEmpty()) return false;
         // Detect DemoQA pattern: Short (5-8 chars) and contains mixed letters and numbers
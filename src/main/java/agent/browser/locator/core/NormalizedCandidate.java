@@ -0,0 +1,67 @@
+package agent.browser.locator.core;
+
+import agent.utils.StepText;
+
+/**
+ * The forms of one candidate's fields that CandidateScorer compares, built
+ * once per candidate (see ElementCandidate.normalized) instead of on every
+ * score: trimmed and lowercased fields, the collapsed text, and the tag, type
+ * and class tests that do not depend on the target.
+ */
+final class NormalizedCandidate {
+
+    final String text;
+    final String lowerText;
+    final String cleanText;
+    final String lowerTitle;
+    final String lowerLabel;
+    final String lowerId;
+    final String lowerName;
+    // As FuzzyMatch.ratio compares them
+    final String fuzzyText;
+    final String fuzzyId;
+    final String fuzzyTitle;
+
+    final boolean labelLike;
+    final boolean fillable;
+    final boolean checkable;
+    final boolean interactive;
+    final boolean classHasBtn;
+    final boolean slider;
+    final boolean classSlider;
+    final boolean progressBar;
+    final boolean classProgress;
+    final boolean searchField;
+
+    NormalizedCandidate(ElementCandidate el) {
+        text = el.text.trim();
+        lowerText = text.toLowerCase();
+        cleanText = StepText.normalizeWhitespace(text).toLowerCase();
+        lowerTitle = el.title.toLowerCase();
+        lowerLabel = el.label.toLowerCase();
+        lowerId = el.id.toLowerCase();
+        lowerName = el.name.toLowerCase();
+        fuzzyText = text.toLowerCase().trim();
+        fuzzyId = el.id.toLowerCase().trim();
+        fuzzyTitle = el.title.toLowerCase().trim();
+
+        String lowerTag = el.tag.toLowerCase();
+        String lowerRole = el.role.toLowerCase();
+        String lowerType = el.type.toLowerCase();
+        String lowerClass = el.className.toLowerCase();
+        String lowerPlaceholder = el.placeholder.toLowerCase();
+        labelLike = lowerTag.equals("label") || lowerTag.equals("b") || lowerTag.equals("strong") || lowerTag.equals("p") || lowerTag.equals("span");
+        fillable = ("input".equals(lowerTag) || "textarea".equals(lowerTag)) && !"checkbox".equals(el.type) && !"radio".equals(el.type) && !"range".equals(el.type);
+        checkable = "input".equals(el.tag) && ("checkbox".equals(el.type) || "radio".equals(el.type));
+        interactive = "button".equals(el.tag) || "a".equals(el.tag) || "submit".equals(el.type) || "button".equals(lowerRole);
+        classHasBtn = el.className.contains("btn");
+        slider = "range".equals(lowerType) || "slider".equals(lowerRole);
+        classSlider = lowerClass.contains("slider") || lowerClass.contains("range");
+        progressBar = "progressbar".equals(lowerType) || "progressbar".equals(lowerRole);
+        classProgress = lowerClass.contains("progress");
+        // Search fields often have generic names like 's', 'search', or placeholders with 'search'/'filter'/'type'
+        searchField = "s".equals(lowerName) || "search".equals(lowerName) || "q".equals(lowerName) || "query".equals(lowerName)
+            || lowerPlaceholder.contains("search") || lowerPlaceholder.contains("filter")
+            || lowerPlaceholder.contains("type here") || lowerPlaceholder.contains("start typing");
+    }
+}
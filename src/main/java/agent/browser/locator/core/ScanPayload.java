@@ -0,0 +1,157 @@
+package agent.browser.locator.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One js/dom-snapshot.js result, read from its JSON string with a streaming
+ * parser. Records arrive as columns (a string table plus one index array per
+ * field) and are decoded straight into ElementCandidates, so no map is built
+ * per element and candidates share the table's strings.
+ */
+final class ScanPayload {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int[] NO_IDS = new int[0];
+
+    String token;
+    int epoch;
+    boolean unchanged;
+    double scanMs;
+    int scored;
+    // Null unless the page sent them
+    int[] order;
+    int[] scope;
+    // Changed records (sync) or the k best (query), with their in-page ids
+    int[] nids = NO_IDS;
+    ElementCandidate[] candidates = new ElementCandidate[0];
+    double[] scores;
+
+    static ScanPayload parse(String json) throws IOException {
+        ScanPayload payload = new ScanPayload();
+        try (JsonParser parser = JSON.createParser(json)) {
+            parser.nextToken();
+            expect(parser, JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "token" -> payload.token = parser.getText();
+                    case "epoch" -> payload.epoch = parser.getIntValue();
+                    case "unchanged" -> payload.unchanged = parser.getBooleanValue();
+                    case "scanMs" -> payload.scanMs = parser.getDoubleValue();
+                    case "scored" -> payload.scored = parser.getIntValue();
+                    case "order" -> payload.order = readInts(parser);
+                    case "scope" -> payload.scope = readInts(parser);
+                    case "records", "top" -> payload.readColumns(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        for (int i = 0; i < payload.nids.length; i++) {
+            ElementCandidate candidate = payload.candidates[i];
+            candidate.storeKey = payload.token + ":" + payload.nids[i];
+            if (DomScanner.PIN_ELEMENTS) {
+                // As js/dom-snapshot.js stamps them
+                candidate.pin = candidate.storeKey;
+            }
+        }
+        return payload;
+    }
+
+    private void readColumns(JsonParser parser) throws IOException {
+        String[] strings = new String[0];
+        Map<String, int[]> columns = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "strings" -> strings = readStrings(parser);
+                case "score" -> scores = readDoubles(parser);
+                default -> columns.put(field, readInts(parser));
+            }
+        }
+
+        nids = columns.getOrDefault("nid", NO_IDS);
+        int[] visible = columns.get("visible");
+        int[] tag = columns.get("tag");
+        int[] id = columns.get("id");
+        int[] forAttr = columns.get("forAttr");
+        int[] name = columns.get("name");
+        int[] text = columns.get("text");
+        int[] placeholder = columns.get("placeholder");
+        int[] label = columns.get("label");
+        int[] title = columns.get("title");
+        int[] type = columns.get("type");
+        int[] role = columns.get("role");
+        int[] className = columns.get("class");
+        candidates = new ElementCandidate[nids.length];
+        for (int i = 0; i < nids.length; i++) {
+            ElementCandidate c = new ElementCandidate();
+            c.tag = strings[tag[i]];
+            c.id = strings[id[i]];
+            c.forAttr = strings[forAttr[i]];
+            c.name = strings[name[i]];
+            c.text = strings[text[i]];
+            c.placeholder = strings[placeholder[i]];
+            c.label = strings[label[i]];
+            c.title = strings[title[i]];
+            c.type = strings[type[i]];
+            c.role = strings[role[i]];
+            c.className = strings[className[i]];
+            c.visible = visible[i] != 0;
+            candidates[i] = c;
+        }
+    }
+
+    private static int[] readInts(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_ARRAY);
+        int[] values = new int[16];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getIntValue();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static double[] readDoubles(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_ARRAY);
+        double[] values = new double[16];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getDoubleValue();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static String[] readStrings(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_ARRAY);
+        String[] values = new String[16];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getText();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static void expect(JsonParser parser, JsonToken token) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new IOException("Expected " + token + " in DOM snapshot result, got " + parser.currentToken());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package agent.browser.locator.core;
+
+import agent.utils.StepText;
+
+import java.util.regex.Pattern;
+
+/**
+ * A scoring target (element name and parsed type) prepared once for
+ * CandidateScorer: the trimmed, lowercased and suffix-stripped name forms
+ * every candidate is compared against, and the action type flags.
+ */
+public final class ScoringQuery {
+
+    private static final Pattern TYPE_SUFFIX = Pattern.compile(
+        "\\s+(button|btn|link|input|field|tab|icon|radio|checkbox|dropdown|select|box|menu|card|item|element|option|header|title|label|slider|range)$");
+
+    final String name;
+    final String lowerName;
+    // Lowercased name without trailing type words ("Submit button" -> "submit")
+    final String cleanName;
+    // Whitespace-collapsed forms for exact text matches
+    final String cleanTarget;
+    final String cleanTargetCleaned;
+    // As FuzzyMatch.ratio compares them
+    final String fuzzyName;
+    final String fuzzyCleanName;
+    final boolean mentionsSearch;
+
+    final boolean isFill;
+    final boolean isCheck;
+    final boolean isClick;
+    final boolean isSlider;
+    final boolean isSelect;
+
+    private ScoringQuery(String targetName, String parsedType) {
+        name = targetName.trim();
+        lowerName = name.toLowerCase();
+        String clean = lowerName;
+        boolean changed;
+        do {
+            changed = false;
+            String before = clean;
+            clean = TYPE_SUFFIX.matcher(clean).replaceAll("").trim();
+            if (!before.equals(clean)) changed = true;
+        } while (changed);
+        cleanName = clean;
+        cleanTarget = StepText.normalizeWhitespace(name).toLowerCase();
+        cleanTargetCleaned = StepText.normalizeWhitespace(cleanName).toLowerCase();
+        fuzzyName = name.toLowerCase().trim();
+        fuzzyCleanName = cleanName.toLowerCase().trim();
+        mentionsSearch = lowerName.contains("search") || lowerName.contains("filter");
+
+        isFill = "input".equals(parsedType);
+        isCheck = "check".equals(parsedType) || "checkbox".equals(parsedType) || "radio".equals(parsedType);
+        isClick = "button".equals(parsedType) || "click".equals(parsedType);
+        isSlider = "slider".equals(parsedType);
+        isSelect = "select".equals(parsedType);
+    }
+
+    public static ScoringQuery of(String targetName, String parsedType) {
+        return new ScoringQuery(targetName, parsedType);
+    }
+}
@@ -2,6 +2,7 @@ package agent.context;
 
 import agent.utils.LoggerUtil;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -13,12 +14,15 @@ import java.util.Map;
  * - Store session tokens
  * - Store any runtime data that needs to be reused across steps
  * 
- * Thread-safe singleton implementation.
+ * One context per execution unit (feature or scenario): each thread has its
+ * own, and the runner calls reset() once a unit is done, so parallel workers
+ * never see each other's data. Not thread-safe itself; steps run on the
+ * unit's thread.
  */
 public class TestContext {
     
     private static final LoggerUtil logger = LoggerUtil.getLogger(TestContext.class);
-    private static TestContext instance;
+    private static final ThreadLocal<TestContext> current = new ThreadLocal<>();
     
     private Map<String, Object> contextData;
     private Map<String, String> bookingReferences;
@@ -26,19 +30,48 @@ public class TestContext {
     
     private TestContext() {
         contextData = new HashMap<>();
-        bookingReferences = new HashMap<>();
+        // Insertion order: getLastBookingReference returns the latest one
+        bookingReferences = new LinkedHashMap<>();
         userSessions = new HashMap<>();
     }
     
     /**
-     * Get singleton instance
+     * Get the context of the unit running on this thread
      */
-    public static synchronized TestContext getInstance() {
-        if (instance == null) {
-            instance = new TestContext();
-            logger.info("Test Context initialized");
+    public static TestContext getInstance() {
+        TestContext context = current.get();
+        if (context == null) {
+            context = new TestContext();
+            current.set(context);
+            logger.debug("Test Context initialized");
         }
-        return instance;
+        return context;
+    }
+    
+    /**
+     * End the current unit: the next getInstance() on this thread starts empty
+     */
+    public static void reset() {
+        current.remove();
+    }
+    
+    /**
+     * Continue from saved data: a copy of it becomes this thread's context
+     * (e.g. what a memoized Background stored)
+     */
+    public static void restore(TestContext saved) {
+        current.set(saved.copy());
+    }
+    
+    /**
+     * Independent copy of all stored data
+     */
+    public TestContext copy() {
+        TestContext copy = new TestContext();
+        copy.contextData.putAll(contextData);
+        copy.bookingReferences.putAll(bookingReferences);
+        copy.userSessions.putAll(userSessions);
+        return copy;
     }
     
     /**
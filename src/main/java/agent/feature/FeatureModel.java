@@ -0,0 +1,90 @@
+package agent.feature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed representation of a .feature file: background, scenarios and tags.
+ *
+ * Built by FeatureReader from the Gherkin AST. Scenarios are independent units
+ * that can be executed in separate browser contexts (Scenario Outlines are already
+ * expanded to one scenario per Examples row); getFlattenedSteps() keeps
+ * the legacy "whole file as one step list" view for serial execution.
+ */
+public class FeatureModel {
+
+    private final String name;
+    private final String path;
+    private final List<String> tags;
+    private final List<String> backgroundSteps;
+    private final List<ScenarioModel> scenarios;
+    private final List<String> flattenedSteps;
+    private final List<Integer> flattenedStepLines;
+    private final List<String> flattenedStepsWithoutOutlines;
+
+    public FeatureModel(String name, String path, List<String> tags, List<String> backgroundSteps,
+                        List<ScenarioModel> scenarios, List<String> flattenedSteps,
+                        List<Integer> flattenedStepLines, List<String> flattenedStepsWithoutOutlines) {
+        this.name = name;
+        this.path = path;
+        this.tags = Collections.unmodifiableList(new ArrayList<>(tags));
+        this.backgroundSteps = Collections.unmodifiableList(new ArrayList<>(backgroundSteps));
+        this.scenarios = Collections.unmodifiableList(new ArrayList<>(scenarios));
+        this.flattenedSteps = Collections.unmodifiableList(new ArrayList<>(flattenedSteps));
+        this.flattenedStepLines = Collections.unmodifiableList(new ArrayList<>(flattenedStepLines));
+        this.flattenedStepsWithoutOutlines = Collections.unmodifiableList(new ArrayList<>(flattenedStepsWithoutOutlines));
+    }
+
+    /**
+     * Feature title as written after "Feature:"
+     */
+    public String getName() { return name; }
+
+    /**
+     * Path of the source .feature file
+     */
+    public String getPath() { return path; }
+
+    public List<String> getTags() { return tags; }
+
+    /**
+     * Feature-level Background steps (rule backgrounds are attached to their scenarios)
+     */
+    public List<String> getBackgroundSteps() { return backgroundSteps; }
+
+    public boolean hasBackground() { return !backgroundSteps.isEmpty(); }
+
+    public List<ScenarioModel> getScenarios() { return scenarios; }
+
+    /**
+     * All steps in file order with each Background listed once, exactly as the
+     * serial runner has always executed a feature.
+     */
+    public List<String> getFlattenedSteps() { return flattenedSteps; }
+
+    /**
+     * Line in the feature file of each of getFlattenedSteps(), same order
+     */
+    public List<Integer> getFlattenedStepLines() { return flattenedStepLines; }
+
+    /**
+     * Same as getFlattenedSteps() but without the expanded Scenario Outline rows,
+     * for runners that execute those rows as separate units
+     */
+    public List<String> getFlattenedStepsWithoutOutlines() { return flattenedStepsWithoutOutlines; }
+
+    public boolean hasOutlineInstances() {
+        return scenarios.stream().anyMatch(ScenarioModel::isOutlineInstance);
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureModel{" +
+                "name='" + name + '\'' +
+                ", path='" + path + '\'' +
+                ", background=" + backgroundSteps.size() +
+                ", scenarios=" + scenarios.size() +
+                '}';
+    }
+}
@@ -1,20 +1,234 @@
 package agent.feature;
 
-import java.nio.file.Files;
+import io.cucumber.gherkin.GherkinParser;
+import io.cucumber.messages.types.Background;
+import io.cucumber.messages.types.Envelope;
+import io.cucumber.messages.types.Examples;
+import io.cucumber.messages.types.Feature;
+import io.cucumber.messages.types.FeatureChild;
+import io.cucumber.messages.types.GherkinDocument;
+import io.cucumber.messages.types.ParseError;
+import io.cucumber.messages.types.Rule;
+import io.cucumber.messages.types.RuleChild;
+import io.cucumber.messages.types.Scenario;
+import io.cucumber.messages.types.Step;
+import io.cucumber.messages.types.TableCell;
+import io.cucumber.messages.types.TableRow;
+import io.cucumber.messages.types.Tag;
+
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Reads .feature files with the Cucumber Gherkin parser.
+ *
+ * Supports Background, Rule, tags and every step keyword (Given/When/Then/And/But/*).
+ * Steps are returned with their keyword, e.g. "When I click Submit".
+ *
+ * Scenario Outlines are expanded: every Examples row becomes its own scenario
+ * with the "<placeholder>" tokens replaced by that row's values.
+ */
 public class FeatureReader {
+
+    private final GherkinParser parser = GherkinParser.builder()
+        .includeSource(false)
+        .includeGherkinDocument(true)
+        .includePickles(false)
+        .build();
+
+    /**
+     * Legacy flat view: every step of the file in order, Background listed once
+     */
     public List<String> readSteps(String featureFilePath) throws Exception {
-        List<String> steps = new ArrayList<>();
-        List<String> lines = Files.readAllLines(Path.of(featureFilePath));
-        for (String line : lines) {
-            line = line.trim();
-            if (line.startsWith("Given") || line.startsWith("When") || line.startsWith("And") || line.startsWith("Then")) {
-                steps.add(line);
+        return readFeature(featureFilePath).getFlattenedSteps();
+    }
+
+    /**
+     * Parse a feature file into its background, scenarios and tags
+     */
+    public FeatureModel readFeature(String featureFilePath) throws Exception {
+        GherkinDocument document = null;
+        List<String> errors = new ArrayList<>();
+
+        try (Stream<Envelope> envelopes = parser.parse(Path.of(featureFilePath))) {
+            for (Envelope envelope : (Iterable<Envelope>) envelopes::iterator) {
+                if (envelope.getGherkinDocument().isPresent()) {
+                    document = envelope.getGherkinDocument().get();
+                }
+                envelope.getParseError().map(ParseError::getMessage).ifPresent(errors::add);
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid feature file " + featureFilePath + ": " + String.join("; ", errors));
+        }
+
+        String fileName = Path.of(featureFilePath).getFileName().toString();
+        if (document == null || document.getFeature().isEmpty()) {
+            return new FeatureModel(fileName, featureFilePath, List.of(), List.of(), List.of(), List.of(), List.of(), List.of());
+        }
+
+        Feature feature = document.getFeature().get();
+        List<String> featureTags = tagNames(feature.getTags());
+        List<String> featureBackground = new ArrayList<>();
+        List<ScenarioModel> scenarios = new ArrayList<>();
+        List<String> flattened = new ArrayList<>();
+        List<Integer> flattenedLines = new ArrayList<>();
+        List<String> flattenedWithoutOutlines = new ArrayList<>();
+
+        for (FeatureChild child : feature.getChildren()) {
+            if (child.getBackground().isPresent()) {
+                Background background = child.getBackground().get();
+                List<String> steps = stepTexts(background);
+                featureBackground.addAll(steps);
+                flattened.addAll(steps);
+                flattenedLines.addAll(stepLines(background.getSteps()));
+                flattenedWithoutOutlines.addAll(steps);
+            } else if (child.getScenario().isPresent()) {
+                addScenarios(toScenarios(child.getScenario().get(), featureTags, featureBackground),
+                    scenarios, flattened, flattenedLines, flattenedWithoutOutlines);
+            } else if (child.getRule().isPresent()) {
+                readRule(child.getRule().get(), featureTags, featureBackground, scenarios,
+                    flattened, flattenedLines, flattenedWithoutOutlines);
             }
         }
-        return steps;
+
+        String name = feature.getName().isBlank() ? fileName : feature.getName().trim();
+        return new FeatureModel(name, featureFilePath, featureTags, featureBackground, scenarios,
+            flattened, flattenedLines, flattenedWithoutOutlines);
+    }
+
+    private void readRule(Rule rule, List<String> featureTags, List<String> featureBackground,
+                          List<ScenarioModel> scenarios, List<String> flattened, List<Integer> flattenedLines,
+                          List<String> flattenedWithoutOutlines) {
+        List<String> ruleTags = new ArrayList<>(featureTags);
+        ruleTags.addAll(tagNames(rule.getTags()));
+        List<String> ruleBackground = new ArrayList<>(featureBackground);
+
+        for (RuleChild child : rule.getChildren()) {
+            if (child.getBackground().isPresent()) {
+                Background background = child.getBackground().get();
+                List<String> steps = stepTexts(background);
+                ruleBackground.addAll(steps);
+                flattened.addAll(steps);
+                flattenedLines.addAll(stepLines(background.getSteps()));
+                flattenedWithoutOutlines.addAll(steps);
+            } else if (child.getScenario().isPresent()) {
+                addScenarios(toScenarios(child.getScenario().get(), ruleTags, ruleBackground),
+                    scenarios, flattened, flattenedLines, flattenedWithoutOutlines);
+            }
+        }
+    }
+
+    private void addScenarios(List<ScenarioModel> parsed, List<ScenarioModel> scenarios, List<String> flattened,
+                              List<Integer> flattenedLines, List<String> flattenedWithoutOutlines) {
+        for (ScenarioModel scenario : parsed) {
+            scenarios.add(scenario);
+            flattened.addAll(scenario.getSteps());
+            flattenedLines.addAll(scenario.getStepLines());
+            if (!scenario.isOutlineInstance()) {
+                flattenedWithoutOutlines.addAll(scenario.getSteps());
+            }
+        }
+    }
+
+    /**
+     * A plain scenario yields itself; an outline yields one scenario per Examples row
+     */
+    private List<ScenarioModel> toScenarios(Scenario scenario, List<String> inheritedTags, List<String> background) {
+        List<String> tags = new ArrayList<>(inheritedTags);
+        tags.addAll(tagNames(scenario.getTags()));
+        String name = scenario.getName().trim();
+        String keyword = scenario.getKeyword().trim();
+        List<String> templateSteps = stepTexts(scenario.getSteps());
+        List<Integer> stepLines = stepLines(scenario.getSteps());
+
+        if (scenario.getExamples().isEmpty()) {
+            return List.of(new ScenarioModel(name, keyword, scenario.getLocation().getLine().intValue(),
+                tags, background, templateSteps, stepLines));
+        }
+
+        List<ScenarioModel> instances = new ArrayList<>();
+        int exampleIndex = 1;
+        for (Examples examples : scenario.getExamples()) {
+            if (examples.getTableHeader().isEmpty()) {
+                continue;
+            }
+            List<String> headers = cellValues(examples.getTableHeader().get());
+            List<String> exampleTags = new ArrayList<>(tags);
+            exampleTags.addAll(tagNames(examples.getTags()));
+
+            for (TableRow row : examples.getTableBody()) {
+                Map<String, String> values = new LinkedHashMap<>();
+                List<String> cells = cellValues(row);
+                for (int i = 0; i < headers.size() && i < cells.size(); i++) {
+                    values.put(headers.get(i), cells.get(i));
+                }
+
+                List<String> steps = new ArrayList<>();
+                for (String templateStep : templateSteps) {
+                    steps.add(substitute(templateStep, values));
+                }
+
+                // Numbered so every row gets a distinct id even when the name has no placeholders
+                String instanceName = substitute(name, values) + " (example " + exampleIndex++ + ")";
+                instances.add(new ScenarioModel(instanceName, keyword, row.getLocation().getLine().intValue(),
+                    exampleTags, background, steps, stepLines, templateSteps, values));
+            }
+        }
+        return instances;
+    }
+
+    private String substitute(String template, Map<String, String> values) {
+        String result = template;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            result = result.replace("<" + entry.getKey() + ">", entry.getValue());
+        }
+        return result;
+    }
+
+    private List<String> cellValues(TableRow row) {
+        return row.getCells().stream().map(TableCell::getValue).collect(Collectors.toList());
+    }
+
+    private List<String> stepTexts(Background background) {
+        return stepTexts(background.getSteps());
+    }
+
+    private List<String> stepTexts(List<Step> steps) {
+        List<String> texts = new ArrayList<>();
+        for (Step step : steps) {
+            texts.add(stepText(step));
+        }
+        return texts;
+    }
+
+    private List<Integer> stepLines(List<Step> steps) {
+        List<Integer> lines = new ArrayList<>();
+        for (Step step : steps) {
+            lines.add(step.getLocation().getLine().intValue());
+        }
+        return lines;
+    }
+
+    /**
+     * Keyword + text, e.g. "And I click Submit". The "*" bullet keyword is
+     * rendered as "And" so downstream parsers see a regular Gherkin keyword.
+     */
+    private String stepText(Step step) {
+        String keyword = step.getKeyword().trim();
+        if ("*".equals(keyword)) {
+            keyword = "And";
+        }
+        return keyword + " " + step.getText().trim();
+    }
+
+    private List<String> tagNames(List<Tag> tags) {
+        return tags.stream().map(Tag::getName).collect(Collectors.toList());
     }
 }
@@ -0,0 +1,123 @@
+package agent.feature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single scenario of a feature file, as an independently executable unit.
+ *
+ * Steps keep their Gherkin keyword ("When I click Submit") because the step
+ * parsers use the keyword for context. Background steps are NOT included here;
+ * they belong to the owning FeatureModel and are prepended at execution time.
+ *
+ * Each row of a Scenario Outline's Examples becomes its own ScenarioModel with
+ * the placeholders substituted; the unsubstituted steps stay available through
+ * getTemplateSteps() so rows sharing a template can be handled as one batch.
+ */
+public class ScenarioModel {
+
+    private final String name;
+    private final String keyword;
+    private final int line;
+    private final List<String> tags;
+    private final List<String> backgroundSteps;
+    private final List<String> steps;
+    private final List<Integer> stepLines;
+    private final List<String> templateSteps;
+    private final Map<String, String> exampleValues;
+
+    public ScenarioModel(String name, String keyword, int line, List<String> tags,
+                         List<String> backgroundSteps, List<String> steps, List<Integer> stepLines) {
+        this(name, keyword, line, tags, backgroundSteps, steps, stepLines, steps, Map.of());
+    }
+
+    public ScenarioModel(String name, String keyword, int line, List<String> tags,
+                         List<String> backgroundSteps, List<String> steps, List<Integer> stepLines,
+                         List<String> templateSteps, Map<String, String> exampleValues) {
+        this.name = name;
+        this.keyword = keyword;
+        this.line = line;
+        this.tags = Collections.unmodifiableList(new ArrayList<>(tags));
+        this.backgroundSteps = Collections.unmodifiableList(new ArrayList<>(backgroundSteps));
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+        this.stepLines = Collections.unmodifiableList(new ArrayList<>(stepLines));
+        this.templateSteps = Collections.unmodifiableList(new ArrayList<>(templateSteps));
+        this.exampleValues = Collections.unmodifiableMap(new LinkedHashMap<>(exampleValues));
+    }
+
+    public String getName() { return name; }
+
+    /**
+     * Gherkin keyword used to declare the scenario ("Scenario", "Example", ...)
+     */
+    public String getKeyword() { return keyword; }
+
+    /**
+     * Line of the scenario declaration in the feature file
+     */
+    public int getLine() { return line; }
+
+    /**
+     * Tags of the scenario, including tags inherited from the feature and rule
+     */
+    public List<String> getTags() { return tags; }
+
+    /**
+     * Background steps that apply to this scenario (feature and rule level)
+     */
+    public List<String> getBackgroundSteps() { return backgroundSteps; }
+
+    /**
+     * Scenario's own steps, without background
+     */
+    public List<String> getSteps() { return steps; }
+
+    /**
+     * Line of each of getSteps() in the feature file; for an outline row, the
+     * line of the outline step it was expanded from
+     */
+    public List<Integer> getStepLines() { return stepLines; }
+
+    /**
+     * Steps as written in the outline, with "<placeholder>" tokens left in place.
+     * Same as getSteps() for a plain scenario.
+     */
+    public List<String> getTemplateSteps() { return templateSteps; }
+
+    /**
+     * Examples row this instance was expanded from (column header to cell value),
+     * empty for a plain scenario
+     */
+    public Map<String, String> getExampleValues() { return exampleValues; }
+
+    /**
+     * True if this scenario was expanded from a Scenario Outline Examples row
+     */
+    public boolean isOutlineInstance() { return !exampleValues.isEmpty(); }
+
+    /**
+     * Background followed by the scenario's own steps, in execution order
+     */
+    public List<String> getExecutableSteps() {
+        List<String> all = new ArrayList<>(backgroundSteps);
+        all.addAll(steps);
+        return all;
+    }
+
+    public boolean hasTag(String tag) {
+        return tags.contains(tag.startsWith("@") ? tag : "@" + tag);
+    }
+
+    @Override
+    public String toString() {
+        return "ScenarioModel{" +
+                "name='" + name + '\'' +
+                ", line=" + line +
+                ", tags=" + tags +
+                ", steps=" + steps.size() +
+                '}';
+    }
+}
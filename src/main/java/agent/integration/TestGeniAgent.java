@@ -100,7 +100,12 @@ public class TestGeniAgent {
             return false;
         }
         
-        return stepParser.isStepSupported(naturalLanguageStep);
+        boolean supported = stepParser.isStepSupported(naturalLanguageStep);
+        if (supported) {
+            // Supported phrasings become "did you mean" candidates for later steps
+            agent.intelligence.StepSuggestionEngine.recordSupportedStep(naturalLanguageStep);
+        }
+        return supported;
     }
     
     /**
@@ -111,10 +116,9 @@ public class TestGeniAgent {
      * @return List of suggested alternative phrasings (top 5, sorted by confidence)
      * 
      * Example:
-     *   Input: "Click the submit button"
+     *   Input: "When I clik the "Submit" buton"
      *   Output: [
-     *     "95% - When I click Submit button (Standard click pattern)",
-     *     "90% - And I click Submit button (Click button pattern)",
+     *     "47% - When I click "Submit" button (Similar to click pattern)",
      *     ...
      *   ]
      */
@@ -10,6 +10,7 @@ import agent.planner.SmartStepParser;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 import agent.utils.LoggerUtil;
+import agent.utils.StepText;
 
 /**
  * Intelligent step processor that uses NLP and semantic matching.
@@ -126,12 +127,7 @@ public class IntelligentStepProcessor {
             // Skip browser-level actions (alerts, prompts, confirms, etc.)
             // These need special handlers, not DOM element matching
             // Also skip deselect actions - they have dedicated DeselectAction handler
-            String lowerStep = step.toLowerCase();
-            if (isBrowserLevelAction(step) || lowerStep.contains("deselect") || 
-                lowerStep.contains("remove") || lowerStep.contains("unselect") ||
-                lowerStep.contains("progress") || lowerStep.contains("reach") || lowerStep.contains("wait for") || 
-                lowerStep.contains("monitor") || lowerStep.contains("frame") || lowerStep.contains("iframe") || 
-                lowerStep.contains("key") || lowerStep.contains("press") || lowerStep.contains("shortcut")) {
+            if (isSkipped(step)) {
                 logger.debug("Skipping intelligence layer for browser-level or specialized action");
                 return null; // Skip intelligence layer
             }
@@ -170,6 +166,32 @@ public class IntelligentStepProcessor {
         }
     }
     
+    /**
+     * True if processing this step with a page would resolve an element against
+     * the DOM, i.e. the plan built without a page is not the plan used at run time.
+     * Steps for which this is false parse to the same plan with or without a page.
+     */
+    public boolean dependsOnPage(String step) {
+        if (isSkipped(step)) {
+            return false;
+        }
+        try {
+            StepIntent intent = intentAnalyzer.analyzeStep(step);
+            return intent.getActionType() != IntentAnalyzer.ActionType.SELECT && needsElementMatch(intent);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    private boolean isSkipped(String step) {
+        String lowerStep = step.toLowerCase();
+        return isBrowserLevelAction(step) || lowerStep.contains("deselect") || 
+            lowerStep.contains("remove") || lowerStep.contains("unselect") ||
+            lowerStep.contains("progress") || lowerStep.contains("reach") || lowerStep.contains("wait for") || 
+            lowerStep.contains("monitor") || lowerStep.contains("frame") || lowerStep.contains("iframe") || 
+            lowerStep.contains("key") || lowerStep.contains("press") || lowerStep.contains("shortcut");
+    }
+    
     /**
      * Find element using the appropriate action-specific matcher
      */
@@ -344,7 +366,7 @@ public class IntelligentStepProcessor {
         for (String keyword : browserKeywords) {
             // Use regex for whole-word boundary check on short keywords like "url"
             if (keyword.length() <= 3) {
-                if (java.util.regex.Pattern.compile("\\b" + keyword + "\\b", java.util.regex.Pattern.CASE_INSENSITIVE).matcher(lowerStep).find()) {
+                if (StepText.containsWordIgnoreCase(lowerStep, keyword)) {
                     return true;
                 }
             } else if (lowerStep.contains(keyword)) {
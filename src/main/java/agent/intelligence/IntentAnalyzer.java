@@ -1,6 +1,7 @@
 package agent.intelligence;
 
 import agent.utils.LoggerUtil;
+import agent.utils.StepText;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -24,6 +25,102 @@ public class IntentAnalyzer {
     private static final Map<String, ActionType> ACTION_VERBS = new LinkedHashMap<>();
     private static final Set<String> SYNONYM_GROUPS = new HashSet<>();
     
+    private static final String[] NAVIGATION_VERBS = {"navigate", "goto", "go to", "open", "visit", "access", "load", "browse"};
+    private static final List<String> NAVIGATION_VERB_LIST = List.of(NAVIGATION_VERBS);
+    private static final String[] PRONOUNS = {"i", "user", "we", "you", "he", "she", "they"};
+    
+    // Negation patterns for verification/assertion steps
+    private static final String[] NEGATION_KEYWORDS = {
+        "not displayed", "not visible", "not shown", "not present",
+        "not exist", "not exists", "not appear", "not appears",
+        "should not", "shouldn't", "must not", "mustn't",
+        "never", "no longer", "doesn't", "don't",
+        "is not", "isn't", "are not", "aren't", "was not", "wasn't",
+        "not be", "cannot", "can't"
+    };
+    
+    // Explicit type mentions (ordered by specificity)
+    private static final String[] ELEMENT_TYPES = {
+        // Form elements
+        "button", "link", "field", "input", "checkbox", "radio", 
+        "dropdown", "select", "textarea", "label", "image", "icon",
+        
+        // Interactive elements (NEW for 122 verbs)
+        "toggle", "switch", "slider", "accordion", "tooltip",
+        
+        // Layout elements
+        "menu", "tab", "modal", "dialog", "popup", "form",
+        "sidebar", "navbar", "footer", "header", "panel",
+        
+        // Modern UI components
+        "chip", "badge", "card", "breadcrumb", "notification",
+        "alert", "banner", "carousel", "spinner"
+    };
+    
+    // Modifier vocabulary; where two entries could match at the same place the earlier wins
+    private static final String[] CONTAINER_PREPOSITIONS = {"in", "on", "within", "inside"};
+    private static final String[] CONTAINERS = {"left menu", "right menu", "sidebar", "navbar", "header", "footer", "menu", "top bar", "toolbar", "main content"};
+    private static final String[] SPATIAL_RELATIONS = {"next to", "below", "above", "inside", "near", "beside", "under", "over"};
+    private static final String[] COLORS = {"red", "blue", "green", "yellow", "orange", "purple", "black", "white", "gray", "grey"};
+    private static final String[] SIZES = {"large", "small", "big", "tiny", "huge"};
+    private static final String[] ORDINALS = {"first", "second", "third", "fourth", "fifth", "last", "1st", "2nd", "3rd"};
+    
+    private static final PhraseTrie NAVIGATION_TRIE = new PhraseTrie(false, NAVIGATION_VERBS);
+    private static final PhraseTrie PRONOUN_TRIE = new PhraseTrie(false, PRONOUNS);
+    private static final PhraseTrie NEGATION_TRIE = new PhraseTrie(false, NEGATION_KEYWORDS);
+    private static final PhraseTrie ELEMENT_TYPE_TRIE = new PhraseTrie(false, ELEMENT_TYPES);
+    private static final PhraseTrie CONTAINER_PREPOSITION_TRIE = new PhraseTrie(true, CONTAINER_PREPOSITIONS);
+    private static final PhraseTrie CONTAINER_TRIE = new PhraseTrie(true, CONTAINERS);
+    private static final PhraseTrie SPATIAL_TRIE = new PhraseTrie(true, SPATIAL_RELATIONS);
+    private static final PhraseTrie COLOR_TRIE = new PhraseTrie(true, COLORS);
+    private static final PhraseTrie SIZE_TRIE = new PhraseTrie(true, SIZES);
+    private static final PhraseTrie ORDINAL_TRIE = new PhraseTrie(true, ORDINALS);
+    // Over ACTION_VERBS in insertion order; STEP_VERB_TRIE leaves out the navigation verbs
+    private static final PhraseTrie VERB_TRIE;
+    private static final PhraseTrie STEP_VERB_TRIE;
+    
+    // As \bphrase\b, for phrases starting and ending with a word character
+    private static final PhraseTrie.Occurrence WHOLE_WORD = (text, start, end) ->
+        StepText.isWordBoundary(text, start) && StepText.isWordBoundary(text, end);
+    // As startsWith(phrase + " ") || contains(" " + phrase + " ") || endsWith(" " + phrase)
+    private static final PhraseTrie.Occurrence SPACED = (text, start, end) ->
+        (start == 0 || text.charAt(start - 1) == ' ') && (end == text.length() || text.charAt(end) == ' ')
+            && !(start == 0 && end == text.length());
+    private static final PhraseTrie.Occurrence SPACE_AFTER = (text, start, end) ->
+        end < text.length() && text.charAt(end) == ' ';
+    private static final PhraseTrie.Occurrence WHITESPACE_AFTER = (text, start, end) ->
+        end < text.length() && StepText.isWhitespace(text.charAt(end));
+    private static final PhraseTrie.Occurrence WORD_THEN_WHITESPACE = (text, start, end) ->
+        StepText.isWordBoundary(text, start) && end < text.length() && StepText.isWhitespace(text.charAt(end));
+    private static final PhraseTrie.Occurrence SPATIAL_OCCURRENCE = (text, start, end) ->
+        spatialReferenceEnd(text, end) >= 0;
+    
+    private static final Pattern LEADING_KEYWORD_OR_SUBJECT = Pattern.compile("(?i)^(Given|When|Then|And|But|User|I)\\s+");
+    private static final Pattern PREPOSITION_PIVOT = Pattern.compile("(?i)(.*)\\b(from|in|into|of|for|within|on|to|at)\\b\\s+(.+)$");
+    private static final Pattern TARGET_ACTION_WORDS = Pattern.compile("(?i)\\b(set|select|choose|click|fill|verify|check|type|enter|go to|open)\\b");
+    private static final Pattern ARTICLES = Pattern.compile("(?i)\\b(the|a|an|and|also)\\b");
+    private static final Pattern TRAILING_AS = Pattern.compile("(?i)\\s+as\\s*$");
+    private static final Pattern AS_SUFFIX = Pattern.compile("(?i)\\s+as\\s+.*$");
+    private static final Pattern CONTAINER_PHRASE = Pattern.compile("(?i)\\b(in|on|within|inside)\\s+(?:the\\s+)?(left\\s+menu|right\\s+menu|sidebar|navbar|header|footer|menu|top\\s+bar|toolbar|main\\s+content)\\b");
+    private static final Pattern ELEMENT_TYPE_SUFFIX = Pattern.compile("(?i)\\s+\\b(button|link|card|field|input|checkbox|radio|dropdown|select|tab|menu|sidebar|navbar|header|footer|icon|image|svg|box|panel|item|link)\\b$");
+    private static final Pattern PREPOSITION_TARGET = Pattern.compile("(?i)(.+?)?\\s*(in|into|for|of|on|within)\\s+(.+)$");
+    private static final Pattern LEADING_PRONOUN = Pattern.compile("(?i)^(I|user|we|you|he|she|they|it|this|that)\\s+");
+    private static final Pattern LEADING_NOISE = Pattern.compile("(?i)^(the|a|an|on|at|to|from|is|are|be|has|have|my|your|our|their)\\s+");
+    private static final Pattern INNER_NOISE = Pattern.compile("(?i)\\s+(the|a|an|on|at|to|from|is|are|be|has|have)\\s+");
+    private static final Pattern TRAILING_NOISE = Pattern.compile("(?i)\\s+(the|a|an|on|at|to|from|is|are|be|has|have)$");
+    private static final Pattern TRAILING_PREPOSITION = Pattern.compile("(?i)\\s+(with|for|by)\\s*$");
+    
+    
+    private static final Pattern PHONE_NUMBER = Pattern.compile("^\\d{10}$");
+    private static final Pattern DAY_OFFSET = Pattern.compile("^[+-]?\\d{1,3}\\s+days?(\\s+from\\s+today)?$");
+    private static final Pattern PLAIN_NUMBER = Pattern.compile("^[+-]?\\d+$");
+    private static final Pattern NUMERIC_DATE = Pattern.compile("^\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4}$");
+    private static final Pattern ISO_DATE = Pattern.compile("^\\d{4}[/-]\\d{1,2}[/-]\\d{1,2}$");
+    private static final String[] MONTHS = {
+        "january", "february", "march", "april", "may", "june", "july", "august", "september", "october", "november", "december",
+        "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
+    };
+    
     static {
         // ========================================
         // CLICK ACTIONS (30+ variants)
@@ -210,6 +307,15 @@ public class IntentAnalyzer {
         ACTION_VERBS.put("sleep", ActionType.WAIT);
         ACTION_VERBS.put("idle", ActionType.WAIT);
         ACTION_VERBS.put("rest", ActionType.WAIT);
+        
+        VERB_TRIE = new PhraseTrie(false, ACTION_VERBS.keySet().toArray(new String[0]));
+        List<String> stepVerbs = new ArrayList<>();
+        for (String verb : ACTION_VERBS.keySet()) {
+            if (!NAVIGATION_VERB_LIST.contains(verb)) {
+                stepVerbs.add(verb);
+            }
+        }
+        STEP_VERB_TRIE = new PhraseTrie(false, stepVerbs.toArray(new String[0]));
     }
     
     /**
@@ -263,23 +369,11 @@ public class IntentAnalyzer {
      * Detect if the step contains negation keywords
      */
     private boolean detectNegation(String step) {
-        String lowerStep = step.toLowerCase();
-        
-        // Negation patterns for verification/assertion steps
-        String[] negationKeywords = {
-            "not displayed", "not visible", "not shown", "not present",
-            "not exist", "not exists", "not appear", "not appears",
-            "should not", "shouldn't", "must not", "mustn't",
-            "never", "no longer", "doesn't", "don't",
-            "is not", "isn't", "are not", "aren't", "was not", "wasn't",
-            "not be", "cannot", "can't"
-        };
-        
-        for (String negationKeyword : negationKeywords) {
-            if (lowerStep.contains(negationKeyword)) {
-                logger.debug("Detected negation: {}", negationKeyword);
-                return true;
-            }
+        // First keyword in list order contained in the step
+        int keyword = NEGATION_TRIE.lowestIn(step.toLowerCase(), PhraseTrie.ANYWHERE);
+        if (keyword >= 0) {
+            logger.debug("Detected negation: {}", NEGATION_TRIE.phrase(keyword));
+            return true;
         }
         
         return false;
@@ -289,9 +383,7 @@ public class IntentAnalyzer {
      * Clean step text (remove Gherkin keywords, extra spaces)
      */
     private String cleanStep(String step) {
-        String cleaned = step.replaceAll("^(?i)(Given|When|Then|And|But)\\s+", "");
-        cleaned = cleaned.replaceAll("\\s+", " ").trim();
-        return cleaned;
+        return StepText.normalizeWhitespace(StepText.stripKeyword(step));
     }
     
     /**
@@ -302,25 +394,15 @@ public class IntentAnalyzer {
         
         // PRIORITY 1: Explicit NAVIGATE verbs (prevents URL keywords from interfering)
         // This must come FIRST to handle "navigate to .../checkbox" correctly
-        String[] navigationVerbs = {"navigate", "goto", "go to", "open", "visit", "access", "load", "browse"};
-        for (String navVerb : navigationVerbs) {
-            // Check at start: "navigate to..."
-            if (lowerStep.startsWith(navVerb + " ") || lowerStep.startsWith(navVerb + " to ")) {
-                return ActionType.NAVIGATE;
-            }
-            // Check after pronoun: "I navigate to...", "user navigate to...", etc.
-            String pronounPattern = ".*(^| )(i|user|we|you|he|she|they) " + navVerb + "( to)? .*";
-            if (lowerStep.matches(pronounPattern)) {
-                return ActionType.NAVIGATE;
-            }
+        if (isNavigation(lowerStep)) {
+            return ActionType.NAVIGATE;
         }
         
         // PRIORITY 1.5: Explicit HOVER verbs (prevents "over" from being treated as spatial modifier)
         // Must come before other patterns to handle "hover over...", "hover on..." correctly
         if (lowerStep.contains("hover")) {
             // "hover over", "hover on", "mouse over", etc.
-            if (lowerStep.matches(".*\\bhover\\s+(over|on)\\b.*") || 
-                lowerStep.matches(".*\\bmouse[-\\s]?over\\b.*")) {
+            if (hasHoverOver(lowerStep) || hasMouseOver(lowerStep)) {
                 return ActionType.HOVER;
             }
             // Simple "hover [element]"
@@ -362,7 +444,9 @@ public class IntentAnalyzer {
         // PRIORITY 3: Special handling for 'remove' verb (context-sensitive)
         if (lowerStep.contains("remove")) {
             // "remove 'X' from Y" → SELECT (deselect from multiselect/autocomplete)
-            if (lowerStep.matches(".*remove.*from.*")) {
+            // Same as matches(".*remove.*from.*"): ".*" does not run across line terminators
+            if (lowerStep.indexOf("from", lowerStep.indexOf("remove") + "remove".length()) >= 0
+                    && !StepText.hasLineTerminator(lowerStep, 0)) {
                 return ActionType.SELECT;
             }
         }
@@ -406,21 +490,11 @@ public class IntentAnalyzer {
         }
         
         // PRIORITY 6: Check for other action verbs (LinkedHashMap maintains insertion order)
-        // Longer verbs are checked first for specificity
-        for (Map.Entry<String, ActionType> entry : ACTION_VERBS.entrySet()) {
-            String verb = entry.getKey();
-            
-            // Skip navigation verbs (already handled above)
-            if (Arrays.asList(navigationVerbs).contains(verb)) {
-                continue;
-            }
-            
-            // Match verb at start or with word boundaries
-            if (lowerStep.startsWith(verb + " ") || 
-                lowerStep.contains(" " + verb + " ") ||
-                lowerStep.endsWith(" " + verb)) {
-                return entry.getValue();
-            }
+        // The earliest registered verb found at start or with word boundaries wins;
+        // navigation verbs are left out (already handled above)
+        int verb = STEP_VERB_TRIE.lowestIn(lowerStep, SPACED);
+        if (verb >= 0) {
+            return ACTION_VERBS.get(STEP_VERB_TRIE.phrase(verb));
         }
         
         // Default to CLICK for unknown
@@ -428,6 +502,78 @@ public class IntentAnalyzer {
         return ActionType.CLICK;
     }
     
+    /**
+     * Navigation verb followed by more text, at the start ("navigate to...") or
+     * after a pronoun ("I navigate to...", "user navigate to...", etc.)
+     */
+    private boolean isNavigation(String lowerStep) {
+        if (NAVIGATION_TRIE.matchAt(lowerStep, 0, SPACE_AFTER) >= 0) {
+            return true;
+        }
+        // The pronoun form was a full-step match: ".*" around it stops at line terminators
+        if (StepText.hasLineTerminator(lowerStep, 0)) {
+            return false;
+        }
+        for (int start = 0; start < lowerStep.length(); start++) {
+            if (start > 0 && lowerStep.charAt(start - 1) != ' ') {
+                continue;
+            }
+            int pronoun = PRONOUN_TRIE.matchAt(lowerStep, start, SPACE_AFTER);
+            if (pronoun >= 0) {
+                int verbStart = start + PRONOUN_TRIE.phrase(pronoun).length() + 1;
+                if (NAVIGATION_TRIE.matchAt(lowerStep, verbStart, SPACE_AFTER) >= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Same as lowerStep.matches(".*\\bhover\\s+(over|on)\\b.*")
+     */
+    private boolean hasHoverOver(String lowerStep) {
+        if (StepText.hasLineTerminator(lowerStep, 0)) {
+            return false;
+        }
+        for (int at = lowerStep.indexOf("hover"); at >= 0; at = lowerStep.indexOf("hover", at + 1)) {
+            int next = at + "hover".length();
+            if (!StepText.isWordBoundary(lowerStep, at) || next >= lowerStep.length() || !StepText.isWhitespace(lowerStep.charAt(next))) {
+                continue;
+            }
+            while (next < lowerStep.length() && StepText.isWhitespace(lowerStep.charAt(next))) {
+                next++;
+            }
+            if (isWordAt(lowerStep, next, "over") || isWordAt(lowerStep, next, "on")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Same as lowerStep.matches(".*\\bmouse[-\\s]?over\\b.*")
+     */
+    private boolean hasMouseOver(String lowerStep) {
+        if (StepText.hasLineTerminator(lowerStep, 0)) {
+            return false;
+        }
+        for (int at = lowerStep.indexOf("mouse"); at >= 0; at = lowerStep.indexOf("mouse", at + 1)) {
+            if (!StepText.isWordBoundary(lowerStep, at)) {
+                continue;
+            }
+            int next = at + "mouse".length();
+            if (isWordAt(lowerStep, next, "over")) {
+                return true;
+            }
+            if (next < lowerStep.length() && (lowerStep.charAt(next) == '-' || StepText.isWhitespace(lowerStep.charAt(next)))
+                    && isWordAt(lowerStep, next + 1, "over")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     private String extractTarget(String step, ActionType actionType) {
         return extractTarget(step, actionType, new ArrayList<>());
     }
@@ -441,18 +587,17 @@ public class IntentAnalyzer {
         // Find and remove ONLY the primary action verb that was identified
         String primaryVerb = findPrimaryActionVerb(step);
         if (primaryVerb != null) {
-            target = target.replaceFirst("(?i)\\b" + primaryVerb + "\\b", "").trim();
+            target = StepText.removeFirstWord(target, primaryVerb).trim();
         }
         
         // For FILL/SELECT/CLICK, identifying the target name
         if (actionType != ActionType.UNKNOWN) {
             // Remove Gherkin keywords
-            target = target.replaceAll("(?i)^(Given|When|Then|And|But|User|I)\\s+", "").trim();
+            target = LEADING_KEYWORD_OR_SUBJECT.matcher(target).replaceAll("").trim();
             
             // Preposition Pivot: Find the last preposition that likely separates values/verbs from the target
             // e.g. "Select 'A' and 'B' FROM 'Dropdown'" or "Set value TO 'X'"
-            Pattern pivotPattern = Pattern.compile("(?i)(.*)\\b(from|in|into|of|for|within|on|to|at)\\b\\s+(.+)$");
-            Matcher pivotMatcher = pivotPattern.matcher(target);
+            Matcher pivotMatcher = PREPOSITION_PIVOT.matcher(target);
             
             if (pivotMatcher.find()) {
                 String contextPart = pivotMatcher.group(1);
@@ -477,10 +622,10 @@ public class IntentAnalyzer {
                 }
                 
                 // Clean up any left-over values that were quoted in the target
-                target = target.replaceAll("[\"'][^\"']+[\"']", " ");
+                target = StepText.replaceQuoted(target, " ");
             } else {
                 // If no preposition, remove action verbs and then all but the last quoted string
-                target = target.replaceAll("(?i)\\b(set|select|choose|click|fill|verify|check|type|enter|go to|open)\\b", " ");
+                target = TARGET_ACTION_WORDS.matcher(target).replaceAll(" ");
                 List<String> quoted = extractAllValues(target);
                 if (quoted.size() >= 1) {
                     for (int i = 0; i < quoted.size(); i++) {
@@ -488,58 +633,57 @@ public class IntentAnalyzer {
                         if (target.trim().endsWith("\"" + q + "\"") || target.trim().endsWith("'" + q + "'")) {
                              continue;
                         }
-                        target = target.replaceFirst("[\"']" + Pattern.quote(q) + "[\"']", " ");
+                        target = StepText.replaceFirstQuoted(target, q, " ");
                     }
                 }
             }
             
             // Final cleanup
-            target = target.replaceAll("(?i)\\b(the|a|an|and|also)\\b", " ");
-            target = target.replaceAll("[\"']", " ").replaceAll("\\s+", " ").trim();
+            target = ARTICLES.matcher(target).replaceAll(" ");
+            target = StepText.normalizeWhitespace(target.replace('"', ' ').replace('\'', ' '));
         } else {
             // For unknown actions, just strip quotes but keep the text
-            target = target.replaceAll("[\"']([^\"']+)[\"']", "$1").trim();
+            target = StepText.unquote(target).trim();
         }
         
         // Remove trailing "as" keyword (for "Enter First Name as 'value'" syntax)
-        target = target.replaceAll("(?i)\\s+as\\s*$", "").trim();
+        target = TRAILING_AS.matcher(target).replaceAll("").trim();
         // Also remove "as" + everything after it (handles "First Name as Doe" after value extraction)
-        target = target.replaceAll("(?i)\\s+as\\s+.*$", "").trim();
+        target = AS_SUFFIX.matcher(target).replaceAll("").trim();
         
         // Remove container phrases (e.g., "in the left menu", "on the sidebar")
-        target = target.replaceAll("(?i)\\b(in|on|within|inside)\\s+(?:the\\s+)?(left\\s+menu|right\\s+menu|sidebar|navbar|header|footer|menu|top\\s+bar|toolbar|main\\s+content)\\b", "").trim();
+        target = CONTAINER_PHRASE.matcher(target).replaceAll("").trim();
         
         // Remove common element type suffixes (e.g., "Elements card" -> "Elements", "Submit button" -> "Submit")
-        target = target.replaceAll("(?i)\\s+\\b(button|link|card|field|input|checkbox|radio|dropdown|select|tab|menu|sidebar|navbar|header|footer|icon|image|svg|box|panel|item|link)\\b$", "").trim();
+        target = ELEMENT_TYPE_SUFFIX.matcher(target).replaceAll("").trim();
         
         // Normalize whitespace (reduce multiple spaces to single space)
-        target = target.replaceAll("\\s+", " ").trim();
+        target = StepText.normalizeWhitespace(target);
         
         // For FILL/DATE_SET/VERIFY actions, extract text after "in"/"into"/"for" BEFORE removing pronouns
         // This is critical because pronouns may appear before "in" (e.g., "I in full name")
         if (actionType == ActionType.FILL || actionType == ActionType.DATE_SET || actionType == ActionType.VERIFY) {
             // Pattern: optional_prefix + (in|into|for|of|on) + field_name
             // Made first group optional with (.+?)? to handle cases like "in Mobile Number" (no prefix)
-            Pattern inPattern = Pattern.compile("(?i)(.+?)?\\s*(in|into|for|of|on|within)\\s+(.+)$");
-            Matcher matcher = inPattern.matcher(target);
+            Matcher matcher = PREPOSITION_TARGET.matcher(target);
             if (matcher.find()) {
                 target = matcher.group(3);  // Get text after the preposition
             } else {
                 // If no "in/into" pattern, try to remove pronouns at the start
-                target = target.replaceAll("(?i)^(I|user|we|you|he|she|they|it|this|that)\\s+", "");
+                target = LEADING_PRONOUN.matcher(target).replaceAll("");
             }
         } else {
             // For other actions, remove pronouns normally
-            target = target.replaceAll("(?i)^(I|user|we|you|he|she|they|it|this|that)\\s+", "");
+            target = LEADING_PRONOUN.matcher(target).replaceAll("");
         }
         
         // Remove common noise words (at start, middle, or end)
-        target = target.replaceAll("(?i)^(the|a|an|on|at|to|from|is|are|be|has|have|my|your|our|their)\\s+", "");  // At start
-        target = target.replaceAll("(?i)\\s+(the|a|an|on|at|to|from|is|are|be|has|have)\\s+", " ");  // In middle
-        target = target.replaceAll("(?i)\\s+(the|a|an|on|at|to|from|is|are|be|has|have)$", "");  // At end
+        target = LEADING_NOISE.matcher(target).replaceAll("");  // At start
+        target = INNER_NOISE.matcher(target).replaceAll(" ");  // In middle
+        target = TRAILING_NOISE.matcher(target).replaceAll("");  // At end
         
         // Remove trailing prepositions
-        target = target.replaceAll("(?i)\\s+(with|for|by)\\s*$", "");
+        target = TRAILING_PREPOSITION.matcher(target).replaceAll("");
         
         return target.trim();
     }
@@ -548,18 +692,9 @@ public class IntentAnalyzer {
      * Find the primary action verb in the step (the one that determines the action type)
      */
     private String findPrimaryActionVerb(String step) {
-        String lowerStep = step.toLowerCase();
-        
-        // Check for each action verb in order of appearance
-        for (Map.Entry<String, ActionType> entry : ACTION_VERBS.entrySet()) {
-            String verb = entry.getKey();
-            // Look for verb as a whole word
-            if (lowerStep.matches(".*\\b" + verb + "\\b.*")) {
-                return verb;
-            }
-        }
-        
-        return null;
+        // Earliest registered verb found as a whole word
+        int verb = VERB_TRIE.lowestIn(step.toLowerCase(), WHOLE_WORD);
+        return verb < 0 ? null : VERB_TRIE.phrase(verb);
     }
     
     /**
@@ -574,94 +709,156 @@ public class IntentAnalyzer {
      * Extract all values from quoted strings
      */
     private List<String> extractAllValues(String step) {
-        List<String> results = new ArrayList<>();
-        Pattern pattern = Pattern.compile("[\"']([^\"']+)[\"']");
-        Matcher matcher = pattern.matcher(step);
-        
-        while (matcher.find()) {
-            results.add(matcher.group(1));
-        }
-        
-        return results;
+        return StepText.allQuoted(step);
     }
     
     /**
-     * Extract modifiers (spatial, visual, ordinal)
+     * Extract modifiers (spatial, visual, ordinal) from the whitespace-normalized step.
+     * Each one is the leftmost occurrence of its vocabulary, written as in the step
      */
     private Map<String, String> extractModifiers(String step) {
         Map<String, String> modifiers = new HashMap<>();
         
         // Container/Scope (e.g., "in the sidebar", "on the left menu")
-        Pattern containerPattern = Pattern.compile("(?i)\\b(in|on|within|inside)\\s+(?:the\\s+)?(left\\s+menu|right\\s+menu|sidebar|navbar|header|footer|menu|top\\s+bar|toolbar|main\\s+content)\\b");
-        Matcher containerMatcher = containerPattern.matcher(step);
-        if (containerMatcher.find()) {
-            modifiers.put("container", containerMatcher.group(2).toLowerCase());
+        String container = findContainer(step);
+        if (container != null) {
+            modifiers.put("container", container);
         }
         
-        // Spatial relationships
-        Pattern spatialPattern = Pattern.compile("(?i)(next to|below|above|inside|near|beside|under|over)\\s+(.+?)(?:\\s|$)");
-        Matcher spatialMatcher = spatialPattern.matcher(step);
-        if (spatialMatcher.find()) {
-            modifiers.put("spatial_relation", spatialMatcher.group(1));
-            modifiers.put("spatial_reference", spatialMatcher.group(2));
+        // Spatial relationships: the relation word (anywhere, even inside "hover")
+        // and the text after it up to the next whitespace
+        int spatial = SPATIAL_TRIE.firstStart(step, SPATIAL_OCCURRENCE);
+        if (spatial >= 0) {
+            int relationEnd = spatial + SPATIAL_TRIE.phrase(SPATIAL_TRIE.matchAt(step, spatial, SPATIAL_OCCURRENCE)).length();
+            int referenceStart = relationEnd;
+            while (StepText.isWhitespace(step.charAt(referenceStart))) {
+                referenceStart++;
+            }
+            modifiers.put("spatial_relation", step.substring(spatial, relationEnd));
+            modifiers.put("spatial_reference", step.substring(referenceStart, spatialReferenceEnd(step, relationEnd)));
         }
         
-        // Visual attributes
-        Pattern colorPattern = Pattern.compile("(?i)(red|blue|green|yellow|orange|purple|black|white|gray|grey)\\s");
-        Matcher colorMatcher = colorPattern.matcher(step);
-        if (colorMatcher.find()) {
-            modifiers.put("color", colorMatcher.group(1));
+        // Visual attributes: the word followed by whitespace, anywhere
+        String color = leftmost(COLOR_TRIE, step);
+        if (color != null) {
+            modifiers.put("color", color);
         }
         
-        Pattern sizePattern = Pattern.compile("(?i)(large|small|big|tiny|huge)\\s");
-        Matcher sizeMatcher = sizePattern.matcher(step);
-        if (sizeMatcher.find()) {
-            modifiers.put("size", sizeMatcher.group(1));
+        String size = leftmost(SIZE_TRIE, step);
+        if (size != null) {
+            modifiers.put("size", size);
         }
         
         // Ordinal positions
-        Pattern ordinalPattern = Pattern.compile("(?i)(first|second|third|fourth|fifth|last|1st|2nd|3rd|\\d+th)\\s");
-        Matcher ordinalMatcher = ordinalPattern.matcher(step);
-        if (ordinalMatcher.find()) {
-            modifiers.put("position", ordinalMatcher.group(1));
+        String position = findOrdinal(step);
+        if (position != null) {
+            modifiers.put("position", position);
         }
         
         return modifiers;
     }
     
     /**
-     * Extract element type hints
+     * Container after "in/on/within/inside [the]", lower-cased.
+     * Same as group 2 of the first CONTAINER_PHRASE find() on a normalized step
      */
-    private String extractElementType(String step) {
-        String lowerStep = step.toLowerCase();
-        
-        // Check for explicit type mentions (ordered by specificity)
-        String[] types = {
-            // Form elements
-            "button", "link", "field", "input", "checkbox", "radio", 
-            "dropdown", "select", "textarea", "label", "image", "icon",
-            
-            // Interactive elements (NEW for 122 verbs)
-            "toggle", "switch", "slider", "accordion", "tooltip",
-            
-            // Layout elements
-            "menu", "tab", "modal", "dialog", "popup", "form",
-            "sidebar", "navbar", "footer", "header", "panel",
-            
-            // Modern UI components
-            "chip", "badge", "card", "breadcrumb", "notification",
-            "alert", "banner", "carousel", "spinner"
-        };
-        
-        for (String type : types) {
-            if (lowerStep.contains(type)) {
-                return type;
+    private String findContainer(String step) {
+        for (int start = 0; start < step.length(); start++) {
+            int preposition = CONTAINER_PREPOSITION_TRIE.matchAt(step, start, WORD_THEN_WHITESPACE);
+            if (preposition < 0) {
+                continue;
+            }
+            int next = start + CONTAINER_PREPOSITION_TRIE.phrase(preposition).length() + 1;
+            if (StepText.startsWithIgnoreCase(step, next, "the ")) {
+                int container = CONTAINER_TRIE.matchAt(step, next + 4, WHOLE_WORD);
+                if (container >= 0) {
+                    return step.substring(next + 4, next + 4 + CONTAINER_TRIE.phrase(container).length()).toLowerCase();
+                }
+            }
+            int container = CONTAINER_TRIE.matchAt(step, next, WHOLE_WORD);
+            if (container >= 0) {
+                return step.substring(next, next + CONTAINER_TRIE.phrase(container).length()).toLowerCase();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Leftmost ordinal followed by whitespace: a word of ORDINALS or a number ending in "th".
+     * Same as group 1 of (?i)(first|...|3rd|\\d+th)\\s find()
+     */
+    private String findOrdinal(String step) {
+        for (int start = 0; start < step.length(); start++) {
+            int ordinal = ORDINAL_TRIE.matchAt(step, start, WHITESPACE_AFTER);
+            if (ordinal >= 0) {
+                return step.substring(start, start + ORDINAL_TRIE.phrase(ordinal).length());
+            }
+            int end = start;
+            while (end < step.length() && step.charAt(end) >= '0' && step.charAt(end) <= '9') {
+                end++;
+            }
+            if (end > start && StepText.startsWithIgnoreCase(step, end, "th")
+                    && WHITESPACE_AFTER.accept(step, start, end + 2)) {
+                return step.substring(start, end + 2);
             }
         }
-        
         return null;
     }
     
+    /**
+     * Leftmost phrase of the trie followed by whitespace, as written in the step
+     */
+    private static String leftmost(PhraseTrie trie, String step) {
+        int start = trie.firstStart(step, WHITESPACE_AFTER);
+        if (start < 0) {
+            return null;
+        }
+        return step.substring(start, start + trie.phrase(trie.matchAt(step, start, WHITESPACE_AFTER)).length());
+    }
+    
+    /**
+     * End of the spatial reference after a relation word ending at relationEnd:
+     * whitespace, then the shortest non-empty text up to the next whitespace or
+     * the end, as \\s+(.+?)(?:\\s|$) on a trimmed step; -1 if there is none
+     */
+    private static int spatialReferenceEnd(String text, int relationEnd) {
+        if (relationEnd >= text.length() || !StepText.isWhitespace(text.charAt(relationEnd))) {
+            return -1;
+        }
+        int start = relationEnd;
+        while (start < text.length() && StepText.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        for (int end = start; end < text.length(); end++) {
+            char c = text.charAt(end);
+            if (StepText.isWhitespace(c)) {
+                return end;
+            }
+            // "." stops at the line terminators that are not whitespace, "$" also
+            // matches before one that ends the text
+            if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return end > start && end == text.length() - 1 ? end : -1;
+            }
+        }
+        return start < text.length() ? text.length() : -1;
+    }
+    
+    /**
+     * Whether the text has the word at pos with a word boundary after it
+     */
+    private static boolean isWordAt(String text, int pos, String word) {
+        return text.startsWith(word, pos) && StepText.isWordBoundary(text, pos + word.length());
+    }
+    
+    /**
+     * Extract element type hints
+     */
+    private String extractElementType(String step) {
+        // First type in list order mentioned anywhere in the step
+        int type = ELEMENT_TYPE_TRIE.lowestIn(step.toLowerCase(), PhraseTrie.ANYWHERE);
+        return type < 0 ? null : ELEMENT_TYPE_TRIE.phrase(type);
+    }
+    
     /**
      * Check if a text looks like a date or relative date keyword
      */
@@ -673,25 +870,21 @@ public class IntentAnalyzer {
         
         // Exclude phone numbers (10 digits, common in many countries)
         // Phone numbers like "9876543210" should NOT be treated as dates
-        if (text.matches("^\\d{10}$")) return false;
+        if (PHONE_NUMBER.matcher(text).matches()) return false;
         
         // Matches numeric offsets like "+30 days", "5 days from today" (NOT just numbers alone)
-        if (lower.matches("^[+-]?\\d{1,3}\\s+days?(\\s+from\\s+today)?$")) return true;
+        if (DAY_OFFSET.matcher(lower).matches()) return true;
         
         // Pure numbers alone should NOT be treated as dates (they are values/slider positions/offsets)
-        if (lower.matches("^[+-]?\\d+$")) return false;
+        if (PLAIN_NUMBER.matcher(lower).matches()) return false;
         
         // Matches common date formats (simplistic check)
         // MM/DD/YYYY, YYYY-MM-DD, Month Day Year
-        if (lower.matches("^\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4}$")) return true;
-        if (lower.matches("^\\d{4}[/-]\\d{1,2}[/-]\\d{1,2}$")) return true;
-        
-        String[] months = {
-            "january", "february", "march", "april", "may", "june", "july", "august", "september", "october", "november", "december",
-            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
-        };
-        for (String month : months) {
-            if (lower.matches(".*\\b" + month + "\\b.*")) return true;
+        if (NUMERIC_DATE.matcher(lower).matches()) return true;
+        if (ISO_DATE.matcher(lower).matches()) return true;
+        
+        for (String month : MONTHS) {
+            if (StepText.containsWord(lower, month)) return true;
         }
         
         return false;
@@ -6,6 +6,7 @@ import com.microsoft.playwright.Locator;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * Learning system that tracks successful matches and improves scoring over time.
@@ -31,6 +32,7 @@ public class MatchingHistory {
     private static final String HISTORY_FILE = "config/matching_history.dat";
     private static final int MAX_HISTORY_SIZE = 1000;
     private static final double LEARNING_RATE = 0.1;  // How quickly to adapt
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
     
     private MatchingHistory() {
         this.successfulMatches = new ConcurrentHashMap<>();
@@ -205,7 +207,7 @@ public class MatchingHistory {
      * Generate unique key for match
      */
     private String generateKey(String step, String element) {
-        return (step + "|" + element).toLowerCase().replaceAll("\\s+", "_");
+        return WHITESPACE.matcher((step + "|" + element).toLowerCase()).replaceAll("_");
     }
     
     /**
@@ -0,0 +1,126 @@
+package agent.intelligence;
+
+import java.util.Arrays;
+
+/**
+ * Prefix trie over a fixed list of phrases, used to find which of them occur in
+ * a step with a single walk per position instead of one scan per phrase.
+ *
+ * A phrase is known by its index in the list. When several phrases answer a
+ * lookup the lowest index wins, so the list order keeps the priority the phrases
+ * had when they were tried one after another. With ignoreCase only ASCII letters
+ * are folded, as (?i) does.
+ */
+final class PhraseTrie {
+
+    /**
+     * Decides whether an occurrence of a phrase at [start, end) of the text counts
+     */
+    interface Occurrence {
+        boolean accept(String text, int start, int end);
+    }
+
+    /** Plain substring occurrence, as String.contains */
+    static final Occurrence ANYWHERE = (text, start, end) -> true;
+
+    private final String[] phrases;
+    private final boolean ignoreCase;
+    private final Node root = new Node();
+
+    PhraseTrie(boolean ignoreCase, String... phrases) {
+        this.phrases = phrases.clone();
+        this.ignoreCase = ignoreCase;
+        for (int i = 0; i < phrases.length; i++) {
+            Node node = root;
+            for (int c = 0; c < phrases[i].length(); c++) {
+                node = node.childOrCreate(fold(phrases[i].charAt(c)));
+            }
+            // A duplicate keeps its first (highest priority) index
+            if (node.phrase < 0) {
+                node.phrase = i;
+            }
+        }
+    }
+
+    String phrase(int index) {
+        return phrases[index];
+    }
+
+    /**
+     * Lowest index of a phrase written at start whose occurrence is accepted, or -1
+     */
+    int matchAt(String text, int start, Occurrence occurrence) {
+        int best = -1;
+        Node node = root;
+        for (int pos = start; pos < text.length(); pos++) {
+            node = node.child(fold(text.charAt(pos)));
+            if (node == null) {
+                break;
+            }
+            if (node.phrase >= 0 && (best < 0 || node.phrase < best) && occurrence.accept(text, start, pos + 1)) {
+                best = node.phrase;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lowest index of a phrase with an accepted occurrence anywhere in the text,
+     * or -1. Same as trying the phrases in list order and keeping the first found.
+     */
+    int lowestIn(String text, Occurrence occurrence) {
+        int best = -1;
+        for (int start = 0; start < text.length() && best != 0; start++) {
+            int found = matchAt(text, start, occurrence);
+            if (found >= 0 && (best < 0 || found < best)) {
+                best = found;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Start of the leftmost accepted occurrence of any phrase, or -1. Same as
+     * the start of find() with the phrases as one alternation.
+     */
+    int firstStart(String text, Occurrence occurrence) {
+        for (int start = 0; start < text.length(); start++) {
+            if (matchAt(text, start, occurrence) >= 0) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    private char fold(char c) {
+        return ignoreCase && c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int phrase = -1;
+
+        Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            Node created = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = created;
+            return created;
+        }
+    }
+}
@@ -1,252 +1,94 @@
 package agent.intelligence;
 
+import agent.planner.PatternRegistry;
 import agent.utils.LoggerUtil;
+import agent.utils.StepText;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Provides intelligent suggestions for rewriting unsupported steps
  * to match framework patterns.
  * 
  * Like "Did you mean...?" for test steps!
+ * 
+ * Suggestions are the nearest known phrasings in a shared n-gram index
+ * (StepSuggestionIndex), built once from the PatternRegistry examples and
+ * grown with every step reported as supported via recordSupportedStep.
+ * The step's keyword is carried over into each one, and so are its quoted
+ * values wherever a value plays the same part as the phrasing's.
  */
 public class StepSuggestionEngine {
     
     private static final LoggerUtil logger = LoggerUtil.getLogger(StepSuggestionEngine.class);
     
+    private static final int MAX_SUGGESTIONS = 5;
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final String SEEN_STEP = "supported step";
+    
     /**
-     * Generate suggestions for how to rewrite a step to match framework patterns
-     * 
-     * @param originalStep The step that doesn't match any pattern
-     * @return List of suggested alternative phrasings (sorted by confidence)
+     * Index shared by every engine, built on first use.
+     * Its size can be capped via -DsuggestionIndexSize
      */
-    public List<StepSuggestion> generateSuggestions(String originalStep) {
-        List<StepSuggestion> suggestions = new ArrayList<>();
-        
-        if (originalStep == null || originalStep.trim().isEmpty()) {
-            return suggestions;
-        }
-        
-        String step = originalStep.toLowerCase().trim();
-        
-        // Detect what the user is trying to do
-        if (detectClickIntent(step)) {
-            suggestions.addAll(generateClickSuggestions(originalStep, step));
-        }
-        
-        if (detectFillIntent(step)) {
-            suggestions.addAll(generateFillSuggestions(originalStep, step));
-        }
-        
-        if (detectSelectIntent(step)) {
-            suggestions.addAll(generateSelectSuggestions(originalStep, step));
-        }
-        
-        if (detectNavigateIntent(step)) {
-            suggestions.addAll(generateNavigateSuggestions(originalStep, step));
-        }
-        
-        if (detectVerifyIntent(step)) {
-            suggestions.addAll(generateVerifySuggestions(originalStep, step));
-        }
-        
-        // Sort by confidence (highest first)
-        suggestions.sort((a, b) -> Double.compare(b.getConfidence(), a.getConfidence()));
-        
-        // Return top 5
-        return suggestions.subList(0, Math.min(5, suggestions.size()));
-    }
-    
-    // ==========================================
-    // INTENT DETECTION
-    // ==========================================
-    
-    private boolean detectClickIntent(String step) {
-        return step.matches(".*(click|press|tap|hit|push|select).*") ||
-               step.matches(".*(button|link|menu|item).*");
-    }
-    
-    private boolean detectFillIntent(String step) {
-        return step.matches(".*(enter|type|fill|input|set|write).*") ||
-               step.matches(".*(field|textbox|input|box).*");
-    }
-    
-    private boolean detectSelectIntent(String step) {
-        return step.matches(".*(select|choose|pick|dropdown|option).*");
-    }
-    
-    private boolean detectNavigateIntent(String step) {
-        return step.matches(".*(navigate|go to|open|visit|load).*") ||
-               step.matches(".*(url|page|website|site).*");
-    }
-    
-    private boolean detectVerifyIntent(String step) {
-        return step.matches(".*(verify|check|assert|validate|see|should|expect).*");
-    }
-    
-    // ==========================================
-    // CLICK SUGGESTIONS
-    // ==========================================
-    
-    private List<StepSuggestion> generateClickSuggestions(String original, String normalized) {
-        List<StepSuggestion> suggestions = new ArrayList<>();
-        
-        // Extract element name from various patterns
-        String elementName = extractElementName(normalized, 
-            "click on (the )?(.+)",
-            "press (the )?(.+)",
-            "tap (the )?(.+)",
-            "click (.+) button",
-            "click (.+) link"
-        );
-        
-        if (elementName != null) {
-            suggestions.add(new StepSuggestion(
-                String.format("When I click %s", capitalize(elementName)),
-                "Standard click pattern",
-                0.95
-            ));
-            
-            suggestions.add(new StepSuggestion(
-                String.format("And I click %s button", capitalize(elementName)),
-                "Click button pattern",
-                0.90
-            ));
-            
-            suggestions.add(new StepSuggestion(
-                String.format("Then I click on %s", capitalize(elementName)),
-                "Alternative click pattern",
-                0.85
-            ));
+    private static final class SharedIndex {
+        private static final StepSuggestionIndex INDEX = buildIndex();
+        
+        private static StepSuggestionIndex buildIndex() {
+            StepSuggestionIndex index = new StepSuggestionIndex(Integer.getInteger("suggestionIndexSize", 10000));
+            for (Map.Entry<String, List<String>> examples : PatternRegistry.getExampleSteps().entrySet()) {
+                for (String example : examples.getValue()) {
+                    index.add(example, examples.getKey());
+                }
+            }
+            logger.debug("Suggestion index built with {} example phrasings", index.size());
+            return index;
         }
-        
-        return suggestions;
     }
     
-    // ==========================================
-    // FILL SUGGESTIONS
-    // ==========================================
-    
-    private List<StepSuggestion> generateFillSuggestions(String original, String normalized) {
-        List<StepSuggestion> suggestions = new ArrayList<>();
-        
-        // Try to extract value and field name
-        Pattern pattern = Pattern.compile("(enter|type|fill|input).+['\"](.+?)['\"].+(in|into|to|for).+(the )?(.+)", 
-            Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(original);
-        
-        if (matcher.find()) {
-            String value = matcher.group(2);
-            String fieldName = matcher.group(5).trim();
-            
-            suggestions.add(new StepSuggestion(
-                String.format("When I enter \"%s\" in %s", value, capitalize(fieldName)),
-                "Standard fill pattern (recommended)",
-                0.95
-            ));
-            
-            suggestions.add(new StepSuggestion(
-                String.format("And I type \"%s\" in %s", value, capitalize(fieldName)),
-                "Alternative fill pattern",
-                0.90
-            ));
-            
-            suggestions.add(new StepSuggestion(
-                String.format("When I fill %s with \"%s\"", capitalize(fieldName), value),
-                "Inverted fill pattern",
-                0.85
-            ));
-        }
-        
-        return suggestions;
+    /**
+     * Shared index the suggestions are looked up in
+     */
+    public static StepSuggestionIndex getIndex() {
+        return SharedIndex.INDEX;
     }
     
-    // ==========================================
-    // SELECT SUGGESTIONS
-    // ==========================================
-    
-    private List<StepSuggestion> generateSelectSuggestions(String original, String normalized) {
-        List<StepSuggestion> suggestions = new ArrayList<>();
-        
-        Pattern pattern = Pattern.compile("(select|choose|pick).+['\"](.+?)['\"].+(from|in).+(the )?(.+)", 
-            Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(original);
-        
-        if (matcher.find()) {
-            String option = matcher.group(2);
-            String dropdown = matcher.group(5).trim();
-            
-            suggestions.add(new StepSuggestion(
-                String.format("When I select \"%s\" in %s", option, capitalize(dropdown)),
-                "Standard select pattern (recommended)",
-                0.95
-            ));
-            
-            suggestions.add(new StepSuggestion(
-                String.format("And I choose \"%s\" from %s", option, capitalize(dropdown)),
-                "Alternative select pattern",
-                0.90
-            ));
-        }
-        
-        return suggestions;
+    /**
+     * Remember a step the framework supports, so later lookups can suggest it
+     */
+    public static void recordSupportedStep(String step) {
+        SharedIndex.INDEX.add(step, SEEN_STEP);
     }
     
-    // ==========================================
-    // NAVIGATE SUGGESTIONS
-    // ==========================================
-    
-    private List<StepSuggestion> generateNavigateSuggestions(String original, String normalized) {
+    /**
+     * Generate suggestions for how to rewrite a step to match framework patterns
+     * 
+     * @param originalStep The step that doesn't match any pattern
+     * @return List of suggested alternative phrasings (sorted by confidence)
+     */
+    public List<StepSuggestion> generateSuggestions(String originalStep) {
         List<StepSuggestion> suggestions = new ArrayList<>();
         
-        Pattern pattern = Pattern.compile("['\"]?(https?://[^'\"\\s]+)['\"]?", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(original);
-        
-        if (matcher.find()) {
-            String url = matcher.group(1);
-            
-            suggestions.add(new StepSuggestion(
-                String.format("Given I navigate to \"%s\"", url),
-                "Standard navigation pattern (recommended)",
-                0.95
-            ));
-            
-            suggestions.add(new StepSuggestion(
-                String.format("When I open \"%s\"", url),
-                "Alternative navigation pattern",
-                0.90
-            ));
+        if (originalStep == null || originalStep.trim().isEmpty()) {
+            return suggestions;
         }
         
-        return suggestions;
-    }
-    
-    // ==========================================
-    // VERIFY SUGGESTIONS
-    // ==========================================
-    
-    private List<StepSuggestion> generateVerifySuggestions(String original, String normalized) {
-        List<StepSuggestion> suggestions = new ArrayList<>();
-        
-        Pattern pattern = Pattern.compile("(verify|check|see).+['\"](.+?)['\"]", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(original);
+        String step = originalStep.trim();
+        Set<String> suggested = new HashSet<>();
+        suggested.add(step);
         
-        if (matcher.find()) {
-            String expectedText = matcher.group(2);
-            
-            suggestions.add(new StepSuggestion(
-                String.format("Then I should see \"%s\"", expectedText),
-                "Standard verification pattern (recommended)",
-                0.95
-            ));
-            
-            suggestions.add(new StepSuggestion(
-                String.format("And verify \"%s\" is displayed", expectedText),
-                "Alternative verification pattern",
-                0.90
-            ));
+        // Over-fetch: several neighbours can render to the same suggestion
+        for (StepSuggestionIndex.Match match : SharedIndex.INDEX.query(step, MAX_SUGGESTIONS * 2, MIN_SIMILARITY)) {
+            String rewrite = adapt(match.getPhrasing(), step);
+            if (!suggested.add(rewrite)) {
+                continue;
+            }
+            String reason = SEEN_STEP.equals(match.getLabel())
+                ? "Similar to a supported step"
+                : "Similar to " + match.getLabel() + " pattern";
+            suggestions.add(new StepSuggestion(rewrite, reason, match.getScore()));
+            if (suggestions.size() == MAX_SUGGESTIONS) {
+                break;
+            }
         }
         
         return suggestions;
@@ -256,40 +98,57 @@ public class StepSuggestionEngine {
     // HELPERS
     // ==========================================
     
-    private String extractElementName(String step, String... patterns) {
-        for (String patternStr : patterns) {
-            Pattern p = Pattern.compile(patternStr);
-            Matcher m = p.matcher(step);
-            if (m.find()) {
-                // Return the last captured group (element name)
-                int groupCount = m.groupCount();
-                if (groupCount > 0) {
-                    String name = m.group(groupCount);
-                    return name.replaceAll("(the |a |an )", "").trim();
-                }
+    /**
+     * The known phrasing rewritten with the step's keyword and, slot by slot,
+     * its quoted values. A value only replaces the phrasing's quoted text when
+     * both play the same part: both follow the action, or the same word ("as",
+     * "in", "with"...). Other slots keep the phrasing's own placeholder.
+     */
+    private String adapt(String phrasing, String step) {
+        String rewrite = phrasing;
+        String keyword = StepText.keyword(step);
+        String phrasingKeyword = StepText.keyword(phrasing);
+        if (keyword != null) {
+            rewrite = keyword + " " + StepText.stripKeyword(rewrite);
+        } else if (phrasingKeyword != null) {
+            rewrite = StepText.stripKeyword(rewrite);
+        }
+        
+        List<int[]> values = StepText.quotedSpans(step);
+        List<int[]> slots = StepText.quotedSpans(rewrite);
+        StringBuilder adapted = new StringBuilder();
+        int copied = 0;
+        for (int i = 0; i < slots.size() && i < values.size(); i++) {
+            int[] slot = slots.get(i);
+            int[] value = values.get(i);
+            if (!role(rewrite, slot[0]).equals(role(step, value[0]))) {
+                continue;
             }
+            adapted.append(rewrite, copied, slot[0]).append(step, value[0], value[1]);
+            copied = slot[1];
         }
-        return null;
+        return adapted.append(rewrite, copied, rewrite.length()).toString();
     }
     
-    private String capitalize(String text) {
-        if (text == null || text.isEmpty()) {
-            return text;
+    /**
+     * The word before the quoted value starting at start, lower-cased, or
+     * "verb" when that word opens the step (after the keyword and an optional
+     * "I"), so a misspelled action still lines up with the known one
+     */
+    private static String role(String text, int start) {
+        int end = start - 1;
+        while (end > 0 && StepText.isWhitespace(text.charAt(end - 1))) {
+            end--;
         }
-        
-        // Capitalize first letter of each word
-        String[] words = text.split("\\s+");
-        StringBuilder result = new StringBuilder();
-        
-        for (String word : words) {
-            if (word.length() > 0) {
-                result.append(Character.toUpperCase(word.charAt(0)))
-                      .append(word.substring(1).toLowerCase())
-                      .append(" ");
-            }
+        int begin = end;
+        while (begin > 0 && StepText.isWordChar(text.charAt(begin - 1))) {
+            begin--;
         }
-        
-        return result.toString().trim();
+        String before = StepText.stripKeyword(text.substring(0, begin)).trim();
+        if (before.isEmpty() || before.equalsIgnoreCase("I")) {
+            return "verb";
+        }
+        return text.substring(begin, end).toLowerCase(Locale.ROOT);
     }
     
     /**
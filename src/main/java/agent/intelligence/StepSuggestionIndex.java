@@ -0,0 +1,368 @@
+package agent.intelligence;
+
+import agent.utils.StepText;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * N-gram index over known step phrasings for "did you mean" lookups.
+ *
+ * Every phrasing is reduced to a key (keyword stripped, lower-cased, quoted
+ * values masked, whitespace collapsed) and indexed by its character trigrams
+ * and its word unigrams and bigrams. Similarity is a weighted Dice overlap of
+ * both gram sets.
+ *
+ * A query does not score the whole catalog. Reaching a score t needs a Dice of
+ * at least t on one of the two gram sets, and that needs a minimum number of
+ * shared grams, so a match must contain one of the query's rarest grams
+ * (prefix filtering). Grams are walked rarest first and the phrasings posted
+ * under them are scored exactly against their stored gram ids. Once k results
+ * are held, t rises to the k-th score and the prefix shrinks, so the grams
+ * common to most of the catalog are rarely walked.
+ *
+ * Thread-safe: lookups share a read lock, additions take the write lock.
+ */
+public class StepSuggestionIndex {
+
+    // Weight of the character trigram overlap; word grams get the rest
+    private static final double CHAR_WEIGHT = 0.6;
+    private static final String QUOTED_MASK = "\"\"";
+    // Keeps word grams apart from character trigrams in the gram table
+    private static final char WORD_GRAM = '\u0000';
+
+    private final int maxEntries;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> keys = new HashSet<>();
+    private final Map<String, Integer> gramIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+
+    public StepSuggestionIndex(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Index a phrasing under a label (e.g. its action type). Phrasings with the
+     * same key as one already indexed, and anything past maxEntries, are ignored.
+     *
+     * @return true if the phrasing was added
+     */
+    public boolean add(String phrasing, String label) {
+        if (phrasing == null || phrasing.trim().isEmpty()) {
+            return false;
+        }
+        String key = key(phrasing);
+        Set<String> charGrams = charGrams(key);
+        Set<String> wordGrams = wordGrams(key);
+
+        lock.writeLock().lock();
+        try {
+            if (entries.size() >= maxEntries || !keys.add(key)) {
+                return false;
+            }
+            int id = entries.size();
+            entries.add(new Entry(phrasing.trim(), label, post(charGrams, id), post(wordGrams, id)));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The k indexed phrasings most similar to the step, best first, with a
+     * similarity of at least minScore (0.0 to 1.0)
+     */
+    public List<Match> query(String step, int k, double minScore) {
+        List<Match> matches = new ArrayList<>();
+        if (step == null || step.trim().isEmpty() || k <= 0) {
+            return matches;
+        }
+        String key = key(step);
+        Set<String> charGrams = charGrams(key);
+        Set<String> wordGrams = wordGrams(key);
+
+        lock.readLock().lock();
+        try {
+            Query query = new Query(knownIds(charGrams), charGrams.size(), knownIds(wordGrams), wordGrams.size(), k, minScore);
+            // Either gram set may carry the match, so candidates come from both prefixes
+            boolean[] scored = new boolean[entries.size()];
+            scanPrefix(query, query.charIds, query.charGrams, scored);
+            scanPrefix(query, query.wordIds, query.wordGrams, scored);
+            for (int i = 0; i < query.found; i++) {
+                Entry entry = entries.get(query.best[i]);
+                matches.add(new Match(entry.phrasing, entry.label, query.bestScores[i]));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    /**
+     * Score every entry posted under the rarest query grams of one gram set that
+     * an entry must share one of to reach the query's current threshold there.
+     * The threshold rises as the k best fill up, which shortens the prefix.
+     */
+    private void scanPrefix(Query query, int[] ids, int queryGrams, boolean[] scored) {
+        // Rarest first: postings size in the high half, gram id in the low half
+        long[] byRarity = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            byRarity[i] = ((long) postings.get(ids[i]).size << 32) | ids[i];
+        }
+        Arrays.sort(byRarity);
+        // Unknown grams are the rarest of all and have no postings
+        int unknown = queryGrams - ids.length;
+        for (int i = 0; i < byRarity.length && unknown + i < prefixLength(queryGrams, query.threshold()); i++) {
+            Postings gram = postings.get((int) byRarity[i]);
+            for (int p = 0; p < gram.size; p++) {
+                int id = gram.ids[p];
+                if (!scored[id]) {
+                    scored[id] = true;
+                    Entry entry = entries.get(id);
+                    query.offer(id, CHAR_WEIGHT * dice(shared(query.charIds, entry.charIds), query.charGrams, entry.charIds.length)
+                        + (1 - CHAR_WEIGHT) * dice(shared(query.wordIds, entry.wordIds), query.wordGrams, entry.wordIds.length));
+                }
+            }
+        }
+    }
+
+    /**
+     * How many of the rarest of q query grams an entry with a Dice of at least
+     * m must share one of: it shares s >= m * q / (2 - m) of them, since
+     * 2s / (q + e) >= m and e >= s
+     */
+    private static int prefixLength(int queryGrams, double minDice) {
+        int minShared = Math.max(1, (int) Math.ceil(minDice * queryGrams / (2 - minDice) - 1e-9));
+        return queryGrams - minShared + 1;
+    }
+
+    /**
+     * Sorted ids of the grams, creating ids for new ones, with the entry posted under each
+     */
+    private int[] post(Set<String> grams, int entryId) {
+        int[] ids = new int[grams.size()];
+        int i = 0;
+        for (String gram : grams) {
+            Integer id = gramIds.get(gram);
+            if (id == null) {
+                id = postings.size();
+                gramIds.put(gram, id);
+                postings.add(new Postings());
+            }
+            postings.get(id).add(entryId);
+            ids[i++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Sorted ids of the grams the index has seen; the others cannot be shared
+     */
+    private int[] knownIds(Set<String> grams) {
+        int[] ids = new int[grams.size()];
+        int count = 0;
+        for (String gram : grams) {
+            Integer id = gramIds.get(gram);
+            if (id != null) {
+                ids[count++] = id;
+            }
+        }
+        int[] known = Arrays.copyOf(ids, count);
+        Arrays.sort(known);
+        return known;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lookup key of a phrasing: no Gherkin keyword, lower case, every quoted
+     * value replaced by an empty pair of quotes, single spaces
+     */
+    public static String key(String phrasing) {
+        String masked = StepText.replaceQuoted(StepText.stripKeyword(phrasing.trim()), QUOTED_MASK);
+        return StepText.collapseWhitespace(masked).trim().toLowerCase();
+    }
+
+    private static Set<String> charGrams(String key) {
+        Set<String> grams = new LinkedHashSet<>();
+        String padded = " " + key + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static Set<String> wordGrams(String key) {
+        Set<String> grams = new LinkedHashSet<>();
+        String previous = null;
+        int start = 0;
+        while (start < key.length()) {
+            int end = key.indexOf(' ', start);
+            if (end < 0) {
+                end = key.length();
+            }
+            String word = key.substring(start, end);
+            grams.add(WORD_GRAM + word);
+            if (previous != null) {
+                grams.add(WORD_GRAM + previous + " " + word);
+            }
+            previous = word;
+            start = end + 1;
+        }
+        return grams;
+    }
+
+    /**
+     * Size of the intersection of two sorted id arrays
+     */
+    private static int shared(int[] a, int[] b) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                count++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static double dice(int shared, int queryGrams, int entryGrams) {
+        int total = queryGrams + entryGrams;
+        return total == 0 ? 0.0 : 2.0 * shared / total;
+    }
+
+    private static boolean isBetter(double score, int id, double otherScore, int otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    /**
+     * Gram ids of a query and the k best entries found so far
+     */
+    private static final class Query {
+        private final int[] charIds;
+        private final int charGrams;
+        private final int[] wordIds;
+        private final int wordGrams;
+        private final double minScore;
+        private final int[] best;
+        private final double[] bestScores;
+        private int found;
+
+        Query(int[] charIds, int charGrams, int[] wordIds, int wordGrams, int k, double minScore) {
+            this.charIds = charIds;
+            this.charGrams = charGrams;
+            this.wordIds = wordIds;
+            this.wordGrams = wordGrams;
+            this.minScore = minScore;
+            this.best = new int[k];
+            this.bestScores = new double[k];
+        }
+
+        /**
+         * Lowest score that can still enter the k best (ties go to the lower id)
+         */
+        double threshold() {
+            return found < best.length ? minScore : Math.max(minScore, bestScores[best.length - 1]);
+        }
+
+        /**
+         * Bounded insertion into the k best, ties keep indexing order
+         */
+        void offer(int id, double score) {
+            int k = best.length;
+            if (score < minScore || (found == k && !isBetter(score, id, bestScores[k - 1], best[k - 1]))) {
+                return;
+            }
+            int at = Math.min(found, k - 1);
+            while (at > 0 && isBetter(score, id, bestScores[at - 1], best[at - 1])) {
+                best[at] = best[at - 1];
+                bestScores[at] = bestScores[at - 1];
+                at--;
+            }
+            best[at] = id;
+            bestScores[at] = score;
+            found = Math.min(found + 1, k);
+        }
+    }
+
+    /**
+     * Growable list of entry ids for one gram
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    private static final class Entry {
+        private final String phrasing;
+        private final String label;
+        // Sorted gram ids
+        private final int[] charIds;
+        private final int[] wordIds;
+
+        Entry(String phrasing, String label, int[] charIds, int[] wordIds) {
+            this.phrasing = phrasing;
+            this.label = label;
+            this.charIds = charIds;
+            this.wordIds = wordIds;
+        }
+    }
+
+    /**
+     * An indexed phrasing with its similarity to the query
+     */
+    public static class Match {
+        private final String phrasing;
+        private final String label;
+        private final double score;
+
+        public Match(String phrasing, String label, double score) {
+            this.phrasing = phrasing;
+            this.label = label;
+            this.score = score;
+        }
+
+        public String getPhrasing() {
+            return phrasing;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package agent.planner;
 
-public class ActionPlan {
+public class ActionPlan implements java.io.Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String actionType;      
     private String target;          
@@ -24,6 +26,63 @@ public class ActionPlan {
     public ActionPlan() {
         this.metadata = new java.util.HashMap<>();
     }
+    
+    /**
+     * Copy constructor - metadata is copied deeply: nested maps, lists, sets,
+     * arrays and plans are copied too; other values (strings, locators,
+     * reports) are shared, as they are only ever replaced, not changed
+     */
+    protected ActionPlan(ActionPlan other) {
+        this.actionType = other.actionType;
+        this.target = other.target;
+        this.value = other.value;
+        this.keyword = other.keyword;
+        this.priority = other.priority;
+        this.elementName = other.elementName;
+        this.locatorStrategy = other.locatorStrategy;
+        this.executed = other.executed;
+        this.isNegated = other.isNegated;
+        this.rowAnchor = other.rowAnchor;
+        this.frameAnchor = other.frameAnchor;
+        this.metadata = new java.util.HashMap<>();
+        other.metadata.forEach((key, value) -> this.metadata.put(key, copyValue(value)));
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof ActionPlan plan) {
+            return plan.copy();
+        }
+        if (value instanceof java.util.Map<?, ?> map) {
+            java.util.Map<Object, Object> copy = new java.util.LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(k, copyValue(v)));
+            return copy;
+        }
+        if (value instanceof java.util.List<?> list) {
+            java.util.List<Object> copy = new java.util.ArrayList<>(list.size());
+            list.forEach(v -> copy.add(copyValue(v)));
+            return copy;
+        }
+        if (value instanceof java.util.Set<?> set) {
+            java.util.Set<Object> copy = new java.util.LinkedHashSet<>();
+            set.forEach(v -> copy.add(copyValue(v)));
+            return copy;
+        }
+        if (value instanceof Object[] array) {
+            Object[] copy = array.clone();
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = copyValue(copy[i]);
+            }
+            return copy;
+        }
+        return value;
+    }
+    
+    /**
+     * Independent copy of this plan (subclasses return their own type)
+     */
+    public ActionPlan copy() {
+        return new ActionPlan(this);
+    }
 
     public String getActionType() { return actionType; }
     public void setActionType(String actionType) { this.actionType = actionType; }
@@ -0,0 +1,202 @@
+package agent.planner;
+
+import agent.utils.LoggerUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Ahead-of-time parsed step plans, produced by PlanCompiler and loaded by the runners.
+ *
+ * Holds the plan of every step whose parse does not depend on the page, keyed by
+ * the exact step text. Steps that must be parsed against the live page are only
+ * listed, so runners know to parse them at run time.
+ *
+ * The file records a fingerprint of all registered step patterns and of the parsing
+ * code itself (the class files of the planner, intelligence and utils packages); a
+ * file compiled against different patterns or a different build is ignored on load
+ * rather than replaying stale plans.
+ */
+public class CompiledPlans implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(CompiledPlans.class);
+
+    public static final String DEFAULT_FILE = "target/compiled-plans.dat";
+
+    /** Packages whose classes decide how a step is parsed */
+    private static final String[] PARSER_PACKAGES = {"agent/planner/", "agent/intelligence/", "agent/utils/"};
+
+    private final String patternFingerprint;
+    private final String codeFingerprint;
+    private final long compiledAt;
+    private final Map<String, ActionPlan> plans;
+    private final Set<String> liveSteps;
+
+    public CompiledPlans(Map<String, ActionPlan> plans, Set<String> liveSteps) {
+        this.patternFingerprint = currentFingerprint();
+        this.codeFingerprint = codeFingerprint();
+        this.compiledAt = System.currentTimeMillis();
+        this.plans = new HashMap<>(plans);
+        this.liveSteps = new HashSet<>(liveSteps);
+    }
+
+    /**
+     * Copy of the precompiled plan for this exact step, or null if the step was
+     * not compiled or needs page context
+     */
+    public ActionPlan get(String step) {
+        ActionPlan plan = plans.get(step);
+        return plan != null ? plan.copy() : null;
+    }
+
+    public int getPlanCount() { return plans.size(); }
+
+    public int getLiveStepCount() { return liveSteps.size(); }
+
+    public long getCompiledAt() { return compiledAt; }
+
+    /**
+     * Steps whose page-independent parse found no matching strategy
+     */
+    public List<String> getUnknownSteps() {
+        List<String> unknown = new ArrayList<>();
+        for (Map.Entry<String, ActionPlan> entry : plans.entrySet()) {
+            if ("unknown".equals(entry.getValue().getActionType())) {
+                unknown.add(entry.getKey());
+            }
+        }
+        Collections.sort(unknown);
+        return unknown;
+    }
+
+    public void save(String path) throws Exception {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
+            oos.writeObject(this);
+        }
+        logger.info("Saved {} compiled plans ({} live steps) to {}", plans.size(), liveSteps.size(), path);
+    }
+
+    /**
+     * Load compiled plans, or return null if the file is missing, unreadable or
+     * was compiled against different step patterns or parsing code
+     */
+    public static CompiledPlans load(String path) {
+        File file = new File(path);
+        if (!file.exists()) {
+            return null;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+            CompiledPlans compiled = (CompiledPlans) ois.readObject();
+            if (!currentFingerprint().equals(compiled.patternFingerprint)) {
+                logger.warning("Ignoring {}: step patterns changed since it was compiled", path);
+                return null;
+            }
+            String code = codeFingerprint();
+            if (code == null || !code.equals(compiled.codeFingerprint)) {
+                logger.warning("Ignoring {}: parsing code changed since it was compiled", path);
+                return null;
+            }
+            logger.info("Loaded {} compiled plans from {}", compiled.plans.size(), path);
+            return compiled;
+        } catch (Exception e) {
+            logger.warning("Could not load compiled plans from {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hash over every registered step and table pattern
+     */
+    private static String currentFingerprint() {
+        StringBuilder all = new StringBuilder();
+        PatternRegistry.registerAllPatterns((actionType, regex, elementGroup, valueGroup, rowAnchorGroup) ->
+            all.append(actionType).append('|').append(regex).append('|')
+               .append(elementGroup).append(valueGroup).append(rowAnchorGroup).append('\n'));
+        PatternRegistry.registerTablePatterns((actionType, regex, groupMap) ->
+            all.append(actionType).append('|').append(regex).append('|').append(new TreeMap<>(groupMap)).append('\n'));
+        return Integer.toHexString(all.toString().hashCode()) + "-" + all.length();
+    }
+
+    /**
+     * Hash over the class files of the parsing packages, from the jar or classes
+     * directory CompiledPlans was loaded from; null if they can't be read
+     */
+    private static String codeFingerprint() {
+        try {
+            CodeSource source = CompiledPlans.class.getProtectionDomain().getCodeSource();
+            if (source == null) {
+                return null;
+            }
+            Path root = Paths.get(source.getLocation().toURI());
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (Files.isDirectory(root)) {
+                for (String pkg : PARSER_PACKAGES) {
+                    Path dir = root.resolve(pkg);
+                    if (!Files.isDirectory(dir)) {
+                        continue;
+                    }
+                    try (Stream<Path> files = Files.walk(dir)) {
+                        for (Path file : (Iterable<Path>) files
+                                .filter(f -> f.toString().endsWith(".class")).sorted()::iterator) {
+                            digest.update(root.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                            digest.update(Files.readAllBytes(file));
+                        }
+                    }
+                }
+            } else {
+                try (JarFile jar = new JarFile(root.toFile())) {
+                    List<JarEntry> entries = new ArrayList<>();
+                    for (JarEntry entry : Collections.list(jar.entries())) {
+                        String name = entry.getName();
+                        for (String pkg : PARSER_PACKAGES) {
+                            if (name.startsWith(pkg) && name.endsWith(".class")) {
+                                entries.add(entry);
+                                break;
+                            }
+                        }
+                    }
+                    entries.sort((a, b) -> a.getName().compareTo(b.getName()));
+                    for (JarEntry entry : entries) {
+                        digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            digest.update(in.readAllBytes());
+                        }
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            logger.debug("Could not fingerprint parsing code: {}", e.getMessage());
+            return null;
+        }
+    }
+}
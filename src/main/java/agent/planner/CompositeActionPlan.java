@@ -17,6 +17,8 @@ import java.util.ArrayList;
  */
 public class CompositeActionPlan extends ActionPlan {
     
+    private static final long serialVersionUID = 1L;
+    
     private final List<ActionPlan> subActions;
     
     public CompositeActionPlan(String originalStep, List<ActionPlan> subActions) {
@@ -25,6 +27,22 @@ public class CompositeActionPlan extends ActionPlan {
         this.setLocatorStrategy("composite-multi-action");
     }
     
+    /**
+     * Deep copy: every sub-action is copied as well
+     */
+    protected CompositeActionPlan(CompositeActionPlan other) {
+        super(other);
+        this.subActions = new ArrayList<>();
+        for (ActionPlan subAction : other.subActions) {
+            this.subActions.add(subAction.copy());
+        }
+    }
+    
+    @Override
+    public CompositeActionPlan copy() {
+        return new CompositeActionPlan(this);
+    }
+    
     /**
      * Returns the list of sub-actions to be executed sequentially.
      */
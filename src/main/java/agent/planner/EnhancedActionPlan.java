@@ -6,6 +6,8 @@ package agent.planner;
  */
 public class EnhancedActionPlan extends ActionPlan {
     
+    private static final long serialVersionUID = 1L;
+    
     // Table-specific fields
     private String tableName;
     private String columnName;
@@ -37,6 +39,31 @@ public class EnhancedActionPlan extends ActionPlan {
         super(actionType, target);
     }
     
+    protected EnhancedActionPlan(EnhancedActionPlan other) {
+        super(other);
+        this.tableName = other.tableName;
+        this.columnName = other.columnName;
+        this.targetColumnName = other.targetColumnName;
+        this.sortOrder = other.sortOrder;
+        this.pageNumber = other.pageNumber;
+        this.rowNumber = other.rowNumber;
+        this.filterValue = other.filterValue;
+        this.comparisonOperator = other.comparisonOperator;
+        this.rowConditionColumn = other.rowConditionColumn;
+        this.rowConditionValue = other.rowConditionValue;
+        this.isBulkAction = other.isBulkAction;
+        this.bulkActionType = other.bulkActionType;
+        this.expectedValue = other.expectedValue;
+        this.expectedRowCount = other.expectedRowCount;
+        this.shouldExist = other.shouldExist;
+        this.extractedData = other.extractedData != null ? new java.util.HashMap<>(other.extractedData) : null;
+    }
+    
+    @Override
+    public EnhancedActionPlan copy() {
+        return new EnhancedActionPlan(this);
+    }
+    
     // Getters and Setters
     
     public String getTableName() { return tableName; }
@@ -0,0 +1,338 @@
+package agent.planner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Dispatch index over step patterns, keyed by the literal verb each pattern
+ * starts with.
+ *
+ * Nearly every registered pattern looks like
+ *   (?i)^(?:given|when|then|and|but)?\s*(?:I|user|we|he|she|they)?\s*(?:click|tap)\s+...
+ * so a step can only match it if the text after the optional keyword and
+ * subject starts with one of the verbs. At build time the leading verbs of each
+ * pattern are read from its regex and the pattern is filed under their first 2
+ * and 3 letters. A lookup works out every position where the verb of the step
+ * could start and returns the patterns filed under the letters found there.
+ *
+ * Patterns whose head cannot be read this way (no anchor, optional or nested
+ * first group, top-level alternation...) are returned for every step. Candidates
+ * always come back in registration order, so testing them in turn picks the same
+ * pattern a linear scan would.
+ */
+public class PatternDispatchIndex<T> {
+
+    private static final String[] KEYWORDS = {"given", "when", "then", "and", "but"};
+    private static final String[] SUBJECTS = {"i", "user", "we", "he", "she", "they"};
+
+    private final List<T> items;
+    private final Bucket wildcards;
+    private final Map<String, Bucket> byPrefix2 = new HashMap<>();
+    private final Map<String, Bucket> byPrefix3 = new HashMap<>();
+    private final int indexedCount;
+
+    public PatternDispatchIndex(List<T> items, Function<T, String> regexOf) {
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+
+        Map<String, TreeSet<Integer>> prefix2 = new HashMap<>();
+        Map<String, TreeSet<Integer>> prefix3 = new HashMap<>();
+        TreeSet<Integer> wildcardIds = new TreeSet<>();
+        int indexed = 0;
+
+        for (int i = 0; i < this.items.size(); i++) {
+            List<String> verbs = leadingVerbs(regexOf.apply(this.items.get(i)));
+            if (verbs == null) {
+                wildcardIds.add(i);
+                continue;
+            }
+            indexed++;
+            for (String verb : verbs) {
+                Map<String, TreeSet<Integer>> target = verb.length() >= 3 ? prefix3 : prefix2;
+                target.computeIfAbsent(verb.substring(0, Math.min(3, verb.length())), k -> new TreeSet<>()).add(i);
+            }
+        }
+        this.indexedCount = indexed;
+        this.wildcards = new Bucket(wildcardIds);
+
+        // Precompute the full candidate list of every key, wildcards included
+        for (Map.Entry<String, TreeSet<Integer>> entry : prefix2.entrySet()) {
+            TreeSet<Integer> ids = new TreeSet<>(entry.getValue());
+            ids.addAll(wildcardIds);
+            byPrefix2.put(entry.getKey(), new Bucket(ids));
+        }
+        for (Map.Entry<String, TreeSet<Integer>> entry : prefix3.entrySet()) {
+            TreeSet<Integer> ids = new TreeSet<>(entry.getValue());
+            ids.addAll(prefix2.getOrDefault(entry.getKey().substring(0, 2), new TreeSet<>()));
+            ids.addAll(wildcardIds);
+            byPrefix3.put(entry.getKey(), new Bucket(ids));
+        }
+    }
+
+    /**
+     * Patterns that could match the text, in registration order
+     */
+    public List<T> candidates(String text) {
+        Bucket found = null;
+        List<Bucket> extra = null;
+
+        // The verb starts after an optional keyword, then an optional subject
+        for (int k = -1; k < KEYWORDS.length; k++) {
+            int afterKeyword = k < 0 ? 0 : wordEnd(text, 0, KEYWORDS[k]);
+            if (afterKeyword < 0) continue;
+            int subjectStart = skipWhitespace(text, afterKeyword);
+
+            for (int s = -1; s < SUBJECTS.length; s++) {
+                int afterSubject = s < 0 ? subjectStart : wordEnd(text, subjectStart, SUBJECTS[s]);
+                if (afterSubject < 0) continue;
+
+                Bucket bucket = lookup(text, skipWhitespace(text, afterSubject));
+                if (bucket == wildcards || bucket == found) continue;
+                if (found == null) {
+                    found = bucket;
+                } else {
+                    if (extra == null) extra = new ArrayList<>();
+                    if (!extra.contains(bucket)) extra.add(bucket);
+                }
+            }
+        }
+
+        if (found == null) {
+            return wildcards.items;
+        }
+        if (extra == null) {
+            return found.items;
+        }
+        extra.add(found);
+        return merge(extra);
+    }
+
+    public List<T> getAll() { return items; }
+
+    public int size() { return items.size(); }
+
+    /**
+     * Number of patterns filed under a verb (the rest are tried for every step)
+     */
+    public int getIndexedCount() { return indexedCount; }
+
+    private Bucket lookup(String text, int pos) {
+        if (pos + 2 > text.length()) {
+            return wildcards;
+        }
+        if (pos + 3 <= text.length()) {
+            Bucket three = byPrefix3.get(lowerCase(text, pos, 3));
+            if (three != null) {
+                return three;
+            }
+        }
+        return byPrefix2.getOrDefault(lowerCase(text, pos, 2), wildcards);
+    }
+
+    private List<T> merge(List<Bucket> buckets) {
+        boolean[] used = new boolean[items.size()];
+        for (Bucket bucket : buckets) {
+            for (int id : bucket.ids) {
+                used[id] = true;
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) merged.add(items.get(i));
+        }
+        return merged;
+    }
+
+    /**
+     * End of the word if the text has it at pos, else -1
+     */
+    private static int wordEnd(String text, int pos, String word) {
+        return text.regionMatches(true, pos, word, 0, word.length()) ? pos + word.length() : -1;
+    }
+
+    private static int skipWhitespace(String text, int pos) {
+        while (pos < text.length() && isRegexWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static String lowerCase(String text, int pos, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = Character.toLowerCase(text.charAt(pos + i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Candidate ids of one key and the matching patterns, both in registration order
+     */
+    private class Bucket {
+        final int[] ids;
+        final List<T> items;
+
+        Bucket(Iterable<Integer> sortedIds) {
+            List<T> selected = new ArrayList<>();
+            List<Integer> idList = new ArrayList<>();
+            for (int id : sortedIds) {
+                idList.add(id);
+                selected.add(PatternDispatchIndex.this.items.get(id));
+            }
+            this.ids = idList.stream().mapToInt(Integer::intValue).toArray();
+            this.items = Collections.unmodifiableList(selected);
+        }
+    }
+
+    // ========== Regex head analysis ==========
+
+    /**
+     * Lower-case literal verbs one of which must start the text after the
+     * optional keyword and subject, or null if that cannot be told from the regex
+     */
+    static List<String> leadingVerbs(String regex) {
+        int pos = 0;
+        boolean anchored = false;
+        for (int i = 0; i < 2; i++) {
+            if (regex.startsWith("(?i)", pos)) {
+                pos += 4;
+            } else if (!anchored && regex.startsWith("^", pos)) {
+                pos++;
+                anchored = true;
+            }
+        }
+        if (!anchored || hasTopLevelAlternation(regex, pos)) {
+            return null;
+        }
+
+        pos = skipOptionalWordGroup(regex, pos, KEYWORDS);
+        pos = skipOptionalWordGroup(regex, pos, SUBJECTS);
+
+        List<String> alternatives;
+        if (regex.startsWith("(?:", pos) || (regex.startsWith("(", pos) && !regex.startsWith("(?", pos))) {
+            int close = closingParen(regex, pos);
+            if (close < 0 || isOptionalQuantifier(regex, close + 1)) {
+                return null;
+            }
+            int bodyStart = regex.startsWith("(?:", pos) ? pos + 3 : pos + 1;
+            alternatives = splitTopLevel(regex.substring(bodyStart, close));
+        } else {
+            alternatives = List.of(regex.substring(pos));
+        }
+
+        List<String> verbs = new ArrayList<>();
+        for (String alternative : alternatives) {
+            String verb = leadingLiteral(alternative);
+            if (verb == null) {
+                return null;
+            }
+            verbs.add(verb);
+        }
+        return verbs;
+    }
+
+    /**
+     * Skip "(?:w1|w2)?" plus optional \s* or \s+ when every word belongs to the set
+     */
+    private static int skipOptionalWordGroup(String regex, int pos, String[] allowed) {
+        if (!regex.startsWith("(?:", pos)) {
+            return pos;
+        }
+        int close = regex.indexOf(")?", pos);
+        if (close < 0) {
+            return pos;
+        }
+        for (String word : regex.substring(pos + 3, close).split("\\|", -1)) {
+            if (!List.of(allowed).contains(word.toLowerCase())) {
+                return pos;
+            }
+        }
+        int next = close + 2;
+        if (regex.startsWith("\\s*", next) || regex.startsWith("\\s+", next)) {
+            next += 3;
+        }
+        return next;
+    }
+
+    private static String leadingLiteral(String alternative) {
+        int n = 0;
+        while (n < alternative.length() && isAsciiLetter(alternative.charAt(n))) {
+            n++;
+        }
+        // "clicks?" only guarantees "click"
+        if (n < alternative.length() && "?*{".indexOf(alternative.charAt(n)) >= 0) {
+            n--;
+        }
+        return n >= 2 ? alternative.substring(0, n).toLowerCase() : null;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isOptionalQuantifier(String regex, int pos) {
+        return pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '*'
+            || regex.startsWith("{0", pos));
+    }
+
+    /**
+     * Index of the parenthesis closing the group opened at pos, or -1
+     */
+    private static int closingParen(String regex, int pos) {
+        int depth = 0;
+        boolean inClass = false;
+        for (int i = pos; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                if (c == ']') inClass = false;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasTopLevelAlternation(String regex, int pos) {
+        return splitTopLevel(regex.substring(pos)).size() > 1;
+    }
+
+    private static List<String> splitTopLevel(String body) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean inClass = false;
+        int start = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                if (c == ']') inClass = false;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                parts.add(body.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(body.substring(start));
+        return parts;
+    }
+}
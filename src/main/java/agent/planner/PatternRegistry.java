@@ -2,6 +2,7 @@ package agent.planner;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
@@ -907,6 +908,108 @@ public class PatternRegistry {
         return patterns;
     }
     
+    /**
+     * Canonical example phrasings per action type, in registration order.
+     * Each one is a supported step; StepSuggestionEngine indexes them to answer
+     * "did you mean" lookups for steps that match no pattern.
+     */
+    public static Map<String, List<String>> getExampleSteps() {
+        Map<String, List<String>> examples = new LinkedHashMap<>();
+        
+        // Navigation
+        examples.put("click_and_switch_window", List.of("When I click \"Home\" link and switch to new window"));
+        examples.put("navigate", List.of("Given I navigate to \"https://demoqa.com\"", "Given Open \"https://demoqa.com/text-box\""));
+        examples.put("navigate_app", List.of("Given Open Browser and Navigate to HotelBooker"));
+        
+        // Scroll
+        examples.put("scroll", List.of("When I scroll to bottom of page", "When I scroll down 500 pixels",
+            "When I scroll right in \"image gallery\"", "When I scroll to \"Contact Us\""));
+        
+        // Autocomplete, dates, credentials, forms
+        examples.put("fill_autocomplete", List.of("When I enter location \"Dallas\" from suggestion"));
+        examples.put("select_date_relative", List.of("When I select arrival date 25 days from today"));
+        examples.put("set_date", List.of("When I set \"05/20/2026\" in \"Select Date\"", "When I select date \"today\" for \"Birth Date\""));
+        examples.put("fill_credentials", List.of("When user enters username and password"));
+        examples.put("select_with_criteria", List.of("When I select the Rate Plan from \"Sabre\" with refundable \"No\""));
+        examples.put("fill_form_section", List.of("When I add Booking Contact details"));
+        examples.put("toggle_setting", List.of("When I disable Travel Policy in Agency Admin"));
+        examples.put("store_context", List.of("When I store the Booking Reference Number"));
+        examples.put("enter_stored_reference", List.of("When user enters booking reference"));
+        
+        // Screenshots, waits, keyboard, browser history
+        examples.put("screenshot", List.of("Then I take a screenshot"));
+        examples.put("wait_time", List.of("When I wait for 5 seconds"));
+        examples.put("wait_disappear", List.of("When I wait for \"Loading\" to disappear"));
+        examples.put("wait_appear", List.of("When I wait for \"Submit\" to appear"));
+        examples.put("wait_page", List.of("When I wait for page load"));
+        examples.put("wait_for_progress", List.of("When I monitor the progress until reach \"25\""));
+        examples.put("press_key", List.of("When I press Enter key", "When I press Escape to close modal", "When I press Tab 5 times"));
+        examples.put("refresh_page", List.of("When I refresh the page"));
+        examples.put("browser_back", List.of("When I go back"));
+        examples.put("browser_forward", List.of("When I go forward"));
+        
+        // Alerts and prompts
+        examples.put("verify_alert", List.of("Then Verify alert says \"You clicked a button\""));
+        examples.put("accept_alert", List.of("Then Accept alert with message \"You clicked a button\"",
+            "Then Verify and accept alert with \"Do you confirm action?\"", "When I accept confirm"));
+        examples.put("dismiss_alert", List.of("When I dismiss alert", "When I cancel confirm"));
+        examples.put("prompt_alert", List.of("When I enter \"John\" in prompt"));
+        examples.put("dismiss_prompt", List.of("When I dismiss prompt"));
+        
+        // Click, fill, select
+        examples.put("click", List.of("When I click \"Submit\" button", "When I click on \"Home\" link"));
+        examples.put("double_click", List.of("When I double click on \"Double Click Me\" button"));
+        examples.put("right_click", List.of("When I right click on \"Right Click Me\" button"));
+        examples.put("fill", List.of("When I enter \"John\" in \"First Name\"", "When I enter the text \"John\" in First Name field",
+            "When I fill First Name with \"John\""));
+        examples.put("select_menu", List.of("When I select \"Main Item 2 > SUB SUB LIST > Sub Sub Item 1\" from menu"));
+        examples.put("select_multi", List.of("When I select \"Volvo\" and \"Audi\" from \"Cars\""));
+        examples.put("select", List.of("When I select \"Blue\" from \"Colors\" dropdown", "When I choose \"Blue\" from Colors"));
+        examples.put("multiselect_item", List.of("When I select \"Cras justo odio\" from list", "When I select multiple items \"One;Two;Three\""));
+        examples.put("deselect", List.of("When I remove \"Green\" from Colors", "When I deselect \"Volvo\" from \"Cars\""));
+        examples.put("check", List.of("When I check the Home check box"));
+        examples.put("uncheck", List.of("When I uncheck the Home check box"));
+        examples.put("set_slider", List.of("When I set slider to \"75\""));
+        examples.put("hover", List.of("When I hover over \"Submit\" button", "When I mouse over \"Profile\" icon"));
+        
+        // Verification
+        examples.put("verify", List.of("Then I should see \"Welcome\"", "Then Verify \"Welcome\" is displayed"));
+        examples.put("verify_not", List.of("Then Verify \"Error\" is not displayed"));
+        examples.put("verify_page_title", List.of("Then Verify page title is \"Elements\""));
+        examples.put("verify_url", List.of("Then Verify URL contains \"/elements\"", "Then Verify Current URL exactly matches \"https://demoqa.com\""));
+        examples.put("verify_selected", List.of("Then Verify \"Blue\" is selected"));
+        examples.put("verify_not_selected", List.of("Then Verify \"Blue\" is not selected"));
+        examples.put("verify_enabled", List.of("Then Verify \"Submit\" button is enabled"));
+        examples.put("verify_disabled", List.of("Then Verify \"Submit\" button is disabled"));
+        examples.put("verify_validation", List.of("Then Verify \"first name\" field is invalid"));
+        examples.put("verify_placeholder", List.of("Then Verify \"name@example.com\" with Email placeholder", "Then Verify Full Name placeholder value \"Full Name\""));
+        examples.put("verify_value", List.of("Then Verify \"Alice\" is filled in first name field"));
+        examples.put("verify_tooltip", List.of("Then Verify tooltip of \"Button\" contains \"You hovered\"", "Then Verify tooltip \"More information\" appears"));
+        
+        // Tables
+        examples.put("table_has_column", List.of("Then Verify table has column \"Salary\""));
+        examples.put("row_exists", List.of("Then Verify row with \"John\" exists"));
+        examples.put("click_in_row", List.of("When I click \"Edit\" in the row where Name is \"Vinoth\""));
+        examples.put("click_in_row_position", List.of("When I click Edit button in first row"));
+        examples.put("direct_row_action", List.of("When I delete the row where Name is \"Vinoth\""));
+        examples.put("select_checkbox_in_row", List.of("When I select checkbox in row where Name is \"Vinoth\""));
+        examples.put("get_row_values", List.of("When I get all column values where \"First Name\" is \"John\""));
+        
+        // Windows, frames, modals
+        examples.put("close_browser", List.of("Then Close the browser"));
+        examples.put("switch_to_new_window", List.of("When I switch to new window"));
+        examples.put("switch_to_main_window", List.of("When I switch to main window"));
+        examples.put("close_current_window", List.of("When I close current window"));
+        examples.put("verify_window_count", List.of("Then Verify 2 windows are open"));
+        examples.put("switch_to_frame", List.of("When I switch to frame \"frame1\""));
+        examples.put("switch_to_main_frame", List.of("When I switch to main content"));
+        examples.put("verify_modal_visible", List.of("Then Verify modal is displayed"));
+        examples.put("verify_modal_not_visible", List.of("Then Verify modal is not displayed"));
+        examples.put("close_modal", List.of("When I close the modal"));
+        
+        return examples;
+    }
+    
     /**
      * Get all registered patterns (for step validation)
      */
@@ -2,6 +2,7 @@ package agent.planner;
 
 import agent.intelligence.IntelligentStepProcessor;
 import agent.utils.LoggerUtil;
+import agent.utils.StepText;
 import com.microsoft.playwright.Page;
 
 import java.util.*;
@@ -24,9 +25,40 @@ public class SmartStepParser {
     
     private static final LoggerUtil logger = LoggerUtil.getLogger(SmartStepParser.class);
     
+    private static final Pattern FRAME_SCOPE = Pattern.compile(
+        "^(?i)(?:given|when|then|and|but)?\\s*(?:in|within|inside)\\s+(?:the\\s+)?(?:iframe|frame)\\s+[\"']?([^\"']+)[\"']?[\\s,]+(.+)",
+        Pattern.CASE_INSENSITIVE);
+    
+    // Select "value1" and "value2" from "dropdown" is one action with several values
+    private static final Pattern MULTI_SELECT = Pattern.compile(
+        "(?i)^(?:select|choose)\\s+[\"']([^\"']+)[\"'](?:\\s+and\\s+[\"'][^\"']+[\"'])+\\s+(?:from|in|for)\\s+",
+        Pattern.CASE_INSENSITIVE);
+    
+    // An action verb, a delimiter, then another action verb
+    private static final Pattern COMBINED_ACTION = Pattern.compile(
+        "(enter|click|select|type|fill|choose|check|uncheck|close).*?" +
+        "\\s+(?:and|also|then|,|&)\\s+" +
+        "(enter|click|select|type|fill|choose|check|uncheck|close)",
+        Pattern.CASE_INSENSITIVE);
+    
+    private static final Pattern LEADING_KEYWORD = Pattern.compile("^(Given|When|Then|And|But)\\s+", Pattern.CASE_INSENSITIVE);
+    
+    // Delimiters outside double-quoted strings
+    private static final Pattern ACTION_DELIMITER = Pattern.compile(
+        "\\s+(?:and|also|then|,|&)\\s+(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+    
+    private static final List<Pattern> COMBINED_ACTIONS = PatternRegistry.getCombinedActions();
+    
+    // Shared by all parsers/workers - size can be set via -DplanCacheSize
+    private static final StepPlanCache PLAN_CACHE = new StepPlanCache(Integer.getInteger("planCacheSize", 2048));
+    
     private final IntelligentStepProcessor intelligentProcessor;  // Phase 4: Intelligence
     private final StepPlanner legacyPlanner;
     private final Map<String, List<TableStepPattern>> tablePatterns;
+    private final PatternDispatchIndex<TableStepPattern> tableIndex;
+    
+    // Registry patterns as isStepSupported checks them (no CASE_INSENSITIVE flag)
+    private static final PatternDispatchIndex<Pattern> SUPPORT_INDEX = buildSupportIndex();
     
     // Configuration flag to enable/disable intelligence
     private boolean intelligenceEnabled = true;
@@ -36,6 +68,14 @@ public class SmartStepParser {
         this.legacyPlanner = new StepPlanner();
         this.tablePatterns = new HashMap<>();
         initializeTablePatterns();
+        this.tableIndex = buildTableIndex();
+    }
+    
+    /**
+     * Cache of page-independent plans shared by every SmartStepParser
+     */
+    public static StepPlanCache getPlanCache() {
+        return PLAN_CACHE;
     }
     
     /**
@@ -69,61 +109,93 @@ public class SmartStepParser {
         String normalizedStep = step.trim();
         
         try {
-            // Try intelligence layer first
-            if (intelligenceEnabled) {
-                logger.debug("Checking step support via Intelligence Layer: {}", normalizedStep);
-                // Intelligence layer can handle almost any natural language
-                // Check if it can extract a valid intent
-                if (intelligentProcessor.canProcess(normalizedStep)) {
-                    logger.debug("✓ Step supported by Intelligence Layer");
-                    return true;
-                }
+            // Same routing as parseStep: combined steps are split, frame scopes unwrapped
+            if (isCombinedAction(normalizedStep)) {
+                boolean allSupported = combinedSubSteps(normalizedStep).stream().allMatch(this::isSingleActionSupported);
+                logger.debug(allSupported ? "✓ Step supported as Combined Action" : "✗ Combined Action has an unsupported sub-action");
+                return allSupported;
             }
-            
-            // Check legacy patterns
-            logger.debug("Checking step support via Legacy Patterns: {}", normalizedStep);
-            
-            // Check combined actions
-            if (PatternRegistry.getCombinedActions().stream()
-                    .anyMatch(pattern -> pattern.matcher(normalizedStep).matches())) {
-                logger.debug("✓ Step supported by Combined Actions");
-                return true;
+            Matcher frameMatcher = FRAME_SCOPE.matcher(normalizedStep);
+            if (frameMatcher.find()) {
+                return isStepSupported(frameMatcher.group(2));
             }
-            
-            // Check table patterns
-            for (List<TableStepPattern> patterns : tablePatterns.values()) {
-                for (TableStepPattern pattern : patterns) {
-                    if (pattern.getPattern().matcher(normalizedStep).matches()) {
-                        logger.debug("✓ Step supported by Table Patterns");
-                        return true;
-                    }
-                }
-            }
-            
-            // Check all registered patterns
-            for (Map.Entry<String, Pattern> entry : PatternRegistry.getAllPatterns().entrySet()) {
-                if (entry.getValue().matcher(normalizedStep).matches()) {
-                    logger.debug("✓ Step supported by Pattern: {}", entry.getKey());
-                    return true;
-                }
-            }
-            
-            logger.debug("✗ Step NOT supported by framework patterns");
-            return false;
-            
+            return isSingleActionSupported(normalizedStep);
         } catch (Exception e) {
             logger.warn("Error checking step support: {}", e.getMessage());
             return false;
         }
     }
     
+    /**
+     * Support check for one action, without combined/frame routing (see parseSingleAction)
+     */
+    private boolean isSingleActionSupported(String normalizedStep) {
+        // Try intelligence layer first
+        if (intelligenceEnabled) {
+            logger.debug("Checking step support via Intelligence Layer: {}", normalizedStep);
+            // Intelligence layer can handle almost any natural language
+            // Check if it can extract a valid intent
+            if (intelligentProcessor.canProcess(normalizedStep)) {
+                logger.debug("✓ Step supported by Intelligence Layer");
+                return true;
+            }
+        }
+        
+        // Check legacy patterns
+        logger.debug("Checking step support via Legacy Patterns: {}", normalizedStep);
+        
+        // Check combined actions
+        if (COMBINED_ACTIONS.stream()
+                .anyMatch(pattern -> pattern.matcher(normalizedStep).matches())) {
+            logger.debug("✓ Step supported by Combined Actions");
+            return true;
+        }
+        
+        // Check table patterns
+        for (TableStepPattern pattern : tableIndex.candidates(normalizedStep)) {
+            if (pattern.getPattern().matcher(normalizedStep).matches()) {
+                logger.debug("✓ Step supported by Table Patterns");
+                return true;
+            }
+        }
+        
+        // Check all registered patterns
+        for (Pattern pattern : SUPPORT_INDEX.candidates(normalizedStep)) {
+            if (pattern.matcher(normalizedStep).matches()) {
+                logger.debug("✓ Step supported by Pattern: {}", pattern.pattern());
+                return true;
+            }
+        }
+        
+        logger.debug("✗ Step NOT supported by framework patterns");
+        return false;
+    }
+    
     private void initializeTablePatterns() {
        PatternRegistry.registerTablePatterns(this::addTablePattern);
     }
     
     private void addTablePattern(String actionType, String regex, Map<String, Object> groupMapping) {
         tablePatterns.computeIfAbsent(actionType, k -> new ArrayList<>())
-            .add(new TableStepPattern(Pattern.compile(regex, Pattern.CASE_INSENSITIVE), groupMapping));
+            .add(new TableStepPattern(actionType, Pattern.compile(regex, Pattern.CASE_INSENSITIVE), groupMapping));
+    }
+    
+    /**
+     * Index over the table patterns in the order tryTablePatterns has always tried them
+     */
+    private PatternDispatchIndex<TableStepPattern> buildTableIndex() {
+        List<TableStepPattern> ordered = new ArrayList<>();
+        for (List<TableStepPattern> patterns : tablePatterns.values()) {
+            ordered.addAll(patterns);
+        }
+        return new PatternDispatchIndex<>(ordered, p -> p.regex.pattern());
+    }
+    
+    private static PatternDispatchIndex<Pattern> buildSupportIndex() {
+        List<Pattern> patterns = new ArrayList<>();
+        PatternRegistry.registerAllPatterns((actionType, regex, elementGroup, valueGroup, rowAnchorGroup) ->
+            patterns.add(Pattern.compile(regex)));
+        return new PatternDispatchIndex<>(patterns, Pattern::pattern);
     }
     
     /**
@@ -136,6 +208,36 @@ public class SmartStepParser {
         return parseStep(step, null, null);
     }
     
+    /**
+     * Parse a step ahead of time, without a browser. Returns null when the plan
+     * used at run time depends on the page (the intelligence layer resolves the
+     * element against the live DOM); such steps must be parsed live.
+     */
+    public ActionPlan precompileStep(String step) {
+        if (dependsOnPage(step)) {
+            return null;
+        }
+        return parseStep(step);
+    }
+    
+    /**
+     * Mirrors the strategy order of parseStep: only the intelligence layer looks
+     * at the page, and only for steps that need an element.
+     */
+    private boolean dependsOnPage(String step) {
+        if (!intelligenceEnabled) {
+            return false;
+        }
+        if (isCombinedAction(step)) {
+            return combinedSubSteps(step).stream().anyMatch(intelligentProcessor::dependsOnPage);
+        }
+        Matcher frameMatcher = FRAME_SCOPE.matcher(step);
+        if (frameMatcher.find()) {
+            return dependsOnPage(frameMatcher.group(2).trim());
+        }
+        return intelligentProcessor.dependsOnPage(step);
+    }
+    
     /**
      * Parse step with optional page context for intelligent processing
      * 
@@ -148,6 +250,22 @@ public class SmartStepParser {
         logger.section("PARSING STEP");
         logger.info("Step: {}", step);
         
+        // Without a page no strategy depends on browser state, so the whole result is reusable
+        if (page == null) {
+            String cacheKey = (intelligenceEnabled ? "full+nlp|" : "full|") + StepPlanCache.key(step);
+            ActionPlan cached = PLAN_CACHE.get(cacheKey);
+            if (cached != null) {
+                logger.debug("✓ Parsed via: PLAN CACHE ({})", cached.getActionType());
+                return cached;
+            }
+            ActionPlan plan = parseUncached(step, null, smartLocator);
+            PLAN_CACHE.put(cacheKey, plan);
+            return plan;
+        }
+        return parseUncached(step, page, smartLocator);
+    }
+    
+    private ActionPlan parseUncached(String step, Page page, agent.browser.SmartLocator smartLocator) {
         // STRATEGY 0: Check if this is a combined action step FIRST (before intelligence layer)
         // This prevents the intelligence layer from incorrectly concatenating values
         if (isCombinedAction(step)) {
@@ -176,6 +294,33 @@ public class SmartStepParser {
             logger.debug("  ✗ Intelligence layer did not match");
         }
         
+        // STRATEGIES 3-5: page-independent patterns (cached)
+        ActionPlan patternPlan = parsePageIndependent(step);
+        if ("unknown".equals(patternPlan.getActionType())) {
+            // STRATEGY 6: LLM Fallback (future - would call OpenAI API here)
+            logger.error("✗ Could not parse step: {}", step);
+        }
+        return patternPlan;
+    }
+    
+    /**
+     * Table patterns, legacy regex patterns and fuzzy intent classification.
+     * None of them look at the page, so results are cached by step text.
+     */
+    private ActionPlan parsePageIndependent(String step) {
+        String cacheKey = "patterns|" + StepPlanCache.key(step);
+        ActionPlan cached = PLAN_CACHE.get(cacheKey);
+        if (cached != null) {
+            logger.debug("✓ Parsed via: PLAN CACHE ({})", cached.getActionType());
+            return cached;
+        }
+        
+        ActionPlan plan = matchPatterns(step);
+        PLAN_CACHE.put(cacheKey, plan);
+        return plan;
+    }
+    
+    private ActionPlan matchPatterns(String step) {
         // STRATEGY 3: Try table-specific patterns first (new features)
         logger.debug("→ Trying: Table-Specific Patterns");
         ActionPlan tablePlan = tryTablePatterns(step);
@@ -200,8 +345,6 @@ public class SmartStepParser {
             return fuzzyPlan;
         }
         
-        // STRATEGY 6: LLM Fallback (future - would call OpenAI API here)
-        logger.error("✗ Could not parse step: {}", step);
         return createUnknownPlan(step);
     }
     
@@ -209,8 +352,7 @@ public class SmartStepParser {
      * Handles patterns like "In iframe 'frame1', Enter 'John' in 'First Name'"
      */
     private ActionPlan tryFrameScoping(String step, Page page, agent.browser.SmartLocator smartLocator) {
-        Pattern p = Pattern.compile("^(?i)(?:given|when|then|and|but)?\\s*(?:in|within|inside)\\s+(?:the\\s+)?(?:iframe|frame)\\s+[\"']?([^\"']+)[\"']?[\\s,]+(.+)", Pattern.CASE_INSENSITIVE);
-        Matcher m = p.matcher(step);
+        Matcher m = FRAME_SCOPE.matcher(step);
         
         if (m.find()) {
             String frameName = m.group(1);
@@ -250,16 +392,12 @@ public class SmartStepParser {
      */
     private boolean isCombinedAction(String step) {
         // Remove Gherkin keywords to analyze the actual step content
-        String cleanStep = step.replaceAll("^(?i)(Given|When|Then|And|But)\\s+", "");
+        String cleanStep = StepText.stripKeyword(step);
         
         // FIRST: Check if this is a multi-value select pattern
         // Pattern: Select "value1" and "value2" and "value3" from "dropdown"
         // This should NOT be treated as a combined action
-        Pattern multiSelectPattern = Pattern.compile(
-            "(?i)^(?:select|choose)\\s+[\"']([^\"']+)[\"'](?:\\s+and\\s+[\"'][^\"']+[\"'])+\\s+(?:from|in|for)\\s+",
-            Pattern.CASE_INSENSITIVE
-        );
-        if (multiSelectPattern.matcher(cleanStep).find()) {
+        if (MULTI_SELECT.matcher(cleanStep).find()) {
             logger.debug("Multi-value select detected - NOT a combined action");
             return false;
         }
@@ -288,14 +426,7 @@ public class SmartStepParser {
         
         // Count potential action delimiters
         // Use regex to find patterns like: "Enter X and Enter Y" or "Click X also Click Y"
-        Pattern combinedPattern = Pattern.compile(
-            "(enter|click|select|type|fill|choose|check|uncheck|close).*?" +  // First action
-            "\\s+(?:and|also|then|,|&)\\s+" +  // Delimiter
-            "(enter|click|select|type|fill|choose|check|uncheck|close)",  // Second action
-            Pattern.CASE_INSENSITIVE
-        );
-        
-        Matcher matcher = combinedPattern.matcher(cleanStep);
+        Matcher matcher = COMBINED_ACTION.matcher(cleanStep);
         boolean isCombined = matcher.find();
         
         if (isCombined) {
@@ -312,21 +443,7 @@ public class SmartStepParser {
      * Returns a CompositeActionPlan containing all sub-actions.
      */
     private ActionPlan parseCombinedActions(String step, Page page, agent.browser.SmartLocator smartLocator) {
-        // Extract the Gherkin keyword (Given/When/Then/And)
-        String gherkinKeyword = "";
-        Pattern keywordPattern = Pattern.compile("^(Given|When|Then|And|But)\\s+", Pattern.CASE_INSENSITIVE);
-        Matcher keywordMatcher = keywordPattern.matcher(step);
-        if (keywordMatcher.find()) {
-            gherkinKeyword = keywordMatcher.group(1);
-        }
-        
-        // Remove Gherkin keyword for splitting
-        String cleanStep = step.replaceAll("^(?i)(Given|When|Then|And|But)\\s+", "");
-        
-        // Split by delimiters while preserving quoted strings
-        // This regex splits by: "and", "also", "then", ",", or "&" (with surrounding spaces)
-        // But NOT if they're inside quotes
-        List<String> subActions = splitByDelimiters(cleanStep);
+        List<String> subActions = combinedSubSteps(step);
         
         logger.info("Split into {} sub-actions", subActions.size());
         for (int i = 0; i < subActions.size(); i++) {
@@ -336,12 +453,8 @@ public class SmartStepParser {
         List<ActionPlan> parsedActions = new ArrayList<>();
         
         for (int i = 0; i < subActions.size(); i++) {
-            String subAction = subActions.get(i).trim();
-            
-            // For subsequent actions, prepend "And" if no Gherkin keyword exists
-            String fullSubAction = (i == 0 && !gherkinKeyword.isEmpty()) 
-                ? gherkinKeyword + " " + subAction 
-                : "And " + subAction;
+            String fullSubAction = subActions.get(i);
+            String subAction = StepText.stripKeyword(fullSubAction);
             
             logger.debug("  {}. {}", (i + 1), subAction);
             
@@ -364,6 +477,36 @@ public class SmartStepParser {
         return compositePlan;
     }
     
+    /**
+     * Splits a combined step into standalone sub-steps, each with a Gherkin keyword:
+     * the first keeps the step's own keyword, the rest get "And".
+     */
+    private List<String> combinedSubSteps(String step) {
+        // Extract the Gherkin keyword (Given/When/Then/And)
+        String gherkinKeyword = "";
+        Matcher keywordMatcher = LEADING_KEYWORD.matcher(step);
+        if (keywordMatcher.find()) {
+            gherkinKeyword = keywordMatcher.group(1);
+        }
+        
+        // Remove Gherkin keyword for splitting
+        String cleanStep = StepText.stripKeyword(step);
+        
+        // Split by delimiters while preserving quoted strings
+        // This regex splits by: "and", "also", "then", ",", or "&" (with surrounding spaces)
+        // But NOT if they're inside quotes
+        List<String> subSteps = new ArrayList<>();
+        List<String> parts = splitByDelimiters(cleanStep);
+        for (int i = 0; i < parts.size(); i++) {
+            String subAction = parts.get(i).trim();
+            // For subsequent actions, prepend "And" if no Gherkin keyword exists
+            subSteps.add((i == 0 && !gherkinKeyword.isEmpty()) 
+                ? gherkinKeyword + " " + subAction 
+                : "And " + subAction);
+        }
+        return subSteps;
+    }
+    
     /**
      * Splits a step by delimiters while respecting quoted strings.
      * Delimiters: "and", "also", "then", ",", "&"
@@ -375,9 +518,7 @@ public class SmartStepParser {
         
         // Split by common delimiters, but be smart about quotes
         // Use a regex that matches delimiters outside of quotes
-        String delimiterRegex = "\\s+(?:and|also|then|,|&)\\s+(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
-        
-        String[] rawParts = step.split(delimiterRegex);
+        String[] rawParts = ACTION_DELIMITER.split(step);
         
         logger.debug("⚙️ REGEX SPLIT INTO {} RAW PARTS", rawParts.length);
         for (int i = 0; i < rawParts.length; i++) {
@@ -416,37 +557,17 @@ public class SmartStepParser {
             }
         }
         
-        // Try table patterns
-        ActionPlan tablePlan = tryTablePatterns(step);
-        if (tablePlan != null) {
-            return tablePlan;
-        }
-        
-        // Try legacy patterns
-        ActionPlan legacyPlan = legacyPlanner.plan(step);
-        if (legacyPlan != null && !"unknown".equals(legacyPlan.getActionType())) {
-            return legacyPlan;
-        }
-        
-        // Try intent classification
-        ActionPlan fuzzyPlan = tryIntentClassification(step);
-        if (fuzzyPlan != null) {
-            return fuzzyPlan;
-        }
-        
-        return createUnknownPlan(step);
+        // Table patterns, legacy patterns, intent classification (cached)
+        return parsePageIndependent(step);
     }
     
     private ActionPlan tryTablePatterns(String step) {
-        String cleanStep = step.replaceAll("^(?i)(Given|When|Then|And|But)\\s+", "");
-        
-        for (Map.Entry<String, List<TableStepPattern>> entry : tablePatterns.entrySet()) {
-            String actionType = entry.getKey();
-            for (TableStepPattern pattern : entry.getValue()) {
-                Matcher m = pattern.regex.matcher(cleanStep);
-                if (m.find()) {
-                    return buildActionPlan(actionType, step, m, pattern.groupMapping);
-                }
+        String cleanStep = StepText.stripKeyword(step);
+        
+        for (TableStepPattern pattern : tableIndex.candidates(cleanStep)) {
+            Matcher m = pattern.regex.matcher(cleanStep);
+            if (m.find()) {
+                return buildActionPlan(pattern.actionType, step, m, pattern.groupMapping);
             }
         }
         return null;
@@ -551,10 +672,12 @@ public class SmartStepParser {
      * Helper class to store pattern and its group mapping
      */
     private static class TableStepPattern {
+        String actionType;
         Pattern regex;
         Map<String, Object> groupMapping;
         
-        TableStepPattern(Pattern regex, Map<String, Object> groupMapping) {
+        TableStepPattern(String actionType, Pattern regex, Map<String, Object> groupMapping) {
+            this.actionType = actionType;
             this.regex = regex;
             this.groupMapping = groupMapping;
         }
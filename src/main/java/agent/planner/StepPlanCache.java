@@ -0,0 +1,100 @@
+package agent.planner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe LRU cache of parsed ActionPlans.
+ *
+ * Only holds plans that do not depend on page state, so one cache can be shared
+ * by every parser and worker. Plans are copied on the way in and on the way out:
+ * callers routinely mutate the plan they get (frame anchors, executed flag,
+ * metadata), and that must never leak into the cached original.
+ */
+public class StepPlanCache {
+
+    private final int maxSize;
+    private final Map<String, ActionPlan> plans;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public StepPlanCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ActionPlan> eldest) {
+                return size() > StepPlanCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Copy of the cached plan, or null on a miss
+     */
+    public ActionPlan get(String key) {
+        ActionPlan plan;
+        synchronized (plans) {
+            plan = plans.get(key);
+        }
+        if (plan == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return plan.copy();
+    }
+
+    public void put(String key, ActionPlan plan) {
+        if (plan == null) {
+            return;
+        }
+        ActionPlan copy = plan.copy();
+        synchronized (plans) {
+            plans.put(key, copy);
+        }
+    }
+
+    public void clear() {
+        synchronized (plans) {
+            plans.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+
+    public long getHits() { return hits.get(); }
+
+    public long getMisses() { return misses.get(); }
+
+    /**
+     * Hits as a percentage of all lookups (0 when nothing was looked up yet)
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : hits.get() * 100.0 / total;
+    }
+
+    /**
+     * Cache key for step text: the step exactly as written. Plans carry the
+     * step's own target and value text, and leading whitespace can even change
+     * which pattern matches, so no two differing steps may share a plan.
+     */
+    public static String key(String step) {
+        return step == null ? "" : step;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StepPlanCache{size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%}",
+            size(), maxSize, getHits(), getMisses(), getHitRate());
+    }
+}
@@ -1,5 +1,7 @@
 package agent.planner;
 
+import agent.utils.StepText;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -7,10 +9,14 @@ import java.util.regex.Pattern;
 
 public class StepPlanner {
 
+    private static final Pattern CLICK_PREFIX = Pattern.compile("^(?i)(?:click|tap|press|hit)(?:\\s+on)?\\s+");
+
     private final List<StepPattern> patterns = new ArrayList<>();
+    private final PatternDispatchIndex<StepPattern> dispatchIndex;
 
     public StepPlanner() {
         PatternRegistry.registerAllPatterns(this::addPattern);
+        this.dispatchIndex = new PatternDispatchIndex<>(patterns, p -> p.regex.pattern());
     }
 
     public ActionPlan plan(String step) {
@@ -18,9 +24,10 @@ public class StepPlanner {
         ActionPlan plan = null;
 
         String keyword = extractKeyword(step);
-        String cleanStep = step.replaceAll("^(?i)(Given|When|Then|And|But)\\s+", "");
+        String cleanStep = StepText.stripKeyword(step);
 
-        for (StepPattern p : patterns) {
+        // Only patterns whose leading verb fits the step, still in registration order
+        for (StepPattern p : dispatchIndex.candidates(cleanStep)) {
             Matcher m = p.regex.matcher(cleanStep);
             if (m.find()) {
                 plan = new ActionPlan(p.actionType, step);
@@ -32,7 +39,7 @@ public class StepPlanner {
                 // Special handling for select_multi: extract ALL quoted values
                 if ("select_multi".equals(p.actionType)) {
                     String dropdownName = plan.getElementName();
-                    List<String> allQuoted = extractAllQuoted(cleanStep);
+                    List<String> allQuoted = StepText.allQuoted(cleanStep);
                     List<String> values = new ArrayList<>();
                     
                     for (String q : allQuoted) {
@@ -65,22 +72,22 @@ public class StepPlanner {
     }
 
     private ActionPlan fallbackPlan(String step, String keyword) {
-        String cleanStep = step.replaceAll("^(?i)(Given|When|Then|And|But)\\s+", "");
+        String cleanStep = StepText.stripKeyword(step);
         String lower = step.toLowerCase();
         ActionPlan plan = new ActionPlan("unknown", step);
         plan.setKeyword(keyword);
 
         if (lower.contains("click")) {
             plan.setActionType("click");
-            String quoted = extractQuoted(step);
+            String quoted = StepText.firstQuoted(step);
             if (quoted != null) {
                 plan.setElementName(quoted);
             } else {
-                plan.setElementName(cleanStep.replaceAll("^(?i)(?:click|tap|press|hit)(?:\\s+on)?\\s+", "").trim());
+                plan.setElementName(CLICK_PREFIX.matcher(cleanStep).replaceAll("").trim());
             }
         } else if (lower.contains("enter") || lower.contains("fill")) {
             plan.setActionType("fill");
-            List<String> q = extractAllQuoted(step);
+            List<String> q = StepText.allQuoted(step);
             if (!q.isEmpty()) plan.setValue(q.get(0)); 
             if (q.size() > 1) plan.setElementName(q.get(1));
         } else if (lower.contains("wait") || lower.contains("load")) {
@@ -97,16 +104,8 @@ public class StepPlanner {
     }
 
     private String extractKeyword(String step) {
-        String[] keys = {"Given", "When", "Then", "And", "But"};
-        for (String k : keys) {
-            if (step.trim().matches("(?i)^" + k + " .*")) return k;
-        }
-        return "And"; 
-    }
-
-    private String extractQuoted(String text) {
-        Matcher m = Pattern.compile("[\"']([^\"']+)[\"']").matcher(text);
-        return m.find() ? m.group(1) : null;
+        String keyword = StepText.keyword(step);
+        return keyword != null ? keyword : "And";
     }
 
     private String stripQuotes(String text) {
@@ -118,13 +117,6 @@ public class StepPlanner {
         return text;
     }
 
-    private List<String> extractAllQuoted(String text) {
-        List<String> res = new ArrayList<>();
-        Matcher m = Pattern.compile("[\"']([^\"']+)[\"']").matcher(text);
-        while (m.find()) res.add(m.group(1));
-        return res;
-    }
-
     private static class StepPattern {
         Pattern regex;
         String actionType;
@@ -0,0 +1,125 @@
+package agent.runner;
+
+import agent.context.TestContext;
+import agent.utils.LoggerUtil;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memoizes a feature's Background per worker: the first scenario of a feature
+ * runs the Background normally and the resulting cookies, localStorage and URL
+ * are captured; later scenarios of that feature on the same worker start their
+ * context from that snapshot and skip the Background steps.
+ *
+ * Snapshots are keyed by feature path and the exact Background steps, so rule
+ * backgrounds get their own snapshot. Only state that Playwright's storage state
+ * covers is carried over, plus what the steps stored in the TestContext;
+ * sessionStorage and in-memory page state are not.
+ *
+ * Not thread-safe: each worker owns its own cache, like its Browser.
+ */
+public class BackgroundSnapshotCache {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(BackgroundSnapshotCache.class);
+
+    private final Map<String, Snapshot> snapshots = new HashMap<>();
+
+    /**
+     * Checkpoint for the unit's Background, or null if the unit has none
+     */
+    public BackgroundCheckpoint checkpointFor(ExecutionUnit unit) {
+        List<String> background = unit.getBackgroundSteps();
+        if (background.isEmpty()) {
+            return null;
+        }
+        String key = unit.getFeaturePath() + "\n" + String.join("\n", background);
+        return new BackgroundCheckpoint(key, unit.getFeatureName(), background.size(), snapshots.get(key));
+    }
+
+    private static class Snapshot {
+        final String storageState;
+        final String url;
+        final TestContext testContext;
+
+        Snapshot(String storageState, String url, TestContext testContext) {
+            this.storageState = storageState;
+            this.url = url;
+            this.testContext = testContext;
+        }
+    }
+
+    /**
+     * Background state of one unit execution
+     */
+    public class BackgroundCheckpoint implements StepCheckpoint {
+
+        private final String key;
+        private final String featureName;
+        private final int stepCount;
+        private Snapshot snapshot;
+        private BrowserContext context;
+
+        BackgroundCheckpoint(String key, String featureName, int stepCount, Snapshot snapshot) {
+            this.key = key;
+            this.featureName = featureName;
+            this.stepCount = stepCount;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Storage state to create the unit's context from, or null if the
+         * Background has not run on this worker yet
+         */
+        public String getSnapshot() {
+            return snapshot != null ? snapshot.storageState : null;
+        }
+
+        @Override
+        public int getStepCount() { return stepCount; }
+
+        @Override
+        public void attach(BrowserContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public int restore(Page page) {
+            if (snapshot == null) {
+                return 0;
+            }
+            try {
+                if (snapshot.url != null && !snapshot.url.isEmpty() && !"about:blank".equals(snapshot.url)) {
+                    page.navigate(snapshot.url);
+                    page.waitForLoadState();
+                }
+                TestContext.restore(snapshot.testContext);
+                logger.success("Background restored for {} (skipping {} steps)", featureName, stepCount);
+                return stepCount;
+            } catch (Exception e) {
+                logger.warn("Could not restore Background for {}: {}", featureName, e.getMessage());
+                snapshots.remove(key);
+                snapshot = null;
+                return 0;
+            }
+        }
+
+        @Override
+        public void reached(Page page) {
+            if (context == null) {
+                return;
+            }
+            try {
+                page.waitForLoadState();
+                snapshot = new Snapshot(context.storageState(), page.url(), TestContext.getInstance().copy());
+                snapshots.put(key, snapshot);
+                logger.debug("Background snapshot captured for {} at {}", featureName, snapshot.url);
+            } catch (Exception e) {
+                logger.warn("Could not capture Background state for {}: {}", featureName, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package agent.runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A unit of work handed to a worker: either a whole feature file (serial view of
+ * all its steps) or a single scenario with its background.
+ *
+ * The id is also the key used for duration history, so a feature-level unit is
+ * identified by its file name and a scenario unit by "File.feature > Scenario".
+ */
+public class ExecutionUnit {
+
+    private final String id;
+    private final String featureName;
+    private final String featurePath;
+    private final List<String> backgroundSteps;
+    private final List<String> steps;
+
+    public ExecutionUnit(String id, String featureName, String featurePath,
+                         List<String> backgroundSteps, List<String> steps) {
+        this.id = id;
+        this.featureName = featureName;
+        this.featurePath = featurePath;
+        this.backgroundSteps = Collections.unmodifiableList(new ArrayList<>(backgroundSteps));
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+    /**
+     * Unit covering every step of a feature file, background included
+     */
+    public static ExecutionUnit forFeature(String featureName, String featurePath, List<String> steps) {
+        return new ExecutionUnit(featureName, featureName, featurePath, List.of(), steps);
+    }
+
+    /**
+     * Unit covering one scenario of a feature, with the background that applies to it
+     */
+    public static ExecutionUnit forScenario(String featureName, String featurePath, String scenarioName,
+                                            int line, List<String> backgroundSteps, List<String> steps) {
+        String label = scenarioName.isEmpty() ? "line " + line : scenarioName;
+        return new ExecutionUnit(featureName + " > " + label, featureName, featurePath, backgroundSteps, steps);
+    }
+
+    public String getId() { return id; }
+
+    /**
+     * File name of the feature this unit belongs to
+     */
+    public String getFeatureName() { return featureName; }
+
+    public String getFeaturePath() { return featurePath; }
+
+    public List<String> getBackgroundSteps() { return backgroundSteps; }
+
+    public List<String> getSteps() { return steps; }
+
+    /**
+     * Background followed by the unit's own steps, in execution order
+     */
+    public List<String> getAllSteps() {
+        List<String> all = new ArrayList<>(backgroundSteps);
+        all.addAll(steps);
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionUnit{" + id + ", steps=" + (backgroundSteps.size() + steps.size()) + '}';
+    }
+}
@@ -0,0 +1,122 @@
+package agent.runner;
+
+import agent.utils.LoggerUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persists per-feature wall-clock durations between runs.
+ *
+ * Durations are stored as a smoothed average (exponential moving average) so a
+ * single slow or fast run does not swing the schedule too far. The file is a
+ * plain properties file keyed by feature file name, so it can be inspected or
+ * deleted by hand.
+ *
+ * Thread-safe: workers record results concurrently.
+ */
+public class FeatureDurationHistory {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(FeatureDurationHistory.class);
+
+    public static final String DEFAULT_HISTORY_FILE = "config/feature_durations.properties";
+
+    // Weight of the newest observation in the moving average
+    private static final double SMOOTHING = 0.5;
+
+    // Estimate used for features that have never been timed and no history exists at all
+    private static final long DEFAULT_ESTIMATE_MS = 60000;
+
+    private final File file;
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+    public FeatureDurationHistory() {
+        this(DEFAULT_HISTORY_FILE);
+    }
+
+    public FeatureDurationHistory(String path) {
+        this.file = new File(path);
+        load();
+    }
+
+    /**
+     * Historical duration for a feature, or -1 if it has never been timed
+     */
+    public long getDuration(String featureName) {
+        return durations.getOrDefault(featureName, -1L);
+    }
+
+    /**
+     * Estimated duration for scheduling. Features without history are assumed to
+     * take as long as an average known feature.
+     */
+    public long estimate(String featureName) {
+        Long known = durations.get(featureName);
+        if (known != null) {
+            return known;
+        }
+        if (durations.isEmpty()) {
+            return DEFAULT_ESTIMATE_MS;
+        }
+        long total = 0;
+        for (long d : durations.values()) {
+            total += d;
+        }
+        return total / durations.size();
+    }
+
+    /**
+     * Record the duration of a completed feature
+     */
+    public void record(String featureName, long durationMs) {
+        durations.merge(featureName, durationMs,
+            (previous, latest) -> Math.round(previous * (1 - SMOOTHING) + latest * SMOOTHING));
+    }
+
+    public void save() {
+        Properties props = new Properties();
+        durations.forEach((name, ms) -> props.setProperty(name, String.valueOf(ms)));
+
+        try {
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            try (OutputStream out = new FileOutputStream(file)) {
+                props.store(out, "Feature wall-clock durations (ms), used for longest-first scheduling");
+            }
+            logger.debug("Saved duration history ({} features)", durations.size());
+        } catch (Exception e) {
+            logger.warn("Could not save duration history: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            logger.debug("No duration history found at {}, starting fresh", file.getPath());
+            return;
+        }
+
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (Exception e) {
+            logger.warn("Could not load duration history: {}", e.getMessage());
+            return;
+        }
+
+        for (String name : props.stringPropertyNames()) {
+            try {
+                durations.put(name, Long.parseLong(props.getProperty(name).trim()));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed duration entry: {}", name);
+            }
+        }
+        logger.info("Loaded duration history ({} features)", durations.size());
+    }
+}
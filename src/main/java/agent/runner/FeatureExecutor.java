@@ -0,0 +1,159 @@
+package agent.runner;
+
+import agent.browser.BrowserService;
+import agent.browser.SmartLocator;
+import agent.planner.ActionPlan;
+import agent.planner.CompiledPlans;
+import agent.planner.CompositeActionPlan;
+import agent.planner.SmartStepParser;
+import agent.reporting.StepExecutionReport;
+import agent.utils.LoggerUtil;
+import com.microsoft.playwright.Page;
+
+import java.util.List;
+
+/**
+ * Executes the steps of a single feature against a Page.
+ *
+ * Stops at the first failing step and counts the remaining steps as skipped,
+ * so a broken step never cascades into uncontrolled follow-up failures.
+ *
+ * Not thread-safe: each worker thread owns its own executor (and parser),
+ * because the Playwright objects it drives are confined to that thread.
+ */
+public class FeatureExecutor {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(FeatureExecutor.class);
+
+    private final SmartStepParser planner;
+    private final CompiledPlans compiledPlans;
+
+    public FeatureExecutor() {
+        this(new SmartStepParser());
+    }
+
+    public FeatureExecutor(SmartStepParser planner) {
+        this(planner, null);
+    }
+
+    /**
+     * @param compiledPlans plans from PlanCompiler, or null to parse every step live
+     */
+    public FeatureExecutor(SmartStepParser planner, CompiledPlans compiledPlans) {
+        this.planner = planner;
+        this.compiledPlans = compiledPlans;
+    }
+
+    /**
+     * Run all steps on the given page and return the aggregated result
+     */
+    public FeatureResult execute(String featureName, List<String> steps, Page page) {
+        return execute(featureName, steps, page, List.of());
+    }
+
+    /**
+     * Run all steps, skipping the leading steps of a checkpoint that restores saved
+     * state (login, Background), and notifying each checkpoint once its steps pass.
+     */
+    public FeatureResult execute(String featureName, List<String> steps, Page page,
+                                 List<? extends StepCheckpoint> checkpoints) {
+        long startTime = System.currentTimeMillis();
+        FeatureResult result = new FeatureResult(featureName);
+
+        SmartLocator smartLocator = new SmartLocator(page);
+        BrowserService browserService = new BrowserService(page, smartLocator);
+
+        int totalSteps = steps.size();
+        int passed = 0;
+        int failed = 0;
+        int skipped = 0;
+        boolean shouldContinue = true;
+
+        int restoredSteps = 0;
+        for (StepCheckpoint checkpoint : checkpoints) {
+            restoredSteps = Math.max(restoredSteps, checkpoint.restore(page));
+        }
+        passed += restoredSteps;
+
+        for (int i = restoredSteps; i < steps.size(); i++) {
+            String step = steps.get(i);
+            if (!shouldContinue) {
+                skipped++;
+                logger.warn("SKIPPED: {}", step);
+                continue;
+            }
+
+            ActionPlan plan = compiledPlans != null ? compiledPlans.get(step) : null;
+            if (plan != null) {
+                logger.info("Step: {} (precompiled)", step);
+            } else {
+                plan = planner.parseStep(step, page, smartLocator);
+            }
+            logger.debug(plan.toString());
+
+            // Check if this is a composite action plan
+            if (plan instanceof CompositeActionPlan) {
+                CompositeActionPlan compositePlan = (CompositeActionPlan) plan;
+                boolean allSubActionsSucceeded = true;
+
+                logger.info("  Executing {} sub-actions...", compositePlan.getSubActionCount());
+
+                int subIndex = 1;
+                for (ActionPlan subAction : compositePlan.getSubActions()) {
+                    logger.step("Sub-action {}/{}: {}", subIndex, compositePlan.getSubActionCount(), subAction.getActionType());
+
+                    StepExecutionReport subReport = browserService.executeAction(subAction);
+
+                    if ("PASSED".equals(subReport.getStatus())) {
+                        logger.success("Sub-action {} succeeded", subIndex);
+                    } else {
+                        logger.failure("Sub-action {} failed", subIndex);
+                        allSubActionsSucceeded = false;
+                        break;
+                    }
+                    subIndex++;
+                }
+
+                if (allSubActionsSucceeded) {
+                    passed++;
+                    notifyCheckpoints(checkpoints, i, page);
+                } else {
+                    failed++;
+                    shouldContinue = false;
+                }
+            } else {
+                StepExecutionReport report = browserService.executeAction(plan);
+
+                if ("PASSED".equals(report.getStatus())) {
+                    passed++;
+                    notifyCheckpoints(checkpoints, i, page);
+                } else {
+                    failed++;
+                    shouldContinue = false;
+                }
+            }
+        }
+
+        logger.section("FEATURE SUMMARY: " + featureName);
+        logger.info("  Total Steps : {}", totalSteps);
+        logger.info("  Passed      : {}", passed);
+        logger.info("  Failed      : {}", failed);
+        logger.info("  Skipped     : {}", skipped);
+        logger.info("--------------------------------------------------\n");
+
+        result.setTotalSteps(totalSteps);
+        result.setPassed(passed);
+        result.setFailed(failed);
+        result.setSkipped(skipped);
+        result.setDurationMs(System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    private void notifyCheckpoints(List<? extends StepCheckpoint> checkpoints, int passedIndex, Page page) {
+        for (StepCheckpoint checkpoint : checkpoints) {
+            if (checkpoint.getStepCount() == passedIndex + 1) {
+                checkpoint.reached(page);
+            }
+        }
+    }
+}
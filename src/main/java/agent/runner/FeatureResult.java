@@ -0,0 +1,88 @@
+package agent.runner;
+
+import java.util.List;
+
+/**
+ * Outcome of executing one feature file (or one unit of a feature).
+ * Aggregated by AllFeaturesTestRunner into the suite summary.
+ */
+public class FeatureResult {
+
+    private final String featureName;
+    private int totalSteps;
+    private int passed;
+    private int failed;
+    private int skipped;
+    private long durationMs;
+    private String errorMessage;
+
+    public FeatureResult(String featureName) {
+        this.featureName = featureName;
+    }
+
+    /**
+     * Creates a failed result for a feature that could not be executed at all
+     * (unreadable file, browser launch failure, etc.)
+     */
+    public static FeatureResult error(String featureName, String errorMessage) {
+        FeatureResult result = new FeatureResult(featureName);
+        result.errorMessage = errorMessage;
+        return result;
+    }
+
+    /**
+     * Combine the results of several units (e.g. the scenarios of one feature)
+     * into a single feature-level result
+     */
+    public static FeatureResult combine(String featureName, List<FeatureResult> parts) {
+        FeatureResult combined = new FeatureResult(featureName);
+        for (FeatureResult part : parts) {
+            combined.totalSteps += part.totalSteps;
+            combined.passed += part.passed;
+            combined.failed += part.failed;
+            combined.skipped += part.skipped;
+            combined.durationMs += part.durationMs;
+            if (part.errorMessage != null && combined.errorMessage == null) {
+                combined.errorMessage = part.errorMessage;
+            }
+        }
+        return combined;
+    }
+
+    public String getFeatureName() { return featureName; }
+
+    public int getTotalSteps() { return totalSteps; }
+    public void setTotalSteps(int totalSteps) { this.totalSteps = totalSteps; }
+
+    public int getPassed() { return passed; }
+    public void setPassed(int passed) { this.passed = passed; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public int getSkipped() { return skipped; }
+    public void setSkipped(int skipped) { this.skipped = skipped; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public boolean isSuccess() {
+        return errorMessage == null && failed == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureResult{" +
+                "featureName='" + featureName + '\'' +
+                ", totalSteps=" + totalSteps +
+                ", passed=" + passed +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                ", durationMs=" + durationMs +
+                ", errorMessage='" + errorMessage + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package agent.runner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Longest-processing-time-first (LPT) scheduling of execution units across workers.
+ *
+ * Workers pull from a shared queue, so ordering the queue by descending expected
+ * duration is exactly greedy LPT: whichever worker frees up first takes the
+ * longest remaining unit. Slow features (or scenarios) start early instead of
+ * being left running alone at the end of the suite.
+ */
+public class FeatureScheduler {
+
+    private final FeatureDurationHistory history;
+
+    public FeatureScheduler(FeatureDurationHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Order units by expected duration, longest first. Ties keep id order so
+     * the schedule is deterministic.
+     */
+    public List<ExecutionUnit> longestFirst(List<ExecutionUnit> units) {
+        List<ExecutionUnit> ordered = new ArrayList<>(units);
+        ordered.sort(Comparator
+            .comparingLong((ExecutionUnit u) -> history.estimate(u.getId())).reversed()
+            .thenComparing(ExecutionUnit::getId));
+        return ordered;
+    }
+
+    /**
+     * Simulate list scheduling of the given order on N workers and return the
+     * predicted makespan (time until the last worker finishes) in milliseconds.
+     */
+    public long predictMakespan(List<ExecutionUnit> orderedUnits, int workers) {
+        PriorityQueue<Long> workerLoads = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(1, workers); i++) {
+            workerLoads.add(0L);
+        }
+
+        long makespan = 0;
+        for (ExecutionUnit unit : orderedUnits) {
+            long load = workerLoads.poll() + history.estimate(unit.getId());
+            makespan = Math.max(makespan, load);
+            workerLoads.add(load);
+        }
+        return makespan;
+    }
+}
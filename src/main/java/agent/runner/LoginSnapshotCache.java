@@ -0,0 +1,266 @@
+package agent.runner;
+
+import agent.browser.actions.input.FillCredentialsAction;
+import agent.planner.PatternRegistry;
+import agent.utils.ConfigLoader;
+import agent.utils.LoggerUtil;
+import agent.utils.StepText;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Performs the navigate_app / fill_credentials login once per application and
+ * credential set, and lets later units start from the resulting Playwright
+ * storage state (cookies + localStorage) instead of logging in again.
+ *
+ * A unit is a login flow when its steps start with:
+ *   1. "Open Browser and Navigate to <App>"   (navigate_app)
+ *   2. "user enters username and password"   (fill_credentials)
+ *   3. a click/press/submit step that submits the form
+ *
+ * The first unit for an app logs in normally and publishes a snapshot once step
+ * 3 has passed; units for the same app that start meanwhile wait for it instead
+ * of logging in in parallel. A restored snapshot is checked by opening the app:
+ * if a password field is shown again the session has expired, the snapshot is
+ * dropped and the unit logs in from scratch, publishing a fresh snapshot.
+ *
+ * Thread-safe: one cache is shared by all workers. Snapshots live in memory for
+ * the duration of the run only.
+ */
+public class LoginSnapshotCache {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(LoginSnapshotCache.class);
+
+    private static final Pattern SUBMIT_STEP = Pattern.compile(
+        "^(?i)(?:given|when|then|and|but)?\\s*(?:I|user|we|he|she|they)?\\s*(?:click|tap|press|submit)(?:s|es)?\\b.*");
+
+    private static final long LOGIN_WAIT_MS = 120000;
+
+    private final List<PatternGroup> navigateAppPatterns = new ArrayList<>();
+    private final List<Pattern> fillCredentialsPatterns = new ArrayList<>();
+    private final Map<String, CompletableFuture<String>> snapshots = new ConcurrentHashMap<>();
+
+    public LoginSnapshotCache() {
+        // Same patterns the planner uses, so detection never drifts from parsing
+        PatternRegistry.registerAllPatterns((actionType, regex, elementGroup, valueGroup, rowAnchorGroup) -> {
+            if ("navigate_app".equals(actionType)) {
+                navigateAppPatterns.add(new PatternGroup(Pattern.compile(regex, Pattern.CASE_INSENSITIVE), elementGroup));
+            } else if ("fill_credentials".equals(actionType)) {
+                fillCredentialsPatterns.add(Pattern.compile(regex, Pattern.CASE_INSENSITIVE));
+            }
+        });
+    }
+
+    /**
+     * Start a login-aware session for a unit. The session is inactive (no-op) when
+     * the steps do not begin with a login flow. Blocks while another worker is
+     * logging in to the same app, so it must be called before choosing a context.
+     */
+    public LoginSession open(List<String> steps) {
+        LoginFlow flow = detect(steps);
+        if (flow == null) {
+            return new LoginSession(this, null, null, false);
+        }
+
+        CompletableFuture<String> claim = new CompletableFuture<>();
+        CompletableFuture<String> existing = snapshots.putIfAbsent(flow.key, claim);
+        if (existing == null) {
+            logger.info("Login snapshot: performing first login for {}", flow.appName);
+            return new LoginSession(this, flow, null, true);
+        }
+
+        String snapshot = null;
+        try {
+            snapshot = existing.get(LOGIN_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warn("Login snapshot: gave up waiting for login to {}: {}", flow.appName, e.getMessage());
+        }
+        return new LoginSession(this, flow, snapshot, false);
+    }
+
+    LoginFlow detect(List<String> steps) {
+        if (steps.size() < 3 || !SUBMIT_STEP.matcher(steps.get(2)).matches()) {
+            return null;
+        }
+        String appName = matchAppName(steps.get(0));
+        if (appName == null || !matchesAny(fillCredentialsPatterns, strip(steps.get(1)))) {
+            return null;
+        }
+
+        String url = ConfigLoader.getAppUrl(appName);
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        String username = ConfigLoader.getCredentials(FillCredentialsAction.determineAppContext(url.toLowerCase()))
+            .get("username");
+        return new LoginFlow(appName, url, appName.toLowerCase() + "|" + username, 3);
+    }
+
+    void publish(LoginFlow flow, String storageState) {
+        CompletableFuture<String> done = CompletableFuture.completedFuture(storageState);
+        CompletableFuture<String> previous = snapshots.put(flow.key, done);
+        if (previous != null) {
+            previous.complete(storageState);
+        }
+        logger.success("Login snapshot saved for {}", flow.appName);
+    }
+
+    /**
+     * Release a claim without a snapshot so waiting workers log in themselves
+     */
+    void abandon(LoginFlow flow) {
+        CompletableFuture<String> current = snapshots.get(flow.key);
+        if (current != null && !current.isDone()) {
+            snapshots.remove(flow.key, current);
+            current.complete(null);
+        }
+    }
+
+    void invalidate(LoginFlow flow, String staleState) {
+        snapshots.computeIfPresent(flow.key, (k, f) -> f.isDone() && staleState.equals(f.getNow(null)) ? null : f);
+        logger.warning("Login snapshot for {} has expired, logging in again", flow.appName);
+    }
+
+    private String matchAppName(String step) {
+        String cleanStep = strip(step);
+        for (PatternGroup pattern : navigateAppPatterns) {
+            Matcher m = pattern.regex.matcher(cleanStep);
+            if (m.find() && pattern.group > 0 && m.group(pattern.group) != null) {
+                return m.group(pattern.group).trim().replaceAll("^[\"']|[\"']$", "");
+            }
+        }
+        return null;
+    }
+
+    private boolean matchesAny(List<Pattern> patterns, String step) {
+        return patterns.stream().anyMatch(p -> p.matcher(step).find());
+    }
+
+    private String strip(String step) {
+        return StepText.stripKeyword(step.trim());
+    }
+
+    /**
+     * Leading login steps of a unit and the app/credential set they log in to
+     */
+    static class LoginFlow {
+        final String appName;
+        final String url;
+        final String key;
+        final int stepCount;
+
+        LoginFlow(String appName, String url, String key, int stepCount) {
+            this.appName = appName;
+            this.url = url;
+            this.key = key;
+            this.stepCount = stepCount;
+        }
+    }
+
+    private static class PatternGroup {
+        final Pattern regex;
+        final int group;
+
+        PatternGroup(Pattern regex, int group) {
+            this.regex = regex;
+            this.group = group;
+        }
+    }
+
+    /**
+     * Login state of one unit execution. Confined to the worker thread running the unit.
+     */
+    public static class LoginSession implements StepCheckpoint, AutoCloseable {
+
+        private final LoginSnapshotCache cache;
+        private final LoginFlow flow;
+        private String snapshot;
+        private boolean ownsClaim;
+        private BrowserContext context;
+
+        LoginSession(LoginSnapshotCache cache, LoginFlow flow, String snapshot, boolean ownsClaim) {
+            this.cache = cache;
+            this.flow = flow;
+            this.snapshot = snapshot;
+            this.ownsClaim = ownsClaim;
+        }
+
+        /**
+         * Storage state to create the unit's context from, or null for a clean context
+         */
+        public String getSnapshot() { return snapshot; }
+
+        @Override
+        public void attach(BrowserContext context) {
+            this.context = context;
+        }
+
+        /**
+         * Number of leading steps that make up the login (0 if the unit has none)
+         */
+        @Override
+        public int getStepCount() {
+            return flow == null ? 0 : flow.stepCount;
+        }
+
+        /**
+         * Open the app in a context created from the snapshot and check the session
+         * is still valid. Returns the number of login steps that can be skipped:
+         * all of them if the session is valid, 0 if the unit must log in itself.
+         */
+        @Override
+        public int restore(Page page) {
+            if (flow == null || snapshot == null) {
+                return 0;
+            }
+            try {
+                page.navigate(flow.url);
+                page.waitForLoadState();
+                boolean loginFormShown = page.locator("input[type=password]").first().isVisible();
+                if (!loginFormShown) {
+                    logger.success("Login snapshot restored for {} (skipping {} login steps)", flow.appName, flow.stepCount);
+                    return flow.stepCount;
+                }
+            } catch (Exception e) {
+                logger.warn("Login snapshot check failed for {}: {}", flow.appName, e.getMessage());
+            }
+            cache.invalidate(flow, snapshot);
+            snapshot = null;
+            return 0;
+        }
+
+        /**
+         * Called once the login steps have passed: capture and publish the session
+         */
+        @Override
+        public void reached(Page page) {
+            if (flow == null || context == null) {
+                return;
+            }
+            try {
+                page.waitForLoadState();
+                cache.publish(flow, context.storageState());
+                ownsClaim = false;
+            } catch (Exception e) {
+                logger.warn("Could not capture login snapshot for {}: {}", flow.appName, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (ownsClaim) {
+                cache.abandon(flow);
+                ownsClaim = false;
+            }
+        }
+    }
+}
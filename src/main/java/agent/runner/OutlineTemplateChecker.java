@@ -0,0 +1,79 @@
+package agent.runner;
+
+import agent.feature.ScenarioModel;
+import agent.planner.ActionPlan;
+import agent.planner.SmartStepParser;
+import agent.utils.LoggerUtil;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the steps of Scenario Outline rows with SmartStepParser before any
+ * Examples row is scheduled, once per distinct step with the row's values
+ * substituted. Whether a step parses can depend on those values (quotes,
+ * numbers or keywords inside a value), so one row's result does not stand for
+ * another's.
+ *
+ * Plans are still built per row against the live page at execution time (they
+ * carry Locators bound to that page), but a step that no strategy can parse
+ * without a page cannot be parsed with one either. Rows with a step that is not
+ * understood are therefore rejected up front instead of opening a browser
+ * context only to fail on that step.
+ *
+ * Not thread-safe: used while planning, before workers start.
+ */
+public class OutlineTemplateChecker {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(OutlineTemplateChecker.class);
+
+    private final SmartStepParser parser;
+    private final Map<String, Boolean> supportedSteps = new HashMap<>();
+    private final Set<String> seenTemplates = new HashSet<>();
+
+    public OutlineTemplateChecker() {
+        this(new SmartStepParser());
+    }
+
+    public OutlineTemplateChecker(SmartStepParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Return the first step of the instance that cannot be parsed, or null if
+     * every step is supported. Each distinct step is parsed only once.
+     */
+    public String findUnsupportedStep(ScenarioModel instance) {
+        List<String> templates = instance.getTemplateSteps();
+        List<String> steps = instance.getSteps();
+
+        for (int i = 0; i < templates.size(); i++) {
+            String step = steps.get(i);
+            seenTemplates.add(templates.get(i));
+            boolean supported = supportedSteps.computeIfAbsent(step, this::isParseable);
+            if (!supported) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Number of distinct step templates checked so far
+     */
+    public int getTemplateCount() {
+        return seenTemplates.size();
+    }
+
+    private boolean isParseable(String step) {
+        ActionPlan plan = parser.parseStep(step);
+        boolean parseable = plan != null && !"unknown".equals(plan.getActionType());
+        if (!parseable) {
+            logger.warning("Outline step cannot be parsed: {}", step);
+        }
+        return parseable;
+    }
+}
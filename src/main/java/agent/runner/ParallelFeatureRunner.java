@@ -0,0 +1,194 @@
+package agent.runner;
+
+import agent.context.TestContext;
+import agent.planner.CompiledPlans;
+import agent.planner.SmartStepParser;
+import agent.utils.LoggerUtil;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs execution units (whole features or single scenarios) concurrently on a
+ * fixed number of workers.
+ *
+ * Each worker thread owns its own Playwright instance and Browser (Playwright's
+ * Java API is thread-confined) and pulls units from a shared queue until it is
+ * empty. Every unit runs in a fresh BrowserContext of the worker's browser, so
+ * units stay isolated without paying a browser launch per unit; contexts are
+ * never reused, so cookies, storage and pages never leak between units.
+ * Contexts are created on the worker when its unit starts: Playwright objects
+ * cannot be used from another thread, so there is no pre-warmed pool. A scenario whose feature Background already ran on the worker starts
+ * from the saved Background state instead of replaying it.
+ *
+ * Results are returned in the order the units were submitted, regardless of
+ * the order in which they completed.
+ */
+public class ParallelFeatureRunner {
+
+    private static final LoggerUtil logger = LoggerUtil.getLogger(ParallelFeatureRunner.class);
+
+    private static final double DEFAULT_TIMEOUT_MS = 120000;
+
+    private final int workerCount;
+    private final LoginSnapshotCache loginCache;
+    private final CompiledPlans compiledPlans;
+
+    public ParallelFeatureRunner(int workerCount) {
+        this(workerCount, null, null);
+    }
+
+    /**
+     * @param loginCache shared login snapshots, or null to always log in from scratch
+     * @param compiledPlans plans from PlanCompiler, or null to parse every step live
+     */
+    public ParallelFeatureRunner(int workerCount, LoginSnapshotCache loginCache, CompiledPlans compiledPlans) {
+        this.workerCount = Math.max(1, workerCount);
+        this.loginCache = loginCache;
+        this.compiledPlans = compiledPlans;
+    }
+
+    /**
+     * Execute all units and block until every worker has finished
+     */
+    public List<FeatureResult> run(List<ExecutionUnit> units) throws InterruptedException {
+        ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < units.size(); i++) {
+            queue.add(i);
+        }
+        AtomicReferenceArray<FeatureResult> results = new AtomicReferenceArray<>(units.size());
+
+        int workers = Math.max(1, Math.min(workerCount, units.size()));
+        logger.info("Starting {} worker(s)", workers);
+
+        AtomicInteger threadIndex = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "feature-worker-" + threadIndex.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (int i = 0; i < workers; i++) {
+            executor.submit(() -> runWorker(units, queue, results));
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+        List<FeatureResult> ordered = new ArrayList<>();
+        for (int i = 0; i < units.size(); i++) {
+            FeatureResult result = results.get(i);
+            if (result == null) {
+                // Never picked up (every browser failed to launch) or the worker died mid-unit
+                result = FeatureResult.error(units.get(i).getId(), "No worker completed this unit");
+            }
+            ordered.add(result);
+        }
+        return ordered;
+    }
+
+    private void runWorker(List<ExecutionUnit> units, ConcurrentLinkedQueue<Integer> queue,
+                           AtomicReferenceArray<FeatureResult> results) {
+        FeatureExecutor featureExecutor = new FeatureExecutor(new SmartStepParser(), compiledPlans);
+        BackgroundSnapshotCache backgroundCache = new BackgroundSnapshotCache();
+
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(false));
+
+            try {
+                Integer index;
+                while ((index = queue.poll()) != null) {
+                    ExecutionUnit unit = units.get(index);
+                    logger.header("EXECUTING: " + unit.getId());
+
+                    FeatureResult result;
+                    BrowserContext context = null;
+                    LoginSnapshotCache.LoginSession loginSession = null;
+                    long startTime = System.currentTimeMillis();
+                    try {
+                        List<String> steps = unit.getAllSteps();
+                        List<StepCheckpoint> checkpoints = new ArrayList<>();
+                        String storageState = null;
+
+                        // A memoized Background already contains any login it performed
+                        BackgroundSnapshotCache.BackgroundCheckpoint background = backgroundCache.checkpointFor(unit);
+                        if (background != null) {
+                            checkpoints.add(background);
+                            storageState = background.getSnapshot();
+                        }
+                        if (storageState == null && loginCache != null) {
+                            loginSession = loginCache.open(steps);
+                            checkpoints.add(loginSession);
+                            storageState = loginSession.getSnapshot();
+                        }
+
+                        context = newContext(browser, storageState);
+                        for (StepCheckpoint checkpoint : checkpoints) {
+                            checkpoint.attach(context);
+                        }
+                        Page page = context.newPage();
+                        page.setDefaultTimeout(DEFAULT_TIMEOUT_MS);
+                        page.setDefaultNavigationTimeout(DEFAULT_TIMEOUT_MS);
+
+                        result = featureExecutor.execute(unit.getId(), steps, page, checkpoints);
+                    } catch (Exception e) {
+                        logger.error("Exception in feature execution: {}", e.getMessage(), e);
+                        result = FeatureResult.error(unit.getId(), e.getMessage());
+                    } finally {
+                        if (loginSession != null) {
+                            loginSession.close();
+                        }
+                        close(context);
+                        TestContext.reset();
+                    }
+                    // Wall-clock time including context setup, as used for scheduling
+                    result.setDurationMs(System.currentTimeMillis() - startTime);
+
+                    if (result.isSuccess()) {
+                        logger.success("PASSED: {}", unit.getId());
+                    } else {
+                        logger.failure("FAILED: {}", unit.getId());
+                    }
+                    results.set(index, result);
+                }
+            } finally {
+                browser.close();
+            }
+        } catch (Exception e) {
+            logger.error("Worker {} aborted: {}", Thread.currentThread().getName(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A fresh context, restored from a saved storage state (cookies and
+     * localStorage) when one is given
+     */
+    private static BrowserContext newContext(Browser browser, String storageState) {
+        if (storageState == null) {
+            return browser.newContext();
+        }
+        return browser.newContext(new Browser.NewContextOptions().setStorageState(storageState));
+    }
+
+    private static void close(BrowserContext context) {
+        if (context == null) {
+            return;
+        }
+        try {
+            context.close();
+        } catch (Exception e) {
+            logger.warn("Error closing browser context: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package agent.runner;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+
+/**
+ * A point after the first N steps of a unit whose browser state can be saved
+ * and restored, so later units can skip those steps (e.g. a login or a Background).
+ *
+ * FeatureExecutor asks every checkpoint to restore before running any step, and
+ * notifies a checkpoint once all of its steps have passed so it can capture state.
+ */
+public interface StepCheckpoint {
+
+    /**
+     * Number of leading steps covered by this checkpoint
+     */
+    int getStepCount();
+
+    /**
+     * Context the unit runs in; needed to capture its storage state
+     */
+    void attach(BrowserContext context);
+
+    /**
+     * Bring the page to the saved state. Returns the number of leading steps that
+     * can be skipped: getStepCount() on success, 0 if the steps must run.
+     */
+    int restore(Page page);
+
+    /**
+     * Called once the covered steps have passed
+     */
+    void reached(Page page);
+}
@@ -1,7 +1,14 @@
 package agent.utils;
 
+import java.util.Arrays;
+
 public class FuzzyMatch {
 
+    // Strings up to this length fit one machine word in the bit-parallel distance
+    private static final int WORD = 64;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     public static int calculate(String s1, String s2) {
         String visited = (s2.length() < s1.length()) ? s2 : s1;
         String target = (s2.length() < s1.length()) ? s1 : s2;
@@ -26,13 +33,222 @@ public class FuzzyMatch {
     public static double ratio(String s1, String s2) {
         if (s1 == null || s2 == null) return 0.0;
         if (s1.isEmpty() && s2.isEmpty()) return 100.0;
-        
+
         s1 = s1.toLowerCase().trim();
         s2 = s2.toLowerCase().trim();
-        
+
         int distance = calculate(s1, s2);
         int maxLength = Math.max(s1.length(), s2.length());
-        
+
         return (1.0 - ((double) distance / maxLength)) * 100.0;
     }
+
+    /**
+     * Same as ratio(s1, s2) > threshold, without computing the ratio: the
+     * threshold becomes a largest allowed edit distance, and the distance is
+     * only followed until that bound is certain to be exceeded
+     */
+    public static boolean ratioAbove(String s1, String s2, double threshold) {
+        if (s1 == null || s2 == null) return 0.0 > threshold;
+        if (s1.isEmpty() && s2.isEmpty()) return 100.0 > threshold;
+        return ratioOfNormalizedAbove(s1.toLowerCase().trim(), s2.toLowerCase().trim(), threshold, SCRATCH.get());
+    }
+
+    /**
+     * ratioAbove for strings that are already lowercased and trimmed, with the
+     * caller's work buffers. Unlike ratio, two empty strings count as NaN (not
+     * above any threshold): callers check the raw strings for that case first.
+     */
+    public static boolean ratioOfNormalizedAbove(String s1, String s2, double threshold, Scratch scratch) {
+        int maxLength = Math.max(s1.length(), s2.length());
+        int bound = scratch.maxDistance(maxLength, threshold);
+        if (bound < 0) return false;
+        return withinDistance(s1, s2, bound, scratch);
+    }
+
+    /**
+     * Largest distance d whose ratio (1 - d / maxLength) * 100 is above the
+     * threshold, evaluated exactly as ratio does, or -1 if there is none
+     */
+    static int maxDistance(int maxLength, double threshold) {
+        if (maxLength == 0) return -1;
+        int d = (int) Math.max(-1, Math.min(maxLength, Math.floor(maxLength * (1.0 - threshold / 100.0))));
+        while (d >= 0 && !(ratioAt(d, maxLength) > threshold)) {
+            d--;
+        }
+        while (d < maxLength && ratioAt(d + 1, maxLength) > threshold) {
+            d++;
+        }
+        return d;
+    }
+
+    private static double ratioAt(int distance, int maxLength) {
+        return (1.0 - ((double) distance / maxLength)) * 100.0;
+    }
+
+    /**
+     * Whether the edit distance of the two strings is at most bound
+     */
+    static boolean withinDistance(String s1, String s2, int bound, Scratch scratch) {
+        String shorter = s1.length() <= s2.length() ? s1 : s2;
+        String longer = s1.length() <= s2.length() ? s2 : s1;
+        // The distance is at least the length difference and at most the longer length
+        if (longer.length() - shorter.length() > bound) return false;
+        if (bound >= longer.length()) return true;
+        if (shorter.length() <= WORD) {
+            return bitParallelWithin(shorter, longer, bound, scratch);
+        }
+        return bandedWithin(shorter, longer, bound, scratch);
+    }
+
+    /**
+     * Myers' bit-parallel edit distance (Hyyro's formulation for whole
+     * strings): one word holds a column of the DP table for a pattern of up to
+     * 64 chars. Stops once the last row, less the text still to come, is past
+     * the bound.
+     */
+    private static boolean bitParallelWithin(String pattern, String text, int bound, Scratch scratch) {
+        int m = pattern.length();
+        int n = text.length();
+        scratch.loadPattern(pattern);
+        try {
+            long pv = m == WORD ? -1L : (1L << m) - 1;
+            long mv = 0L;
+            long last = 1L << (m - 1);
+            int score = m;
+            for (int j = 0; j < n; j++) {
+                long eq = scratch.mask(text.charAt(j));
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if ((ph & last) != 0) {
+                    score++;
+                } else if ((mh & last) != 0) {
+                    score--;
+                }
+                if (score - (n - j - 1) > bound) {
+                    return false;
+                }
+                // Row 0 grows by one per text char
+                ph = (ph << 1) | 1L;
+                mh = mh << 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+            }
+            return score <= bound;
+        } finally {
+            scratch.clearPattern(pattern);
+        }
+    }
+
+    /**
+     * Ukkonen's banded DP: only cells within bound of the diagonal can stay
+     * within bound. Stops once a whole row is past it.
+     */
+    private static boolean bandedWithin(String shorter, String longer, int bound, Scratch scratch) {
+        int m = shorter.length();
+        int n = longer.length();
+        int outside = bound + 1;
+        int[] row = scratch.row(n + 1);
+        for (int j = 0; j <= n; j++) {
+            row[j] = Math.min(j, outside);
+        }
+        for (int i = 1; i <= m; i++) {
+            int lo = Math.max(1, i - bound);
+            int hi = Math.min(n, i + bound);
+            int nw = row[lo - 1];
+            int left = lo == 1 ? Math.min(i, outside) : outside;
+            row[lo - 1] = left;
+            int rowMin = left;
+            char c = shorter.charAt(i - 1);
+            for (int j = lo; j <= hi; j++) {
+                int up = row[j];
+                int value = Math.min(c == longer.charAt(j - 1) ? nw : nw + 1, Math.min(up, left) + 1);
+                if (value > outside) value = outside;
+                nw = up;
+                row[j] = value;
+                left = value;
+                if (value < rowMin) rowMin = value;
+            }
+            if (rowMin > bound) {
+                return false;
+            }
+        }
+        return row[n] <= bound;
+    }
+
+    /**
+     * Reusable buffers for the thresholded distance: character masks for the
+     * bit-parallel pattern, a row for the banded DP, and the distance bounds
+     * already worked out for a threshold. Not thread-safe.
+     */
+    public static final class Scratch {
+        private final long[] ascii = new long[128];
+        private final char[] otherChars = new char[WORD];
+        private final long[] otherMasks = new long[WORD];
+        private int others;
+        private int[] row = new int[128];
+        // maxDistance by length for the last threshold, MIN_VALUE until computed
+        private double boundsThreshold = Double.NaN;
+        private int[] bounds = new int[0];
+
+        void loadPattern(String pattern) {
+            others = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c < 128) {
+                    ascii[c] |= 1L << i;
+                    continue;
+                }
+                int k = 0;
+                while (k < others && otherChars[k] != c) k++;
+                if (k == others) {
+                    otherChars[others] = c;
+                    otherMasks[others++] = 0L;
+                }
+                otherMasks[k] |= 1L << i;
+            }
+        }
+
+        long mask(char c) {
+            if (c < 128) return ascii[c];
+            for (int k = 0; k < others; k++) {
+                if (otherChars[k] == c) return otherMasks[k];
+            }
+            return 0L;
+        }
+
+        void clearPattern(String pattern) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c < 128) ascii[c] = 0L;
+            }
+            others = 0;
+        }
+
+        int maxDistance(int maxLength, double threshold) {
+            if (Double.compare(threshold, boundsThreshold) != 0) {
+                boundsThreshold = threshold;
+                Arrays.fill(bounds, Integer.MIN_VALUE);
+            }
+            if (maxLength >= bounds.length) {
+                int size = bounds.length;
+                bounds = Arrays.copyOf(bounds, Math.max(maxLength + 1, Math.max(64, size * 2)));
+                Arrays.fill(bounds, size, bounds.length, Integer.MIN_VALUE);
+            }
+            int bound = bounds[maxLength];
+            if (bound == Integer.MIN_VALUE) {
+                bound = bounds[maxLength] = FuzzyMatch.maxDistance(maxLength, threshold);
+            }
+            return bound;
+        }
+
+        int[] row(int size) {
+            if (row.length < size) {
+                row = new int[Math.max(size, row.length * 2)];
+            }
+            return row;
+        }
+    }
 }
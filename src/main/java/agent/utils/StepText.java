@@ -0,0 +1,348 @@
+package agent.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written scanners for the step-text chores every parser repeats: Gherkin
+ * keywords, quoted values, whole words and whitespace.
+ *
+ * Each method returns exactly what the regex it replaces returned (noted on the
+ * method), without compiling or allocating a Pattern per call. Whitespace means
+ * regex \s ([ \t\n\x0B\f\r]), word characters mean regex \w ([a-zA-Z0-9_]) and
+ * case-insensitive means ASCII-only, as with (?i).
+ */
+public final class StepText {
+
+    private static final String[] KEYWORDS = {"Given", "When", "Then", "And", "But"};
+
+    private StepText() {
+    }
+
+    /**
+     * Remove a leading Gherkin keyword and the whitespace after it.
+     * Same as step.replaceAll("^(?i)(Given|When|Then|And|But)\\s+", "")
+     */
+    public static String stripKeyword(String step) {
+        for (String keyword : KEYWORDS) {
+            int end = keyword.length();
+            if (startsWithIgnoreCase(step, 0, keyword) && end < step.length() && isWhitespace(step.charAt(end))) {
+                while (end < step.length() && isWhitespace(step.charAt(end))) {
+                    end++;
+                }
+                return step.substring(end);
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Leading Gherkin keyword as written in KEYWORDS ("Given", "When"...), or null.
+     * Same as testing step.trim().matches("(?i)^" + keyword + " .*") for each keyword
+     */
+    public static String keyword(String step) {
+        String trimmed = step.trim();
+        for (String keyword : KEYWORDS) {
+            int end = keyword.length();
+            if (startsWithIgnoreCase(trimmed, 0, keyword) && end < trimmed.length() && trimmed.charAt(end) == ' ') {
+                return hasLineTerminator(trimmed, end + 1) ? null : keyword;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * First value in single or double quotes, or null.
+     * Same as group 1 of the first find() of ["']([^"']+)["']
+     */
+    public static String firstQuoted(String text) {
+        List<String> values = quoted(text, 1);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * All values in single or double quotes, in order.
+     * Same as group 1 of every find() of ["']([^"']+)["']
+     */
+    public static List<String> allQuoted(String text) {
+        return quoted(text, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Start and end (exclusive) of each value allQuoted returns, quotes excluded
+     */
+    public static List<int[]> quotedSpans(String text) {
+        List<int[]> spans = new ArrayList<>(4);
+        int from = 0;
+        while (true) {
+            int open = indexOfQuote(text, from);
+            int close = open < 0 ? -1 : indexOfQuote(text, open + 1);
+            if (close < 0) {
+                return spans;
+            }
+            if (close > open + 1) {
+                spans.add(new int[] {open + 1, close});
+                from = close + 1;
+            } else {
+                from = close;
+            }
+        }
+    }
+
+    /**
+     * Replace the quoted values with their content.
+     * Same as text.replaceAll("[\"']([^\"']+)[\"']", "$1")
+     */
+    public static String unquote(String text) {
+        return replaceQuoted(text, true, null);
+    }
+
+    /**
+     * Replace each quoted value, quotes included, with the replacement.
+     * Same as text.replaceAll("[\"'][^\"']+[\"']", replacement) for a literal replacement
+     */
+    public static String replaceQuoted(String text, String replacement) {
+        return replaceQuoted(text, false, replacement);
+    }
+
+    /**
+     * Replace the first occurrence of value directly enclosed in quotes (either
+     * kind on either side), quotes included.
+     * Same as text.replaceFirst("[\"']" + Pattern.quote(value) + "[\"']", replacement)
+     * for a literal replacement
+     */
+    public static String replaceFirstQuoted(String text, String value, String replacement) {
+        int from = 1;
+        while (true) {
+            int at = text.indexOf(value, from);
+            if (at < 0 || at + value.length() >= text.length()) {
+                return text;
+            }
+            if (isQuote(text.charAt(at - 1)) && isQuote(text.charAt(at + value.length()))) {
+                return text.substring(0, at - 1) + replacement + text.substring(at + value.length() + 1);
+            }
+            from = at + 1;
+        }
+    }
+
+    /**
+     * Collapse every whitespace run into a single space.
+     * Same as text.replaceAll("\\s+", " ")
+     */
+    public static String collapseWhitespace(String text) {
+        if (!needsCollapse(text)) {
+            return text;
+        }
+        StringBuilder collapsed = new StringBuilder(text.length());
+        boolean inRun = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isWhitespace(c)) {
+                if (!inRun) {
+                    collapsed.append(' ');
+                    inRun = true;
+                }
+            } else {
+                collapsed.append(c);
+                inRun = false;
+            }
+        }
+        return collapsed.toString();
+    }
+
+    /**
+     * Same as text.replaceAll("\\s+", " ").trim()
+     */
+    public static String normalizeWhitespace(String text) {
+        return collapseWhitespace(text).trim();
+    }
+
+    /**
+     * Whether the text contains the word with a word boundary on both sides.
+     * Same as Pattern.compile("\\b" + word + "\\b").matcher(text).find() for a
+     * word starting and ending with a word character (case-sensitive)
+     */
+    public static boolean containsWord(String text, String word) {
+        return indexOfWord(text, word, false) >= 0;
+    }
+
+    /**
+     * Case-insensitive containsWord, as with (?i)\bword\b
+     */
+    public static boolean containsWordIgnoreCase(String text, String word) {
+        return indexOfWord(text, word, true) >= 0;
+    }
+
+    /**
+     * Remove the first whole-word occurrence of word, ignoring case.
+     * Same as text.replaceFirst("(?i)\\b" + word + "\\b", "") for a literal word
+     * starting and ending with a word character
+     */
+    public static String removeFirstWord(String text, String word) {
+        int at = indexOfWord(text, word, true);
+        return at < 0 ? text : text.substring(0, at) + text.substring(at + word.length());
+    }
+
+    public static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    public static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * Whether regex \\b matches at pos: a word character on exactly one side, where
+     * a non-spacing mark on a letter or digit counts as a word character too
+     */
+    public static boolean isWordBoundary(String text, int pos) {
+        boolean left = pos > 0 && isBoundaryWordChar(text, Character.codePointBefore(text, pos), pos - 1);
+        boolean right = pos < text.length() && isBoundaryWordChar(text, Character.codePointAt(text, pos), pos);
+        return left != right;
+    }
+
+    /**
+     * Whether text has prefix at offset, folding ASCII letters only as (?i) does
+     */
+    public static boolean startsWithIgnoreCase(String text, int offset, String prefix) {
+        if (offset < 0 || offset + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (toLowerAscii(text.charAt(offset + i)) != toLowerAscii(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the text has, from the offset on, a line terminator: a character
+     * regex "." does not match, so ".*" cannot run across it
+     */
+    public static boolean hasLineTerminator(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfWord(String text, String word, boolean ignoreCase) {
+        if (word.isEmpty()) {
+            return -1;
+        }
+        int last = text.length() - word.length();
+        for (int at = 0; at <= last; at++) {
+            boolean found = ignoreCase ? startsWithIgnoreCase(text, at, word) : text.startsWith(word, at);
+            if (found && isWordBoundary(text, at) && isWordBoundary(text, at + word.length())) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    private static List<String> quoted(String text, int limit) {
+        List<String> values = new ArrayList<>(limit == 1 ? 1 : 4);
+        int from = 0;
+        while (values.size() < limit) {
+            int open = indexOfQuote(text, from);
+            int close = open < 0 ? -1 : indexOfQuote(text, open + 1);
+            if (close < 0) {
+                break;
+            }
+            if (close > open + 1) {
+                values.add(text.substring(open + 1, close));
+                from = close + 1;
+            } else {
+                // Empty quotes: the closing quote may open the next value
+                from = close;
+            }
+        }
+        return values;
+    }
+
+    private static String replaceQuoted(String text, boolean keepContent, String replacement) {
+        StringBuilder result = null;
+        int copied = 0;
+        int from = 0;
+        while (true) {
+            int open = indexOfQuote(text, from);
+            int close = open < 0 ? -1 : indexOfQuote(text, open + 1);
+            if (close < 0) {
+                break;
+            }
+            if (close == open + 1) {
+                from = close;
+                continue;
+            }
+            if (result == null) {
+                result = new StringBuilder(text.length());
+            }
+            result.append(text, copied, open);
+            if (keepContent) {
+                result.append(text, open + 1, close);
+            } else {
+                result.append(replacement);
+            }
+            copied = close + 1;
+            from = close + 1;
+        }
+        if (result == null) {
+            return text;
+        }
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    private static int indexOfQuote(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (isQuote(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '\'';
+    }
+
+    private static boolean needsCollapse(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isWhitespace(c) && (c != ' ' || (i + 1 < text.length() && isWhitespace(text.charAt(i + 1))))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Word character as \\b sees it, for the code point ch at index at
+     */
+    private static boolean isBoundaryWordChar(String text, int ch, int at) {
+        if (ch < 0x300) {
+            // Below the first combining mark
+            return ch < 0x80 && isWordChar((char) ch);
+        }
+        if (Character.getType(ch) != Character.NON_SPACING_MARK) {
+            return false;
+        }
+        for (int x = at; x >= 0; x--) {
+            int base = Character.codePointAt(text, x);
+            if (Character.isLetterOrDigit(base)) {
+                return true;
+            }
+            if (Character.getType(base) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static char toLowerAscii(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
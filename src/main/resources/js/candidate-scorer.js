@@ -0,0 +1,222 @@
+// In-page port of CandidateScorer (and FuzzyMatch.ratio), an expression that
+// evaluates to { prepare(targetName, parsedType), score(record, query) }.
+//
+// Scores must equal the Java ones for the same candidate; the vectors in
+// benchmark/scorer-vectors.json are checked by InPageScoringBenchmark. Java
+// semantics are kept where JS differs: trim() only strips chars <= ' ', \s is
+// [ \t\n\x0B\f\r], and equalsIgnoreCase compares char by char.
+(() => {
+  const TYPE_SUFFIX = /[ \t\n\x0B\f\r]+(button|btn|link|input|field|tab|icon|radio|checkbox|dropdown|select|box|menu|card|item|element|option|header|title|label|slider|range)$/;
+  const WHITESPACE_RUN = /[ \t\n\x0B\f\r]+/g;
+
+  const trim = s => {
+    let start = 0;
+    let end = s.length;
+    while (start < end && s.charCodeAt(start) <= 32) start++;
+    while (end > start && s.charCodeAt(end - 1) <= 32) end--;
+    return start === 0 && end === s.length ? s : s.substring(start, end);
+  };
+  const normalizeWhitespace = s => trim(s.replace(WHITESPACE_RUN, ' '));
+  const upperChar = c => {
+    const u = c.toUpperCase();
+    return u.length === 1 ? u : c;
+  };
+  const lowerChar = c => {
+    const l = c.toLowerCase();
+    return l.length === 1 ? l : c;
+  };
+  const equalsIgnoreCase = (a, b) => {
+    if (a === b) return true;
+    if (a.length !== b.length) return false;
+    for (let i = 0; i < a.length; i++) {
+      const c1 = a[i];
+      const c2 = b[i];
+      if (c1 === c2) continue;
+      const u1 = upperChar(c1);
+      const u2 = upperChar(c2);
+      if (u1 === u2 || lowerChar(u1) === lowerChar(u2)) continue;
+      return false;
+    }
+    return true;
+  };
+  const distance = (s1, s2) => {
+    const visited = s2.length < s1.length ? s2 : s1;
+    const target = s2.length < s1.length ? s1 : s2;
+    const costs = new Array(target.length + 1);
+    for (let i = 0; i < costs.length; i++) costs[i] = i;
+    for (let i = 1; i <= visited.length; i++) {
+      costs[0] = i;
+      let nw = i - 1;
+      for (let j = 1; j <= target.length; j++) {
+        const cj = Math.min(1 + Math.min(costs[j], costs[j - 1]), visited[i - 1] === target[j - 1] ? nw : nw + 1);
+        nw = costs[j];
+        costs[j] = cj;
+      }
+    }
+    return costs[target.length];
+  };
+  const ratio = (s1, s2) => {
+    if (s1.length === 0 && s2.length === 0) return 100.0;
+    s1 = trim(s1.toLowerCase());
+    s2 = trim(s2.toLowerCase());
+    const maxLength = Math.max(s1.length, s2.length);
+    return (1.0 - distance(s1, s2) / maxLength) * 100.0;
+  };
+
+  const prepare = (targetName, parsedType) => {
+    const name = trim(targetName);
+    const lowerName = name.toLowerCase();
+    let cleanName = lowerName;
+    for (;;) {
+      const stripped = trim(cleanName.replace(TYPE_SUFFIX, ''));
+      if (stripped === cleanName) break;
+      cleanName = stripped;
+    }
+    return {
+      name: name,
+      lowerName: lowerName,
+      cleanName: cleanName,
+      cleanTarget: normalizeWhitespace(name).toLowerCase(),
+      cleanTargetCleaned: normalizeWhitespace(cleanName).toLowerCase(),
+      isFill: parsedType === 'input',
+      isCheck: parsedType === 'check' || parsedType === 'checkbox' || parsedType === 'radio',
+      isClick: parsedType === 'button' || parsedType === 'click',
+      isSlider: parsedType === 'slider',
+      isSelect: parsedType === 'select'
+    };
+  };
+
+  const score = (el, q) => {
+    const name = q.name;
+    const lowerName = q.lowerName;
+    const cleanName = q.cleanName;
+    let score = 0.0;
+    const text = trim(el.text);
+    const lowerText = text.toLowerCase();
+    const lowerTitle = el.title.toLowerCase();
+    const lowerLabel = el.label.toLowerCase();
+    const lowerRole = el.role.toLowerCase();
+    const lowerType = el.type.toLowerCase();
+    const className = el.class;
+
+    // TIER 1: exact matches
+    const cleanElText = normalizeWhitespace(text).toLowerCase();
+    let matchedExact = false;
+    if (q.cleanTarget === cleanElText || q.cleanTargetCleaned === cleanElText) {
+      score += 150;
+      matchedExact = true;
+    } else if (equalsIgnoreCase(name, el.label) || equalsIgnoreCase(cleanName, lowerLabel)) {
+      score += 150;
+      matchedExact = true;
+    } else if (equalsIgnoreCase(name, el.placeholder) || equalsIgnoreCase(cleanName, el.placeholder)) {
+      score += 140;
+      matchedExact = true;
+    } else if (equalsIgnoreCase(name, el.title) || equalsIgnoreCase(cleanName, lowerTitle)) {
+      score += 140;
+      matchedExact = true;
+    }
+
+    if (q.isFill || q.isSelect || q.isSlider) {
+      const tag = el.tag.toLowerCase();
+      if (tag === 'label' || tag === 'b' || tag === 'strong' || tag === 'p' || tag === 'span') {
+        score += 30;
+      }
+    }
+
+    // TIER 2: bidirectional contains
+    if (!matchedExact) {
+      if (el.title.length > 0 && (lowerName.includes(lowerTitle) || lowerTitle.includes(lowerName))) {
+        score += 120;
+      } else if (el.label.length > 0 && (lowerName.includes(lowerLabel) || lowerLabel.includes(lowerName))) {
+        score += 120;
+      } else if (text.length > 0 && (lowerText.includes(lowerName) || lowerText.includes(cleanName))) {
+        score += 110;
+      } else if (equalsIgnoreCase(name, el.id) || equalsIgnoreCase(cleanName, el.id)) {
+        score += 100;
+      } else if (equalsIgnoreCase(name, el.name) || equalsIgnoreCase(cleanName, el.name)) {
+        score += 100;
+      }
+    }
+
+    // Fuzzy matching only if no solid match yet
+    if (score < 100) {
+      const lowerId = el.id.toLowerCase();
+      const lowerElName = el.name.toLowerCase();
+      if (lowerText.includes(lowerName) || lowerText.includes(cleanName)) score += 45;
+      if (lowerId.includes(lowerName) || lowerId.includes(cleanName)) score += 45;
+      if (lowerElName.includes(lowerName) || lowerElName.includes(cleanName)) score += 45;
+      if (lowerTitle.includes(lowerName) || lowerTitle.includes(cleanName)) score += 35;
+      if (ratio(name, text) > 85 || ratio(cleanName, text) > 85) score += 30;
+      if (ratio(name, el.id) > 85 || ratio(cleanName, el.id) > 85) score += 30;
+      if (ratio(name, el.title) > 85 || ratio(cleanName, el.title) > 85) score += 30;
+    }
+
+    // Penalty for search/filter fields
+    if (q.isFill && score < 100) {
+      const lowerPlaceholder = el.placeholder.toLowerCase();
+      const lowerElName = el.name.toLowerCase();
+      let isSearchField = false;
+      if (lowerElName === 's' || lowerElName === 'search' || lowerElName === 'q' || lowerElName === 'query') {
+        isSearchField = true;
+      }
+      if (lowerPlaceholder.includes('search') || lowerPlaceholder.includes('filter') ||
+          lowerPlaceholder.includes('type here') || lowerPlaceholder.includes('start typing')) {
+        isSearchField = true;
+      }
+      if (isSearchField && !lowerName.includes('search') && !lowerName.includes('filter')) {
+        score -= 150;
+      }
+    }
+
+    // TIER 3: type-specific boosts and penalties
+    if (q.isFill) {
+      const tag = el.tag.toLowerCase();
+      if ((tag === 'input' || tag === 'textarea') && el.type !== 'checkbox' && el.type !== 'radio' && el.type !== 'range') {
+        score += 50;
+      } else {
+        score -= 100;
+      }
+    }
+    if (q.isCheck) {
+      if (el.tag === 'input' && (el.type === 'checkbox' || el.type === 'radio')) {
+        score += 100;
+      } else {
+        score -= 100;
+      }
+    }
+    const interactive = el.tag === 'button' || el.tag === 'a' || el.type === 'submit' || lowerRole === 'button';
+    if (q.isClick) {
+      if (interactive || className.includes('btn')) {
+        score += 50;
+      }
+    } else if (interactive) {
+      score += 10;
+    }
+    if (q.isSlider) {
+      const lowerClass = className.toLowerCase();
+      if (lowerType === 'range' || lowerRole === 'slider') {
+        score += 500;
+      } else if (lowerClass.includes('slider') || lowerClass.includes('range')) {
+        score += 100;
+      } else {
+        score -= 200;
+      }
+    }
+    if (lowerType === 'progressbar' || lowerRole === 'progressbar') {
+      score += 500;
+    } else if (className.toLowerCase().includes('progress')) {
+      score += 100;
+    }
+
+    // TIER 4: visibility boost and length penalty
+    if (el.visible) {
+      score += 100;
+    }
+    if (text.length > 100 && text.length > name.length * 5) {
+      score -= 150;
+    }
+    return score;
+  };
+
+  return { prepare: prepare, score: score };
+})()
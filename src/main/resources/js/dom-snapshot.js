@@ -0,0 +1,336 @@
+// In-page candidate store for DomScanner (evaluated as a function on every scan).
+//
+// The first call in a document installs window.__ncaDomStore: one record per
+// candidate element, keyed by a numeric id, and a MutationObserver that marks
+// what changed. Later calls recompute only the records of mutated subtrees and
+// their ancestors (whose innerText includes the change), plus the records of
+// elements whose visibility flipped without a mutation (hover menus, media
+// queries). The store's epoch rises whenever a record or the candidate order
+// changes.
+//
+// Called as fn(arg) for a page or frame and fn(root, arg) for a scope, where
+// arg.known maps store tokens to the epoch the caller already holds. Returns
+// { token, epoch } and then either unchanged: true, or the records changed
+// since the caller's epoch (all of them for an unknown token) and the full
+// candidate order when it changed. Scoped calls also return the ids under root.
+//
+// Reads are never interleaved with DOM writes, and visibility is read for
+// every candidate before any text, so layout is computed at most once per
+// call. Text (innerText) longer than arg.textCap is a container's and is cut
+// to the cap; that long, it takes the scorer's long-text penalty either way.
+// Every result carries scanMs, the time spent in this function.
+//
+// The result comes back as one JSON string, and records as columns: a table
+// of the distinct strings, then one array per field holding indexes into it
+// (visible as 0/1). DomScanner reads that with a streaming parser instead of
+// Playwright building a map per element, and equal values (tags, types,
+// classes, empty strings) share one Java string.
+//
+// With arg.query ({ name, type, k, includeHidden }) the candidates are scored
+// here instead (candidate-scorer.js, inlined by DomScanner) and only the k
+// best come back as top, in document order, with their score; the caller's
+// copy of the store is not advanced.
+//
+// With arg.pin (an attribute name) every candidate is stamped with it, as
+// "token:id", once its id is assigned, so LocatorFactory can point at the
+// very node that won. Stamps are written after all reads and are not
+// mutations the store (or element-wait.js) reacts to.
+(first, second) => {
+  const root = second === undefined ? null : first;
+  const arg = (second === undefined ? first : second) || {};
+  const known = arg.known || {};
+  const textCap = arg.textCap || 2000;
+  const pin = arg.pin || null;
+  const started = performance.now();
+  const SELECTOR = 'button, a, input, textarea, select, [role="button"], label, li, span, div, p, h1, h2, h3, h4, h5, h6, b, strong, i, em';
+  // Past this many pending mutation targets, recomputing everything is cheaper
+  const MAX_DIRTY = 1000;
+
+  let store = window.__ncaDomStore;
+  if (!store || store.doc !== document) {
+    store = {
+      token: Date.now().toString(36) + Math.random().toString(36).slice(2),
+      doc: document,
+      epoch: 0,
+      orderVersion: 0,
+      nextId: 1,
+      ids: new WeakMap(),
+      entries: new Map(),
+      order: [],
+      membershipDirty: true,
+      allDirty: false,
+      // Subtrees to recompute, and elements whose ancestors (and themselves) to recompute
+      dirty: new Set(),
+      touched: new Set()
+    };
+    const observer = new MutationObserver(mutations => {
+      for (const m of mutations) {
+        // Our own stamps
+        if (pin !== null && m.attributeName === pin) {
+          continue;
+        }
+        // The selector matches on role, so a role change can add or drop a candidate
+        if (m.type === 'childList' || m.attributeName === 'role') {
+          store.membershipDirty = true;
+        }
+        if (store.allDirty) {
+          continue;
+        }
+        // Attribute changes can restyle the whole subtree; other changes only touch the target
+        const el = m.target.nodeType === 1 ? m.target : m.target.parentElement;
+        if (el) {
+          (m.type === 'attributes' ? store.dirty : store.touched).add(el);
+        }
+        if (store.dirty.size + store.touched.size > MAX_DIRTY) {
+          store.allDirty = true;
+          store.dirty.clear();
+          store.touched.clear();
+        }
+      }
+    });
+    observer.observe(document, { childList: true, subtree: true, attributes: true, characterData: true });
+    window.__ncaDomStore = store;
+  }
+
+  // Same as a non-empty box with display != none and visibility != hidden. checkVisibility()
+  // answers display and visibility (own or inherited) from style alone, so hidden
+  // elements never need a rect; it also treats visibility: collapse as hidden.
+  const canCheckVisibility = typeof Element.prototype.checkVisibility === 'function';
+  const isVisible = el => {
+    if (canCheckVisibility) {
+      if (!el.checkVisibility({ visibilityProperty: true })) {
+        return false;
+      }
+    } else {
+      const style = window.getComputedStyle(el);
+      if (style.visibility === 'hidden' || style.display === 'none') {
+        return false;
+      }
+    }
+    const rect = el.getBoundingClientRect();
+    return rect.width > 0 && rect.height > 0;
+  };
+  // Not pre-filtered on textContent: hidden menus, <script> and <style> count
+  // there, so a short visible label can have a long textContent
+  const textOf = el => {
+    const text = el.innerText || el.textContent || '';
+    return text.length > textCap ? text.substring(0, textCap) : text;
+  };
+  const recordOf = (el, id, visible) => ({
+    nid: id,
+    tag: el.tagName ? el.tagName.toLowerCase() : '',
+    id: el.id || '',
+    forAttr: el.getAttribute ? el.getAttribute('for') || '' : '',
+    name: el.name || '',
+    text: textOf(el),
+    placeholder: el.placeholder || '',
+    label: el.getAttribute ? el.getAttribute('aria-label') || '' : '',
+    title: el.getAttribute ? el.getAttribute('title') || '' : '',
+    type: el.type || '',
+    role: el.getAttribute ? el.getAttribute('role') || '' : '',
+    class: typeof el.className === 'string' ? el.className : (el.getAttribute ? el.getAttribute('class') || '' : ''),
+    visible: visible
+  });
+  const FIELDS = ['tag', 'id', 'forAttr', 'name', 'text', 'placeholder', 'label', 'title', 'type', 'role', 'class'];
+  const columnsOf = (records, scores) => {
+    const strings = [];
+    const index = new Map();
+    const intern = s => {
+      let i = index.get(s);
+      if (i === undefined) {
+        i = strings.length;
+        strings.push(s);
+        index.set(s, i);
+      }
+      return i;
+    };
+    const columns = { strings: strings, nid: records.map(r => r.nid), visible: records.map(r => r.visible ? 1 : 0) };
+    for (const field of FIELDS) {
+      columns[field] = records.map(r => intern(r[field]));
+    }
+    if (scores) {
+      columns.score = scores;
+    }
+    return columns;
+  };
+  const sameRecord = (a, b) => a.tag === b.tag && a.id === b.id && a.forAttr === b.forAttr && a.name === b.name &&
+    a.text === b.text && a.placeholder === b.placeholder && a.label === b.label && a.title === b.title &&
+    a.type === b.type && a.role === b.role && a.class === b.class && a.visible === b.visible;
+
+  const next = store.epoch + 1;
+  let changed = false;
+  // New elements to stamp once everything is read
+  const unstamped = [];
+  const recompute = new Set();
+  const addWithAncestors = el => {
+    for (let p = el; p; p = p.parentElement) {
+      const id = store.ids.get(p);
+      if (id !== undefined) {
+        recompute.add(id);
+      }
+    }
+  };
+
+  // 1. Candidate membership and order, only after nodes were added or removed
+  if (store.membershipDirty) {
+    store.membershipDirty = false;
+    const elements = document.querySelectorAll(SELECTOR);
+    const order = new Array(elements.length);
+    const alive = new Set();
+    for (let i = 0; i < elements.length; i++) {
+      const el = elements[i];
+      let id = store.ids.get(el);
+      // An element that left the candidates and came back (detached and re-inserted)
+      // keeps its id but lost its entry
+      if (id === undefined || !store.entries.has(id)) {
+        if (id === undefined) {
+          id = store.nextId++;
+          store.ids.set(el, id);
+        }
+        store.entries.set(id, { el: el, record: null, version: 0 });
+        if (pin !== null) {
+          unstamped.push(id);
+        }
+      }
+      order[i] = id;
+      alive.add(id);
+    }
+    for (const id of store.entries.keys()) {
+      if (!alive.has(id)) {
+        store.entries.delete(id);
+      }
+    }
+    let sameOrder = order.length === store.order.length;
+    for (let i = 0; sameOrder && i < order.length; i++) {
+      sameOrder = order[i] === store.order[i];
+    }
+    if (!sameOrder) {
+      store.order = order;
+      store.orderVersion = next;
+      changed = true;
+    }
+  }
+
+  // 2. Records touched by mutations
+  if (store.allDirty) {
+    store.allDirty = false;
+    for (const id of store.order) {
+      recompute.add(id);
+    }
+  } else {
+    for (const el of store.touched) {
+      if (el.isConnected) {
+        addWithAncestors(el);
+      }
+    }
+    for (const el of store.dirty) {
+      if (el.isConnected) {
+        addWithAncestors(el);
+        for (const child of el.querySelectorAll(SELECTOR)) {
+          const id = store.ids.get(child);
+          if (id !== undefined) {
+            recompute.add(id);
+          }
+        }
+      }
+    }
+  }
+  store.dirty.clear();
+  store.touched.clear();
+
+  // 3. Visibility can change without a mutation; a flip also changes ancestors' innerText
+  const visibility = new Map();
+  for (const id of store.order) {
+    const entry = store.entries.get(id);
+    const visible = isVisible(entry.el);
+    visibility.set(id, visible);
+    if (entry.record === null || entry.record.visible !== visible) {
+      addWithAncestors(entry.el);
+    }
+  }
+
+  for (const id of recompute) {
+    const entry = store.entries.get(id);
+    if (!entry) {
+      continue;
+    }
+    const record = recordOf(entry.el, id, visibility.get(id));
+    if (entry.record === null || !sameRecord(entry.record, record)) {
+      entry.record = record;
+      entry.version = next;
+      changed = true;
+    }
+  }
+  if (changed) {
+    store.epoch = next;
+  }
+  for (const id of unstamped) {
+    const entry = store.entries.get(id);
+    if (entry) {
+      entry.el.setAttribute(pin, store.token + ':' + id);
+    }
+  }
+
+  const result = { token: store.token, epoch: store.epoch };
+  const finish = () => {
+    result.scanMs = performance.now() - started;
+    return JSON.stringify(result);
+  };
+  if (arg.query) {
+    const scorer = /*CANDIDATE_SCORER*/null;
+    const query = scorer.prepare(arg.query.name, arg.query.type);
+    const ids = root ? Array.from(root.querySelectorAll(SELECTOR), el => store.ids.get(el)) : store.order;
+    const k = Math.max(1, arg.query.k);
+    // Best first; ties go to the earlier element, as in SmartLocator's scan
+    const best = [];
+    let scored = 0;
+    for (let i = 0; i < ids.length; i++) {
+      const entry = store.entries.get(ids[i]);
+      if (!entry || (!arg.query.includeHidden && !entry.record.visible)) {
+        continue;
+      }
+      scored++;
+      const score = scorer.score(entry.record, query);
+      if (best.length === k && score <= best[k - 1].score) {
+        continue;
+      }
+      let at = Math.min(best.length, k - 1);
+      while (at > 0 && score > best[at - 1].score) {
+        at--;
+      }
+      best.splice(at, 0, { position: i, record: entry.record, score: score });
+      if (best.length > k) {
+        best.pop();
+      }
+    }
+    best.sort((a, b) => a.position - b.position);
+    result.scored = scored;
+    result.top = columnsOf(best.map(b => b.record), best.map(b => b.score));
+    return finish();
+  }
+  if (root) {
+    const scoped = root.querySelectorAll(SELECTOR);
+    const ids = new Array(scoped.length);
+    for (let i = 0; i < scoped.length; i++) {
+      ids[i] = store.ids.get(scoped[i]) || 0;
+    }
+    result.scope = ids;
+  }
+  const since = Object.prototype.hasOwnProperty.call(known, store.token) ? known[store.token] : -1;
+  if (since === store.epoch) {
+    result.unchanged = true;
+    return finish();
+  }
+  if (since < store.orderVersion) {
+    result.order = store.order;
+  }
+  const records = [];
+  for (const id of store.order) {
+    const entry = store.entries.get(id);
+    if (entry.version > since) {
+      records.push(entry.record);
+    }
+  }
+  result.records = columnsOf(records);
+  return finish();
+}
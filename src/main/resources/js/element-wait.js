@@ -0,0 +1,91 @@
+// In-page wait for SmartLocator.waitForSmartElement (evaluated as a function).
+//
+// The target is arg.query ({ name, type, k, includeHidden }), scored by the
+// snapshot store (dom-snapshot.js, inlined by DomScanner); its best candidate
+// counts when it scores above arg.minScore. The caller has just scanned and
+// rejected what it found, so this resolves true at once only if the store
+// changed since the epoch the caller last saw (arg.seen maps store tokens to
+// epochs) and a candidate counts. Otherwise it resolves true once the best
+// counting candidate differs from the current one, and false after
+// arg.timeoutMs. The target is checked again after DOM mutations and finished
+// CSS transitions or animations (at most once per arg.settleMs), and every
+// arg.recheckMs for changes neither reports. Stamps written by the store
+// (arg.pin) are not changes. arg.rejected is the store token and id
+// ("token:nid", stamped or not) of the element the caller turned down; it
+// never counts as the best candidate having changed.
+//
+// Called as fn(arg) for a page or frame and fn(root, arg) for a scope.
+(first, second) => {
+  const root = second === undefined ? null : first;
+  const arg = (second === undefined ? first : second) || {};
+  const seen = arg.seen || {};
+  const snapshot = /*DOM_SNAPSHOT*/null;
+  const storeArg = { known: {}, textCap: arg.textCap, query: arg.query, pin: arg.pin };
+
+  // The best counting candidate as "id:score" (null if none or the rejected one)
+  const bestMatch = () => {
+    const result = JSON.parse(root ? snapshot(root, storeArg) : snapshot(storeArg));
+    const top = result.top;
+    let best = null;
+    let bestId = -1;
+    let bestScore = arg.minScore;
+    for (let i = 0; i < top.nid.length; i++) {
+      if (top.score[i] > bestScore) {
+        bestScore = top.score[i];
+        bestId = top.nid[i];
+        best = bestId + ':' + top.score[i];
+      }
+    }
+    if (best !== null && result.token + ':' + bestId === arg.rejected) {
+      best = null;
+    }
+    return { token: result.token, epoch: result.epoch, best: best };
+  };
+  const initial = bestMatch();
+  const since = Object.prototype.hasOwnProperty.call(seen, initial.token) ? seen[initial.token] : -1;
+  if (initial.best !== null && initial.epoch !== since) {
+    return true;
+  }
+
+  return new Promise(resolve => {
+    let scheduled = null;
+    let finished = false;
+    const check = () => {
+      scheduled = null;
+      if (finished || (root !== null && !root.isConnected)) {
+        return;
+      }
+      const now = bestMatch().best;
+      if (now !== null && now !== initial.best) {
+        finish(true);
+      }
+    };
+    const schedule = () => {
+      if (scheduled === null) {
+        scheduled = setTimeout(check, arg.settleMs);
+      }
+    };
+    const observer = new MutationObserver(mutations => {
+      if (mutations.some(m => m.attributeName !== arg.pin)) {
+        schedule();
+      }
+    });
+    const recheck = setInterval(schedule, arg.recheckMs);
+    const timeout = setTimeout(() => finish(false), arg.timeoutMs);
+    const finish = found => {
+      finished = true;
+      observer.disconnect();
+      document.removeEventListener('transitionend', schedule, true);
+      document.removeEventListener('animationend', schedule, true);
+      clearInterval(recheck);
+      clearTimeout(timeout);
+      if (scheduled !== null) {
+        clearTimeout(scheduled);
+      }
+      resolve(found);
+    };
+    observer.observe(document, { childList: true, subtree: true, attributes: true, characterData: true });
+    document.addEventListener('transitionend', schedule, true);
+    document.addEventListener('animationend', schedule, true);
+  });
+}